@@ -0,0 +1,172 @@
+package ulm.university.news.api;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ulm.university.news.util.exceptions.ServerException;
+
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.core.Response;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static ulm.university.news.util.Constants.*;
+
+/**
+ * The AsyncRequestExecutor class executes the write requests of the API on a dedicated, bounded thread pool. The
+ * requests are suspended, so the servlet thread is released while a request waits for the database or the mail
+ * server. Slow requests therefore can't exhaust the threads of the servlet container, which are needed for all other
+ * requests. If the pool and its queue are full, a request is rejected immediately. If a request hasn't been started
+ * within the request timeout, the client receives an error and the request is dropped without being executed. A
+ * request which is already running when the timeout expires gets more time once, so the client usually receives the
+ * result of a write which has been executed. If it is still running after the extension, the client receives an error,
+ * so a hanging request can't hold the connection of the client forever.
+ *
+ * @author Matthias Mak
+ * @author Philipp Speidel
+ */
+public class AsyncRequestExecutor {
+
+    /** The logger instance for AsyncRequestExecutor. */
+    private static final Logger logger = LoggerFactory.getLogger(AsyncRequestExecutor.class);
+
+    /** A reference for the AsyncRequestExecutor Singleton class. */
+    private static AsyncRequestExecutor _instance;
+
+    /** The number of threads which execute requests. */
+    private static final int POOL_SIZE = 16;
+
+    /** The maximum number of requests which wait for a thread. */
+    private static final int QUEUE_CAPACITY = 200;
+
+    /**
+     * The time in seconds after which the client of a request which hasn't been started receives an error. The
+     * timeout of a running request is extended by this time.
+     */
+    private static final int REQUEST_TIMEOUT = 30;
+
+    /** The maximum number of timeout extensions of a running request. */
+    private static final int MAX_TIMEOUT_EXTENSIONS = 1;
+
+    /** The time in seconds which defines how long running requests are awaited on shutdown. */
+    private static final int SHUTDOWN_TIMEOUT = 10;
+
+    /** The state of a request which waits for a thread. */
+    private static final int STATE_QUEUED = 0;
+
+    /** The state of a request which is executed. */
+    private static final int STATE_RUNNING = 1;
+
+    /** The state of a request which has timed out before it has been started. */
+    private static final int STATE_TIMED_OUT = 2;
+
+    /** The thread pool which executes the requests. */
+    private final ThreadPoolExecutor executor;
+
+    /**
+     * A request which is executed asynchronously.
+     */
+    public interface RequestTask {
+        /**
+         * Executes the request.
+         *
+         * @return The response of the request.
+         * @throws ServerException If the execution of the request has failed.
+         */
+        Response execute() throws ServerException;
+    }
+
+    /**
+     * Creates an Instance of the AsyncRequestExecutor class.
+     */
+    private AsyncRequestExecutor() {
+        AtomicInteger threadNumber = new AtomicInteger(1);
+        executor = new ThreadPoolExecutor(POOL_SIZE, POOL_SIZE, 60L, TimeUnit.SECONDS, new ArrayBlockingQueue<Runnable>
+                (QUEUE_CAPACITY), runnable -> {
+            Thread thread = new Thread(runnable, "async-request-" + threadNumber.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Get an instance of the AsyncRequestExecutor class.
+     *
+     * @return Instance of AsyncRequestExecutor.
+     */
+    public static synchronized AsyncRequestExecutor getInstance() {
+        if (_instance == null) {
+            _instance = new AsyncRequestExecutor();
+        }
+        return _instance;
+    }
+
+    /**
+     * Executes the given request on the thread pool and resumes the suspended response with its result. A
+     * ServerException of the request is handed over to the ErrorHandler class as usual. A request which hasn't been
+     * started within the timeout or whose response has been cancelled in the meantime isn't executed anymore.
+     *
+     * @param asyncResponse The suspended response of the request.
+     * @param task The request which should be executed.
+     */
+    public void execute(AsyncResponse asyncResponse, RequestTask task) {
+        AtomicInteger state = new AtomicInteger(STATE_QUEUED);
+        AtomicInteger extensions = new AtomicInteger();
+        asyncResponse.setTimeoutHandler(response -> {
+            if (state.compareAndSet(STATE_QUEUED, STATE_TIMED_OUT)) {
+                logger.error(LOG_SERVER_EXCEPTION, 503, REQUEST_TIMED_OUT, "Request not started within the timeout.");
+                response.resume(new ServerException(503, REQUEST_TIMED_OUT));
+            } else if (extensions.getAndIncrement() < MAX_TIMEOUT_EXTENSIONS) {
+                // The request is running and might already have changed data. Wait for its result.
+                logger.warn("Request still running after {} seconds. Timeout extended.", REQUEST_TIMEOUT);
+                response.setTimeout(REQUEST_TIMEOUT, TimeUnit.SECONDS);
+            } else {
+                // Release the client. The result of the request is discarded when it finishes.
+                logger.error(LOG_SERVER_EXCEPTION, 503, REQUEST_TIMED_OUT, "Request still running after the extended " +
+                        "timeout. Its write may still be committed.");
+                response.resume(new ServerException(503, REQUEST_TIMED_OUT));
+            }
+        });
+        asyncResponse.setTimeout(REQUEST_TIMEOUT, TimeUnit.SECONDS);
+        try {
+            executor.execute(() -> {
+                if (asyncResponse.isDone() || asyncResponse.isCancelled() || !state.compareAndSet(STATE_QUEUED,
+                        STATE_RUNNING)) {
+                    logger.warn("Request has timed out or been cancelled before it has been started. Dropped.");
+                    return;
+                }
+                try {
+                    asyncResponse.resume(task.execute());
+                } catch (ServerException e) {
+                    asyncResponse.resume(e);
+                } catch (RuntimeException e) {
+                    logger.error("Unexpected error during the execution of a request.", e);
+                    asyncResponse.resume(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            logger.error(LOG_SERVER_EXCEPTION, 503, SERVER_OVERLOADED, "Request rejected, all threads are busy.");
+            asyncResponse.resume(new ServerException(503, SERVER_OVERLOADED));
+        }
+    }
+
+    /**
+     * Stops accepting requests and waits until the running and queued requests are finished.
+     */
+    public void shutdown() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(SHUTDOWN_TIMEOUT, TimeUnit.SECONDS)) {
+                int dropped = executor.shutdownNow().size();
+                logger.warn("Async request executor didn't terminate in time. Dropped {} queued request(s).", dropped);
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        logger.info("Async request executor stopped.");
+    }
+}
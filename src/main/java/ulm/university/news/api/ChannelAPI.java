@@ -1,29 +1,29 @@
 package ulm.university.news.api;
 
-import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.DeserializationFeature;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.SerializationFeature;
-import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
-import com.fasterxml.jackson.datatype.jsr310.deser.key.ZonedDateTimeKeyDeserializer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import ulm.university.news.controller.ChannelController;
 import ulm.university.news.data.*;
 import ulm.university.news.data.enums.ChannelType;
+import ulm.university.news.data.enums.SortDirection;
 import ulm.university.news.util.PATCH;
 import ulm.university.news.util.exceptions.ServerException;
 
 import javax.ws.rs.*;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.Suspended;
 import javax.ws.rs.core.Context;
+import javax.ws.rs.core.EntityTag;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Request;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.UriInfo;
 import java.io.IOException;
 import java.net.URI;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeParseException;
+import java.util.Date;
 import java.util.List;
 
 import static ulm.university.news.util.Constants.*;
@@ -46,19 +46,11 @@ public class ChannelAPI {
     /** The logger instance for ChannelAPI. */
     private static final Logger logger = LoggerFactory.getLogger(ChannelAPI.class);
 
-    /** An instance of the Jackson mapper to parse dates and subclasses properly to JSON. */
-    ObjectMapper mapper;
+    /** The shared Jackson readers and writers to parse dates and subclasses properly from and to JSON. */
+    private JsonConverter jsonConverter = JsonConverter.getInstance();
 
-    /**
-     * Instantiates the ChannelAPI and configures the Jackson mapper.
-     */
-    public ChannelAPI() {
-        mapper = new ObjectMapper();
-        // Make sure that dates are formatted correctly.
-        mapper.registerModule(new JavaTimeModule());
-        mapper.configure(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS, true);
-        mapper.setSerializationInclusion(JsonInclude.Include.NON_NULL);
-    }
+    /** Executes the write requests asynchronously on a bounded thread pool. */
+    private AsyncRequestExecutor asyncExecutor = AsyncRequestExecutor.getInstance();
 
     /**
      * Create a new channel and adds the creator to its responsible moderators. The data of the new channel is
@@ -68,23 +60,24 @@ public class ChannelAPI {
      * @param accessToken The access token of the requestor.
      * @param json The JSON String of a channel which is contained in the body of the HTTP request.
      * @param uriInfo Information about the URI of this request.
-     * @return Response object including the created channel object and a set Location Header.
-     * @throws ServerException If the execution of the POST request has failed. The ServerException contains
-     * information about the error which has occurred.
+     * @param asyncResponse The suspended response which is resumed with a response object including the created channel
+     * object and a set Location Header.
      */
     @POST
     @Consumes(MediaType.APPLICATION_JSON)
     @Produces(MediaType.APPLICATION_JSON)
-    public Response createChannel(@HeaderParam("Authorization") String accessToken, @Context UriInfo uriInfo, String
-            json) throws ServerException {
-        // Create appropriate channel object from JSON String.
-        Channel channel = getChannelFromJSON(json);
-        channel = channelCtrl.createChannel(accessToken, channel);
-        // Create the URI for the created channel resource.
-        URI createdURI = URI.create(uriInfo.getBaseUri().toString() + "channel" + "/" + channel.getId());
-        String channelAsJson = parseToJson(channel);
-        // Return the created channel resource and the Location Header.
-        return Response.status(Response.Status.CREATED).contentLocation(createdURI).entity(channelAsJson).build();
+    public void createChannel(@HeaderParam("Authorization") String accessToken, @Context UriInfo uriInfo, String json,
+            @Suspended AsyncResponse asyncResponse) {
+        asyncExecutor.execute(asyncResponse, () -> {
+            // Create appropriate channel object from JSON String.
+            Channel channel = getChannelFromJSON(json);
+            channel = channelCtrl.createChannel(accessToken, channel);
+            // Create the URI for the created channel resource.
+            URI createdURI = URI.create(uriInfo.getBaseUri().toString() + "channel" + "/" + channel.getId());
+            String channelAsJson = parseToJson(channel);
+            // Return the created channel resource and the Location Header.
+            return Response.status(Response.Status.CREATED).contentLocation(createdURI).entity(channelAsJson).build();
+        });
     }
 
     /**
@@ -95,22 +88,23 @@ public class ChannelAPI {
      * @param accessToken The access token of the requestor.
      * @param channelId The id of the channel which should be changed.
      * @param json The JSON String of a channel which is contained in the body of the HTTP request.
-     * @return Response object including the changed channel data.
-     * @throws ServerException If the execution of the PATCH request has failed. The ServerException contains
-     * information about the error which has occurred.
+     * @param asyncResponse The suspended response which is resumed with a response object including the changed channel
+     * data.
      */
     @PATCH
     @Consumes(MediaType.APPLICATION_JSON)
     @Produces(MediaType.APPLICATION_JSON)
     @Path("/{id}")
-    public Response changeChannel(@HeaderParam("Authorization") String accessToken, @PathParam("id") int channelId,
-                                  String json) throws ServerException {
-        // Create appropriate channel object from JSON String.
-        Channel channel = getChannelFromJSON(json);
-        channel = channelCtrl.changeChannel(accessToken, channelId, channel);
-        // Return updated channel resource.
-        String channelAsJson = parseToJson(channel);
-        return Response.status(Response.Status.OK).entity(channelAsJson).build();
+    public void changeChannel(@HeaderParam("Authorization") String accessToken, @PathParam("id") int channelId, String
+            json, @Suspended AsyncResponse asyncResponse) {
+        asyncExecutor.execute(asyncResponse, () -> {
+            // Create appropriate channel object from JSON String.
+            Channel channel = getChannelFromJSON(json);
+            channel = channelCtrl.changeChannel(accessToken, channelId, channel);
+            // Return updated channel resource.
+            String channelAsJson = parseToJson(channel);
+            return Response.status(Response.Status.OK).entity(channelAsJson).build();
+        });
     }
 
 
@@ -121,14 +115,16 @@ public class ChannelAPI {
      * @param accessToken The access token of the requestor.
      * @param moderatorId Get only channels for which the moderator with the given id is responsible.
      * @param lastUpdated Get only channels with a newer modification data as the last updated date.
-     * @return Response object including a list with channel data.
+     * @param request The request which is used to evaluate the preconditions of a conditional request.
+     * @return Response object including a list with channel data or status 304 if the channels haven't changed.
      * @throws ServerException If the execution of the GET request has failed. The ServerException contains
      * information about the error which has occurred.
      */
     @GET
     @Produces(MediaType.APPLICATION_JSON)
     public Response getChannels(@HeaderParam("Authorization") String accessToken, @QueryParam("moderatorId")
-    Integer moderatorId, @QueryParam("lastUpdated") String lastUpdated) throws ServerException {
+    Integer moderatorId, @QueryParam("lastUpdated") String lastUpdated, @Context Request request) throws
+            ServerException {
         ZonedDateTime lastUpdatedDate = null;
         try {
             // Verify correct date format.
@@ -139,10 +135,16 @@ public class ChannelAPI {
             logger.error(LOG_SERVER_EXCEPTION, 400, PARSING_FAILURE, "Couldn't parse date String.");
             throw new ServerException(400, PARSING_FAILURE);
         }
+        // Answer a conditional request without loading the channels if they haven't changed.
+        EntityTag eTag = getEntityTag(channelCtrl.getChannelsVersion(accessToken, moderatorId, lastUpdatedDate));
+        Response.ResponseBuilder notModified = request.evaluatePreconditions(eTag);
+        if (notModified != null) {
+            return notModified.build();
+        }
         // Get all the requested channel resources.
         List<Channel> channels = channelCtrl.getChannels(accessToken, moderatorId, lastUpdatedDate);
-        String channelsAsJson = parseToJson(channels);
-        return Response.status(Response.Status.OK).entity(channelsAsJson).build();
+        return Response.status(Response.Status.OK).entity(jsonConverter.toStreamingOutput(channels)).tag(eTag)
+                .build();
     }
 
     /**
@@ -150,20 +152,31 @@ public class ChannelAPI {
      *
      * @param accessToken The access token of the requestor.
      * @param channelId The id of the channel.
-     * @return Response object including a the channel data.
+     * @param request The request which is used to evaluate the preconditions of a conditional request.
+     * @return Response object including a the channel data or status 304 if the channel hasn't changed.
      * @throws ServerException If the execution of the GET request has failed. The ServerException contains
      * information about the error which has occurred.
      */
     @GET
     @Path("/{id}")
     @Produces(MediaType.APPLICATION_JSON)
-    public Response getChannel(@HeaderParam("Authorization") String accessToken, @PathParam("id") int channelId) throws
-            ServerException {
+    public Response getChannel(@HeaderParam("Authorization") String accessToken, @PathParam("id") int channelId,
+                               @Context Request request) throws ServerException {
+        // Answer a conditional request without loading the channel if it hasn't changed.
+        ResourceVersion version = channelCtrl.getChannelVersion(accessToken, channelId);
+        EntityTag eTag = getEntityTag(version);
+        Date lastModified = version.getLastModified() != null ? Date.from(version.getLastModified().toInstant()) :
+                null;
+        Response.ResponseBuilder notModified = lastModified != null ? request.evaluatePreconditions(lastModified,
+                eTag) : request.evaluatePreconditions(eTag);
+        if (notModified != null) {
+            return notModified.build();
+        }
         // Get the requested channel resource.
         Channel channel = channelCtrl.getChannel(accessToken, channelId);
         // Return the channel resource.
         String channelAsJson = parseToJson(channel);
-        return Response.status(Response.Status.OK).entity(channelAsJson).build();
+        return Response.status(Response.Status.OK).entity(channelAsJson).tag(eTag).lastModified(lastModified).build();
     }
 
     /**
@@ -171,17 +184,17 @@ public class ChannelAPI {
      *
      * @param accessToken The access token of the requestor.
      * @param channelId The id of the channel which should be deleted.
-     * @return Response object.
-     * @throws ServerException If the execution of the DELETE request has failed. The ServerException contains
-     * information about the error which has occurred.
+     * @param asyncResponse The suspended response which is resumed with a response object.
      */
     @DELETE
     @Path("/{id}")
-    public Response deleteChannel(@HeaderParam("Authorization") String accessToken, @PathParam("id") int channelId)
-            throws ServerException {
-        channelCtrl.deleteChannel(accessToken, channelId);
-        // Return 204 No Content
-        return Response.status(Response.Status.NO_CONTENT).build();
+    public void deleteChannel(@HeaderParam("Authorization") String accessToken, @PathParam("id") int channelId,
+            @Suspended AsyncResponse asyncResponse) {
+        asyncExecutor.execute(asyncResponse, () -> {
+            channelCtrl.deleteChannel(accessToken, channelId);
+            // Return 204 No Content
+            return Response.status(Response.Status.NO_CONTENT).build();
+        });
     }
 
     /**
@@ -190,19 +203,19 @@ public class ChannelAPI {
      * @param accessToken The access token of the requestor.
      * @param channelId The id of the channel to which the moderator should be added.
      * @param moderator The moderator (including the name) who should be added to the channel.
-     * @return Response object.
-     * @throws ServerException If the execution of the POST request has failed. The ServerException contains
-     * information about the error which has occurred.
+     * @param asyncResponse The suspended response which is resumed with a response object.
      */
     @POST
     @Path("/{id}/moderator")
     @Consumes(MediaType.APPLICATION_JSON)
     @Produces(MediaType.APPLICATION_JSON)
-    public Response addModeratorToChannel(@HeaderParam("Authorization") String accessToken, @PathParam("id") int
-            channelId, Moderator moderator) throws ServerException {
-        channelCtrl.addModeratorToChannel(accessToken, channelId, moderator.getName());
-        // Return 201 Created
-        return Response.status(Response.Status.CREATED).build();
+    public void addModeratorToChannel(@HeaderParam("Authorization") String accessToken, @PathParam("id") int channelId,
+            Moderator moderator, @Suspended AsyncResponse asyncResponse) {
+        asyncExecutor.execute(asyncResponse, () -> {
+            channelCtrl.addModeratorToChannel(accessToken, channelId, moderator.getName());
+            // Return 201 Created
+            return Response.status(Response.Status.CREATED).build();
+        });
     }
 
     /**
@@ -211,17 +224,17 @@ public class ChannelAPI {
      * @param accessToken The access token of the requestor.
      * @param channelId The id of the channel for which the moderator is responsible.
      * @param moderatorId The id of the moderator who should be removed as responsible moderator from the channel.
-     * @return Response object.
-     * @throws ServerException If the execution of the DELETE request has failed. The ServerException contains
-     * information about the error which has occurred.
+     * @param asyncResponse The suspended response which is resumed with a response object.
      */
     @DELETE
     @Path("/{channelId}/moderator/{moderatorId}")
-    public Response removeModeratorFromChannel(@HeaderParam("Authorization") String accessToken, @PathParam("channelId")
-    int channelId, @PathParam("moderatorId") int moderatorId) throws ServerException {
-        channelCtrl.removeModeratorFromChannel(accessToken, channelId, moderatorId);
-        // Return 204 No Content
-        return Response.status(Response.Status.NO_CONTENT).build();
+    public void removeModeratorFromChannel(@HeaderParam("Authorization") String accessToken, @PathParam("channelId") int
+            channelId, @PathParam("moderatorId") int moderatorId, @Suspended AsyncResponse asyncResponse) {
+        asyncExecutor.execute(asyncResponse, () -> {
+            channelCtrl.removeModeratorFromChannel(accessToken, channelId, moderatorId);
+            // Return 204 No Content
+            return Response.status(Response.Status.NO_CONTENT).build();
+        });
     }
 
     /**
@@ -247,17 +260,17 @@ public class ChannelAPI {
      *
      * @param accessToken The access token of the requestor.
      * @param channelId The id of the channel to which the user should be added.
-     * @return Response object.
-     * @throws ServerException If the execution of the POST request has failed. The ServerException contains
-     * information about the error which has occurred.
+     * @param asyncResponse The suspended response which is resumed with a response object.
      */
     @POST
     @Path("/{id}/user")
-    public Response subscribeChannel(@HeaderParam("Authorization") String accessToken, @PathParam("id") int
-            channelId) throws ServerException {
-        channelCtrl.subscribeChannel(accessToken, channelId);
-        // Return 201 Created
-        return Response.status(Response.Status.CREATED).build();
+    public void subscribeChannel(@HeaderParam("Authorization") String accessToken, @PathParam("id") int channelId,
+            @Suspended AsyncResponse asyncResponse) {
+        asyncExecutor.execute(asyncResponse, () -> {
+            channelCtrl.subscribeChannel(accessToken, channelId);
+            // Return 201 Created
+            return Response.status(Response.Status.CREATED).build();
+        });
     }
 
     /**
@@ -265,17 +278,17 @@ public class ChannelAPI {
      *
      * @param accessToken The access token of the requestor.
      * @param channelId The id of the channel to which the user is subscribed.
-     * @return Response object.
-     * @throws ServerException If the execution of the DELETE request has failed. The ServerException contains
-     * information about the error which has occurred.
+     * @param asyncResponse The suspended response which is resumed with a response object.
      */
     @DELETE
     @Path("/{id}/user")
-    public Response unsubscribeChannel(@HeaderParam("Authorization") String accessToken, @PathParam("id") int
-            channelId) throws ServerException {
-        channelCtrl.unsubscribeChannel(accessToken, channelId);
-        // Return 204 No Content
-        return Response.status(Response.Status.NO_CONTENT).build();
+    public void unsubscribeChannel(@HeaderParam("Authorization") String accessToken, @PathParam("id") int channelId,
+            @Suspended AsyncResponse asyncResponse) {
+        asyncExecutor.execute(asyncResponse, () -> {
+            channelCtrl.unsubscribeChannel(accessToken, channelId);
+            // Return 204 No Content
+            return Response.status(Response.Status.NO_CONTENT).build();
+        });
     }
 
     /**
@@ -303,35 +316,43 @@ public class ChannelAPI {
      * @param accessToken The access token of the requestor.
      * @param announcement The announcement data contained in the body of the HTTP request.
      * @param uriInfo Information about the URI of this request.
-     * @return Response object including the created announcement object and a set Location Header.
-     * @throws ServerException If the execution of the POST request has failed. The ServerException contains
-     * information about the error which has occurred.
+     * @param asyncResponse The suspended response which is resumed with a response object including the created
+     * announcement object and a set Location Header.
      */
     @POST
     @Path("/{id}/announcement")
     @Consumes(MediaType.APPLICATION_JSON)
     @Produces(MediaType.APPLICATION_JSON)
-    public Response createAnnouncement(@HeaderParam("Authorization") String accessToken, @Context UriInfo uriInfo,
-                                       @PathParam("id") int channelId, Announcement announcement) throws ServerException {
-        announcement = channelCtrl.createAnnouncement(accessToken, channelId, announcement);
-        // Create the URI for the created announcement resource.
-        URI createdURI = URI.create(uriInfo.getBaseUri().toString() + "channel/" + channelId + "/announcement" +
-                announcement.getId());
-        // Return the created announcement resource and the Location Header.
-        String announcementAsJson = parseToJson(announcement);
-        return Response.status(Response.Status.CREATED).contentLocation(createdURI).entity(announcementAsJson).build();
+    public void createAnnouncement(@HeaderParam("Authorization") String accessToken, @Context UriInfo uriInfo,
+            @PathParam("id") int channelId, Announcement announcement, @Suspended AsyncResponse asyncResponse) {
+        asyncExecutor.execute(asyncResponse, () -> {
+            Announcement createdAnnouncement = channelCtrl.createAnnouncement(accessToken, channelId, announcement);
+            // Create the URI for the created announcement resource.
+            URI createdURI = URI.create(uriInfo.getBaseUri().toString() + "channel/" + channelId + "/announcement" +
+                    createdAnnouncement.getId());
+            // Return the created announcement resource and the Location Header.
+            String announcementAsJson = parseToJson(createdAnnouncement);
+            return Response.status(Response.Status.CREATED).contentLocation(createdURI).entity(announcementAsJson)
+                    .build();
+        });
     }
 
     /**
-     * Returns the announcements of the channel starting from a defined message number which is taken form the
-     * request URL. The method returns a list of all announcements of the channel which have a higher message
-     * number than the one defined in the request.
+     * Returns a page of the announcements of the channel starting from a defined message number which is taken form
+     * the request URL. By default, the page contains the announcements of the channel which have a higher message
+     * number than the one defined in the request. If the page is full, the response contains a link to the next page.
      *
      * @param accessToken The access token of the requestor.
      * @param channelId The id of the channel from which the announcements should be retrieved.
-     * @param messageNumber The starting message number. All announcements of the channel which have a higher message
-     * number than the one defined in this parameter are returned.
-     * @return A list of announcements. The list can be empty.
+     * @param messageNumber The starting message number. In ascending direction, the announcements of the channel
+     * which have a higher message number than the one defined in this parameter are returned. In descending
+     * direction, the announcements with a lower message number are returned, starting at the latest one if the
+     * message number is zero.
+     * @param limit The maximum number of announcements on the page. A default limit is used if it isn't set.
+     * @param direction The direction in which the announcements are paged, either asc or desc. Default is asc.
+     * @param request The request which is used to evaluate the preconditions of a conditional request.
+     * @param uriInfo Information about the URI of the request.
+     * @return A list of announcements or status 304 if there are no new announcements. The list can be empty.
      * @throws ServerException If the execution of the GET request has failed. The ServerException contains
      * information about the error which has occurred.
      */
@@ -339,11 +360,55 @@ public class ChannelAPI {
     @Produces(MediaType.APPLICATION_JSON)
     @Path("/{id}/announcement")
     public Response getAnnouncements(@HeaderParam("Authorization") String accessToken, @PathParam("id") int
-            channelId, @DefaultValue("0") @QueryParam("messageNr") int messageNumber) throws ServerException {
-        // Get all the requested announcement resources.
-        List<Announcement> announcements = channelCtrl.getAnnouncements(accessToken, channelId, messageNumber);
-        String announcementsAsJson = parseToJson(announcements);
-        return Response.status(Response.Status.OK).entity(announcementsAsJson).build();
+            channelId, @DefaultValue("0") @QueryParam("messageNr") int messageNumber, @QueryParam("limit") Integer
+            limit, @QueryParam("direction") String direction, @Context Request request, @Context UriInfo uriInfo)
+            throws ServerException {
+        int pageSize = limit != null ? limit : MESSAGES_DEFAULT_LIMIT;
+        SortDirection sortDirection = MessagePaging.getSortDirection(direction);
+        // Answer a conditional request without loading the announcements if there are no new ones.
+        EntityTag eTag = getEntityTag(channelCtrl.getAnnouncementsVersion(accessToken, channelId, messageNumber,
+                sortDirection));
+        Response.ResponseBuilder notModified = request.evaluatePreconditions(eTag);
+        if (notModified != null) {
+            return notModified.build();
+        }
+        // Get the requested page of announcement resources.
+        List<Announcement> announcements = channelCtrl.getAnnouncements(accessToken, channelId, messageNumber,
+                pageSize, sortDirection);
+        Response.ResponseBuilder response = Response.status(Response.Status.OK).entity(jsonConverter
+                .toStreamingOutput(announcements)).tag(eTag);
+        URI nextPage = MessagePaging.getNextPageURI(uriInfo, announcements, pageSize, sortDirection);
+        if (nextPage != null) {
+            response.link(nextPage, "next");
+        }
+        return response.build();
+    }
+
+    /**
+     * Waits for new announcements of the channel. This long poll request is answered as soon as the channel contains
+     * announcements with a higher message number than the one defined in the request. If there are no new
+     * announcements within the poll timeout, the request is answered with status 204 and the client polls again. The
+     * request is suspended while it waits, so it doesn't hold a thread. It is meant for clients which don't receive
+     * push notifications.
+     *
+     * @param accessToken The access token of the requestor.
+     * @param channelId The id of the channel from which the announcements should be retrieved.
+     * @param messageNumber The highest message number which is known to the requestor.
+     * @param limit The maximum number of announcements in the response. A default limit is used if it isn't set.
+     * @param asyncResponse The suspended response which is resumed with the new announcements or with a
+     * ServerException which contains information about the error which has occurred.
+     */
+    @GET
+    @Produces(MediaType.APPLICATION_JSON)
+    @Path("/{id}/announcement/poll")
+    public void pollAnnouncements(@HeaderParam("Authorization") String accessToken, @PathParam("id") int channelId,
+                                  @DefaultValue("0") @QueryParam("messageNr") int messageNumber, @QueryParam("limit")
+                                          Integer limit, @Suspended AsyncResponse asyncResponse) {
+        int pageSize = limit != null ? limit : MESSAGES_DEFAULT_LIMIT;
+        // The announcements are shared between requestors, so the access token is verified per requestor.
+        LongPollRegistry.getInstance().poll(LongPollRegistry.getChannelTopic(channelId), messageNumber + "/" +
+                pageSize, asyncResponse, () -> channelCtrl.verifyAnnouncementAccess(accessToken), () -> channelCtrl
+                .getAnnouncements(accessToken, channelId, messageNumber, pageSize, SortDirection.ASC));
     }
 
     /**
@@ -353,17 +418,17 @@ public class ChannelAPI {
      * @param accessToken The access token of the requestor.
      * @param channelId The id of the channel to which the user is subscribed.
      * @param messageNumber The message number of the announcement which should be deleted from the channel.
-     * @return Response object.
-     * @throws ServerException If the execution of the DELETE request has failed. The ServerException contains
-     * information about the error which has occurred.
+     * @param asyncResponse The suspended response which is resumed with a response object.
      */
     @DELETE
     @Path("/{channelId}/announcement/{messageNumber}")
-    public Response deleteAnnouncement(@HeaderParam("Authorization") String accessToken, @PathParam("channelId") int
-            channelId, @PathParam("messageNumber") int messageNumber) throws ServerException {
-        channelCtrl.deleteAnnouncement(accessToken, channelId, messageNumber);
-        // Return 204 No Content
-        return Response.status(Response.Status.NO_CONTENT).build();
+    public void deleteAnnouncement(@HeaderParam("Authorization") String accessToken, @PathParam("channelId") int
+            channelId, @PathParam("messageNumber") int messageNumber, @Suspended AsyncResponse asyncResponse) {
+        asyncExecutor.execute(asyncResponse, () -> {
+            channelCtrl.deleteAnnouncement(accessToken, channelId, messageNumber);
+            // Return 204 No Content
+            return Response.status(Response.Status.NO_CONTENT).build();
+        });
     }
 
     /**
@@ -374,24 +439,25 @@ public class ChannelAPI {
      * @param uriInfo Information about the URI of this request.
      * @param channelId The id of the channel in which the reminder should be created.
      * @param json The reminder data represented as JSON String.
-     * @return Response object including the created reminder object and a set Location Header.
-     * @throws ServerException If the execution of the POST request has failed. The ServerException contains
-     * information about the error which has occurred.
+     * @param asyncResponse The suspended response which is resumed with a response object including the created
+     * reminder object and a set Location Header.
      */
     @POST
     @Path("/{id}/reminder")
     @Consumes(MediaType.APPLICATION_JSON)
     @Produces(MediaType.APPLICATION_JSON)
-    public Response createReminder(@HeaderParam("Authorization") String accessToken, @Context UriInfo uriInfo,
-                                   @PathParam("id") int channelId, String json) throws ServerException {
-        Reminder reminder = getReminderFromJSON(json);
-        reminder = channelCtrl.createReminder(accessToken, channelId, reminder);
-        // Create the URI for the created reminder resource.
-        URI createdURI = URI.create(uriInfo.getBaseUri().toString() + "channel/" + channelId + "/reminder" +
-                reminder.getId());
-        String reminderAsJson = parseToJson(reminder);
-        // Return the created reminder resource and the Location Header.
-        return Response.status(Response.Status.CREATED).contentLocation(createdURI).entity(reminderAsJson).build();
+    public void createReminder(@HeaderParam("Authorization") String accessToken, @Context UriInfo uriInfo,
+            @PathParam("id") int channelId, String json, @Suspended AsyncResponse asyncResponse) {
+        asyncExecutor.execute(asyncResponse, () -> {
+            Reminder reminder = getReminderFromJSON(json);
+            reminder = channelCtrl.createReminder(accessToken, channelId, reminder);
+            // Create the URI for the created reminder resource.
+            URI createdURI = URI.create(uriInfo.getBaseUri().toString() + "channel/" + channelId + "/reminder" +
+                    reminder.getId());
+            String reminderAsJson = parseToJson(reminder);
+            // Return the created reminder resource and the Location Header.
+            return Response.status(Response.Status.CREATED).contentLocation(createdURI).entity(reminderAsJson).build();
+        });
     }
 
     /**
@@ -401,21 +467,22 @@ public class ChannelAPI {
      * @param channelId The id of the channel to which the reminder belongs.
      * @param reminderId The id of the reminder which should be changed.
      * @param json The changed reminder data represented as JSON String.
-     * @return Response object including the changed reminder object.
-     * @throws ServerException If the execution of the PATCH request has failed. The ServerException contains
-     * information about the error which has occurred.
+     * @param asyncResponse The suspended response which is resumed with a response object including the changed
+     * reminder object.
      */
     @PATCH
     @Path("/{channelId}/reminder/{reminderId}")
     @Consumes(MediaType.APPLICATION_JSON)
     @Produces(MediaType.APPLICATION_JSON)
-    public Response changeReminder(@HeaderParam("Authorization") String accessToken, @PathParam("channelId") int
-            channelId, @PathParam("reminderId") int reminderId, String json) throws ServerException {
-        Reminder reminder = getReminderFromJSON(json);
-        reminder = channelCtrl.changeReminder(accessToken, channelId, reminder, reminderId);
-        // Return the updated reminder resource.
-        String reminderAsJson = parseToJson(reminder);
-        return Response.status(Response.Status.OK).entity(reminderAsJson).build();
+    public void changeReminder(@HeaderParam("Authorization") String accessToken, @PathParam("channelId") int channelId,
+            @PathParam("reminderId") int reminderId, String json, @Suspended AsyncResponse asyncResponse) {
+        asyncExecutor.execute(asyncResponse, () -> {
+            Reminder reminder = getReminderFromJSON(json);
+            reminder = channelCtrl.changeReminder(accessToken, channelId, reminder, reminderId);
+            // Return the updated reminder resource.
+            String reminderAsJson = parseToJson(reminder);
+            return Response.status(Response.Status.OK).entity(reminderAsJson).build();
+        });
     }
 
     /**
@@ -456,8 +523,7 @@ public class ChannelAPI {
             channelId) throws ServerException {
         List<Reminder> reminders = channelCtrl.getReminders(accessToken, channelId);
         // Return the reminder resources.
-        String remindersAsJson = parseToJson(reminders);
-        return Response.status(Response.Status.OK).entity(remindersAsJson).build();
+        return Response.status(Response.Status.OK).entity(jsonConverter.toStreamingOutput(reminders)).build();
     }
 
     /**
@@ -467,17 +533,17 @@ public class ChannelAPI {
      * @param accessToken The access token of the requestor.
      * @param channelId The id of the channel to which the reminder belongs.
      * @param reminderId The id of the reminder which should be deleted.
-     * @return Response object.
-     * @throws ServerException If the execution of the DELETE request has failed. The ServerException contains
-     * information about the error which has occurred.
+     * @param asyncResponse The suspended response which is resumed with a response object.
      */
     @DELETE
     @Path("/{channelId}/reminder/{reminderId}")
-    public Response deleteReminder(@HeaderParam("Authorization") String accessToken, @PathParam("channelId") int
-            channelId, @PathParam("reminderId") int reminderId) throws ServerException {
-        channelCtrl.deleteReminder(accessToken, channelId, reminderId);
-        // Return 204 No Content
-        return Response.status(Response.Status.NO_CONTENT).build();
+    public void deleteReminder(@HeaderParam("Authorization") String accessToken, @PathParam("channelId") int channelId,
+            @PathParam("reminderId") int reminderId, @Suspended AsyncResponse asyncResponse) {
+        asyncExecutor.execute(asyncResponse, () -> {
+            channelCtrl.deleteReminder(accessToken, channelId, reminderId);
+            // Return 204 No Content
+            return Response.status(Response.Status.NO_CONTENT).build();
+        });
     }
 
     /**
@@ -493,11 +559,7 @@ public class ChannelAPI {
         Channel channel;
         try {
             // Read channel type form JSON to determine channel subclass.
-            ObjectMapper mapper = new ObjectMapper();
-            // Set fields and Enum values which are unknown to null and continue parsing.
-            mapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
-            mapper.configure(DeserializationFeature.READ_UNKNOWN_ENUM_VALUES_AS_NULL, true);
-            String type = mapper.readTree(json).get("type").asText();
+            String type = jsonConverter.readTree(json).get("type").asText();
             ChannelType channelType;
             try {
                 channelType = ChannelType.valueOf(type);
@@ -508,25 +570,8 @@ public class ChannelAPI {
             }
 
             // Generate appropriate channel subclass from JSON representation.
-            switch (channelType) {
-                case LECTURE:
-                    channel = mapper.readValue(json, Lecture.class);
-                    logger.debug("Created channel subclass Lecture.");
-                    break;
-                case EVENT:
-                    channel = mapper.readValue(json, Event.class);
-                    logger.debug("Created channel subclass Event.");
-                    break;
-                case SPORTS:
-                    channel = mapper.readValue(json, Sports.class);
-                    logger.debug("Created channel subclass Sports.");
-                    break;
-                default:
-                    // There is no subclass for channel type OTHER and STUDENT_GROUP, so create normal channel object.
-                    channel = mapper.readValue(json, Channel.class);
-                    logger.debug("Created Channel class");
-                    break;
-            }
+            channel = jsonConverter.readChannel(json, channelType);
+            logger.debug("Created channel class {}.", channel.getClass().getSimpleName());
         } catch (IOException e) {
             logger.error(LOG_SERVER_EXCEPTION, 400, CHANNEL_INVALID_TYPE, "Channel type is invalid.");
             throw new ServerException(400, CHANNEL_INVALID_TYPE);
@@ -544,17 +589,9 @@ public class ChannelAPI {
      */
     private Reminder getReminderFromJSON(String json) throws ServerException {
         logger.debug("Start with JSON String:{}", json);
-        // Use JavaTimeModule for proper deserialization of ZonedDateTime values.
-        ObjectMapper mapper = new ObjectMapper();
-        mapper.registerModule(new JavaTimeModule().addKeyDeserializer(ZonedDateTime.class,
-                ZonedDateTimeKeyDeserializer.INSTANCE));
-        // Set fields and Enum values which are unknown to null and continue parsing.
-        mapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
-        mapper.configure(DeserializationFeature.READ_UNKNOWN_ENUM_VALUES_AS_NULL, true);
-
         Reminder reminder;
         try {
-            reminder = mapper.readValue(json, Reminder.class);
+            reminder = jsonConverter.readReminder(json);
         } catch (IOException e) {
             logger.error(LOG_SERVER_EXCEPTION, 400, REMINDER_INVALID_DATES, "Parsing: Reminder dates are invalid.");
             throw new ServerException(400, REMINDER_INVALID_DATES);
@@ -568,6 +605,17 @@ public class ChannelAPI {
         return reminder;
     }
 
+    /**
+     * Creates the entity tag for the given version of a resource. The tag is weak because the representation can be
+     * sent compressed or uncompressed, so only the semantic equivalence of the representations is guaranteed.
+     *
+     * @param version The version of the resource.
+     * @return The weak entity tag.
+     */
+    private EntityTag getEntityTag(ResourceVersion version) {
+        return new EntityTag(version.getTag(), true);
+    }
+
     /**
      * Parses the given object to a JSON String.
      *
@@ -578,7 +626,7 @@ public class ChannelAPI {
     private String parseToJson(Object object) throws ServerException {
         try {
             // Return the channel resources.
-            return mapper.writeValueAsString(object);
+            return jsonConverter.getWriter().writeValueAsString(object);
         } catch (JsonProcessingException e) {
             logger.error(LOG_SERVER_EXCEPTION, 500, PARSING_FAILURE, "Couldn't parse object to JSON String.");
             throw new ServerException(500, PARSING_FAILURE);
@@ -0,0 +1,229 @@
+package ulm.university.news.api;
+
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MultivaluedMap;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * The CompressingOutputStream class compresses a response body with gzip or deflate. The first bytes of the body are
+ * buffered. If the body doesn't exceed the size of the buffer, it is written uncompressed, because compressing small
+ * bodies isn't worth the effort. Otherwise the Content-Encoding header is set and the body is compressed. The
+ * headers can still be changed at this point because nothing has been written to the response before. If writing
+ * the body fails, the stream is aborted instead of closed, so a truncated body doesn't end with a valid trailer.
+ *
+ * @author Matthias Mak
+ * @author Philipp Speidel
+ */
+class CompressingOutputStream extends OutputStream {
+
+    /** The header of a gzip stream without file name, modification time and extra fields. */
+    private static final byte[] GZIP_HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff};
+
+    /** The stream of the response. */
+    private final OutputStream target;
+
+    /** The headers of the response. */
+    private final MultivaluedMap<String, Object> headers;
+
+    /** The content encoding which is used if the body is compressed, either gzip or deflate. */
+    private final String encoding;
+
+    /** The pool which provides the Deflater. */
+    private final DeflaterPool deflaterPool;
+
+    /** Buffers the beginning of the body until the size threshold is exceeded. */
+    private final byte[] buffer;
+
+    /** The number of bytes in the buffer. */
+    private int count;
+
+    /** The buffer for the compressed data. */
+    private final byte[] deflateBuffer = new byte[8192];
+
+    /** The Deflater which compresses the body. Null as long as the body isn't compressed. */
+    private Deflater deflater;
+
+    /** The checksum of the uncompressed body which is required for the gzip trailer. */
+    private CRC32 crc;
+
+    /** The number of uncompressed bytes of the body. */
+    private long uncompressedBytes;
+
+    /** The number of compressed bytes which have been written to the response. */
+    private long compressedBytes;
+
+    /** Indicates whether the stream has been closed. */
+    private boolean closed;
+
+    /**
+     * Creates a CompressingOutputStream.
+     *
+     * @param target The stream of the response.
+     * @param headers The headers of the response.
+     * @param encoding The content encoding, either gzip or deflate.
+     * @param deflaterPool The pool which provides a Deflater matching the encoding.
+     * @param threshold The minimum size of a body in bytes which is compressed.
+     */
+    CompressingOutputStream(OutputStream target, MultivaluedMap<String, Object> headers, String encoding,
+                            DeflaterPool deflaterPool, int threshold) {
+        this.target = target;
+        this.headers = headers;
+        this.encoding = encoding;
+        this.deflaterPool = deflaterPool;
+        buffer = new byte[threshold];
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[]{(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed.");
+        }
+        if (deflater == null) {
+            if (count + len <= buffer.length) {
+                System.arraycopy(b, off, buffer, count, len);
+                count += len;
+                return;
+            }
+            startCompression();
+            compress(buffer, 0, count);
+        }
+        compress(b, off, len);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        // A buffered body can't be flushed because the encoding hasn't been decided yet.
+        if (deflater != null) {
+            target.flush();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            if (deflater == null) {
+                target.write(buffer, 0, count);
+            } else {
+                deflater.finish();
+                while (!deflater.finished()) {
+                    writeCompressed();
+                }
+                if (crc != null) {
+                    writeGzipTrailer();
+                }
+                CompressionInterceptor.recordCompression(uncompressedBytes, compressedBytes);
+            }
+        } finally {
+            if (deflater != null) {
+                deflaterPool.release(deflater);
+            }
+            target.close();
+        }
+    }
+
+    /**
+     * Aborts the stream after writing the body has failed. Neither the buffered bytes nor the end of the compressed
+     * data are written, so the client can't mistake the truncated body for a complete one. The Deflater is released.
+     */
+    void abort() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (deflater != null) {
+            deflaterPool.release(deflater);
+            deflater = null;
+        }
+    }
+
+    /**
+     * Sets the headers of the compressed response and writes the gzip header if required.
+     *
+     * @throws IOException If the gzip header couldn't be written.
+     */
+    private void startCompression() throws IOException {
+        headers.putSingle(HttpHeaders.CONTENT_ENCODING, encoding);
+        // The length of the uncompressed body isn't valid anymore.
+        headers.remove(HttpHeaders.CONTENT_LENGTH);
+        deflater = deflaterPool.borrow();
+        if (CompressionInterceptor.GZIP.equals(encoding)) {
+            crc = new CRC32();
+            target.write(GZIP_HEADER);
+            compressedBytes += GZIP_HEADER.length;
+        }
+    }
+
+    /**
+     * Compresses the given bytes and writes the available compressed data to the response.
+     *
+     * @param b The bytes.
+     * @param off The start offset of the bytes.
+     * @param len The number of bytes.
+     * @throws IOException If the compressed data couldn't be written.
+     */
+    private void compress(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return;
+        }
+        uncompressedBytes += len;
+        if (crc != null) {
+            crc.update(b, off, len);
+        }
+        deflater.setInput(b, off, len);
+        while (!deflater.needsInput()) {
+            writeCompressed();
+        }
+    }
+
+    /**
+     * Writes the compressed data which is available in the Deflater to the response.
+     *
+     * @throws IOException If the compressed data couldn't be written.
+     */
+    private void writeCompressed() throws IOException {
+        int length = deflater.deflate(deflateBuffer, 0, deflateBuffer.length);
+        if (length > 0) {
+            target.write(deflateBuffer, 0, length);
+            compressedBytes += length;
+        }
+    }
+
+    /**
+     * Writes the gzip trailer which consists of the checksum and the size of the uncompressed body.
+     *
+     * @throws IOException If the trailer couldn't be written.
+     */
+    private void writeGzipTrailer() throws IOException {
+        byte[] trailer = new byte[8];
+        writeInt((int) crc.getValue(), trailer, 0);
+        writeInt((int) uncompressedBytes, trailer, 4);
+        target.write(trailer);
+        compressedBytes += trailer.length;
+    }
+
+    /**
+     * Writes the given value in little endian byte order to the given array.
+     *
+     * @param value The value.
+     * @param b The array.
+     * @param offset The position of the first byte.
+     */
+    private static void writeInt(int value, byte[] b, int offset) {
+        b[offset] = (byte) value;
+        b[offset + 1] = (byte) (value >> 8);
+        b[offset + 2] = (byte) (value >> 16);
+        b[offset + 3] = (byte) (value >> 24);
+    }
+}
@@ -0,0 +1,172 @@
+package ulm.university.news.api;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.ext.Provider;
+import javax.ws.rs.ext.WriterInterceptor;
+import javax.ws.rs.ext.WriterInterceptorContext;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This interceptor compresses JSON and text responses if the client accepts a gzip or deflate content encoding. Gzip
+ * is preferred if the client accepts both. Bodies which are smaller than a threshold are sent uncompressed. The
+ * interceptor counts the bytes which have been saved by the compression.
+ *
+ * @author Matthias Mak
+ * @author Philipp Speidel
+ */
+@Provider
+public class CompressionInterceptor implements WriterInterceptor {
+
+    /** The logger instance for CompressionInterceptor. */
+    private static final Logger logger = LoggerFactory.getLogger(CompressionInterceptor.class);
+
+    /** The name of the gzip content encoding. */
+    static final String GZIP = "gzip";
+
+    /** The name of the deflate content encoding. */
+    static final String DEFLATE = "deflate";
+
+    /** The minimum size of a response body in bytes which is compressed. */
+    private static final int THRESHOLD = 1024;
+
+    /** The compression level which is a compromise between speed and size. */
+    private static final int COMPRESSION_LEVEL = 6;
+
+    /** The pool of Deflater instances for gzip which write raw deflate data. */
+    private static final DeflaterPool gzipDeflaters = new DeflaterPool(COMPRESSION_LEVEL, true);
+
+    /** The pool of Deflater instances for deflate which write the zlib format. */
+    private static final DeflaterPool deflateDeflaters = new DeflaterPool(COMPRESSION_LEVEL, false);
+
+    /** The number of uncompressed bytes of all compressed responses. */
+    private static final AtomicLong uncompressedBytes = new AtomicLong();
+
+    /** The number of bytes of all compressed responses which have been sent. */
+    private static final AtomicLong compressedBytes = new AtomicLong();
+
+    /** The headers of the current request. */
+    @Context
+    private HttpHeaders requestHeaders;
+
+    /**
+     * Wraps the stream of the response into a compressing stream if the client accepts a supported content encoding
+     * and the response contains JSON or text.
+     *
+     * @param context The context of the response body which is written.
+     * @throws IOException If the response body couldn't be written.
+     * @throws WebApplicationException Thrown by the following interceptors or the message body writer.
+     */
+    @Override
+    public void aroundWriteTo(WriterInterceptorContext context) throws IOException, WebApplicationException {
+        String encoding = null;
+        if (isCompressible(context.getMediaType()) && !context.getHeaders().containsKey(HttpHeaders
+                .CONTENT_ENCODING)) {
+            encoding = negotiateEncoding(requestHeaders.getHeaderString(HttpHeaders.ACCEPT_ENCODING));
+            // The response depends on the accepted encodings, so caches have to consider them.
+            context.getHeaders().add(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        }
+        if (encoding == null) {
+            context.proceed();
+            return;
+        }
+        DeflaterPool deflaterPool = GZIP.equals(encoding) ? gzipDeflaters : deflateDeflaters;
+        CompressingOutputStream compressingStream = new CompressingOutputStream(context.getOutputStream(), context
+                .getHeaders(), encoding, deflaterPool, THRESHOLD);
+        context.setOutputStream(compressingStream);
+        try {
+            context.proceed();
+        } catch (IOException | RuntimeException e) {
+            // Don't complete a truncated body.
+            compressingStream.abort();
+            throw e;
+        }
+        compressingStream.close();
+    }
+
+    /**
+     * Returns the number of bytes which have been saved by compressing responses since the server has been started.
+     *
+     * @return The number of saved bytes.
+     */
+    public static long getBytesSaved() {
+        return uncompressedBytes.get() - compressedBytes.get();
+    }
+
+    /**
+     * Records the sizes of a compressed response.
+     *
+     * @param uncompressed The size of the response body before the compression.
+     * @param compressed The size of the compressed response body.
+     */
+    static void recordCompression(long uncompressed, long compressed) {
+        uncompressedBytes.addAndGet(uncompressed);
+        compressedBytes.addAndGet(compressed);
+        logger.debug("Compressed response from {} to {} bytes. Saved {} bytes in total.", uncompressed, compressed,
+                getBytesSaved());
+    }
+
+    /**
+     * Checks whether responses of the given media type should be compressed.
+     *
+     * @param mediaType The media type of the response.
+     * @return true if the response contains JSON or text.
+     */
+    private boolean isCompressible(MediaType mediaType) {
+        return mediaType != null && (mediaType.isCompatible(MediaType.APPLICATION_JSON_TYPE) || "text".equals
+                (mediaType.getType()));
+    }
+
+    /**
+     * Determines the content encoding which is used for the response from the Accept-Encoding header of the request.
+     *
+     * @param acceptEncoding The value of the Accept-Encoding header. Can be null.
+     * @return gzip or deflate, or null if the response shouldn't be compressed.
+     */
+    private String negotiateEncoding(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return null;
+        }
+        boolean deflateAccepted = false;
+        for (String element : acceptEncoding.split(",")) {
+            String[] parts = element.trim().split(";");
+            String coding = parts[0].trim().toLowerCase();
+            if (isRejected(parts)) {
+                continue;
+            }
+            if (GZIP.equals(coding) || "x-gzip".equals(coding) || "*".equals(coding)) {
+                return GZIP;
+            } else if (DEFLATE.equals(coding)) {
+                deflateAccepted = true;
+            }
+        }
+        return deflateAccepted ? DEFLATE : null;
+    }
+
+    /**
+     * Checks whether an element of the Accept-Encoding header has the quality value zero, i.e. the encoding is
+     * explicitly rejected by the client.
+     *
+     * @param parts The content coding followed by its parameters.
+     * @return true if the encoding is rejected.
+     */
+    private boolean isRejected(String[] parts) {
+        for (int i = 1; i < parts.length; i++) {
+            String parameter = parts[i].trim();
+            if (parameter.startsWith("q=")) {
+                try {
+                    return Double.parseDouble(parameter.substring(2)) <= 0;
+                } catch (NumberFormatException e) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,71 @@
+package ulm.university.news.api;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.Deflater;
+
+/**
+ * The DeflaterPool class keeps a bounded number of Deflater instances for reuse. Creating a Deflater allocates native
+ * memory, which is only released when the Deflater is ended. Reusing the instances avoids this allocation for every
+ * compressed response.
+ *
+ * @author Matthias Mak
+ * @author Philipp Speidel
+ */
+class DeflaterPool {
+
+    /** The maximum number of idle Deflater instances which are kept. */
+    private static final int MAX_IDLE = 32;
+
+    /** The compression level of the Deflater instances. */
+    private final int level;
+
+    /** Indicates whether the Deflater instances write raw deflate data without zlib header and checksum. */
+    private final boolean nowrap;
+
+    /** The idle Deflater instances. */
+    private final ConcurrentLinkedQueue<Deflater> idleDeflaters = new ConcurrentLinkedQueue<Deflater>();
+
+    /** The number of idle Deflater instances. */
+    private final AtomicInteger idleCount = new AtomicInteger();
+
+    /**
+     * Creates a DeflaterPool for Deflater instances with the given settings.
+     *
+     * @param level The compression level.
+     * @param nowrap true for raw deflate data as used by gzip, false for the zlib format.
+     */
+    DeflaterPool(int level, boolean nowrap) {
+        this.level = level;
+        this.nowrap = nowrap;
+    }
+
+    /**
+     * Takes an idle Deflater from the pool or creates a new one if the pool is empty.
+     *
+     * @return A Deflater which is ready for use.
+     */
+    Deflater borrow() {
+        Deflater deflater = idleDeflaters.poll();
+        if (deflater == null) {
+            return new Deflater(level, nowrap);
+        }
+        idleCount.decrementAndGet();
+        return deflater;
+    }
+
+    /**
+     * Resets the given Deflater and returns it to the pool. If the pool is full, the Deflater is ended instead.
+     *
+     * @param deflater The Deflater which isn't used anymore.
+     */
+    void release(Deflater deflater) {
+        deflater.reset();
+        if (idleCount.incrementAndGet() <= MAX_IDLE) {
+            idleDeflaters.offer(deflater);
+        } else {
+            idleCount.decrementAndGet();
+            deflater.end();
+        }
+    }
+}
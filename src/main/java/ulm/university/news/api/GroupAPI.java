@@ -1,21 +1,20 @@
 package ulm.university.news.api;
 
-import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.SerializationFeature;
-import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import ulm.university.news.controller.GroupController;
 import ulm.university.news.data.*;
 import ulm.university.news.data.enums.GroupType;
+import ulm.university.news.data.enums.SortDirection;
 import ulm.university.news.util.Constants;
 import ulm.university.news.util.PATCH;
 import ulm.university.news.util.exceptions.ServerException;
 
 import javax.ws.rs.*;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.Suspended;
 import javax.ws.rs.core.*;
 import java.io.IOException;
 import java.net.URI;
@@ -43,19 +42,11 @@ public class GroupAPI {
     /** The logger instance for GroupAPI. */
     private static final Logger logger = LoggerFactory.getLogger(GroupAPI.class);
 
-    /** An instance of the Jackson mapper to parse dates properly to JSON. */
-    ObjectMapper mapper;
+    /** The shared Jackson readers and writers to parse dates properly from and to JSON. */
+    private JsonConverter jsonConverter = JsonConverter.getInstance();
 
-    /**
-     * Instantiates the ChannelAPI and configures the Jackson mapper.
-     */
-    public GroupAPI() {
-        mapper = new com.fasterxml.jackson.databind.ObjectMapper();
-        // Make sure that dates are formatted correctly.
-        mapper.registerModule(new JavaTimeModule());
-        mapper.configure(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS, true);
-        mapper.setSerializationInclusion(JsonInclude.Include.NON_NULL);
-    }
+    /** Executes the write requests asynchronously on a bounded thread pool. */
+    private AsyncRequestExecutor asyncExecutor = AsyncRequestExecutor.getInstance();
 
     /**
      * Creates a new group. The data of the new group is provided within the group object. The created group resource
@@ -64,21 +55,22 @@ public class GroupAPI {
      * @param accessToken The access token of the requestor.
      * @param group The group object which contains the data of the new group.
      * @param uriInfo Information about the URI of the request.
-     * @return Response object including the created resource and the URI to access this resource.
-     * @throws ServerException If the execution of the POST request has failed. The ServerException contains
-     * information about the error which has occurred.
+     * @param asyncResponse The suspended response which is resumed with a response object including the created
+     * resource and the URI to access this resource.
      */
     @POST
     @Consumes(MediaType.APPLICATION_JSON)
     @Produces(MediaType.APPLICATION_JSON)
-    public Response createGroup(@HeaderParam("Authorization") String accessToken, Group group, @Context UriInfo
-            uriInfo) throws ServerException {
-        group = groupController.createGroup(accessToken, group);
-        // Create the URI which can be used to access the created resource.
-        URI createdURI = URI.create(uriInfo.getBaseUri().toString() + "group" + "/" + group.getId());
-        String groupAsJson = parseToJson(group);
-        // Return the created resource and set the location header.
-        return Response.status(Response.Status.CREATED).location(createdURI).entity(groupAsJson).build();
+    public void createGroup(@HeaderParam("Authorization") String accessToken, Group group, @Context UriInfo uriInfo,
+            @Suspended AsyncResponse asyncResponse) {
+        asyncExecutor.execute(asyncResponse, () -> {
+            Group createdGroup = groupController.createGroup(accessToken, group);
+            // Create the URI which can be used to access the created resource.
+            URI createdURI = URI.create(uriInfo.getBaseUri().toString() + "group" + "/" + createdGroup.getId());
+            String groupAsJson = parseToJson(createdGroup);
+            // Return the created resource and set the location header.
+            return Response.status(Response.Status.CREATED).location(createdURI).entity(groupAsJson).build();
+        });
     }
 
     /**
@@ -98,8 +90,7 @@ public class GroupAPI {
     public Response getGroups(@HeaderParam("Authorization") String accessToken, @QueryParam("groupName") String
             groupName, @QueryParam("groupType") GroupType groupType) throws ServerException {
         List<Group> groups = groupController.getGroups(accessToken, groupName, groupType);
-        String groupsAsJson = parseToJson(groups);
-        return Response.status(Response.Status.OK).entity(groupsAsJson).build();
+        return Response.status(Response.Status.OK).entity(jsonConverter.toStreamingOutput(groups)).build();
     }
 
     /**
@@ -134,19 +125,19 @@ public class GroupAPI {
      * @param accessToken The access token of the requestor.
      * @param id The id of the group which should be updated.
      * @param group The group object which contains the new data values for the group.
-     * @return An updated version of the group resource.
-     * @throws ServerException If the execution of the PATCH request has failed. The ServerException contains
-     * information about the error which has occurred.
+     * @param asyncResponse The suspended response which is resumed with an updated version of the group resource.
      */
     @PATCH
     @Produces(MediaType.APPLICATION_JSON)
     @Consumes(MediaType.APPLICATION_JSON)
     @Path("/{id}")
-    public Response changeGroup(@HeaderParam("Authorization") String accessToken, @PathParam("id") int id, Group
-            group) throws ServerException {
-        group = groupController.changeGroup(accessToken, id, group);
-        String groupAsJson = parseToJson(group);
-        return Response.status(Response.Status.OK).entity(groupAsJson).build();
+    public void changeGroup(@HeaderParam("Authorization") String accessToken, @PathParam("id") int id, Group group,
+            @Suspended AsyncResponse asyncResponse) {
+        asyncExecutor.execute(asyncResponse, () -> {
+            Group changedGroup = groupController.changeGroup(accessToken, id, group);
+            String groupAsJson = parseToJson(changedGroup);
+            return Response.status(Response.Status.OK).entity(groupAsJson).build();
+        });
     }
 
     /**
@@ -154,16 +145,16 @@ public class GroupAPI {
      *
      * @param accessToken The access token of the requestor.
      * @param id The id of the group which should be deleted.
-     * @return Returns an HTTP message with no content.
-     * @throws ServerException If the execution of the DELETE request has failed. The ServerException contains
-     * information about the error which has occurred.
+     * @param asyncResponse The suspended response which is resumed with returns an HTTP message with no content.
      */
     @DELETE
     @Path("/{id}")
-    public Response deleteGroup(@HeaderParam("Authorization") String accessToken, @PathParam("id") int id) throws
-            ServerException {
-        groupController.deleteGroup(accessToken, id);
-        return Response.status(Response.Status.NO_CONTENT).build();
+    public void deleteGroup(@HeaderParam("Authorization") String accessToken, @PathParam("id") int id, @Suspended
+            AsyncResponse asyncResponse) {
+        asyncExecutor.execute(asyncResponse, () -> {
+            groupController.deleteGroup(accessToken, id);
+            return Response.status(Response.Status.NO_CONTENT).build();
+        });
     }
 
     /**
@@ -175,28 +166,27 @@ public class GroupAPI {
      * @param accessToken The access token of the requestor.
      * @param groupId The id of the group.
      * @param jsonString The JSON String which is contained in the body of the HTTP request.
-     * @return Response without content.
-     * @throws ServerException If the execution of the POST request has failed. The ServerException contains
-     * information about the error which has occurred.
+     * @param asyncResponse The suspended response which is resumed with response without content.
      */
     @POST
     @Consumes(MediaType.APPLICATION_JSON)
     @Path("/{groupId}/user")
-    public Response addParticipantToGroup(@HeaderParam("Authorization") String accessToken, @PathParam("groupId") int
-            groupId, String jsonString, @Context UriInfo uriInfo) throws ServerException {
-        ObjectMapper mapper = new ObjectMapper();
-        String password = "";
-        try {
-            // Reads the password from the received JSON String with Jackson.
-            JsonNode jsonObj = mapper.readTree(jsonString);
-            if (jsonObj.get("password") != null) {
-                password = jsonObj.get("password").asText();
+    public void addParticipantToGroup(@HeaderParam("Authorization") String accessToken, @PathParam("groupId") int
+            groupId, String jsonString, @Context UriInfo uriInfo, @Suspended AsyncResponse asyncResponse) {
+        asyncExecutor.execute(asyncResponse, () -> {
+            String password = "";
+            try {
+                // Reads the password from the received JSON String with Jackson.
+                JsonNode jsonObj = jsonConverter.readTree(jsonString);
+                if (jsonObj.get("password") != null) {
+                    password = jsonObj.get("password").asText();
+                }
+            } catch (IOException e) {
+                throw new ServerException(400, Constants.GROUP_MISSING_PASSWORD);
             }
-        } catch (IOException e) {
-            throw new ServerException(400, Constants.GROUP_MISSING_PASSWORD);
-        }
-        groupController.addParticipant(accessToken, groupId, password);
-        return Response.status(Response.Status.CREATED).build();
+            groupController.addParticipant(accessToken, groupId, password);
+            return Response.status(Response.Status.CREATED).build();
+        });
     }
 
     /**
@@ -224,16 +214,16 @@ public class GroupAPI {
      * @param accessToken The access token of the requestor.
      * @param groupId The id of the group.
      * @param userId The id of the user who should be removed as a participant from the group.
-     * @return Response object with no content.
-     * @throws ServerException If the execution of the DELETE request has failed. The ServerException contains
-     * information about the error which has occurred.
+     * @param asyncResponse The suspended response which is resumed with a response object with no content.
      */
     @DELETE
     @Path("/{groupId}/user/{userId}")
-    public Response deleteParticipant(@HeaderParam("Authorization") String accessToken, @PathParam("groupId") int
-            groupId, @PathParam("userId") int userId) throws ServerException {
-        groupController.deleteParticipant(accessToken, groupId, userId);
-        return Response.status(Response.Status.NO_CONTENT).build();
+    public void deleteParticipant(@HeaderParam("Authorization") String accessToken, @PathParam("groupId") int groupId,
+            @PathParam("userId") int userId, @Suspended AsyncResponse asyncResponse) {
+        asyncExecutor.execute(asyncResponse, () -> {
+            groupController.deleteParticipant(accessToken, groupId, userId);
+            return Response.status(Response.Status.NO_CONTENT).build();
+        });
     }
 
     /**
@@ -245,20 +235,21 @@ public class GroupAPI {
      * @param groupId The id of the group in which the ballot should be created.
      * @param ballot The ballot object containing the ballot data.
      * @param uriInfo The uriInfo contains information about the request URI.
-     * @return The created ballot resource with all corresponding data and the URI of the new resource.
-     * @throws ServerException If the execution of the POST request has failed. The ServerException contains
-     * information about the error which has occurred.
+     * @param asyncResponse The suspended response which is resumed with the created ballot resource with all
+     * corresponding data and the URI of the new resource.
      */
     @POST
     @Consumes(MediaType.APPLICATION_JSON)
     @Produces(MediaType.APPLICATION_JSON)
     @Path("/{groupId}/ballot")
-    public Response createBallot(@HeaderParam("Authorization") String accessToken, @PathParam("groupId") int
-            groupId, Ballot ballot, @Context UriInfo uriInfo) throws ServerException {
-        ballot = groupController.createBallot(accessToken, groupId, ballot);
-        URI createdURI = URI.create(uriInfo.getBaseUri() + "group" + "/" + groupId + "/" + "ballot" + "/" + ballot
-                .getId());
-        return Response.status(Response.Status.CREATED).location(createdURI).entity(ballot).build();
+    public void createBallot(@HeaderParam("Authorization") String accessToken, @PathParam("groupId") int groupId, Ballot
+            ballot, @Context UriInfo uriInfo, @Suspended AsyncResponse asyncResponse) {
+        asyncExecutor.execute(asyncResponse, () -> {
+            Ballot createdBallot = groupController.createBallot(accessToken, groupId, ballot);
+            URI createdURI = URI.create(uriInfo.getBaseUri() + "group" + "/" + groupId + "/" + "ballot" + "/" +
+                    createdBallot.getId());
+            return Response.status(Response.Status.CREATED).location(createdURI).entity(createdBallot).build();
+        });
     }
 
     /**
@@ -310,18 +301,19 @@ public class GroupAPI {
      * @param ballotId The id of the ballot extracted from the URL.
      * @param ballot The ballot object which has been generated from the JSON Merge Patch document. It contains the
      * new data for the ballot.
-     * @return Returns an updated version of the ballot resource.
-     * @throws ServerException If the execution of the PATCH request has failed. The ServerException contains
-     * information about the error which has occurred.
+     * @param asyncResponse The suspended response which is resumed with returns an updated version of the ballot
+     * resource.
      */
     @PATCH
     @Consumes(MediaType.APPLICATION_JSON)
     @Produces(MediaType.APPLICATION_JSON)
     @Path("/{groupId}/ballot/{ballotId}")
-    public Response changeBallot(@HeaderParam("Authorization") String accessToken, @PathParam("groupId") int
-            groupId, @PathParam("ballotId") int ballotId, Ballot ballot) throws ServerException {
-        ballot = groupController.changeBallot(accessToken, groupId, ballotId, ballot);
-        return Response.status(Response.Status.OK).entity(ballot).build();
+    public void changeBallot(@HeaderParam("Authorization") String accessToken, @PathParam("groupId") int groupId,
+            @PathParam("ballotId") int ballotId, Ballot ballot, @Suspended AsyncResponse asyncResponse) {
+        asyncExecutor.execute(asyncResponse, () -> {
+            Ballot changedBallot = groupController.changeBallot(accessToken, groupId, ballotId, ballot);
+            return Response.status(Response.Status.OK).entity(changedBallot).build();
+        });
     }
 
     /**
@@ -330,17 +322,17 @@ public class GroupAPI {
      * @param accessToken The access token of the requestor.
      * @param groupId The id of the group to which the ballot belongs.
      * @param ballotId The id of the ballot.
-     * @return An empty response.
-     * @throws ServerException If the execution of the DELETE request has failed. The ServerException contains
-     * information about the error which has occurred.
+     * @param asyncResponse The suspended response which is resumed with an empty response.
      */
     @DELETE
     @Produces(MediaType.APPLICATION_JSON)
     @Path("/{groupId}/ballot/{ballotId}")
-    public Response deleteBallot(@HeaderParam("Authorization") String accessToken, @PathParam("groupId") int
-            groupId, @PathParam("ballotId") int ballotId) throws ServerException {
-        groupController.deleteBallot(accessToken, groupId, ballotId);
-        return Response.status(Response.Status.NO_CONTENT).build();
+    public void deleteBallot(@HeaderParam("Authorization") String accessToken, @PathParam("groupId") int groupId,
+            @PathParam("ballotId") int ballotId, @Suspended AsyncResponse asyncResponse) {
+        asyncExecutor.execute(asyncResponse, () -> {
+            groupController.deleteBallot(accessToken, groupId, ballotId);
+            return Response.status(Response.Status.NO_CONTENT).build();
+        });
     }
 
     /**
@@ -353,21 +345,22 @@ public class GroupAPI {
      * @param ballotId The id of the ballot to which the option belongs.
      * @param option The option object containing the data from the request.
      * @param uriInfo Information about the URI of the request.
-     * @return The created resource including the URI which can be used to access the resource.
-     * @throws ServerException If the execution of the POST request has failed. The ServerException contains
-     * information about the error which has occurred.
+     * @param asyncResponse The suspended response which is resumed with the created resource including the URI which
+     * can be used to access the resource.
      */
     @POST
     @Consumes(MediaType.APPLICATION_JSON)
     @Produces(MediaType.APPLICATION_JSON)
     @Path("/{groupId}/ballot/{ballotId}/option")
-    public Response createOption(@HeaderParam("Authorization") String accessToken, @PathParam("groupId") int
-            groupId, @PathParam("ballotId") int ballotId, Option option, @Context UriInfo uriInfo) throws
-            ServerException {
-        groupController.createOption(accessToken, groupId, ballotId, option);
-        URI createdURI = URI.create(uriInfo.getBaseUri() + "group" + "/" + groupId + "/" + "ballot" + "/" + ballotId
-                + "/" + "option" + "/" + option.getId());
-        return Response.status(Response.Status.CREATED).location(createdURI).entity(option).build();
+    public void createOption(@HeaderParam("Authorization") String accessToken, @PathParam("groupId") int groupId,
+            @PathParam("ballotId") int ballotId, Option option, @Context UriInfo uriInfo, @Suspended AsyncResponse
+            asyncResponse) {
+        asyncExecutor.execute(asyncResponse, () -> {
+            groupController.createOption(accessToken, groupId, ballotId, option);
+            URI createdURI = URI.create(uriInfo.getBaseUri() + "group" + "/" + groupId + "/" + "ballot" + "/" + ballotId
+                    + "/" + "option" + "/" + option.getId());
+            return Response.status(Response.Status.CREATED).location(createdURI).entity(option).build();
+        });
     }
 
     /**
@@ -420,16 +413,17 @@ public class GroupAPI {
      * @param groupId The id of the group to which the ballot belongs.
      * @param ballotId The id of the ballot to which the option belongs.
      * @param optionId The option which should be deleted.
-     * @return An response with no content.
-     * @throws ServerException If the execution of the DELETE request has failed. The ServerException contains
-     * information about the error which has occurred.
+     * @param asyncResponse The suspended response which is resumed with an response with no content.
      */
     @DELETE
     @Path("/{groupId}/ballot/{ballotId}/option/{optionId}")
-    public Response deleteOption(@HeaderParam("Authorization") String accessToken, @PathParam("groupId") int
-            groupId, @PathParam("ballotId") int ballotId, @PathParam("optionId") int optionId) throws ServerException {
-        groupController.deleteOption(accessToken, groupId, ballotId, optionId);
-        return Response.status(Response.Status.NO_CONTENT).build();
+    public void deleteOption(@HeaderParam("Authorization") String accessToken, @PathParam("groupId") int groupId,
+            @PathParam("ballotId") int ballotId, @PathParam("optionId") int optionId, @Suspended AsyncResponse
+            asyncResponse) {
+        asyncExecutor.execute(asyncResponse, () -> {
+            groupController.deleteOption(accessToken, groupId, ballotId, optionId);
+            return Response.status(Response.Status.NO_CONTENT).build();
+        });
     }
 
     /**
@@ -440,16 +434,18 @@ public class GroupAPI {
      * @param groupId The id of the group to which the ballot belongs.
      * @param ballotId The id of the ballot to which the group belongs.
      * @param optionId The id of the option for which the requestor votes.
-     * @return Returns a reponse with status created, but no content.
-     * @throws ServerException If the execution of the POST request has failed. The ServerException contains
-     * information about the error which has occurred.
+     * @param asyncResponse The suspended response which is resumed with returns a reponse with status created, but no
+     * content.
      */
     @POST
     @Path("/{groupId}/ballot/{ballotId}/option/{optionId}/user")
-    public Response createVote(@HeaderParam("Authorization") String accessToken, @PathParam("groupId") int
-            groupId, @PathParam("ballotId") int ballotId, @PathParam("optionId") int optionId) throws ServerException {
-        groupController.createVote(accessToken, groupId, ballotId, optionId);
-        return Response.status(Response.Status.CREATED).build();
+    public void createVote(@HeaderParam("Authorization") String accessToken, @PathParam("groupId") int groupId,
+            @PathParam("ballotId") int ballotId, @PathParam("optionId") int optionId, @Suspended AsyncResponse
+            asyncResponse) {
+        asyncExecutor.execute(asyncResponse, () -> {
+            groupController.createVote(accessToken, groupId, ballotId, optionId);
+            return Response.status(Response.Status.CREATED).build();
+        });
     }
 
     /**
@@ -481,17 +477,17 @@ public class GroupAPI {
      * @param ballotId The id of the ballot to which the option belongs.
      * @param optionId The id of the option for which the users have voted.
      * @param userId The id of the user for whom the vote should be deleted.
-     * @return A response with no content.
-     * @throws ServerException If the execution of the DELETE request has failed. The ServerException contains
-     * information about the error which has occurred.
+     * @param asyncResponse The suspended response which is resumed with a response with no content.
      */
     @DELETE
     @Path("/{groupId}/ballot/{ballotId}/option/{optionId}/user/{userId}")
-    public Response deleteVote(@HeaderParam("Authorization") String accessToken, @PathParam("groupId") int
-            groupId, @PathParam("ballotId") int ballotId, @PathParam("optionId") int optionId, @PathParam("userId")
-                               int userId) throws ServerException {
-        groupController.deleteVote(accessToken, groupId, ballotId, optionId, userId);
-        return Response.status(Response.Status.NO_CONTENT).build();
+    public void deleteVote(@HeaderParam("Authorization") String accessToken, @PathParam("groupId") int groupId,
+            @PathParam("ballotId") int ballotId, @PathParam("optionId") int optionId, @PathParam("userId") int userId,
+            @Suspended AsyncResponse asyncResponse) {
+        asyncExecutor.execute(asyncResponse, () -> {
+            groupController.deleteVote(accessToken, groupId, ballotId, optionId, userId);
+            return Response.status(Response.Status.NO_CONTENT).build();
+        });
     }
 
     /**
@@ -504,20 +500,21 @@ public class GroupAPI {
      * @param groupId The id of the group for which the conversation is created.
      * @param conversation The conversation object containing the data from the request.
      * @param uriInfo Information about the request URI.
-     * @return The created conversation resource and the URI for that resource.
-     * @throws ServerException If the execution of the POST request has failed. The ServerException contains
-     * information about the error which has occurred.
+     * @param asyncResponse The suspended response which is resumed with the created conversation resource and the URI
+     * for that resource.
      */
     @POST
     @Consumes(MediaType.APPLICATION_JSON)
     @Produces(MediaType.APPLICATION_JSON)
     @Path("/{groupId}/conversation")
-    public Response createConversation(@HeaderParam("Authorization") String accessToken, @PathParam("groupId") int
-            groupId, Conversation conversation, @Context UriInfo uriInfo) throws ServerException {
-        conversation = groupController.createConversation(accessToken, groupId, conversation);
-        URI createdURI = URI.create(uriInfo.getBaseUri().toString() + "group" + "/" + groupId + "/" + "conversation" +
-                "/" + conversation.getId());
-        return Response.status(Response.Status.CREATED).location(createdURI).entity(conversation).build();
+    public void createConversation(@HeaderParam("Authorization") String accessToken, @PathParam("groupId") int groupId,
+            Conversation conversation, @Context UriInfo uriInfo, @Suspended AsyncResponse asyncResponse) {
+        asyncExecutor.execute(asyncResponse, () -> {
+            Conversation createdConversation = groupController.createConversation(accessToken, groupId, conversation);
+            URI createdURI = URI.create(uriInfo.getBaseUri().toString() + "group" + "/" + groupId + "/" +
+                    "conversation" + "/" + createdConversation.getId());
+            return Response.status(Response.Status.CREATED).location(createdURI).entity(createdConversation).build();
+        });
     }
 
     /**
@@ -528,6 +525,8 @@ public class GroupAPI {
      * @param accessToken The access token of the requestor.
      * @param groupId The id of the group for which the conversations are requested.
      * @param subresources Indicates whether the conversations should contain a list of their sub-resources.
+     * @param messageLimit The maximum number of latest messages per conversation if sub-resources are requested.
+     * All messages are returned if the parameter isn't set.
      * @return A list of conversation resources. The list can also be empty.
      * @throws ServerException If the execution of the GET request has failed. The ServerException contains
      * information about the error which has occurred.
@@ -536,10 +535,11 @@ public class GroupAPI {
     @Produces(MediaType.APPLICATION_JSON)
     @Path("/{groupId}/conversation")
     public Response getConversations(@HeaderParam("Authorization") String accessToken, @PathParam
-            ("groupId") int groupId, @DefaultValue("false") @QueryParam("subresources") boolean subresources) throws
-            ServerException {
-        List<Conversation> conversations = groupController.getConversations(accessToken, groupId, subresources);
-        return Response.status(Response.Status.OK).entity(parseToJson(conversations)).build();
+            ("groupId") int groupId, @DefaultValue("false") @QueryParam("subresources") boolean subresources,
+                                     @QueryParam("messageLimit") Integer messageLimit) throws ServerException {
+        List<Conversation> conversations = groupController.getConversations(accessToken, groupId, subresources,
+                messageLimit);
+        return Response.status(Response.Status.OK).entity(jsonConverter.toStreamingOutput(conversations)).build();
     }
 
     /**
@@ -572,19 +572,21 @@ public class GroupAPI {
      * @param conversationId The id of the conversation which should be updated.
      * @param conversation The conversation object which has been generated from the JSON Merge Patch document. It
      * contains the new data for the conversation.
-     * @return Returns an updated version of the conversation resource.
-     * @throws ServerException If the execution of the PATCH request has failed. The ServerException contains
-     * information about the error which has occurred.
+     * @param asyncResponse The suspended response which is resumed with returns an updated version of the conversation
+     * resource.
      */
     @PATCH
     @Consumes(MediaType.APPLICATION_JSON)
     @Produces(MediaType.APPLICATION_JSON)
     @Path("/{groupId}/conversation/{conversationId}")
-    public Response changeConversation(@HeaderParam("Authorization") String accessToken, @PathParam("groupId") int
-            groupId, @PathParam("conversationId") int conversationId, Conversation conversation) throws
-            ServerException {
-        conversation = groupController.changeConversation(accessToken, groupId, conversationId, conversation);
-        return Response.status(Response.Status.OK).entity(conversation).build();
+    public void changeConversation(@HeaderParam("Authorization") String accessToken, @PathParam("groupId") int groupId,
+            @PathParam("conversationId") int conversationId, Conversation conversation, @Suspended AsyncResponse
+            asyncResponse) {
+        asyncExecutor.execute(asyncResponse, () -> {
+            Conversation changedConversation = groupController.changeConversation(accessToken, groupId, conversationId,
+                    conversation);
+            return Response.status(Response.Status.OK).entity(changedConversation).build();
+        });
     }
 
     /**
@@ -593,16 +595,16 @@ public class GroupAPI {
      * @param accessToken The access token of the requestor.
      * @param groupId The id of the group to which the conversation belongs.
      * @param conversationId The id of the conversation that should be deleted.
-     * @return A response with no content.
-     * @throws ServerException If the execution of the DELETE request has failed. The ServerException contains
-     * information about the error which has occurred.
+     * @param asyncResponse The suspended response which is resumed with a response with no content.
      */
     @DELETE
     @Path("/{groupId}/conversation/{conversationId}")
-    public Response deleteConversation(@HeaderParam("Authorization") String accessToken, @PathParam("groupId") int
-            groupId, @PathParam("conversationId") int conversationId) throws ServerException {
-        groupController.deleteConversation(accessToken, groupId, conversationId);
-        return Response.status(Response.Status.NO_CONTENT).build();
+    public void deleteConversation(@HeaderParam("Authorization") String accessToken, @PathParam("groupId") int groupId,
+            @PathParam("conversationId") int conversationId, @Suspended AsyncResponse asyncResponse) {
+        asyncExecutor.execute(asyncResponse, () -> {
+            groupController.deleteConversation(accessToken, groupId, conversationId);
+            return Response.status(Response.Status.NO_CONTENT).build();
+        });
     }
 
     /**
@@ -613,33 +615,37 @@ public class GroupAPI {
      * @param groupId The id of the group to which the conversation belongs.
      * @param conversationId The id of the conversation.
      * @param conversationMessage The object containing the data of the message taken from the request.
-     * @return Returns the created message resource.
-     * @throws ServerException If the execution of the POST request has failed. The ServerException contains
-     * information about the error which has occurred.
+     * @param asyncResponse The suspended response which is resumed with returns the created message resource.
      */
     @POST
     @Consumes(MediaType.APPLICATION_JSON)
     @Produces(MediaType.APPLICATION_JSON)
     @Path("/{groupId}/conversation/{conversationId}/message")
-    public Response createConversationMessage(@HeaderParam("Authorization") String accessToken, @PathParam("groupId")
-    int groupId, @PathParam("conversationId") int conversationId, ConversationMessage conversationMessage) throws
-            ServerException {
-        conversationMessage = groupController.createConversationMessage(accessToken, groupId, conversationId,
-                conversationMessage);
-        String conversationMessageAsJson = parseToJson(conversationMessage);
-        return Response.status(Response.Status.CREATED).entity(conversationMessageAsJson).build();
+    public void createConversationMessage(@HeaderParam("Authorization") String accessToken, @PathParam("groupId") int
+            groupId, @PathParam("conversationId") int conversationId, ConversationMessage conversationMessage,
+            @Suspended AsyncResponse asyncResponse) {
+        asyncExecutor.execute(asyncResponse, () -> {
+            ConversationMessage createdMessage = groupController.createConversationMessage(accessToken, groupId,
+                    conversationId, conversationMessage);
+            String conversationMessageAsJson = parseToJson(createdMessage);
+            return Response.status(Response.Status.CREATED).entity(conversationMessageAsJson).build();
+        });
     }
 
     /**
-     * Returns the messages for the conversation starting from a defined message number which is taken form the
-     * request URL. The method returns a list of all messages of the conversation which have a higher message number
-     * than the one defined in the request.
+     * Returns a page of the messages for the conversation starting from a defined message number which is taken form
+     * the request URL. By default, the page contains the messages of the conversation which have a higher message
+     * number than the one defined in the request. If the page is full, the response contains a link to the next page.
      *
      * @param accessToken The access token of the requestor.
      * @param groupId The id of the group to which the conversation belongs.
      * @param conversationId The id of the conversation.
-     * @param messageNr The starting message number. All messages of the conversation are returned which have a
-     * higher message number than the one defined in this parameter.
+     * @param messageNr The starting message number. In ascending direction, the messages of the conversation are
+     * returned which have a higher message number than the one defined in this parameter. In descending direction,
+     * the messages with a lower message number are returned, starting at the latest one if the message number is zero.
+     * @param limit The maximum number of messages on the page. A default limit is used if it isn't set.
+     * @param direction The direction in which the messages are paged, either asc or desc. Default is asc.
+     * @param uriInfo Information about the URI of the request.
      * @return A list of conversation messages. The list can also be empty.
      * @throws ServerException If the execution of the GET request has failed. The ServerException contains
      * information about the error which has occurred.
@@ -649,11 +655,52 @@ public class GroupAPI {
     @Path("/{groupId}/conversation/{conversationId}/message")
     public Response getConversationMessages(@HeaderParam("Authorization") String accessToken,
                                             @PathParam("groupId") int groupId, @PathParam("conversationId") int conversationId, @DefaultValue("0")
-                                            @QueryParam("messageNr") int messageNr) throws ServerException {
+                                            @QueryParam("messageNr") int messageNr, @QueryParam("limit") Integer limit,
+                                            @QueryParam("direction") String direction, @Context UriInfo uriInfo)
+            throws ServerException {
+        int pageSize = limit != null ? limit : Constants.MESSAGES_DEFAULT_LIMIT;
+        SortDirection sortDirection = MessagePaging.getSortDirection(direction);
         List<ConversationMessage> conversationMessages = groupController.getConversationMessages(accessToken, groupId,
-                conversationId, messageNr);
-        String conversationMessagesAsJson = parseToJson(conversationMessages);
-        return Response.status(Response.Status.OK).entity(conversationMessagesAsJson).build();
+                conversationId, messageNr, pageSize, sortDirection);
+        Response.ResponseBuilder response = Response.status(Response.Status.OK).entity(jsonConverter
+                .toStreamingOutput(conversationMessages));
+        URI nextPage = MessagePaging.getNextPageURI(uriInfo, conversationMessages, pageSize, sortDirection);
+        if (nextPage != null) {
+            response.link(nextPage, "next");
+        }
+        return response.build();
+    }
+
+
+    /**
+     * Waits for new messages of the conversation. This long poll request is answered as soon as the conversation
+     * contains messages with a higher message number than the one defined in the request. If there are no new
+     * messages within the poll timeout, the request is answered with status 204 and the client polls again. The
+     * request is suspended while it waits, so it doesn't hold a thread. It is meant for clients which don't receive
+     * push notifications.
+     *
+     * @param accessToken The access token of the requestor.
+     * @param groupId The id of the group to which the conversation belongs.
+     * @param conversationId The id of the conversation.
+     * @param messageNr The highest message number which is known to the requestor.
+     * @param limit The maximum number of messages in the response. A default limit is used if it isn't set.
+     * @param asyncResponse The suspended response which is resumed with the new messages or with a ServerException
+     * which contains information about the error which has occurred.
+     */
+    @GET
+    @Produces(MediaType.APPLICATION_JSON)
+    @Path("/{groupId}/conversation/{conversationId}/message/poll")
+    public void pollConversationMessages(@HeaderParam("Authorization") String accessToken,
+                                         @PathParam("groupId") int groupId, @PathParam("conversationId") int
+                                                 conversationId, @DefaultValue("0") @QueryParam("messageNr") int
+                                                 messageNr, @QueryParam("limit") Integer limit, @Suspended
+                                                 AsyncResponse asyncResponse) {
+        int pageSize = limit != null ? limit : Constants.MESSAGES_DEFAULT_LIMIT;
+        // The participation is verified per requestor, so the messages aren't shared between requestors.
+        String queryKey = accessToken + "/" + groupId + "/" + messageNr + "/" + pageSize;
+        LongPollRegistry.getInstance().poll(LongPollRegistry.getConversationTopic(conversationId), queryKey,
+                asyncResponse, null, () -> groupController.getConversationMessages(accessToken, groupId, conversationId,
+                        messageNr, pageSize, SortDirection.ASC));
     }
 
     /**
@@ -666,7 +713,7 @@ public class GroupAPI {
     private String parseToJson(Object object) throws ServerException {
         try {
             // Return the channel resources.
-            return mapper.writeValueAsString(object);
+            return jsonConverter.getWriter().writeValueAsString(object);
         } catch (JsonProcessingException e) {
             logger.error(LOG_SERVER_EXCEPTION, 500, PARSING_FAILURE, "Couldn't parse object to JSON String.");
             throw new ServerException(500, PARSING_FAILURE);
@@ -0,0 +1,137 @@
+package ulm.university.news.api;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ulm.university.news.controller.AccessController;
+import ulm.university.news.data.enums.TokenType;
+import ulm.university.news.manager.cache.FailureRateLimiter;
+import ulm.university.news.util.exceptions.ServerException;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerRequestFilter;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.container.ContainerResponseFilter;
+import javax.ws.rs.container.PreMatching;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.ext.Provider;
+import java.io.IOException;
+
+import static ulm.university.news.util.Constants.LOG_SERVER_EXCEPTION;
+import static ulm.university.news.util.Constants.TOKEN_INVALID;
+import static ulm.university.news.util.Constants.TOO_MANY_INVALID_REQUESTS;
+
+/**
+ * This filter limits the number of requests with an invalid access token. Every request which is rejected because of
+ * an invalid access token is counted for its access token and for the address of the client. If one of them reaches
+ * its limit, further requests are answered with the HTTP status 429 without being processed until the time window
+ * has expired. Clients which repeatedly send stale or guessed access tokens are thereby answered from memory. The
+ * limit of a client address only applies to requests with an invalid access token. If the address is blocked, the
+ * access token of a request is verified once before the request is rejected, so clients which share an address with a
+ * misbehaving client, e.g. behind a NAT or proxy, aren't locked out. Requests without an access token, e.g. the
+ * registration of a user, can't guess access tokens and are never blocked by the limit of the address.
+ *
+ * @author Matthias Mak
+ * @author Philipp Speidel
+ */
+@PreMatching
+@Provider
+public class InvalidTokenRateLimitFilter implements ContainerRequestFilter, ContainerResponseFilter {
+
+    /** The logger instance for InvalidTokenRateLimitFilter. */
+    private static final Logger logger = LoggerFactory.getLogger(InvalidTokenRateLimitFilter.class);
+
+    /** The HTTP status code which indicates that the client has sent too many requests. */
+    private static final int TOO_MANY_REQUESTS = 429;
+
+    /** The length of the time window in milliseconds. */
+    private static final long TIME_WINDOW = 60000;
+
+    /** The number of requests with the same invalid access token which are allowed within the time window. */
+    private static final int MAX_FAILURES_PER_TOKEN = 10;
+
+    /** The number of requests with invalid access tokens per client address which are allowed within the window. */
+    private static final int MAX_FAILURES_PER_ADDRESS = 50;
+
+    /** Counts the rejected requests per access token. */
+    private static final FailureRateLimiter tokenLimiter = new FailureRateLimiter(MAX_FAILURES_PER_TOKEN,
+            TIME_WINDOW);
+
+    /** Counts the rejected requests per client address. */
+    private static final FailureRateLimiter addressLimiter = new FailureRateLimiter(MAX_FAILURES_PER_ADDRESS,
+            TIME_WINDOW);
+
+    /** The controller which verifies the access tokens of blocked addresses. */
+    private final AccessController accessController = new AccessController();
+
+    /** The current servlet request which provides the address of the client. */
+    @Context
+    private HttpServletRequest servletRequest;
+
+    /**
+     * Rejects the request if its access token or the address of the client has exceeded the number of allowed
+     * requests with an invalid access token. The limit of the address is only applied if the request has an access
+     * token which is invalid.
+     *
+     * @param request The context of the incoming request.
+     * @throws IOException Not thrown by this filter.
+     */
+    @Override
+    public void filter(ContainerRequestContext request) throws IOException {
+        String accessToken = request.getHeaderString("Authorization");
+        String address = servletRequest.getRemoteAddr();
+        boolean blocked;
+        if (accessToken != null && tokenLimiter.isBlocked(accessToken)) {
+            blocked = true;
+        } else {
+            blocked = accessToken != null && addressLimiter.isBlocked(address) && !isValid(accessToken);
+        }
+        if (blocked) {
+            logger.error(LOG_SERVER_EXCEPTION, TOO_MANY_REQUESTS, TOO_MANY_INVALID_REQUESTS, "Too many requests with" +
+                    " an invalid access token from " + address + ".");
+            ServerError se = new ServerError(TOO_MANY_REQUESTS, TOO_MANY_INVALID_REQUESTS, null);
+            request.abortWith(Response.status(TOO_MANY_REQUESTS).entity(se).type(MediaType.APPLICATION_JSON)
+                    .build());
+        }
+    }
+
+    /**
+     * Counts the response if the request has been rejected because of an invalid access token.
+     *
+     * @param request The context of the request.
+     * @param response The context of the outgoing response.
+     * @throws IOException Not thrown by this filter.
+     */
+    @Override
+    public void filter(ContainerRequestContext request, ContainerResponseContext response) throws IOException {
+        if (response.getStatus() != 401 || !(response.getEntity() instanceof ServerError)) {
+            return;
+        }
+        if (((ServerError) response.getEntity()).getErrorCode() == TOKEN_INVALID) {
+            String accessToken = request.getHeaderString("Authorization");
+            if (accessToken != null) {
+                tokenLimiter.recordFailure(accessToken);
+            }
+            addressLimiter.recordFailure(servletRequest.getRemoteAddr());
+        }
+    }
+
+    /**
+     * Checks whether the given access token belongs to a user or moderator account. Cached and recently rejected
+     * access tokens are answered without a database query. The result of a query is cached, so each access token is
+     * verified at most once.
+     *
+     * @param accessToken The access token of the request.
+     * @return true if the access token is valid or couldn't be verified due to a database failure.
+     */
+    private boolean isValid(String accessToken) {
+        try {
+            return accessController.verifyAccessToken(accessToken) != TokenType.INVALID;
+        } catch (ServerException e) {
+            // Let the request pass. Its processing reports the database failure.
+            return true;
+        }
+    }
+}
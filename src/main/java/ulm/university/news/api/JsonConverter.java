@@ -0,0 +1,206 @@
+package ulm.university.news.api;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.fasterxml.jackson.datatype.jsr310.deser.key.ZonedDateTimeKeyDeserializer;
+import ulm.university.news.data.*;
+import ulm.university.news.data.enums.ChannelType;
+
+import javax.ws.rs.core.StreamingOutput;
+import java.io.IOException;
+import java.time.ZonedDateTime;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The JsonConverter class provides the preconfigured Jackson readers and writers which are used by the API classes to
+ * convert resources from and to JSON. The mappers are configured only once. The readers and writers are immutable and
+ * thread safe, so they are shared by all requests.
+ *
+ * @author Matthias Mak
+ * @author Philipp Speidel
+ */
+public class JsonConverter {
+
+    /** A reference for the JsonConverter Singleton class. */
+    private static JsonConverter _instance;
+
+    /** The writer which converts resources to JSON. Dates are written as timestamps and null values are omitted. */
+    private final ObjectWriter writer;
+
+    /**
+     * The writer which writes the elements of a streamed list. It doesn't flush after each element, so the response
+     * is sent in full buffers instead of one small chunk per element.
+     */
+    private final ObjectWriter elementWriter;
+
+    /** The reader which reads JSON Strings into a tree, e.g. to read single fields. */
+    private final ObjectReader treeReader;
+
+    /** The readers for the channel classes mapped by the channel type. */
+    private final Map<ChannelType, ObjectReader> channelReaders = new EnumMap<ChannelType, ObjectReader>(ChannelType
+            .class);
+
+    /** The reader for reminders which also parses the dates of the reminder. */
+    private final ObjectReader reminderReader;
+
+    /** The reader for sync requests which also parses the dates of the sync request. */
+    private final ObjectReader syncRequestReader;
+
+    /**
+     * Creates an Instance of the JsonConverter class and configures the readers and writers.
+     */
+    private JsonConverter() {
+        ObjectMapper writeMapper = new ObjectMapper();
+        // Make sure that dates are formatted correctly.
+        writeMapper.registerModule(new JavaTimeModule());
+        writeMapper.configure(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS, true);
+        writeMapper.setSerializationInclusion(JsonInclude.Include.NON_NULL);
+        writer = writeMapper.writer();
+        elementWriter = writer.without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+
+        ObjectMapper channelMapper = new ObjectMapper();
+        // Set fields and Enum values which are unknown to null and continue parsing.
+        channelMapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        channelMapper.configure(DeserializationFeature.READ_UNKNOWN_ENUM_VALUES_AS_NULL, true);
+        treeReader = channelMapper.reader();
+        for (ChannelType channelType : ChannelType.values) {
+            channelReaders.put(channelType, channelMapper.readerFor(getChannelClass(channelType)));
+        }
+
+        // Use JavaTimeModule for proper deserialization of ZonedDateTime values.
+        ObjectMapper reminderMapper = new ObjectMapper();
+        reminderMapper.registerModule(new JavaTimeModule().addKeyDeserializer(ZonedDateTime.class,
+                ZonedDateTimeKeyDeserializer.INSTANCE));
+        reminderMapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        reminderMapper.configure(DeserializationFeature.READ_UNKNOWN_ENUM_VALUES_AS_NULL, true);
+        reminderReader = reminderMapper.readerFor(Reminder.class);
+        syncRequestReader = reminderMapper.readerFor(SyncRequest.class);
+    }
+
+    /**
+     * Get an instance of the JsonConverter class.
+     *
+     * @return Instance of JsonConverter.
+     */
+    public static synchronized JsonConverter getInstance() {
+        if (_instance == null) {
+            _instance = new JsonConverter();
+        }
+        return _instance;
+    }
+
+    /**
+     * Returns the writer which converts resources to JSON.
+     *
+     * @return The shared writer.
+     */
+    public ObjectWriter getWriter() {
+        return writer;
+    }
+
+    /**
+     * Creates a streaming output which writes the given resources as JSON array directly to the response. The
+     * resources are serialized one after another while the response is written, so the JSON representation of the
+     * whole list is never held in memory and the first bytes are sent without waiting for the last resource. The
+     * output is flushed once when the array has been written.
+     *
+     * @param resources The resources which should be written.
+     * @return The streaming output which can be used as entity of the response.
+     */
+    public StreamingOutput toStreamingOutput(List<?> resources) {
+        return output -> {
+            JsonGenerator generator = writer.getFactory().createGenerator(output);
+            generator.writeStartArray();
+            for (Object resource : resources) {
+                elementWriter.writeValue(generator, resource);
+            }
+            generator.writeEndArray();
+            generator.close();
+        };
+    }
+
+    /**
+     * Creates a streaming output which writes the given resource as JSON directly to the response. Lists which are
+     * contained in the resource are serialized element by element while the response is written.
+     *
+     * @param resource The resource which should be written.
+     * @return The streaming output which can be used as entity of the response.
+     */
+    public StreamingOutput toStreamingOutput(Object resource) {
+        return output -> writer.writeValue(output, resource);
+    }
+
+    /**
+     * Reads the given JSON String into a tree.
+     *
+     * @param json The JSON String.
+     * @return The root node of the tree.
+     * @throws IOException If the JSON String couldn't be parsed.
+     */
+    public JsonNode readTree(String json) throws IOException {
+        return treeReader.readTree(json);
+    }
+
+    /**
+     * Creates a channel object of the class which belongs to the given channel type from the given JSON String.
+     *
+     * @param json The JSON String of the channel.
+     * @param channelType The type of the channel.
+     * @return The channel object, e.g. a Lecture if the channel type is LECTURE.
+     * @throws IOException If the JSON String couldn't be parsed.
+     */
+    public Channel readChannel(String json, ChannelType channelType) throws IOException {
+        return channelReaders.get(channelType).readValue(json);
+    }
+
+    /**
+     * Creates a reminder object from the given JSON String.
+     *
+     * @param json The JSON String of the reminder.
+     * @return The reminder object.
+     * @throws IOException If the JSON String couldn't be parsed.
+     */
+    public Reminder readReminder(String json) throws IOException {
+        return reminderReader.readValue(json);
+    }
+
+    /**
+     * Creates a sync request object from the given JSON String.
+     *
+     * @param json The JSON String of the sync request.
+     * @return The sync request object.
+     * @throws IOException If the JSON String couldn't be parsed.
+     */
+    public SyncRequest readSyncRequest(String json) throws IOException {
+        return syncRequestReader.readValue(json);
+    }
+
+    /**
+     * Returns the class which represents channels of the given type.
+     *
+     * @param channelType The type of the channel.
+     * @return The channel class or one of its subclasses.
+     */
+    private static Class<? extends Channel> getChannelClass(ChannelType channelType) {
+        switch (channelType) {
+            case LECTURE:
+                return Lecture.class;
+            case EVENT:
+                return Event.class;
+            case SPORTS:
+                return Sports.class;
+            default:
+                // There is no subclass for channel type OTHER and STUDENT_GROUP, so use the channel class.
+                return Channel.class;
+        }
+    }
+}
@@ -0,0 +1,347 @@
+package ulm.university.news.api;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ulm.university.news.data.Message;
+import ulm.university.news.data.PushOutboxEntry;
+import ulm.university.news.manager.push.PushOutboxDispatcher;
+import ulm.university.news.util.exceptions.ServerException;
+
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.CompletionCallback;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static ulm.university.news.util.Constants.*;
+
+/**
+ * The LongPollRegistry class keeps the requests which wait for new messages of a channel or a conversation. The
+ * requests are suspended, so they don't hold a thread while they wait. The registry listens to the push outbox
+ * dispatcher and resumes the waiting requests of a channel or conversation when a new message has been delivered
+ * there, i.e. on the same events which cause push notifications. A waiting request which times out is resumed
+ * without content, so the client polls again. The access of each woken requestor is verified separately, while the
+ * messages are loaded only once for all requestors which wait for the same messages.
+ *
+ * @author Matthias Mak
+ * @author Philipp Speidel
+ */
+public class LongPollRegistry {
+
+    /** The logger instance for LongPollRegistry. */
+    private static final Logger logger = LoggerFactory.getLogger(LongPollRegistry.class);
+
+    /** A reference for the LongPollRegistry Singleton class. */
+    private static LongPollRegistry _instance;
+
+    /** The time in seconds after which a waiting request is resumed without content. */
+    private static final int POLL_TIMEOUT = 30;
+
+    /** The number of threads which load the new messages for woken requests. */
+    private static final int WAKE_UP_THREADS = 2;
+
+    /**
+     * The waiting requests mapped by their topic, i.e. the channel or conversation they wait for. A list is only
+     * accessed within the compute methods of the map or after it has been removed from the map.
+     */
+    private final ConcurrentHashMap<String, List<Waiter>> waiters = new ConcurrentHashMap<String, List<Waiter>>();
+
+    /** Loads the new messages and resumes the woken requests, so the dispatcher thread isn't blocked. */
+    private final ExecutorService wakeUpExecutor;
+
+    /** The shared Jackson readers and writers to parse dates properly from and to JSON. */
+    private JsonConverter jsonConverter = JsonConverter.getInstance();
+
+    /**
+     * Verifies whether a waiting requestor is still allowed to load the messages.
+     */
+    public interface AccessVerifier {
+        /**
+         * Verifies the access of the requestor.
+         *
+         * @throws ServerException If the requestor isn't allowed to load the messages anymore.
+         */
+        void verify() throws ServerException;
+    }
+
+    /**
+     * Loads the messages which a waiting request is waiting for.
+     */
+    public interface MessageLoader {
+        /**
+         * Loads the messages. The access of the requestor is verified again on each call.
+         *
+         * @return The messages. The list is empty if there are no new messages.
+         * @throws ServerException If the requestor isn't allowed to load the messages anymore or the loading fails.
+         */
+        List<? extends Message> load() throws ServerException;
+    }
+
+    /**
+     * Creates an Instance of the LongPollRegistry class and registers it at the push outbox dispatcher.
+     */
+    private LongPollRegistry() {
+        wakeUpExecutor = Executors.newFixedThreadPool(WAKE_UP_THREADS, runnable -> {
+            Thread thread = new Thread(runnable, "long-poll");
+            thread.setDaemon(true);
+            return thread;
+        });
+        PushOutboxDispatcher.getInstance().addDeliveryListener(this::onDelivery);
+    }
+
+    /**
+     * Get an instance of the LongPollRegistry class.
+     *
+     * @return Instance of LongPollRegistry.
+     */
+    public static synchronized LongPollRegistry getInstance() {
+        if (_instance == null) {
+            _instance = new LongPollRegistry();
+        }
+        return _instance;
+    }
+
+    /**
+     * Returns the topic of requests which wait for new announcements of the given channel.
+     *
+     * @param channelId The id of the channel.
+     * @return The topic.
+     */
+    public static String getChannelTopic(int channelId) {
+        return "channel/" + channelId;
+    }
+
+    /**
+     * Returns the topic of requests which wait for new messages of the given conversation.
+     *
+     * @param conversationId The id of the conversation.
+     * @return The topic.
+     */
+    public static String getConversationTopic(int conversationId) {
+        return "conversation/" + conversationId;
+    }
+
+    /**
+     * Answers the given request with new messages. If there are new messages already, the request is resumed
+     * immediately. Otherwise it waits until new messages are available or the poll timeout has elapsed. The loader
+     * is called once before the method returns, so an unauthorized requestor is rejected immediately. The request is
+     * registered before the messages are loaded, so a message which is delivered in the meantime wakes it up.
+     *
+     * @param topic The topic of the request.
+     * @param queryKey Identifies the messages which are requested. Requests of the same topic with the same query key
+     * get the same messages, so the messages are loaded only once for all of them.
+     * @param asyncResponse The suspended response of the request.
+     * @param verifier Verifies the access of the requestor before shared messages are handed out. Nullable if the
+     * query key identifies the requestor, i.e. the messages aren't shared between requestors.
+     * @param loader Loads the requested messages.
+     */
+    public void poll(String topic, String queryKey, AsyncResponse asyncResponse, AccessVerifier verifier,
+                     MessageLoader loader) {
+        Waiter waiter = new Waiter(queryKey, asyncResponse, verifier, loader);
+        asyncResponse.setTimeoutHandler(response -> response.resume(Response.noContent().build()));
+        asyncResponse.setTimeout(POLL_TIMEOUT, TimeUnit.SECONDS);
+        asyncResponse.register((CompletionCallback) throwable -> removeWaiter(topic, waiter));
+        addWaiter(topic, waiter);
+
+        // A wake up which occurs from now on resumes the request, so the response may already be resumed below.
+        try {
+            List<? extends Message> messages = loader.load();
+            if (!messages.isEmpty()) {
+                asyncResponse.resume(Response.status(Response.Status.OK).entity(jsonConverter.toStreamingOutput
+                        (messages)).build());
+            }
+        } catch (ServerException e) {
+            asyncResponse.resume(e);
+        }
+    }
+
+    /**
+     * Resumes all waiting requests without content and stops the threads of the registry.
+     */
+    public void shutdown() {
+        wakeUpExecutor.shutdownNow();
+        for (String topic : waiters.keySet()) {
+            // The removed list can't be changed by other threads anymore.
+            List<Waiter> topicWaiters = waiters.remove(topic);
+            if (topicWaiters != null) {
+                for (Waiter waiter : topicWaiters) {
+                    waiter.asyncResponse.resume(Response.noContent().build());
+                }
+            }
+        }
+        logger.info("Long poll registry stopped.");
+    }
+
+    /**
+     * Wakes up the requests which wait for the channel or conversation of the given outbox entry if the entry
+     * announces a new message.
+     *
+     * @param entry The outbox entry which is delivered.
+     */
+    private void onDelivery(PushOutboxEntry entry) {
+        switch (entry.getPushType()) {
+            case ANNOUNCEMENT_NEW:
+                wakeUp(getChannelTopic(entry.getChannelId()));
+                break;
+            case CONVERSATION_MESSAGE_NEW:
+                // The second id of the push message is the id of the conversation.
+                wakeUp(getConversationTopic(entry.getId2()));
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Removes the requests which wait for the given topic and resumes them with the new messages. The messages are
+     * loaded on a separate thread.
+     *
+     * @param topic The topic for which new messages are available.
+     */
+    private void wakeUp(String topic) {
+        List<Waiter> topicWaiters = waiters.remove(topic);
+        if (topicWaiters == null) {
+            return;
+        }
+        logger.debug("Wake up {} request(s) waiting for {}.", topicWaiters.size(), topic);
+        try {
+            wakeUpExecutor.execute(() -> resumeWaiters(topic, topicWaiters));
+        } catch (RejectedExecutionException e) {
+            logger.debug("Long poll registry is shut down. Wake up is ignored.");
+        }
+    }
+
+    /**
+     * Verifies the access of each request and loads the new messages once per query key. The requests are resumed
+     * with the new messages. Requests for which there are still no new messages continue to wait.
+     *
+     * @param topic The topic for which new messages are available.
+     * @param topicWaiters The requests which have been waiting for the topic.
+     */
+    private void resumeWaiters(String topic, List<Waiter> topicWaiters) {
+        Map<String, List<Waiter>> waitersByQuery = new LinkedHashMap<String, List<Waiter>>();
+        for (Waiter waiter : topicWaiters) {
+            if (waiter.asyncResponse.isDone()) {
+                continue;
+            }
+            // Verify each requestor, so a requestor who has lost its access doesn't fail the others.
+            if (waiter.verifier != null) {
+                try {
+                    waiter.verifier.verify();
+                } catch (ServerException e) {
+                    waiter.asyncResponse.resume(e);
+                    continue;
+                } catch (RuntimeException e) {
+                    logger.error("Unexpected error while verifying a request waiting for {}.", topic, e);
+                    waiter.asyncResponse.resume(e);
+                    continue;
+                }
+            }
+            waitersByQuery.computeIfAbsent(waiter.queryKey, key -> new ArrayList<Waiter>()).add(waiter);
+        }
+        for (List<Waiter> queryWaiters : waitersByQuery.values()) {
+            try {
+                List<? extends Message> messages = queryWaiters.get(0).loader.load();
+                if (messages.isEmpty()) {
+                    for (Waiter waiter : queryWaiters) {
+                        addWaiter(topic, waiter);
+                    }
+                    continue;
+                }
+                // Serialize the messages only once for all requests of the query.
+                byte[] messagesAsJson = jsonConverter.getWriter().writeValueAsBytes(messages);
+                for (Waiter waiter : queryWaiters) {
+                    waiter.asyncResponse.resume(Response.status(Response.Status.OK).entity(messagesAsJson).type
+                            (MediaType.APPLICATION_JSON_TYPE).build());
+                }
+            } catch (ServerException e) {
+                for (Waiter waiter : queryWaiters) {
+                    waiter.asyncResponse.resume(e);
+                }
+            } catch (JsonProcessingException e) {
+                logger.error(LOG_SERVER_EXCEPTION, 500, PARSING_FAILURE, "Couldn't parse messages to JSON.");
+                for (Waiter waiter : queryWaiters) {
+                    waiter.asyncResponse.resume(new ServerException(500, PARSING_FAILURE));
+                }
+            } catch (RuntimeException e) {
+                logger.error("Unexpected error while resuming requests waiting for {}.", topic, e);
+                for (Waiter waiter : queryWaiters) {
+                    waiter.asyncResponse.resume(e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds the given request to the requests which wait for the given topic. If the request has been resumed in the
+     * meantime, e.g. due to the timeout, it isn't added.
+     *
+     * @param topic The topic.
+     * @param waiter The waiting request.
+     */
+    private void addWaiter(String topic, Waiter waiter) {
+        waiters.compute(topic, (key, topicWaiters) -> {
+            if (topicWaiters == null) {
+                topicWaiters = new ArrayList<Waiter>();
+            }
+            if (!waiter.asyncResponse.isDone()) {
+                topicWaiters.add(waiter);
+            }
+            return topicWaiters.isEmpty() ? null : topicWaiters;
+        });
+    }
+
+    /**
+     * Removes the given request from the requests which wait for the given topic.
+     *
+     * @param topic The topic.
+     * @param waiter The request which doesn't wait anymore.
+     */
+    private void removeWaiter(String topic, Waiter waiter) {
+        waiters.computeIfPresent(topic, (key, topicWaiters) -> {
+            topicWaiters.remove(waiter);
+            return topicWaiters.isEmpty() ? null : topicWaiters;
+        });
+    }
+
+    /**
+     * The Waiter class holds a suspended request and the loader of the messages it waits for.
+     */
+    private static class Waiter {
+        /** Identifies the messages which are requested. */
+        private final String queryKey;
+
+        /** The suspended response of the request. */
+        private final AsyncResponse asyncResponse;
+
+        /** Verifies the access of the requestor. Nullable. */
+        private final AccessVerifier verifier;
+
+        /** Loads the requested messages. */
+        private final MessageLoader loader;
+
+        /**
+         * Creates a Waiter.
+         *
+         * @param queryKey Identifies the messages which are requested.
+         * @param asyncResponse The suspended response of the request.
+         * @param verifier Verifies the access of the requestor. Nullable.
+         * @param loader Loads the requested messages.
+         */
+        Waiter(String queryKey, AsyncResponse asyncResponse, AccessVerifier verifier, MessageLoader loader) {
+            this.queryKey = queryKey;
+            this.asyncResponse = asyncResponse;
+            this.verifier = verifier;
+            this.loader = loader;
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package ulm.university.news.api;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ulm.university.news.data.Message;
+import ulm.university.news.data.enums.SortDirection;
+import ulm.university.news.util.exceptions.ServerException;
+
+import javax.ws.rs.core.UriInfo;
+import java.net.URI;
+import java.util.List;
+
+import static ulm.university.news.util.Constants.LOG_SERVER_EXCEPTION;
+import static ulm.university.news.util.Constants.PARSING_FAILURE;
+
+/**
+ * The MessagePaging class provides the paging of announcements and conversation messages which is shared by the API
+ * classes. Messages are paged by their message number, which is passed as cursor in the URI of the next page.
+ *
+ * @author Matthias Mak
+ * @author Philipp Speidel
+ */
+final class MessagePaging {
+
+    /** The logger instance for MessagePaging. */
+    private static final Logger logger = LoggerFactory.getLogger(MessagePaging.class);
+
+    /**
+     * The MessagePaging class only provides static methods.
+     */
+    private MessagePaging() {
+    }
+
+    /**
+     * Parses the direction in which messages are paged. The direction is case insensitive.
+     *
+     * @param direction The direction taken from the request URL. Ascending direction is used if it's null.
+     * @return The sort direction.
+     * @throws ServerException If the direction is neither asc nor desc.
+     */
+    static SortDirection getSortDirection(String direction) throws ServerException {
+        if (direction == null) {
+            return SortDirection.ASC;
+        }
+        try {
+            return SortDirection.valueOf(direction.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            logger.error(LOG_SERVER_EXCEPTION, 400, PARSING_FAILURE, "Couldn't parse sort direction.");
+            throw new ServerException(400, PARSING_FAILURE);
+        }
+    }
+
+    /**
+     * Creates the URI of the page which follows the given page of messages. The message number of the last message
+     * is used as cursor for the next page.
+     *
+     * @param uriInfo Information about the URI of the request.
+     * @param messages The messages of the current page.
+     * @param limit The maximum number of messages per page.
+     * @param direction The direction in which the messages are paged.
+     * @return The URI of the next page or null if the current page isn't full, i.e. there are no more messages.
+     */
+    static URI getNextPageURI(UriInfo uriInfo, List<? extends Message> messages, int limit, SortDirection direction) {
+        if (messages.size() < limit) {
+            return null;
+        }
+        int cursor = messages.get(messages.size() - 1).getMessageNumber();
+        return uriInfo.getRequestUriBuilder().replaceQueryParam("messageNr", cursor).replaceQueryParam("limit",
+                limit).replaceQueryParam("direction", direction.name().toLowerCase()).build();
+    }
+}
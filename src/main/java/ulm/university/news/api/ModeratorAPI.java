@@ -6,6 +6,8 @@ import ulm.university.news.util.PATCH;
 import ulm.university.news.util.exceptions.ServerException;
 
 import javax.ws.rs.*;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.Suspended;
 import javax.ws.rs.core.Context;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
@@ -28,6 +30,9 @@ public class ModeratorAPI {
     /** Instance of the ModeratorController class. */
     private ModeratorController moderatorCtrl = new ModeratorController();
 
+    /** Executes the write requests asynchronously on a bounded thread pool. */
+    private AsyncRequestExecutor asyncExecutor = AsyncRequestExecutor.getInstance();
+
     /**
      * Delivers the moderator data identified by a given moderator id.
      *
@@ -72,19 +77,23 @@ public class ModeratorAPI {
      *
      * @param moderator The moderator object which contains the data from the request.
      * @param uriInfo Information about the URI of this request.
-     * @return Response object including the created moderator object and a set Location Header.
-     * @throws ServerException If the execution of the POST request has failed. The ServerException contains
-     * information about the error which has occurred.
+     * @param asyncResponse The suspended response which is resumed with a response object including the created
+     * moderator object and a set Location Header.
      */
     @POST
     @Consumes(MediaType.APPLICATION_JSON)
     @Produces(MediaType.APPLICATION_JSON)
-    public Response createModerator(Moderator moderator, @Context UriInfo uriInfo) throws ServerException {
-        moderator = moderatorCtrl.createModerator(moderator);
-        // Create the URI for the created moderator resource.
-        URI createdURI = URI.create(uriInfo.getBaseUri().toString() + "moderator" + "/" + moderator.getId());
-        // Return the created moderator resource and set the Location Header.
-        return Response.status(Response.Status.CREATED).contentLocation(createdURI).entity(moderator).build();
+    public void createModerator(Moderator moderator, @Context UriInfo uriInfo,
+            @Suspended AsyncResponse asyncResponse) {
+        asyncExecutor.execute(asyncResponse, () -> {
+            Moderator createdModerator = moderatorCtrl.createModerator(moderator);
+            // Create the URI for the created moderator resource.
+            URI createdURI = URI.create(uriInfo.getBaseUri().toString() + "moderator" + "/" +
+                    createdModerator.getId());
+            // Return the created moderator resource and set the Location Header.
+            return Response.status(Response.Status.CREATED).contentLocation(createdURI).entity(createdModerator)
+                    .build();
+        });
     }
 
     /**
@@ -94,19 +103,20 @@ public class ModeratorAPI {
      * @param accessToken The access token of the requestor.
      * @param moderatorId The id of the moderator account which should be changed.
      * @param moderator The changed moderator data.
-     * @return Response object including the changed moderator data.
-     * @throws ServerException If the execution of the PATCH request has failed. The ServerException contains
-     * information about the error which has occurred.
+     * @param asyncResponse The suspended response which is resumed with a response object including the changed
+     * moderator data.
      */
     @PATCH
     @Consumes(MediaType.APPLICATION_JSON)
     @Produces(MediaType.APPLICATION_JSON)
     @Path("/{id}")
-    public Response changeModerator(@HeaderParam("Authorization") String accessToken, @PathParam("id") int moderatorId,
-                                    Moderator moderator) throws ServerException {
-        moderator = moderatorCtrl.changeModerator(accessToken, moderatorId, moderator);
-        // Return the changed moderator resource.
-        return Response.status(Response.Status.OK).entity(moderator).build();
+    public void changeModerator(@HeaderParam("Authorization") String accessToken, @PathParam("id") int moderatorId,
+            Moderator moderator, @Suspended AsyncResponse asyncResponse) {
+        asyncExecutor.execute(asyncResponse, () -> {
+            Moderator changedModerator = moderatorCtrl.changeModerator(accessToken, moderatorId, moderator);
+            // Return the changed moderator resource.
+            return Response.status(Response.Status.OK).entity(changedModerator).build();
+        });
     }
 
     /**
@@ -114,17 +124,17 @@ public class ModeratorAPI {
      *
      * @param accessToken The access token of the requestor.
      * @param moderatorId The id of the moderator account which should be deleted.
-     * @return Response object with no additionally data.
-     * @throws ServerException If the execution of the POST request has failed. The ServerException contains
-     * information about the error which has occurred.
+     * @param asyncResponse The suspended response which is resumed with a response object with no additionally data.
      */
     @DELETE
     @Path("/{id}")
-    public Response deleteModerator(@HeaderParam("Authorization") String accessToken, @PathParam("id") int
-            moderatorId) throws ServerException {
-        moderatorCtrl.deleteModerator(accessToken, moderatorId);
-        // No resource is returned.
-        return Response.status(Response.Status.NO_CONTENT).build();
+    public void deleteModerator(@HeaderParam("Authorization") String accessToken, @PathParam("id") int moderatorId,
+            @Suspended AsyncResponse asyncResponse) {
+        asyncExecutor.execute(asyncResponse, () -> {
+            moderatorCtrl.deleteModerator(accessToken, moderatorId);
+            // No resource is returned.
+            return Response.status(Response.Status.NO_CONTENT).build();
+        });
     }
 
     /**
@@ -132,17 +142,17 @@ public class ModeratorAPI {
      * is provided within the moderator object.
      *
      * @param moderator Includes the moderators name.
-     * @return Response object with no additionally data.
-     * @throws ServerException If the execution of the POST request has failed. The ServerException contains
-     * information about the error which has occurred.
+     * @param asyncResponse The suspended response which is resumed with a response object with no additionally data.
      */
     @POST
     @Path("/password")
     @Consumes(MediaType.APPLICATION_JSON)
-    public Response resetPassword(Moderator moderator) throws ServerException {
-        moderatorCtrl.resetPassword(moderator.getName());
-        // No resource is returned.
-        return Response.status(Response.Status.OK).build();
+    public void resetPassword(Moderator moderator, @Suspended AsyncResponse asyncResponse) {
+        asyncExecutor.execute(asyncResponse, () -> {
+            moderatorCtrl.resetPassword(moderator.getName());
+            // No resource is returned.
+            return Response.status(Response.Status.OK).build();
+        });
     }
 
     /**
@@ -150,18 +160,19 @@ public class ModeratorAPI {
      * The authenticated moderator resource will be returned.
      *
      * @param moderator Includes the moderators name and password.
-     * @return Response object including the moderator data.
-     * @throws ServerException If the execution of the POST request has failed. The ServerException contains
-     * information about the error which has occurred.
+     * @param asyncResponse The suspended response which is resumed with a response object including the moderator data.
      */
     @POST
     @Path("/authentication")
     @Consumes(MediaType.APPLICATION_JSON)
     @Produces(MediaType.APPLICATION_JSON)
-    public Response authenticateModerator(Moderator moderator) throws ServerException {
-        moderator = moderatorCtrl.authenticateModerator(moderator.getName(), moderator.getPassword());
-        // Return the changed moderator resource.
-        return Response.status(Response.Status.OK).entity(moderator).build();
+    public void authenticateModerator(Moderator moderator, @Suspended AsyncResponse asyncResponse) {
+        asyncExecutor.execute(asyncResponse, () -> {
+            Moderator authenticatedModerator = moderatorCtrl.authenticateModerator(moderator.getName(),
+                    moderator.getPassword());
+            // Return the changed moderator resource.
+            return Response.status(Response.Status.OK).entity(authenticatedModerator).build();
+        });
     }
 
 }
@@ -0,0 +1,78 @@
+package ulm.university.news.api;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ulm.university.news.controller.SyncController;
+import ulm.university.news.data.SyncRequest;
+import ulm.university.news.data.SyncResult;
+import ulm.university.news.util.exceptions.ServerException;
+
+import javax.ws.rs.*;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import java.io.IOException;
+
+import static ulm.university.news.util.Constants.LOG_SERVER_EXCEPTION;
+import static ulm.university.news.util.Constants.PARSING_FAILURE;
+
+/**
+ * The SyncAPI is responsible for accepting incoming synchronization requests. A client sends the state of its data
+ * and receives all changes since then with a single request, instead of requesting the channels, the announcements
+ * of each channel and the messages of each conversation separately. If the execution of the request has failed for
+ * whatever reasons, the ServerException is handed over to the ErrorHandler class.
+ *
+ * @author Matthias Mak
+ * @author Philipp Speidel
+ */
+@Path("/sync")
+public class SyncAPI {
+
+    /** Instance of the SyncController class. */
+    private SyncController syncCtrl = new SyncController();
+
+    /** The logger instance for SyncAPI. */
+    private static final Logger logger = LoggerFactory.getLogger(SyncAPI.class);
+
+    /** The shared Jackson readers and writers to parse dates properly from and to JSON. */
+    private JsonConverter jsonConverter = JsonConverter.getInstance();
+
+    /**
+     * Delivers all data which has changed since the state described in the body of the request. The state consists
+     * of the last update date of the channels and the highest known message numbers of channels and conversations.
+     * The number of messages per channel and conversation is limited. The cursors of the response contain the
+     * message numbers from which the client continues with the next sync request.
+     *
+     * @param accessToken The access token of the requestor.
+     * @param json The sync request data represented as JSON String.
+     * @return Response object including the changed channels, announcements and conversation messages.
+     * @throws ServerException If the execution of the POST request has failed. The ServerException contains
+     * information about the error which has occurred.
+     */
+    @POST
+    @Consumes(MediaType.APPLICATION_JSON)
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response sync(@HeaderParam("Authorization") String accessToken, String json) throws ServerException {
+        SyncResult syncResult = syncCtrl.sync(accessToken, getSyncRequestFromJSON(json));
+        return Response.status(Response.Status.OK).entity(jsonConverter.toStreamingOutput(syncResult)).build();
+    }
+
+    /**
+     * Creates a sync request object from a given JSON String.
+     *
+     * @param json The sync request data represented as JSON String.
+     * @return The sync request object created from JSON.
+     * @throws ServerException If a parsing exception occurs.
+     */
+    private SyncRequest getSyncRequestFromJSON(String json) throws ServerException {
+        logger.debug("Start with JSON String:{}", json);
+        SyncRequest syncRequest;
+        try {
+            syncRequest = jsonConverter.readSyncRequest(json);
+        } catch (IOException e) {
+            logger.error(LOG_SERVER_EXCEPTION, 400, PARSING_FAILURE, "Couldn't parse sync request.");
+            throw new ServerException(400, PARSING_FAILURE);
+        }
+        logger.debug("End with syncRequest:{}", syncRequest);
+        return syncRequest;
+    }
+}
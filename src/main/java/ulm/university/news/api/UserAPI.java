@@ -7,6 +7,8 @@ import ulm.university.news.util.PATCH;
 import ulm.university.news.util.exceptions.ServerException;
 
 import javax.ws.rs.*;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.Suspended;
 import javax.ws.rs.core.Context;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
@@ -31,6 +33,9 @@ public class UserAPI {
      */
     private UserController userCtrl = new UserController();
 
+    /** Executes the write requests asynchronously on a bounded thread pool. */
+    private AsyncRequestExecutor asyncExecutor = AsyncRequestExecutor.getInstance();
+
 //    @GET
 //    @Path("/{id}")
 //    public Response getMsg(@PathParam("id") String msg) {
@@ -47,19 +52,20 @@ public class UserAPI {
      *
      * @param user    An user object including the data of the new user.
      * @param uriInfo Information about the URI of this request.
-     * @return Response object including the generated user object and a set Location Header.
-     * @throws ServerException If the execution of the POST request has failed. The ServerException contains
-     * information about the error which has occurred.
+     * @param asyncResponse The suspended response which is resumed with a response object including the generated user
+     * object and a set Location Header.
      */
     @POST
     @Consumes(MediaType.APPLICATION_JSON)
     @Produces(MediaType.APPLICATION_JSON)
-    public Response createUser(User user, @Context UriInfo uriInfo) throws ServerException {
-        user = userCtrl.createUser(user);
-        // Create the URI for the generated resource.
-        URI createdURI = URI.create(uriInfo.getBaseUri().toString() + "user" + "/" + user.getId());
-        // Return the generated user resource and set the Location Header.
-        return Response.status(Response.Status.CREATED).contentLocation(createdURI).entity(user).build();
+    public void createUser(User user, @Context UriInfo uriInfo, @Suspended AsyncResponse asyncResponse) {
+        asyncExecutor.execute(asyncResponse, () -> {
+            User createdUser = userCtrl.createUser(user);
+            // Create the URI for the generated resource.
+            URI createdURI = URI.create(uriInfo.getBaseUri().toString() + "user" + "/" + createdUser.getId());
+            // Return the generated user resource and set the Location Header.
+            return Response.status(Response.Status.CREATED).contentLocation(createdURI).entity(createdUser).build();
+        });
     }
 
     /**
@@ -105,18 +111,18 @@ public class UserAPI {
      * @param accessToken The access token of the requestor.
      * @param id The id of the user account which should be updated.
      * @param user The new data values taken from the JSON Merge Patch document and stored in an user object.
-     * @return The updated version of the user resource.
-     * @throws ServerException If the execution of the PATCH reuquest has failed. The ServerException contains
-     * information about the error which has occurred.
+     * @param asyncResponse The suspended response which is resumed with the updated version of the user resource.
      */
     @PATCH
     @Produces(MediaType.APPLICATION_JSON)
     @Consumes(MediaType.APPLICATION_JSON)
     @Path("/{id}")
-    public Response changeUser(@HeaderParam("Authorization") String accessToken, @PathParam("id") int id, User user)
-            throws ServerException {
-        user = userCtrl.changeUser(accessToken, id, user);
-        return Response.status(Response.Status.OK).entity(user).build();
+    public void changeUser(@HeaderParam("Authorization") String accessToken, @PathParam("id") int id, User user,
+            @Suspended AsyncResponse asyncResponse) {
+        asyncExecutor.execute(asyncResponse, () -> {
+            User changedUser = userCtrl.changeUser(accessToken, id, user);
+            return Response.status(Response.Status.OK).entity(changedUser).build();
+        });
     }
 
 }
@@ -4,6 +4,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import ulm.university.news.data.Moderator;
 import ulm.university.news.data.User;
+import ulm.university.news.manager.cache.AccessTokenCache;
 import ulm.university.news.manager.database.ModeratorDatabaseManager;
 import ulm.university.news.manager.database.UserDatabaseManager;
 import ulm.university.news.util.Constants;
@@ -43,7 +44,9 @@ public class AccessController {
     /**
      * Determines the type of a given access token and checks whether it is of a valid format. Furthermore, if the
      * token is of a valid format and type, it is checked whether it belongs to a user or moderator account. The
-     * method returns the type of the token.
+     * method returns the type of the token. The account which belongs to the token is loaded within the same database
+     * query and cached, so a subsequent request for the account doesn't cause another query. If the account of the
+     * token is cached or if the token has been rejected recently, the database isn't queried at all.
      *
      * @param accessToken The access token which should be verified.
      * @return TokenType.USER if it is a valid user access token, TokenType.Moderator if it is a valid moderator
@@ -55,14 +58,26 @@ public class AccessController {
         if (accessToken == null) {
             return TokenType.INVALID;
         }
+        TokenType cachedTokenType = AccessTokenCache.getInstance().getTokenType(accessToken);
+        if (cachedTokenType != null) {
+            return cachedTokenType;
+        }
+        if (AccessTokenCache.getInstance().isRejected(accessToken)) {
+            logger.debug("Access token has been rejected recently.");
+            return TokenType.INVALID;
+        }
         try {
-            if (accessToken.matches(Constants.USER_TOKEN_PATTERN) && userDBM.isValidUserToken(accessToken)) {
-                tokenType = TokenType.USER;
-            } else if (accessToken.matches(Constants.MODERATOR_TOKEN_PATTERN) &&
-                    moderatorDBM.isValidModeratorToken(accessToken)) {
-                tokenType = TokenType.MODERATOR;
+            // The format of the token determines the account type, so the token is only looked up in one table.
+            if (accessToken.matches(Constants.USER_TOKEN_PATTERN)) {
+                tokenType = getUserByToken(accessToken) != null ? TokenType.USER : TokenType.INVALID;
+            } else if (accessToken.matches(Constants.MODERATOR_TOKEN_PATTERN)) {
+                tokenType = getModeratorByToken(accessToken) != null ? TokenType.MODERATOR : TokenType.INVALID;
             } else {
-                tokenType = TokenType.INVALID;
+                // Malformed tokens are rejected without a database query, so they aren't remembered.
+                return TokenType.INVALID;
+            }
+            if (tokenType == TokenType.INVALID) {
+                AccessTokenCache.getInstance().putRejected(accessToken);
             }
         } catch (DatabaseException e) {
             logger.error(LOG_SERVER_EXCEPTION, 500, DATABASE_FAILURE, "Database Failure. Verification of access token" +
@@ -96,9 +111,14 @@ public class AccessController {
         }
 
         try {
-            // Get moderator (requestor) identified by access token from database.
-            Moderator moderatorDB = moderatorDBM.getModeratorByToken(accessToken);
-            if (moderatorDB.isLocked()) {
+            // Get moderator (requestor) identified by access token from cache or database.
+            Moderator moderatorDB = getModeratorByToken(accessToken);
+            if (moderatorDB == null) {
+                // The moderator has been deleted since the access token has been verified.
+                logger.error(LOG_SERVER_EXCEPTION, 401, TOKEN_INVALID, "To perform this operation a valid access " +
+                        "token needs to be provided.");
+                throw new ServerException(401, TOKEN_INVALID);
+            } else if (moderatorDB.isLocked()) {
                 logger.error(LOG_SERVER_EXCEPTION, 423, MODERATOR_LOCKED, "Moderator account is locked.");
                 throw new ServerException(423, MODERATOR_LOCKED);
             } else {
@@ -137,8 +157,8 @@ public class AccessController {
         }
 
         try {
-            // Get user (requestor) identified by access token from database.
-            return userDBM.getUserByToken(accessToken);
+            // Get user (requestor) identified by access token. It has usually been cached by the token verification.
+            return getUserByToken(accessToken);
         } catch (DatabaseException e) {
             String errMsg = "Database failure. Couldn't get user account by access token.";
             logger.error(LOG_SERVER_EXCEPTION, 500, DATABASE_FAILURE, errMsg);
@@ -161,9 +181,9 @@ public class AccessController {
         boolean isAdmin = false;
         if (accessToken != null) {
             try {
-                /* Get moderator (requestor) identified by access token from database. If its not a moderator token
-                the method will return null.*/
-                Moderator moderatorDB = moderatorDBM.getModeratorByToken(accessToken);
+                /* Get moderator (requestor) identified by access token from cache or database. If its not a moderator
+                token the method will return null.*/
+                Moderator moderatorDB = getModeratorByToken(accessToken);
                 // Check if moderator is a system administrator.
                 if (moderatorDB != null && moderatorDB.isAdmin()) {
                     isAdmin = true;
@@ -178,4 +198,49 @@ public class AccessController {
         return isAdmin;
     }
 
+    /**
+     * Returns the user who is identified by the given access token. The user is taken from the access token cache if
+     * possible. Otherwise the user is loaded from the database and cached.
+     *
+     * @param accessToken The access token of the user.
+     * @return The user or null if the access token doesn't identify a user.
+     * @throws DatabaseException If the user couldn't be loaded due to a database failure.
+     */
+    protected User getUserByToken(String accessToken) throws DatabaseException {
+        AccessTokenCache cache = AccessTokenCache.getInstance();
+        User userDB = cache.getUser(accessToken);
+        if (userDB == null) {
+            long stamp = cache.getStamp();
+            userDB = userDBM.getUserByToken(accessToken);
+            if (userDB != null) {
+                cache.putUser(accessToken, userDB, stamp);
+            }
+        }
+        return userDB;
+    }
+
+    /**
+     * Returns the moderator who is identified by the given access token. The moderator is taken from the access token
+     * cache if possible. Otherwise the moderator is loaded from the database and cached.
+     *
+     * @param accessToken The access token of the moderator.
+     * @return The moderator or null if the access token doesn't identify a moderator which isn't deleted.
+     * @throws DatabaseException If the moderator couldn't be loaded due to a database failure.
+     */
+    protected Moderator getModeratorByToken(String accessToken) throws DatabaseException {
+        AccessTokenCache cache = AccessTokenCache.getInstance();
+        Moderator moderatorDB = cache.getModerator(accessToken);
+        if (moderatorDB == null) {
+            long stamp = cache.getStamp();
+            moderatorDB = moderatorDBM.getModeratorByToken(accessToken);
+            // The access token of a moderator which is marked as deleted is invalid.
+            if (moderatorDB != null && !moderatorDB.isDeleted()) {
+                cache.putModerator(accessToken, moderatorDB, stamp);
+            } else {
+                moderatorDB = null;
+            }
+        }
+        return moderatorDB;
+    }
+
 }
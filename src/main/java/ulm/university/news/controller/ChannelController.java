@@ -5,17 +5,18 @@ import org.slf4j.LoggerFactory;
 import ulm.university.news.data.*;
 import ulm.university.news.data.enums.ChannelType;
 import ulm.university.news.data.enums.PushType;
+import ulm.university.news.data.enums.SortDirection;
 import ulm.university.news.data.enums.TokenType;
+import ulm.university.news.manager.cache.SubscriberCache;
 import ulm.university.news.manager.database.ChannelDatabaseManager;
 import ulm.university.news.manager.push.PushManager;
+import ulm.university.news.manager.push.PushOutboxDispatcher;
 import ulm.university.news.manager.reminder.ReminderManager;
 import ulm.university.news.util.exceptions.DatabaseException;
-import ulm.university.news.util.exceptions.MessageNumberAlreadyExistsException;
 import ulm.university.news.util.exceptions.ServerException;
 
 import java.time.ZonedDateTime;
 import java.util.List;
-import java.util.Random;
 
 import static ulm.university.news.util.Constants.*;
 
@@ -161,7 +162,7 @@ public class ChannelController extends AccessController {
             List<User> subscribers;
             try {
                 channelDBM.updateChannelWithSubclass(channelDB);
-                subscribers = channelDBM.getSubscribers(channelId);
+                subscribers = SubscriberCache.getInstance().getSubscribers(channelId);
             } catch (DatabaseException e) {
                 logger.error(LOG_SERVER_EXCEPTION, 500, DATABASE_FAILURE, "Database failure.");
                 throw new ServerException(500, DATABASE_FAILURE);
@@ -414,6 +415,67 @@ public class ChannelController extends AccessController {
     }
 
 
+    /**
+     * Delivers the version of the channels which would be returned by getChannels for the same parameters. The
+     * version is used to answer conditional requests without loading the channels.
+     *
+     * @param accessToken The access token of the requestor.
+     * @param moderatorId Consider only channels for which the moderator with the given id is responsible.
+     * @param lastUpdated Consider only channels with a newer modification data as the last updated date.
+     * @return The version of the requested channels.
+     * @throws ServerException If the authorization of the requestor fails. Furthermore, a failure of the database
+     * also causes a ServerException.
+     */
+    public ResourceVersion getChannelsVersion(String accessToken, Integer moderatorId, ZonedDateTime lastUpdated)
+            throws ServerException {
+        TokenType tokenType = verifyAccessToken(accessToken);
+
+        // Check if there is a valid access token provided.
+        if (tokenType == TokenType.INVALID) {
+            String errMsg = "To perform this operation a valid access token needs to be provided.";
+            logger.error(LOG_SERVER_EXCEPTION, 401, TOKEN_INVALID, errMsg);
+            throw new ServerException(401, TOKEN_INVALID);
+        }
+        try {
+            // Ignore parameter moderatorId if the requestor is a user, like getChannels does.
+            return channelDBM.getChannelsVersion(tokenType == TokenType.MODERATOR ? moderatorId : null, lastUpdated);
+        } catch (DatabaseException e) {
+            logger.error(LOG_SERVER_EXCEPTION, 500, DATABASE_FAILURE, "Database failure.");
+            throw new ServerException(500, DATABASE_FAILURE);
+        }
+    }
+
+    /**
+     * Delivers the version of the channel with the given id. The version is used to answer conditional requests
+     * without loading the channel.
+     *
+     * @param accessToken The access token of the requestor.
+     * @param channelId The id of the channel.
+     * @return The version of the channel.
+     * @throws ServerException If the authorization of the requestor fails or the channel couldn't be found.
+     * Furthermore, a failure of the database also causes a ServerException.
+     */
+    public ResourceVersion getChannelVersion(String accessToken, int channelId) throws ServerException {
+        // Check if there is a valid access token provided.
+        TokenType tokenType = verifyAccessToken(accessToken);
+        if (tokenType == TokenType.INVALID) {
+            String errMsg = "To perform this operation a valid access token needs to be provided.";
+            logger.error(LOG_SERVER_EXCEPTION, 401, TOKEN_INVALID, errMsg);
+            throw new ServerException(401, TOKEN_INVALID);
+        }
+        try {
+            ResourceVersion version = channelDBM.getChannelVersion(channelId);
+            if (version == null) {
+                logger.error(LOG_SERVER_EXCEPTION, 404, CHANNEL_NOT_FOUND, "Channel not found in database.");
+                throw new ServerException(404, CHANNEL_NOT_FOUND);
+            }
+            return version;
+        } catch (DatabaseException e) {
+            logger.error(LOG_SERVER_EXCEPTION, 500, DATABASE_FAILURE, "Database failure.");
+            throw new ServerException(500, DATABASE_FAILURE);
+        }
+    }
+
     /**
      * Delivers the channel data of a specific channel identified by id.
      *
@@ -465,9 +527,10 @@ public class ChannelController extends AccessController {
             // Get all deleted moderators of the specified channel for later deletion.
             deletedModerators = channelDBM.getDeletedModeratorsByChannel(channelId);
             // Get all subscribers of the specified channel for later notification.
-            subscribers = channelDBM.getSubscribers(channelId);
+            subscribers = SubscriberCache.getInstance().getSubscribers(channelId);
             // Delete channel and all entries which are linked to it.
             channelDBM.deleteChannel(channelId);
+            SubscriberCache.getInstance().invalidateChannel(channelId);
         } catch (DatabaseException e) {
             logger.error(LOG_SERVER_EXCEPTION, 500, DATABASE_FAILURE, "Database failure.");
             throw new ServerException(500, DATABASE_FAILURE);
@@ -573,7 +636,7 @@ public class ChannelController extends AccessController {
             int moderatorId = moderatorCtrl.getModeratorIdByName(moderatorName);
             channelDBM.addModeratorToChannel(channelId, moderatorId);
             // Notify all subscribers of the channel.
-            List<User> subscribers = channelDBM.getSubscribers(channelId);
+            List<User> subscribers = SubscriberCache.getInstance().getSubscribers(channelId);
             PushManager.getInstance().notifyUsers(PushType.MODERATOR_ADDED, subscribers, channelId, moderatorId, null);
         } catch (DatabaseException e) {
             logger.error(LOG_SERVER_EXCEPTION, 500, DATABASE_FAILURE, "Database failure.");
@@ -623,7 +686,7 @@ public class ChannelController extends AccessController {
             // Finally remove moderator as responsible moderator from channel.
             channelDBM.removeModeratorFromChannel(channelId, moderatorId);
             // Notify all subscribers of the channel.
-            List<User> subscribers = channelDBM.getSubscribers(channelId);
+            List<User> subscribers = SubscriberCache.getInstance().getSubscribers(channelId);
             PushManager.getInstance().notifyUsers(PushType.MODERATOR_REMOVED, subscribers, channelId, moderatorId,
                     null);
         } catch (DatabaseException e) {
@@ -691,6 +754,7 @@ public class ChannelController extends AccessController {
                 throw new ServerException(404, CHANNEL_NOT_FOUND);
             }
             channelDBM.addSubscriberToChannel(channelId, userDB.getId());
+            SubscriberCache.getInstance().addSubscriber(channelId, userDB);
         } catch (DatabaseException e) {
             logger.error(LOG_SERVER_EXCEPTION, 500, DATABASE_FAILURE, "Database failure.");
             throw new ServerException(500, DATABASE_FAILURE);
@@ -711,6 +775,7 @@ public class ChannelController extends AccessController {
         try {
             // Perform no further checks, just try to delete the specified entry. If not found, nothing happens.
             channelDBM.removeSubscriberFromChannel(channelId, userDB.getId());
+            SubscriberCache.getInstance().removeSubscriber(channelId, userDB.getId());
         } catch (DatabaseException e) {
             logger.error(LOG_SERVER_EXCEPTION, 500, DATABASE_FAILURE, "Database failure.");
             throw new ServerException(500, DATABASE_FAILURE);
@@ -791,79 +856,68 @@ public class ChannelController extends AccessController {
         announcement.setAuthorModerator(moderatorDB.getId());
         announcement.setChannelId(channelId);
 
-        List<User> subscribers;
-        try {
-            storeAnnouncement(announcement);
-            subscribers = channelDBM.getSubscribers(announcement.getChannelId());
-        } catch (DatabaseException e) {
-            logger.error(LOG_SERVER_EXCEPTION, 500, DATABASE_FAILURE, "Database failure.");
-            throw new ServerException(500, DATABASE_FAILURE);
-        }
+        // Store the announcement. The notification of the subscribers is stored in the push outbox with it.
+        storeAnnouncement(announcement);
 
-        // Notify all subscribers of the channel.
-        PushManager.getInstance().notifyUsers(PushType.ANNOUNCEMENT_NEW, subscribers, announcement.getChannelId(),
-                null, null);
+        // Deliver the notification without waiting for the next poll of the push outbox.
+        PushOutboxDispatcher.getInstance().wakeUp();
 
         return announcement;
     }
 
     /**
-     * Uses the database manager to store the announcement in the database. The storage may cause conflicts. Hence,
-     * there is a maximum number of attempts and a collision avoidance technique (random backoff time) is used.
+     * Uses the database manager to store the announcement in the database. The message number of the announcement is
+     * allocated by the database manager, so concurrent storage requests for the same channel don't conflict.
      *
      * @param announcement The announcement object which should be stored in the database.
-     * @throws ServerException If all attempts to store the announcement has failed or another database failure has
-     * occurred.
+     * @throws ServerException If the storage has failed due to a database failure.
      */
     private void storeAnnouncement(Announcement announcement) throws ServerException {
-        int maxAttempts = 5;
-        int attempts = 0;
-        boolean successful = false;
-        // Try to store the conversation message into the database. After a maximum of attempts, abort the method.
-        while (!successful && attempts < maxAttempts) {
-            try {
-                // Store announcement message in the database.
-                channelDBM.storeAnnouncement(announcement);
-                successful = true;
-            } catch (DatabaseException e) {
-                logger.error(LOG_SERVER_EXCEPTION, 500, DATABASE_FAILURE, "Database Failure.");
-                throw new ServerException(500, DATABASE_FAILURE);
-            } catch (MessageNumberAlreadyExistsException e) {
-                // Try again if the storage has failed due to a duplicate message number.
-                attempts++;
-                // Sleep a random backoff time.
-                Random random = new Random();
-                int backOff = random.nextInt(500);
-                try {
-                    Thread.sleep(backOff);
-                } catch (InterruptedException e1) {
-                    logger.error("Interrupted Exception: {}.", e1.getMessage());
-                }
-            }
+        try {
+            // Store announcement message in the database. Notify all subscribers of the channel.
+            channelDBM.storeAnnouncement(announcement, PushOutboxEntry.forChannel(PushType.ANNOUNCEMENT_NEW,
+                    announcement.getChannelId(), announcement.getChannelId(), null, null));
+        } catch (DatabaseException e) {
+            logger.error(LOG_SERVER_EXCEPTION, 500, DATABASE_FAILURE, "Database Failure.");
+            throw new ServerException(500, DATABASE_FAILURE);
         }
-        if (!successful) {
-            logger.error(LOG_SERVER_EXCEPTION, 500, DATABASE_FAILURE, "Storing of announcement has failed due to " +
-                    "duplicate message numbers.");
+    }
+
+    /**
+     * Delivers the version of the announcements which would be returned by getAnnouncements for the same parameters.
+     * The version is used to answer conditional requests without loading the announcements.
+     *
+     * @param accessToken The access token of the requestor.
+     * @param channelId The id of the channel to which the announcements belong.
+     * @param messageNumber The message number at which the page starts.
+     * @param direction The direction in which the announcements are paged.
+     * @return The version of the announcements.
+     * @throws ServerException If the authorization of the requestor fails or the channel couldn't be found.
+     * Furthermore, a failure of the database also causes a ServerException.
+     */
+    public ResourceVersion getAnnouncementsVersion(String accessToken, int channelId, int messageNumber,
+                                                   SortDirection direction) throws ServerException {
+        verifyAnnouncementAccess(accessToken);
+        try {
+            ResourceVersion version = channelDBM.getAnnouncementsVersion(channelId, messageNumber, direction);
+            if (version == null) {
+                logger.error(LOG_SERVER_EXCEPTION, 404, CHANNEL_NOT_FOUND, "Channel id not found in database.");
+                throw new ServerException(404, CHANNEL_NOT_FOUND);
+            }
+            return version;
+        } catch (DatabaseException e) {
+            logger.error(LOG_SERVER_EXCEPTION, 500, DATABASE_FAILURE, "Database failure.");
             throw new ServerException(500, DATABASE_FAILURE);
         }
     }
 
     /**
-     * Gets the announcements of the channel starting from a defined message number which is taken form the
-     * request URL. The method returns a list of all announcements of the channel which have a higher message
-     * number than the one defined in the request.
+     * Verifies that the requestor is allowed to read announcements, i.e. the requestor is a valid user or moderator.
      *
      * @param accessToken The access token of the requestor.
-     * @param channelId The id of the channel from which the announcements should be retrieved.
-     * @param messageNumber The starting message number. All announcements of the channel which have a higher message
-     * number than the one defined in this parameter are returned.
-     * @return A list of announcements. The list can be empty.
-     * @throws ServerException If the authorization of the requestor fails, the requestor isn't allowed to perform
-     * the operation or the channel couldn't be found. Furthermore, a failure of the database also causes a
-     * ServerException.
+     * @throws ServerException If the access token is invalid or the verification fails due to a database failure.
      */
-    public List<Announcement> getAnnouncements(String accessToken, int channelId, int messageNumber) throws
-            ServerException {
+    public void verifyAnnouncementAccess(String accessToken) throws ServerException {
         // Check if there is a valid access token provided.
         TokenType tokenType = verifyAccessToken(accessToken);
         if (tokenType == TokenType.INVALID) {
@@ -871,13 +925,43 @@ public class ChannelController extends AccessController {
             logger.error(LOG_SERVER_EXCEPTION, 401, TOKEN_INVALID, errMsg);
             throw new ServerException(401, TOKEN_INVALID);
         }
+    }
+
+    /**
+     * Gets the announcements of the channel starting from a defined message number which is taken form the
+     * request URL. The method returns a list of all announcements of the channel which have a higher message
+     * number than the one defined in the request.
+     *
+     * @param accessToken The access token of the requestor.
+     * @param channelId The id of the channel from which the announcements should be retrieved.
+     * @param messageNumber The starting message number. In ascending direction, the announcements of the channel
+     * which have a higher message number than the one defined in this parameter are returned. In descending
+     * direction, the announcements with a lower message number are returned, starting at the latest one if the
+     * message number is zero.
+     * @param limit The maximum number of announcements which are returned.
+     * @param direction The direction in which the announcements are paged.
+     * @return A list of announcements. The list can be empty.
+     * @throws ServerException If the authorization of the requestor fails, the requestor isn't allowed to perform
+     * the operation, the limit is invalid or the channel couldn't be found. Furthermore, a failure of the database
+     * also causes a ServerException.
+     */
+    public List<Announcement> getAnnouncements(String accessToken, int channelId, int messageNumber, int limit,
+                                               SortDirection direction) throws ServerException {
+        verifyAnnouncementAccess(accessToken);
+        // Check if the limit is valid.
+        if (limit < 1 || limit > MESSAGES_MAX_LIMIT) {
+            String errMsg = "The limit " + limit + " is invalid. It has to be between 1 and " + MESSAGES_MAX_LIMIT +
+                    ".";
+            logger.error(LOG_SERVER_EXCEPTION, 400, ANNOUNCEMENT_INVALID_LIMIT, errMsg);
+            throw new ServerException(400, ANNOUNCEMENT_INVALID_LIMIT);
+        }
         try {
             // Requestor is a valid user or a moderator. Both are allowed to perform this operation.
             if (!channelDBM.isValidChannelId(channelId)) {
                 logger.error(LOG_SERVER_EXCEPTION, 404, CHANNEL_NOT_FOUND, "Channel id not found in database.");
                 throw new ServerException(404, CHANNEL_NOT_FOUND);
             } else {
-                return channelDBM.getAnnouncements(channelId, messageNumber);
+                return channelDBM.getAnnouncements(channelId, messageNumber, limit, direction);
             }
         } catch (DatabaseException e) {
             logger.error(LOG_SERVER_EXCEPTION, 500, DATABASE_FAILURE, "Database failure.");
@@ -906,7 +990,7 @@ public class ChannelController extends AccessController {
                 throw new ServerException(404, ANNOUNCEMENT_NOT_FOUND);
             }
             channelDBM.deleteAnnouncement(announcementDB.getId());
-            subscribers = channelDBM.getSubscribers(announcementDB.getChannelId());
+            subscribers = SubscriberCache.getInstance().getSubscribers(announcementDB.getChannelId());
         } catch (DatabaseException e) {
             logger.error(LOG_SERVER_EXCEPTION, 500, DATABASE_FAILURE, "Database failure.");
             throw new ServerException(500, DATABASE_FAILURE);
@@ -1243,21 +1327,16 @@ public class ChannelController extends AccessController {
         announcement.setTitle(reminder.getTitle());
         announcement.setAuthorModerator(reminder.getAuthorModerator());
 
-        List<User> subscribers = null;
         try {
             storeAnnouncement(announcement);
-            subscribers = channelDBM.getSubscribers(announcement.getChannelId());
-        } catch (DatabaseException e) {
-            logger.error(LOG_SERVER_EXCEPTION, 500, DATABASE_FAILURE, "Database failure. Couldn't create an " +
-                    "announcement from reminder.");
         } catch (ServerException e) {
             logger.error(LOG_SERVER_EXCEPTION, 500, DATABASE_FAILURE, "Database failure. Couldn't create an " +
                     "announcement from reminder due to storage failure.");
+            return;
         }
 
-        // Notify all subscribers of the channel.
-        PushManager.getInstance().notifyUsers(PushType.ANNOUNCEMENT_NEW, subscribers, announcement.getChannelId(),
-                null, null);
+        // Deliver the notification of the subscribers without waiting for the next poll of the push outbox.
+        PushOutboxDispatcher.getInstance().wakeUp();
 
     }
 
@@ -6,15 +6,16 @@ import ulm.university.news.data.*;
 import ulm.university.news.data.enums.GroupType;
 import ulm.university.news.data.enums.Priority;
 import ulm.university.news.data.enums.PushType;
+import ulm.university.news.data.enums.SortDirection;
 import ulm.university.news.data.enums.TokenType;
+import ulm.university.news.manager.cache.GroupCache;
 import ulm.university.news.manager.database.GroupDatabaseManager;
 import ulm.university.news.manager.push.PushManager;
+import ulm.university.news.manager.push.PushOutboxDispatcher;
 import ulm.university.news.util.exceptions.DatabaseException;
-import ulm.university.news.util.exceptions.MessageNumberAlreadyExistsException;
 import ulm.university.news.util.exceptions.ServerException;
 
 import java.util.List;
-import java.util.Random;
 
 import static ulm.university.news.util.Constants.*;
 
@@ -233,6 +234,7 @@ public class GroupController extends AccessController {
             // Determine what needs to be updated and update the corresponding fields in the database.
             groupDB = updateGroup(group, groupDB);
             groupDBM.updateGroup(groupDB);
+            GroupCache.getInstance().invalidateGroup(groupId);
         } catch (DatabaseException e) {
             logger.error(LOG_SERVER_EXCEPTION, 500, DATABASE_FAILURE, "Database Failure.");
             throw new ServerException(500, DATABASE_FAILURE);
@@ -361,7 +363,7 @@ public class GroupController extends AccessController {
             // Check whether the requestor has the permission to delete the group.
             if (tokenType == TokenType.USER) {
                 // Note that user cannot be null here as the access token has been verified.
-                requestor = userDBM.getUserByToken(accessToken);
+                requestor = getUserByToken(accessToken);
                 logger.info("User with id {} wants to delete the group with id {}.", requestor.getId(), groupId);
 
                 // Check if user is group administrator of this group.
@@ -372,7 +374,7 @@ public class GroupController extends AccessController {
                     throw new ServerException(403, USER_FORBIDDEN);
                 }
             } else if (tokenType == TokenType.MODERATOR) {
-                requestorModerator = moderatorDBM.getModeratorByToken(accessToken);
+                requestorModerator = getModeratorByToken(accessToken);
                 logger.info("Moderator with id {} wants to delete the group with id {}.", requestorModerator.getId(),
                         groupId);
                 // Besides group administrators, only administrators have the permission to perform this operation.
@@ -384,6 +386,7 @@ public class GroupController extends AccessController {
 
             // Delete the group and all corresponding resources.
             groupDBM.deleteGroup(groupId);
+            GroupCache.getInstance().invalidateGroup(groupId);
 
         } catch (DatabaseException e) {
             logger.error(LOG_SERVER_EXCEPTION, 500, DATABASE_FAILURE, "Database Failure.");
@@ -431,6 +434,7 @@ public class GroupController extends AccessController {
         try {
             // If the password is verified, the user can be added to the group.
             groupDBM.addParticipantToGroup(groupId, requestor.getId());
+            GroupCache.getInstance().invalidateGroup(groupId);
 
         } catch (DatabaseException e) {
             logger.error(LOG_SERVER_EXCEPTION, 500, DATABASE_FAILURE, "Database Failure.");
@@ -536,6 +540,7 @@ public class GroupController extends AccessController {
         try {
             // Perform the removal. The user will be set to inactive for the group.
             groupDBM.removeParticipantFromGroup(groupId, participantId);
+            GroupCache.getInstance().invalidateGroup(groupId);
         } catch (DatabaseException e) {
             logger.error(LOG_SERVER_EXCEPTION, 500, DATABASE_FAILURE, "Database Failure.");
             throw new ServerException(500, DATABASE_FAILURE);
@@ -1193,8 +1198,9 @@ public class GroupController extends AccessController {
                     }
                 }
 
-                // Store the vote in the database.
-                groupDBM.storeVote(optionId, requestor.getId());
+                // Store the vote in the database. Notify the participants of the group except the requestor.
+                groupDBM.storeVote(optionId, requestor.getId(), PushOutboxEntry.forGroup(PushType
+                        .BALLOT_OPTION_VOTE, groupId, requestor.getId(), groupId, ballotId, optionId));
             }
 
         } catch (DatabaseException e) {
@@ -1202,11 +1208,8 @@ public class GroupController extends AccessController {
             throw new ServerException(500, DATABASE_FAILURE);
         }
 
-        // Notify the participants of the group about the new vote. Also the requestor?
-        List<User> participants = groupDB.getParticipants();
-        // Remove requestor from participants list. The requestor should not be notified.
-        removeRequestorFromParticipantsList(participants, requestor);
-        PushManager.getInstance().notifyUsers(PushType.BALLOT_OPTION_VOTE, participants, groupId, ballotId, optionId);
+        // Deliver the notification without waiting for the next poll of the push outbox.
+        PushOutboxDispatcher.getInstance().wakeUp();
     }
 
     /**
@@ -1309,18 +1312,16 @@ public class GroupController extends AccessController {
         verifyOptionExistenceViaDB(ballotId, optionId);
 
         try {
-            // Delete the vote for this option.
-            groupDBM.deleteVote(optionId, userId);
+            // Delete the vote for this option. Notify the participants of the group except the requestor.
+            groupDBM.deleteVote(optionId, userId, PushOutboxEntry.forGroup(PushType.BALLOT_OPTION_VOTE, groupId,
+                    requestor.getId(), groupId, ballotId, optionId));
         } catch (DatabaseException e) {
             logger.error(LOG_SERVER_EXCEPTION, 500, DATABASE_FAILURE, "Database Failure.");
             throw new ServerException(500, DATABASE_FAILURE);
         }
 
-        // Notify participants about the deleted vote.
-        List<User> participants = groupDB.getParticipants();
-        // Remove the requestor from the participants list. The requestor should not be notified.
-        removeRequestorFromParticipantsList(participants, requestor);
-        PushManager.getInstance().notifyUsers(PushType.BALLOT_OPTION_VOTE, participants, groupId, ballotId, optionId);
+        // Deliver the notification without waiting for the next poll of the push outbox.
+        PushOutboxDispatcher.getInstance().wakeUp();
     }
 
     /**
@@ -1392,13 +1393,20 @@ public class GroupController extends AccessController {
      * @param accessToken The access token of the requestor.
      * @param groupId The id of the group for which the conversations are requested.
      * @param subresources Indicates whether the conversation objects should contain a list of their sub-resources.
+     * @param messageLimit The maximum number of latest messages per conversation if sub-resources are requested.
+     * Nullable, all messages are returned if no limit is given.
      * @return A list of conversation objects. The list can also be empty.
-     * @throws ServerException If the requestor is not allowed to execute the operation, the group is not found or
-     * the retrieval of the conversations fails due to a database failure.
+     * @throws ServerException If the requestor is not allowed to execute the operation, the group is not found, the
+     * message limit is invalid or the retrieval of the conversations fails due to a database failure.
      */
-    public List<Conversation> getConversations(String accessToken, int groupId, boolean subresources) throws
-            ServerException {
+    public List<Conversation> getConversations(String accessToken, int groupId, boolean subresources, Integer
+            messageLimit) throws ServerException {
         List<Conversation> conversations;
+        if (messageLimit != null && messageLimit < 1) {
+            String errMsg = "The message limit " + messageLimit + " is invalid. It has to be positive.";
+            logger.error(LOG_SERVER_EXCEPTION, 400, CONVERSATIONMESSAGE_INVALID_LIMIT, errMsg);
+            throw new ServerException(400, CONVERSATIONMESSAGE_INVALID_LIMIT);
+        }
         /* Check if the requestor is a valid user. Only a user, i.e. a participant of the group, is allowed to
            execute this operation. */
         User requestor = verifyUserAccess(accessToken);
@@ -1411,7 +1419,7 @@ public class GroupController extends AccessController {
 
         try {
             // Get the conversations from the database.
-            conversations = groupDBM.getConversations(groupId, subresources);
+            conversations = groupDBM.getConversations(groupId, subresources, messageLimit);
         } catch (DatabaseException e) {
             logger.error(LOG_SERVER_EXCEPTION, 500, DATABASE_FAILURE, "Database Failure.");
             throw new ServerException(500, DATABASE_FAILURE);
@@ -1678,43 +1686,17 @@ public class GroupController extends AccessController {
         conversationMessage.setAuthorUser(requestor.getId());
         conversationMessage.computeCreationDate();
 
-        int maxAttempts = 5;
-        int attempts = 0;
-        boolean successful = false;
-        // Try to store the conversation message into the database. After a maximum of attempts, abort the method.
-        while (!successful && attempts < maxAttempts) {
-            try {
-                // Store the conversation message in the database.
-                groupDBM.storeConversationMessage(conversationId, conversationMessage);
-                successful = true;
-            } catch (DatabaseException e) {
-                logger.error(LOG_SERVER_EXCEPTION, 500, DATABASE_FAILURE, "Database Failure.");
-                throw new ServerException(500, DATABASE_FAILURE);
-            } catch (MessageNumberAlreadyExistsException e) {
-                // Try again if the storage has failed due to a duplicate message number.
-                attempts++;
-                // Sleep a random backoff time.
-                Random random = new Random();
-                int backOff = random.nextInt(500);
-                try {
-                    Thread.sleep(backOff);
-                } catch (InterruptedException e1) {
-                    logger.error("Interrupted Exception: {}.", e1.getMessage());
-                }
-            }
-        }
-        if (!successful) {
-            logger.error(LOG_SERVER_EXCEPTION, 500, DATABASE_FAILURE, "Storing of conversation message has failed due" +
-                    " to duplicate message numbers.");
+        try {
+            // Store the conversation message in the database. Notify the participants except the requestor.
+            groupDBM.storeConversationMessage(conversationId, conversationMessage, PushOutboxEntry.forGroup(PushType
+                    .CONVERSATION_MESSAGE_NEW, groupId, requestor.getId(), groupId, conversationId, null));
+        } catch (DatabaseException e) {
+            logger.error(LOG_SERVER_EXCEPTION, 500, DATABASE_FAILURE, "Database Failure.");
             throw new ServerException(500, DATABASE_FAILURE);
         }
 
-        // Send notification about the new conversation message to the participants.
-        List<User> participants = groupDB.getParticipants();
-        // Remove requestor from participants list. The requestor should not be notified.
-        removeRequestorFromParticipantsList(participants, requestor);
-        PushManager.getInstance().notifyUsers(PushType.CONVERSATION_MESSAGE_NEW, participants, groupId,
-                conversationId, null);
+        // Deliver the notification without waiting for the next poll of the push outbox.
+        PushOutboxDispatcher.getInstance().wakeUp();
 
         return conversationMessage;
     }
@@ -1727,16 +1709,27 @@ public class GroupController extends AccessController {
      * @param accessToken The access token of the requestor.
      * @param groupId The id of the group to which the conversation belongs.
      * @param conversationId The id of the conversation for which the messages are requested.
-     * @param messageNumber Defines the starting message number. The method returns all messages which have a higher
-     * message number than the one specified in this parameter.
+     * @param messageNumber Defines the starting message number. In ascending direction, the method returns the
+     * messages which have a higher message number than the one specified in this parameter. In descending direction,
+     * the messages with a lower message number are returned, starting at the latest one if the message number is zero.
+     * @param limit The maximum number of messages which are returned.
+     * @param direction The direction in which the messages are paged.
      * @return A list of conversation messages. The list can also be empty.
-     * @throws ServerException If the requestor is not allowed to execute the operation, the group or the
-     * conversation are not found or the retrieval of the messages fails due to a database failure.
+     * @throws ServerException If the requestor is not allowed to execute the operation, the limit is invalid, the
+     * group or the conversation are not found or the retrieval of the messages fails due to a database failure.
      */
     public List<ConversationMessage> getConversationMessages(String accessToken, int groupId, int conversationId, int
-            messageNumber) throws ServerException {
+            messageNumber, int limit, SortDirection direction) throws ServerException {
         List<ConversationMessage> messages;
 
+        // Check if the limit is valid.
+        if (limit < 1 || limit > MESSAGES_MAX_LIMIT) {
+            String errMsg = "The limit " + limit + " is invalid. It has to be between 1 and " + MESSAGES_MAX_LIMIT +
+                    ".";
+            logger.error(LOG_SERVER_EXCEPTION, 400, CONVERSATIONMESSAGE_INVALID_LIMIT, errMsg);
+            throw new ServerException(400, CONVERSATIONMESSAGE_INVALID_LIMIT);
+        }
+
         /* Check if the requestor is a valid user. Only a user, i.e. a participant of the group, is allowed to
         execute this operation. */
         User requestor = verifyUserAccess(accessToken);
@@ -1752,7 +1745,7 @@ public class GroupController extends AccessController {
 
         try {
             // Request the messages from the database.
-            messages = groupDBM.getConversationMessages(conversationId, messageNumber);
+            messages = groupDBM.getConversationMessages(conversationId, messageNumber, limit, direction);
         } catch (DatabaseException e) {
             logger.error(LOG_SERVER_EXCEPTION, 500, DATABASE_FAILURE, "Database Failure.");
             throw new ServerException(500, DATABASE_FAILURE);
@@ -1798,8 +1791,9 @@ public class GroupController extends AccessController {
 
     /**
      * A helper method which requests the group with the specified id from the database manager. It can be defined
-     * whether the group object should already contain a list of the participants of the group. If the group is not
-     * found, the method throws a ServerException.
+     * whether the group object should already contain a list of the participants of the group. A group with
+     * participants is taken from the group cache if possible, otherwise it is cached after it has been loaded. If the
+     * group is not found, the method throws a ServerException.
      *
      * @param groupId The id of the group.
      * @param withParticipants Indicates whether the group object should contain a list of participants.
@@ -1807,9 +1801,19 @@ public class GroupController extends AccessController {
      * @throws ServerException If the group is not found or the retrieval from the database fails.
      */
     private Group getGroup(int groupId, boolean withParticipants) throws ServerException {
-        Group group;
+        Group group = GroupCache.getInstance().getGroup(groupId);
+        if (group != null) {
+            if (!withParticipants) {
+                group.setParticipants(null);
+            }
+            return group;
+        }
         try {
+            long stamp = GroupCache.getInstance().getStamp();
             group = groupDBM.getGroup(groupId, withParticipants);
+            if (group != null && withParticipants) {
+                GroupCache.getInstance().putGroup(group, stamp);
+            }
             if (group == null) {
                 String errMsg = "The group with the id " + groupId + " could not be found.";
                 logger.error(LOG_SERVER_EXCEPTION, 404, GROUP_NOT_FOUND, errMsg);
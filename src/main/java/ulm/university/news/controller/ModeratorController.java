@@ -7,6 +7,7 @@ import ulm.university.news.data.Channel;
 import ulm.university.news.data.Moderator;
 import ulm.university.news.data.enums.Language;
 import ulm.university.news.data.enums.PushType;
+import ulm.university.news.manager.cache.AccessTokenCache;
 import ulm.university.news.manager.email.EmailManager;
 import ulm.university.news.manager.push.PushManager;
 import ulm.university.news.util.Translator;
@@ -295,6 +296,9 @@ public class ModeratorController extends AccessController {
             logger.error(LOG_SERVER_EXCEPTION, 500, DATABASE_FAILURE, "Database failure. Couldn't update moderator.");
             logger.debug("SQL error:{}", e.getMessage());
             throw new ServerException(500, DATABASE_FAILURE);
+        } finally {
+            // The cached account may be outdated, e.g. if it has been locked or its password has been changed.
+            AccessTokenCache.getInstance().invalidateModerator(moderatorDB.getId());
         }
 
         // After database update send email to moderator if locked and/or admin field has changed.
@@ -483,8 +487,9 @@ public class ModeratorController extends AccessController {
         }
 
         try {
-            // Set deleted field in database to true.
+            // Set deleted field in database to true. The access token of the moderator becomes invalid.
             moderatorDBM.markModeratorAsDeleted(moderatorDeleteDB.getId());
+            AccessTokenCache.getInstance().invalidateModerator(moderatorDeleteDB.getId());
             // Set active field in database to false.
             channelCtrl.removeModeratorFromChannels(moderatorDeleteDB.getId());
         } catch (DatabaseException e) {
@@ -529,6 +534,7 @@ public class ModeratorController extends AccessController {
         if (!channelCtrl.isModeratorStillNeeded(moderatorId)) {
             try {
                 moderatorDBM.deleteModerator(moderatorId);
+                AccessTokenCache.getInstance().invalidateModerator(moderatorId);
             } catch (DatabaseException e) {
                 logger.error(LOG_SERVER_EXCEPTION, 500, DATABASE_FAILURE, "Database failure.");
                 throw new ServerException(500, DATABASE_FAILURE);
@@ -581,22 +587,34 @@ public class ModeratorController extends AccessController {
         String message = Translator.getInstance().getText(RESOURCE_BUNDLE_EMAIL, locale, key, moderatorDB
                 .getFirstName(), moderatorDB.getLastName(), newPassword, APPLICATION_NAME);
 
-        // Send email with new plain text password to the moderator.
-        if (!EmailManager.getInstance().sendMail(moderatorDB.getEmail(), subject, message)) {
-            logger.error(LOG_SERVER_EXCEPTION, 500, EMAIL_FAILURE, "Couldn't sent email to moderator.");
-            throw new ServerException(500, EMAIL_FAILURE);
-        }
+        // Keep the stored password hash to restore it if the email with the new password can't be sent.
+        String oldPassword = moderatorDB.getPassword();
 
         // Hash, set and encrypt the new moderator password.
         moderatorDB.setPassword(hashPassword(newPassword));
         moderatorDB.encryptPassword();
 
-        // Update moderator password in database.
+        // Update moderator password in database before the new password is sent.
         try {
             moderatorDBM.updatePassword(moderatorDB.getId(), moderatorDB.getPassword());
         } catch (DatabaseException e) {
             logger.error(LOG_SERVER_EXCEPTION, 500, DATABASE_FAILURE, "Database failure. Couldn't update password.");
             throw new ServerException(500, DATABASE_FAILURE);
+        } finally {
+            AccessTokenCache.getInstance().invalidateModerator(moderatorDB.getId());
+        }
+
+        // Send email with new plain text password to the moderator. The request waits for the email, so the
+        // moderator isn't locked out by an email which is never delivered.
+        if (!EmailManager.getInstance().sendMailAndWait(moderatorDB.getEmail(), subject, message)) {
+            try {
+                moderatorDBM.updatePassword(moderatorDB.getId(), oldPassword);
+            } catch (DatabaseException e) {
+                logger.error(LOG_SERVER_EXCEPTION, 500, DATABASE_FAILURE, "Database failure. Couldn't restore " +
+                        "password.");
+            }
+            logger.error(LOG_SERVER_EXCEPTION, 500, EMAIL_FAILURE, "Couldn't sent email to moderator.");
+            throw new ServerException(500, EMAIL_FAILURE);
         }
     }
 
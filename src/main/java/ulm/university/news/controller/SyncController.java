@@ -0,0 +1,153 @@
+package ulm.university.news.controller;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ulm.university.news.data.*;
+import ulm.university.news.data.enums.TokenType;
+import ulm.university.news.manager.database.ChannelDatabaseManager;
+import ulm.university.news.manager.database.GroupDatabaseManager;
+import ulm.university.news.util.exceptions.DatabaseException;
+import ulm.university.news.util.exceptions.ServerException;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToIntFunction;
+
+import static ulm.university.news.util.Constants.*;
+
+/**
+ * The SyncController handles synchronization requests. It collects all data which has changed since the state known
+ * to the client, i.e. changed channels, new announcements and new conversation messages. The data of all channels
+ * and conversations is loaded with batched queries instead of one query per channel or conversation. The number of
+ * messages per channel and conversation is limited, so a client which has been offline for a long time continues
+ * the sync with further requests.
+ *
+ * @author Matthias Mak
+ * @author Philipp Speidel
+ */
+public class SyncController extends AccessController {
+
+    /** An instance of the Logger class which performs logging for the SyncController class. */
+    private static final Logger logger = LoggerFactory.getLogger(SyncController.class);
+
+    /** Instance of the ChannelDatabaseManager class. */
+    private ChannelDatabaseManager channelDBM = new ChannelDatabaseManager();
+
+    /** Instance of the GroupDatabaseManager class. */
+    private GroupDatabaseManager groupDBM = new GroupDatabaseManager();
+
+    /**
+     * Creates an instance of the SyncController class.
+     */
+    public SyncController() {
+
+    }
+
+    /**
+     * Delivers all data which has changed since the state described by the sync request. Users and moderators get
+     * the changed channels and the new announcements of the requested channels. Conversation messages are only
+     * delivered to users and only for conversations of groups in which the user is an active participant. Requested
+     * channels or conversations which don't exist or which aren't accessible are ignored. At most MESSAGES_MAX_LIMIT
+     * messages are delivered per channel and conversation. The result contains a cursor for each channel or
+     * conversation which has more messages.
+     *
+     * @param accessToken The access token of the requestor.
+     * @param syncRequest The state of the data which is already known to the requestor.
+     * @return The changed data.
+     * @throws ServerException If the authorization of the requestor fails or the sync request is missing.
+     * Furthermore, a failure of the database also causes a ServerException.
+     */
+    public SyncResult sync(String accessToken, SyncRequest syncRequest) throws ServerException {
+        TokenType tokenType = verifyAccessToken(accessToken);
+
+        // Check if there is a valid access token provided.
+        if (tokenType == TokenType.INVALID) {
+            String errMsg = "To perform this operation a valid access token needs to be provided.";
+            logger.error(LOG_SERVER_EXCEPTION, 401, TOKEN_INVALID, errMsg);
+            throw new ServerException(401, TOKEN_INVALID);
+        }
+        if (syncRequest == null) {
+            logger.error(LOG_SERVER_EXCEPTION, 400, DATA_INCOMPLETE, "Sync request is missing.");
+            throw new ServerException(400, DATA_INCOMPLETE);
+        }
+
+        try {
+            List<Channel> channels = channelDBM.getChannels(null, syncRequest.getChannelsLastUpdated());
+
+            // Load one more message per id than delivered to detect whether there are more messages.
+            List<Announcement> announcements = new ArrayList<Announcement>();
+            Map<Integer, Integer> announcementCursors = new HashMap<Integer, Integer>();
+            if (!isEmpty(syncRequest.getAnnouncementNumbers())) {
+                announcements = channelDBM.getAnnouncements(syncRequest.getAnnouncementNumbers(),
+                        MESSAGES_MAX_LIMIT + 1);
+                announcementCursors = limitMessages(announcements, Announcement::getChannelId);
+            }
+
+            List<ConversationMessage> conversationMessages = new ArrayList<ConversationMessage>();
+            Map<Integer, Integer> conversationMessageCursors = new HashMap<Integer, Integer>();
+            if (tokenType == TokenType.USER && !isEmpty(syncRequest.getConversationMessageNumbers())) {
+                User requestor = getUserByToken(accessToken);
+                if (requestor != null) {
+                    conversationMessages = groupDBM.getConversationMessages(requestor.getId(), syncRequest
+                            .getConversationMessageNumbers(), MESSAGES_MAX_LIMIT + 1);
+                    conversationMessageCursors = limitMessages(conversationMessages, ConversationMessage
+                            ::getConversationId);
+                }
+            }
+
+            logger.debug("Sync delivers {} channels, {} announcements and {} conversation messages.", channels.size(),
+                    announcements.size(), conversationMessages.size());
+            return new SyncResult(channels, announcements, conversationMessages, announcementCursors,
+                    conversationMessageCursors);
+        } catch (DatabaseException e) {
+            logger.error(LOG_SERVER_EXCEPTION, 500, DATABASE_FAILURE, "Database failure.");
+            throw new ServerException(500, DATABASE_FAILURE);
+        }
+    }
+
+    /**
+     * Removes the messages which exceed MESSAGES_MAX_LIMIT per channel or conversation from the given list. The list
+     * has to be ordered by channel or conversation and message number.
+     *
+     * @param messages The messages. Contains at most MESSAGES_MAX_LIMIT messages per id afterwards.
+     * @param idFunction Returns the id of the channel or conversation of a message.
+     * @param <T> The type of the messages.
+     * @return The message number of the last delivered message mapped by the id of each channel or conversation
+     * which has more messages.
+     */
+    private <T extends Message> Map<Integer, Integer> limitMessages(List<T> messages, ToIntFunction<T> idFunction) {
+        Map<Integer, Integer> cursors = new HashMap<Integer, Integer>();
+        Integer currentId = null;
+        int count = 0;
+        int lastMessageNumber = 0;
+        for (Iterator<T> iterator = messages.iterator(); iterator.hasNext(); ) {
+            T message = iterator.next();
+            int id = idFunction.applyAsInt(message);
+            if (currentId == null || currentId != id) {
+                currentId = id;
+                count = 0;
+            }
+            count++;
+            if (count > MESSAGES_MAX_LIMIT) {
+                iterator.remove();
+                cursors.put(id, lastMessageNumber);
+            } else {
+                lastMessageNumber = message.getMessageNumber();
+            }
+        }
+        return cursors;
+    }
+
+    /**
+     * Checks whether the given map of message numbers contains no entries.
+     *
+     * @param messageNumbers The message numbers mapped by the id of a channel or conversation. Can be null.
+     * @return true if the map is null or empty.
+     */
+    private boolean isEmpty(Map<Integer, Integer> messageNumbers) {
+        return messageNumbers == null || messageNumbers.isEmpty();
+    }
+}
@@ -5,6 +5,9 @@ import org.slf4j.LoggerFactory;
 import ulm.university.news.data.Moderator;
 import ulm.university.news.data.User;
 import ulm.university.news.data.enums.TokenType;
+import ulm.university.news.manager.cache.AccessTokenCache;
+import ulm.university.news.manager.cache.GroupCache;
+import ulm.university.news.manager.cache.SubscriberCache;
 import ulm.university.news.util.exceptions.DatabaseException;
 import ulm.university.news.util.exceptions.ServerException;
 import ulm.university.news.util.exceptions.TokenAlreadyExistsException;
@@ -198,6 +201,10 @@ public class UserController extends AccessController{
             // Determine what needs to be updated and update the corresponding fields in the database.
             userDB = updateUser(user, userDB);
             userDBM.updateUser(userDB);
+            AccessTokenCache.getInstance().invalidateUser(userDB.getId());
+            // The cached push recipients of channels and groups may contain the old data of the user.
+            SubscriberCache.getInstance().invalidateUser(userDB.getId());
+            GroupCache.getInstance().invalidateUser(userDB.getId());
 
         } catch (DatabaseException e) {
             String errMsg = "Database Failure. Update of user account data failed.";
@@ -0,0 +1,171 @@
+package ulm.university.news.data;
+
+import ulm.university.news.data.enums.PushType;
+
+import java.time.ZonedDateTime;
+
+/**
+ * The PushOutboxEntry class represents a push message which has been stored persistently in the push outbox. The
+ * entry is written in the same transaction as the resource which triggers the push message. The recipients are not
+ * stored, they are resolved on delivery. They are either the subscribers of a channel or the active participants of
+ * a group, optionally without one excluded user (usually the author).
+ *
+ * @author Matthias Mak
+ * @author Philipp Speidel
+ */
+public class PushOutboxEntry {
+    /** The unique id of the entry. */
+    private int id;
+    /** The type of the push message. */
+    private PushType pushType;
+    /** The id of the channel whose subscribers should be notified. */
+    private Integer channelId;
+    /** The id of the group whose active participants should be notified. */
+    private Integer groupId;
+    /** The id of the user who shouldn't be notified. */
+    private Integer excludedUserId;
+    /** The first id of the push message. */
+    private Integer id1;
+    /** The second id of the push message. */
+    private Integer id2;
+    /** The third id of the push message. */
+    private Integer id3;
+    /** The date on which the entry was created. */
+    private ZonedDateTime creationDate;
+
+    /**
+     * Creates an instance of the PushOutboxEntry class.
+     */
+    public PushOutboxEntry() {
+    }
+
+    /**
+     * Creates an entry which notifies the subscribers of the given channel.
+     *
+     * @param pushType The type of the push message.
+     * @param channelId The id of the channel whose subscribers should be notified.
+     * @param id1 The first id of the push message.
+     * @param id2 The second id of the push message.
+     * @param id3 The third id of the push message.
+     * @return The created entry.
+     */
+    public static PushOutboxEntry forChannel(PushType pushType, int channelId, Integer id1, Integer id2, Integer id3) {
+        PushOutboxEntry entry = new PushOutboxEntry();
+        entry.setPushType(pushType);
+        entry.setChannelId(channelId);
+        entry.setId1(id1);
+        entry.setId2(id2);
+        entry.setId3(id3);
+        return entry;
+    }
+
+    /**
+     * Creates an entry which notifies the active participants of the given group except the excluded user.
+     *
+     * @param pushType The type of the push message.
+     * @param groupId The id of the group whose participants should be notified.
+     * @param excludedUserId The id of the user who shouldn't be notified. Nullable.
+     * @param id1 The first id of the push message.
+     * @param id2 The second id of the push message.
+     * @param id3 The third id of the push message.
+     * @return The created entry.
+     */
+    public static PushOutboxEntry forGroup(PushType pushType, int groupId, Integer excludedUserId, Integer id1,
+                                           Integer id2, Integer id3) {
+        PushOutboxEntry entry = new PushOutboxEntry();
+        entry.setPushType(pushType);
+        entry.setGroupId(groupId);
+        entry.setExcludedUserId(excludedUserId);
+        entry.setId1(id1);
+        entry.setId2(id2);
+        entry.setId3(id3);
+        return entry;
+    }
+
+    @Override
+    public String toString() {
+        return "PushOutboxEntry{" +
+                "id=" + id +
+                ", pushType=" + pushType +
+                ", channelId=" + channelId +
+                ", groupId=" + groupId +
+                ", excludedUserId=" + excludedUserId +
+                ", id1=" + id1 +
+                ", id2=" + id2 +
+                ", id3=" + id3 +
+                ", creationDate=" + creationDate +
+                '}';
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public void setId(int id) {
+        this.id = id;
+    }
+
+    public PushType getPushType() {
+        return pushType;
+    }
+
+    public void setPushType(PushType pushType) {
+        this.pushType = pushType;
+    }
+
+    public Integer getChannelId() {
+        return channelId;
+    }
+
+    public void setChannelId(Integer channelId) {
+        this.channelId = channelId;
+    }
+
+    public Integer getGroupId() {
+        return groupId;
+    }
+
+    public void setGroupId(Integer groupId) {
+        this.groupId = groupId;
+    }
+
+    public Integer getExcludedUserId() {
+        return excludedUserId;
+    }
+
+    public void setExcludedUserId(Integer excludedUserId) {
+        this.excludedUserId = excludedUserId;
+    }
+
+    public Integer getId1() {
+        return id1;
+    }
+
+    public void setId1(Integer id1) {
+        this.id1 = id1;
+    }
+
+    public Integer getId2() {
+        return id2;
+    }
+
+    public void setId2(Integer id2) {
+        this.id2 = id2;
+    }
+
+    public Integer getId3() {
+        return id3;
+    }
+
+    public void setId3(Integer id3) {
+        this.id3 = id3;
+    }
+
+    public ZonedDateTime getCreationDate() {
+        return creationDate;
+    }
+
+    public void setCreationDate(ZonedDateTime creationDate) {
+        this.creationDate = creationDate;
+    }
+}
@@ -23,6 +23,9 @@ public class Reminder {
     /** The logger instance for Reminder. */
     private static final Logger logger = LoggerFactory.getLogger(Reminder.class);
 
+    /** The number of seconds of a day. */
+    private static final int SECONDS_PER_DAY = 86400;
+
     /** The unique Reminder id. */
     int id;
     /** The date on which the Reminder was created. */
@@ -129,28 +132,12 @@ public class Reminder {
         // If interval is 0, it's a one time reminder, so marked reminder as expired.
         if(interval == 0){
             nextDate = endDate.plusSeconds(1);
-        }else{
-            ZonedDateTime tmpNextDate = nextDate.plusSeconds(interval);
-
-            // Check if there is a transition from daylight saving time to non daylight saving time.
-            if (nextDate.getZone().getRules().isDaylightSavings(nextDate.toInstant()) &&
-                    !tmpNextDate.getZone().getRules().isDaylightSavings(tmpNextDate.toInstant())){
-                // Add one hour.
-                tmpNextDate = tmpNextDate.plusHours(1);
-
-                logger.info("Adding one hour to next date for reminder with id {}.", getId());
-            }
-
-            // Check if there is a transition from non daylight saving time to daylight saving time.
-            if (!nextDate.getZone().getRules().isDaylightSavings(nextDate.toInstant()) &&
-                    tmpNextDate.getZone().getRules().isDaylightSavings(tmpNextDate.toInstant())){
-                // Subtract one hour.
-                tmpNextDate = tmpNextDate.minusHours(1);
-
-                logger.info("Subtracting one hour to next date for reminder with id {}.", getId());
-            }
-
-            nextDate = tmpNextDate;
+        } else if (interval % SECONDS_PER_DAY == 0) {
+            // Add whole days on the wall clock, so the reminder keeps its local time across daylight saving time
+            // transitions.
+            nextDate = nextDate.plusDays(interval / SECONDS_PER_DAY);
+        } else {
+            nextDate = nextDate.plusSeconds(interval);
         }
     }
 
@@ -0,0 +1,83 @@
+package ulm.university.news.data;
+
+import java.time.ZonedDateTime;
+
+/**
+ * The ResourceVersion class describes the state of a resource or a list of resources without containing the data of
+ * the resources. The version changes whenever a resource is created, changed or deleted. It is used to answer
+ * conditional requests without loading the resources.
+ *
+ * @author Matthias Mak
+ * @author Philipp Speidel
+ */
+public class ResourceVersion {
+    /** The number of resources. */
+    private int count;
+    /** The latest modification date of the resources. Null if there are no resources. */
+    private ZonedDateTime lastModified;
+    /** The highest message number of the resources. Null if the resources have no message numbers. */
+    private Integer lastMessageNumber;
+
+    /**
+     * Creates an instance of the ResourceVersion class.
+     */
+    public ResourceVersion() {
+    }
+
+    /**
+     * Creates an instance of the ResourceVersion class.
+     *
+     * @param count The number of resources.
+     * @param lastModified The latest modification date of the resources.
+     * @param lastMessageNumber The highest message number of the resources.
+     */
+    public ResourceVersion(int count, ZonedDateTime lastModified, Integer lastMessageNumber) {
+        this.count = count;
+        this.lastModified = lastModified;
+        this.lastMessageNumber = lastMessageNumber;
+    }
+
+    /**
+     * Returns a tag which identifies this version. Two versions of the same resources have the same tag if nothing
+     * has changed in between.
+     *
+     * @return The tag of this version.
+     */
+    public String getTag() {
+        return count + "-" + (lastModified != null ? lastModified.toInstant().toEpochMilli() : 0) + "-" +
+                (lastMessageNumber != null ? lastMessageNumber : 0);
+    }
+
+    @Override
+    public String toString() {
+        return "ResourceVersion{" +
+                "count=" + count +
+                ", lastModified=" + lastModified +
+                ", lastMessageNumber=" + lastMessageNumber +
+                '}';
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public void setCount(int count) {
+        this.count = count;
+    }
+
+    public ZonedDateTime getLastModified() {
+        return lastModified;
+    }
+
+    public void setLastModified(ZonedDateTime lastModified) {
+        this.lastModified = lastModified;
+    }
+
+    public Integer getLastMessageNumber() {
+        return lastMessageNumber;
+    }
+
+    public void setLastMessageNumber(Integer lastMessageNumber) {
+        this.lastMessageNumber = lastMessageNumber;
+    }
+}
@@ -0,0 +1,60 @@
+package ulm.university.news.data;
+
+import java.time.ZonedDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The SyncRequest class contains the state of the data which is already known to the client. The server uses this
+ * state to deliver only the data which has changed since the last synchronization.
+ *
+ * @author Matthias Mak
+ * @author Philipp Speidel
+ */
+public class SyncRequest {
+    /** Only channels with a newer modification date are delivered. If null, all channels are delivered. */
+    private ZonedDateTime channelsLastUpdated;
+    /** The highest known message number of the announcements mapped by the channel id. */
+    private Map<Integer, Integer> announcementNumbers = new HashMap<Integer, Integer>();
+    /** The highest known message number of the conversation messages mapped by the conversation id. */
+    private Map<Integer, Integer> conversationMessageNumbers = new HashMap<Integer, Integer>();
+
+    /**
+     * Creates an instance of the SyncRequest class.
+     */
+    public SyncRequest() {
+    }
+
+    @Override
+    public String toString() {
+        return "SyncRequest{" +
+                "channelsLastUpdated=" + channelsLastUpdated +
+                ", announcementNumbers=" + announcementNumbers +
+                ", conversationMessageNumbers=" + conversationMessageNumbers +
+                '}';
+    }
+
+    public ZonedDateTime getChannelsLastUpdated() {
+        return channelsLastUpdated;
+    }
+
+    public void setChannelsLastUpdated(ZonedDateTime channelsLastUpdated) {
+        this.channelsLastUpdated = channelsLastUpdated;
+    }
+
+    public Map<Integer, Integer> getAnnouncementNumbers() {
+        return announcementNumbers;
+    }
+
+    public void setAnnouncementNumbers(Map<Integer, Integer> announcementNumbers) {
+        this.announcementNumbers = announcementNumbers;
+    }
+
+    public Map<Integer, Integer> getConversationMessageNumbers() {
+        return conversationMessageNumbers;
+    }
+
+    public void setConversationMessageNumbers(Map<Integer, Integer> conversationMessageNumbers) {
+        this.conversationMessageNumbers = conversationMessageNumbers;
+    }
+}
@@ -0,0 +1,109 @@
+package ulm.university.news.data;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The SyncResult class contains all data which has changed since the state described by a SyncRequest. It allows
+ * the client to synchronize its data with a single request. The number of messages per channel and conversation is
+ * limited. If there are more messages, the result contains a cursor for the channel or conversation, i.e. the message
+ * number from which the client continues with the next sync request.
+ *
+ * @author Matthias Mak
+ * @author Philipp Speidel
+ */
+public class SyncResult {
+    /** The channels which have been created or changed. */
+    private List<Channel> channels = new ArrayList<Channel>();
+    /** The new announcements of the requested channels. */
+    private List<Announcement> announcements = new ArrayList<Announcement>();
+    /** The new conversation messages of the requested conversations. */
+    private List<ConversationMessage> conversationMessages = new ArrayList<ConversationMessage>();
+    /** The message numbers from which the announcements are continued, mapped by the ids of incomplete channels. */
+    private Map<Integer, Integer> announcementCursors = new HashMap<Integer, Integer>();
+    /**
+     * The message numbers from which the conversation messages are continued, mapped by the ids of incomplete
+     * conversations.
+     */
+    private Map<Integer, Integer> conversationMessageCursors = new HashMap<Integer, Integer>();
+
+    /**
+     * Creates an instance of the SyncResult class.
+     */
+    public SyncResult() {
+    }
+
+    /**
+     * Creates an instance of the SyncResult class.
+     *
+     * @param channels The channels which have been created or changed.
+     * @param announcements The new announcements of the requested channels.
+     * @param conversationMessages The new conversation messages of the requested conversations.
+     * @param announcementCursors The message numbers from which the announcements are continued, mapped by the ids
+     * of incomplete channels.
+     * @param conversationMessageCursors The message numbers from which the conversation messages are continued,
+     * mapped by the ids of incomplete conversations.
+     */
+    public SyncResult(List<Channel> channels, List<Announcement> announcements, List<ConversationMessage>
+            conversationMessages, Map<Integer, Integer> announcementCursors, Map<Integer, Integer>
+            conversationMessageCursors) {
+        this.channels = channels;
+        this.announcements = announcements;
+        this.conversationMessages = conversationMessages;
+        this.announcementCursors = announcementCursors;
+        this.conversationMessageCursors = conversationMessageCursors;
+    }
+
+    @Override
+    public String toString() {
+        return "SyncResult{" +
+                "channels=" + channels +
+                ", announcements=" + announcements +
+                ", conversationMessages=" + conversationMessages +
+                ", announcementCursors=" + announcementCursors +
+                ", conversationMessageCursors=" + conversationMessageCursors +
+                '}';
+    }
+
+    public List<Channel> getChannels() {
+        return channels;
+    }
+
+    public void setChannels(List<Channel> channels) {
+        this.channels = channels;
+    }
+
+    public List<Announcement> getAnnouncements() {
+        return announcements;
+    }
+
+    public void setAnnouncements(List<Announcement> announcements) {
+        this.announcements = announcements;
+    }
+
+    public List<ConversationMessage> getConversationMessages() {
+        return conversationMessages;
+    }
+
+    public void setConversationMessages(List<ConversationMessage> conversationMessages) {
+        this.conversationMessages = conversationMessages;
+    }
+
+    public Map<Integer, Integer> getAnnouncementCursors() {
+        return announcementCursors;
+    }
+
+    public void setAnnouncementCursors(Map<Integer, Integer> announcementCursors) {
+        this.announcementCursors = announcementCursors;
+    }
+
+    public Map<Integer, Integer> getConversationMessageCursors() {
+        return conversationMessageCursors;
+    }
+
+    public void setConversationMessageCursors(Map<Integer, Integer> conversationMessageCursors) {
+        this.conversationMessageCursors = conversationMessageCursors;
+    }
+}
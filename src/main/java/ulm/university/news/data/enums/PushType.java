@@ -13,5 +13,7 @@ public enum PushType {
     PARTICIPANT_CHANGED, CONVERSATION_NEW, CONVERSATION_CHANGED, CONVERSATION_CHANGED_ALL, CONVERSATION_CLOSED,
     CONVERSATION_DELETED, CONVERSATION_MESSAGE_NEW, BALLOT_NEW, BALLOT_CHANGED, BALLOT_CHANGED_ALL,
     BALLOT_OPTION_NEW, BALLOT_OPTION_ALL, BALLOT_OPTION_DELETED, BALLOT_OPTION_VOTE, BALLOT_OPTION_VOTE_ALL,
-    BALLOT_CLOSED, BALLOT_DELETED, USER_CHANGED
+    BALLOT_CLOSED, BALLOT_DELETED, USER_CHANGED;
+
+    public static final PushType values[] = values();
 }
@@ -0,0 +1,14 @@
+package ulm.university.news.data.enums;
+
+/**
+ * The SortDirection defines whether messages are paged in ascending (ASC) or descending (DESC) order of their
+ * message numbers.
+ *
+ * @author Matthias Mak
+ * @author Philipp Speidel
+ */
+public enum SortDirection {
+    ASC, DESC;
+
+    public static final SortDirection values[] = values();
+}
@@ -0,0 +1,265 @@
+package ulm.university.news.manager.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ulm.university.news.data.Moderator;
+import ulm.university.news.data.User;
+import ulm.university.news.data.enums.TokenType;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The AccessTokenCache class caches the principals, i.e. the user or moderator accounts, which are identified by
+ * access tokens. A cached principal allows the verification of an access token without a database query. The cache
+ * is bounded and its entries expire after a short time, which also limits the time for which a change of an account
+ * on another server instance stays unnoticed. Changes of an account on this instance, e.g. locking a moderator
+ * account, have to be propagated by invalidating the cached principal. The cache always returns copies of the cached
+ * principals, so a caller can't alter a cached principal. Furthermore, access tokens which have been rejected are
+ * remembered for a short time, so repeated requests with an invalid access token don't cause database queries.
+ *
+ * @author Matthias Mak
+ * @author Philipp Speidel
+ */
+public class AccessTokenCache {
+
+    /** The logger instance for AccessTokenCache. */
+    private static final Logger logger = LoggerFactory.getLogger(AccessTokenCache.class);
+
+    /** The maximum number of cached principals. */
+    private static final int MAX_SIZE = 10000;
+
+    /** The time in milliseconds after which a cached principal expires. */
+    private static final long TIME_TO_LIVE = 60000;
+
+    /**
+     * The time in milliseconds for which a rejected access token is remembered. Access tokens are generated by the
+     * server, so a rejected access token doesn't become valid in the meantime.
+     */
+    private static final long REJECTED_TIME_TO_LIVE = 30000;
+
+    /** A reference for the AccessTokenCache Singleton class. */
+    private static AccessTokenCache _instance;
+
+    /** The cached principals mapped by their access token. */
+    private final TtlCache<String, Principal> principals = new TtlCache<String, Principal>(MAX_SIZE, TIME_TO_LIVE);
+
+    /** The access tokens which have been rejected recently. */
+    private final TtlCache<String, Boolean> rejectedTokens = new TtlCache<String, Boolean>(MAX_SIZE,
+            REJECTED_TIME_TO_LIVE);
+
+    /**
+     * Counts the invalidations. A principal which has been loaded before an invalidation might be outdated and isn't
+     * cached.
+     */
+    private final AtomicLong invalidationCounter = new AtomicLong();
+
+    /**
+     * Creates an Instance of the AccessTokenCache class.
+     */
+    private AccessTokenCache() {
+    }
+
+    /**
+     * Get an instance of the AccessTokenCache class.
+     *
+     * @return Instance of AccessTokenCache.
+     */
+    public static synchronized AccessTokenCache getInstance() {
+        if (_instance == null) {
+            _instance = new AccessTokenCache();
+        }
+        return _instance;
+    }
+
+    /**
+     * Returns a stamp which has to be passed to the put methods. The stamp has to be requested before the principal
+     * is loaded from the database. If the cache is invalidated in the meantime, the loaded principal isn't cached.
+     *
+     * @return The current invalidation stamp.
+     */
+    public long getStamp() {
+        return invalidationCounter.get();
+    }
+
+    /**
+     * Returns the type of the given access token if its principal is cached.
+     *
+     * @param accessToken The access token.
+     * @return The type of the access token or null if the principal isn't cached.
+     */
+    public TokenType getTokenType(String accessToken) {
+        Principal principal = principals.get(accessToken);
+        return principal != null ? principal.tokenType : null;
+    }
+
+    /**
+     * Returns a copy of the cached user who is identified by the given access token.
+     *
+     * @param accessToken The access token of the user.
+     * @return The user or null if no user is cached for this access token.
+     */
+    public User getUser(String accessToken) {
+        Principal principal = principals.get(accessToken);
+        if (principal == null || principal.user == null) {
+            return null;
+        }
+        return copyUser(principal.user);
+    }
+
+    /**
+     * Returns a copy of the cached moderator who is identified by the given access token.
+     *
+     * @param accessToken The access token of the moderator.
+     * @return The moderator or null if no moderator is cached for this access token.
+     */
+    public Moderator getModerator(String accessToken) {
+        Principal principal = principals.get(accessToken);
+        if (principal == null || principal.moderator == null) {
+            return null;
+        }
+        return copyModerator(principal.moderator);
+    }
+
+    /**
+     * Caches a copy of the given user for the given access token unless the cache has been invalidated since the
+     * given stamp has been requested.
+     *
+     * @param accessToken The access token of the user.
+     * @param user The user loaded from the database.
+     * @param stamp The stamp which has been requested before the user has been loaded.
+     */
+    public void putUser(String accessToken, User user, long stamp) {
+        synchronized (invalidationCounter) {
+            if (stamp == invalidationCounter.get()) {
+                principals.put(accessToken, new Principal(TokenType.USER, copyUser(user), null));
+            }
+        }
+    }
+
+    /**
+     * Caches a copy of the given moderator for the given access token unless the cache has been invalidated since
+     * the given stamp has been requested.
+     *
+     * @param accessToken The access token of the moderator.
+     * @param moderator The moderator loaded from the database.
+     * @param stamp The stamp which has been requested before the moderator has been loaded.
+     */
+    public void putModerator(String accessToken, Moderator moderator, long stamp) {
+        synchronized (invalidationCounter) {
+            if (stamp == invalidationCounter.get()) {
+                principals.put(accessToken, new Principal(TokenType.MODERATOR, null, copyModerator(moderator)));
+            }
+        }
+    }
+
+    /**
+     * Checks whether the given access token has been rejected recently.
+     *
+     * @param accessToken The access token.
+     * @return true if the access token has been rejected recently.
+     */
+    public boolean isRejected(String accessToken) {
+        return rejectedTokens.get(accessToken) != null;
+    }
+
+    /**
+     * Remembers the given access token as rejected, i.e. it doesn't belong to any user or moderator account.
+     *
+     * @param accessToken The rejected access token.
+     */
+    public void putRejected(String accessToken) {
+        rejectedTokens.put(accessToken, Boolean.TRUE);
+    }
+
+    /**
+     * Removes the cached principal of the user with the given id. Has to be called if the user account is changed.
+     *
+     * @param userId The id of the user.
+     */
+    public void invalidateUser(int userId) {
+        synchronized (invalidationCounter) {
+            invalidationCounter.incrementAndGet();
+            int removed = principals.invalidateIf(principal -> principal.user != null && principal.user.getId() ==
+                    userId);
+            logger.debug("Invalidated {} cached principal(s) of the user with id {}.", removed, userId);
+        }
+    }
+
+    /**
+     * Removes the cached principal of the moderator with the given id. Has to be called if the moderator account is
+     * changed, locked, deleted or if its password is changed.
+     *
+     * @param moderatorId The id of the moderator.
+     */
+    public void invalidateModerator(int moderatorId) {
+        synchronized (invalidationCounter) {
+            invalidationCounter.incrementAndGet();
+            int removed = principals.invalidateIf(principal -> principal.moderator != null && principal.moderator
+                    .getId() == moderatorId);
+            logger.debug("Invalidated {} cached principal(s) of the moderator with id {}.", removed, moderatorId);
+        }
+    }
+
+    /**
+     * Removes all cached principals and rejected access tokens.
+     */
+    public void clear() {
+        synchronized (invalidationCounter) {
+            invalidationCounter.incrementAndGet();
+            principals.clear();
+            rejectedTokens.clear();
+        }
+    }
+
+    /**
+     * Creates a copy of the given user.
+     *
+     * @param user The user.
+     * @return The copy of the user.
+     */
+    private User copyUser(User user) {
+        return new User(user.getId(), user.getName(), user.getServerAccessToken(), user.getPushAccessToken(), user
+                .getPlatform(), user.isActive());
+    }
+
+    /**
+     * Creates a copy of the given moderator.
+     *
+     * @param moderator The moderator.
+     * @return The copy of the moderator.
+     */
+    private Moderator copyModerator(Moderator moderator) {
+        return new Moderator(moderator.getId(), moderator.getName(), moderator.getFirstName(), moderator
+                .getLastName(), moderator.getEmail(), moderator.getServerAccessToken(), moderator.getPassword(),
+                moderator.getMotivation(), moderator.getLanguage(), moderator.isLocked(), moderator.isAdmin(),
+                moderator.isDeleted(), moderator.isActive());
+    }
+
+    /**
+     * The Principal class holds the account which is identified by an access token.
+     */
+    private static class Principal {
+
+        /** The type of the access token. */
+        private final TokenType tokenType;
+
+        /** The user account or null if the access token belongs to a moderator. */
+        private final User user;
+
+        /** The moderator account or null if the access token belongs to a user. */
+        private final Moderator moderator;
+
+        /**
+         * Creates a Principal with the given values. Either the user or the moderator is set.
+         *
+         * @param tokenType The type of the access token.
+         * @param user The user account or null.
+         * @param moderator The moderator account or null.
+         */
+        Principal(TokenType tokenType, User user, Moderator moderator) {
+            this.tokenType = tokenType;
+            this.user = user;
+            this.moderator = moderator;
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package ulm.university.news.manager.cache;
+
+/**
+ * The FailureRateLimiter class counts the failed requests per key, e.g. per access token or per client address,
+ * within a fixed time window. A key whose number of failures has reached the limit is blocked until its time window
+ * has expired. The time window of a key starts with its first failure. The number of tracked keys is bounded, so
+ * the limiter can't be used to exhaust the memory of the server.
+ *
+ * @author Matthias Mak
+ * @author Philipp Speidel
+ */
+public class FailureRateLimiter {
+
+    /** The maximum number of keys which are tracked at once. */
+    private static final int MAX_KEYS = 10000;
+
+    /** The number of failures per key which are allowed within the time window. */
+    private final int maxFailures;
+
+    /** The failure counters of the keys. The counters expire together with their time window. */
+    private final TtlCache<String, int[]> failureCounters;
+
+    /**
+     * Creates a FailureRateLimiter with the given limits.
+     *
+     * @param maxFailures The number of failures per key which are allowed within the time window.
+     * @param timeWindow The length of the time window in milliseconds.
+     */
+    public FailureRateLimiter(int maxFailures, long timeWindow) {
+        this.maxFailures = maxFailures;
+        failureCounters = new TtlCache<String, int[]>(MAX_KEYS, timeWindow);
+    }
+
+    /**
+     * Records a failed request for the given key.
+     *
+     * @param key The key, e.g. the access token or the address of the client.
+     */
+    public synchronized void recordFailure(String key) {
+        int[] counter = failureCounters.get(key);
+        if (counter == null) {
+            // Start a new time window with the first failure.
+            failureCounters.put(key, new int[]{1});
+        } else {
+            counter[0]++;
+        }
+    }
+
+    /**
+     * Checks whether the given key has reached the maximum number of failures within its current time window.
+     *
+     * @param key The key, e.g. the access token or the address of the client.
+     * @return true if requests for this key should be rejected.
+     */
+    public synchronized boolean isBlocked(String key) {
+        int[] counter = failureCounters.get(key);
+        return counter != null && counter[0] >= maxFailures;
+    }
+}
@@ -0,0 +1,146 @@
+package ulm.university.news.manager.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ulm.university.news.data.Group;
+import ulm.university.news.data.User;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The GroupCache class holds recently used groups together with their active participants in memory. Nearly every
+ * operation on the resources of a group requires the group and its participants, e.g. for the permission checks and
+ * the push notifications. The cache avoids loading them from the database for each of these operations. The cache is
+ * bounded and its entries expire after some time. Changes of a group or of its participants have to be propagated by
+ * invalidating the cached group. The cache always returns copies of the cached groups, so a caller can't alter a
+ * cached group.
+ *
+ * @author Matthias Mak
+ * @author Philipp Speidel
+ */
+public class GroupCache {
+
+    /** The logger instance for GroupCache. */
+    private static final Logger logger = LoggerFactory.getLogger(GroupCache.class);
+
+    /** The maximum number of cached groups. */
+    private static final int MAX_SIZE = 500;
+
+    /** The time in milliseconds after which a cached group expires. */
+    private static final long TIME_TO_LIVE = 300000;
+
+    /** A reference for the GroupCache Singleton class. */
+    private static GroupCache _instance;
+
+    /** The cached groups including their active participants mapped by the group id. */
+    private final TtlCache<Integer, Group> groups = new TtlCache<Integer, Group>(MAX_SIZE, TIME_TO_LIVE);
+
+    /**
+     * Counts the invalidations. A group which has been loaded before an invalidation might be outdated and isn't
+     * cached.
+     */
+    private final AtomicLong invalidationCounter = new AtomicLong();
+
+    /**
+     * Creates an Instance of the GroupCache class.
+     */
+    private GroupCache() {
+    }
+
+    /**
+     * Get an instance of the GroupCache class.
+     *
+     * @return Instance of GroupCache.
+     */
+    public static synchronized GroupCache getInstance() {
+        if (_instance == null) {
+            _instance = new GroupCache();
+        }
+        return _instance;
+    }
+
+    /**
+     * Returns a stamp which has to be passed to the put method. The stamp has to be requested before the group is
+     * loaded from the database. If the cache is invalidated in the meantime, the loaded group isn't cached.
+     *
+     * @return The current invalidation stamp.
+     */
+    public long getStamp() {
+        return invalidationCounter.get();
+    }
+
+    /**
+     * Returns a copy of the cached group with the given id including its active participants.
+     *
+     * @param groupId The id of the group.
+     * @return The group or null if the group isn't cached.
+     */
+    public Group getGroup(int groupId) {
+        Group group = groups.get(groupId);
+        return group != null ? copyGroup(group) : null;
+    }
+
+    /**
+     * Caches a copy of the given group unless the cache has been invalidated since the given stamp has been
+     * requested. The group has to contain the list of its active participants.
+     *
+     * @param group The group loaded from the database.
+     * @param stamp The stamp which has been requested before the group has been loaded.
+     */
+    public void putGroup(Group group, long stamp) {
+        synchronized (invalidationCounter) {
+            if (stamp == invalidationCounter.get()) {
+                groups.put(group.getId(), copyGroup(group));
+            }
+        }
+    }
+
+    /**
+     * Removes the cached group with the given id. Has to be called if the group, its participants or its group
+     * administrator have changed or if the group has been deleted.
+     *
+     * @param groupId The id of the group.
+     */
+    public void invalidateGroup(int groupId) {
+        synchronized (invalidationCounter) {
+            invalidationCounter.incrementAndGet();
+            groups.invalidate(groupId);
+        }
+    }
+
+    /**
+     * Removes all cached groups in which the user with the given id is a participant. Has to be called if the user
+     * account has changed, e.g. its name or push access token.
+     *
+     * @param userId The id of the user.
+     */
+    public void invalidateUser(int userId) {
+        synchronized (invalidationCounter) {
+            invalidationCounter.incrementAndGet();
+            int removed = groups.invalidateIf(group -> group.getParticipants().stream().anyMatch(participant ->
+                    participant.getId() == userId));
+            logger.debug("Invalidated {} cached group(s) of the user with id {}.", removed, userId);
+        }
+    }
+
+    /**
+     * Creates a copy of the given group including copies of its participants.
+     *
+     * @param group The group.
+     * @return The copy of the group.
+     */
+    private Group copyGroup(Group group) {
+        Group copy = new Group(group.getId(), group.getName(), group.getDescription(), group.getGroupType(), group
+                .getCreationDate(), group.getModificationDate(), group.getTerm(), group.getPassword(), group
+                .getGroupAdmin());
+        List<User> participants = new ArrayList<User>(group.getParticipants().size());
+        for (User participant : group.getParticipants()) {
+            participants.add(new User(participant.getId(), participant.getName(), null, participant
+                    .getPushAccessToken(), participant.getPlatform(), participant.isActive()));
+        }
+        copy.setParticipants(participants);
+        return copy;
+    }
+}
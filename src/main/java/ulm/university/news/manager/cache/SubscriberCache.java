@@ -0,0 +1,275 @@
+package ulm.university.news.manager.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ulm.university.news.data.User;
+import ulm.university.news.data.enums.Platform;
+import ulm.university.news.manager.database.ChannelDatabaseManager;
+import ulm.university.news.util.exceptions.DatabaseException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The SubscriberCache class holds the push recipients of the channels in memory. For each channel only the id, the
+ * platform and the push access token of its subscribers are stored in compact arrays. The cache is used whenever the
+ * subscribers of a channel are notified, so the notification doesn't require a database query if the channel is
+ * cached. The cache is kept coherent by the controllers: subscriptions and cancellations are applied to the cached
+ * channel, changed users and deleted channels are removed from the cache. Cached channels expire after some time,
+ * which limits the time for which a change on another server instance stays unnoticed.
+ *
+ * @author Matthias Mak
+ * @author Philipp Speidel
+ */
+public class SubscriberCache {
+
+    /** The logger instance for SubscriberCache. */
+    private static final Logger logger = LoggerFactory.getLogger(SubscriberCache.class);
+
+    /** The maximum number of cached channels. */
+    private static final int MAX_CHANNELS = 1000;
+
+    /** The time in milliseconds after which a cached channel expires. */
+    private static final long TIME_TO_LIVE = 600000;
+
+    /** A reference for the SubscriberCache Singleton class. */
+    private static SubscriberCache _instance;
+
+    /** The subscribers of the cached channels mapped by the channel id. */
+    private final TtlCache<Integer, Subscribers> channels = new TtlCache<Integer, Subscribers>(MAX_CHANNELS,
+            TIME_TO_LIVE);
+
+    /**
+     * Counts the modifications. Subscribers which have been loaded before a modification might be outdated and
+     * aren't cached.
+     */
+    private final AtomicLong modificationCounter = new AtomicLong();
+
+    /** The database manager for channels. */
+    private ChannelDatabaseManager channelDBM = new ChannelDatabaseManager();
+
+    /**
+     * Creates an Instance of the SubscriberCache class.
+     */
+    private SubscriberCache() {
+    }
+
+    /**
+     * Get an instance of the SubscriberCache class.
+     *
+     * @return Instance of SubscriberCache.
+     */
+    public static synchronized SubscriberCache getInstance() {
+        if (_instance == null) {
+            _instance = new SubscriberCache();
+        }
+        return _instance;
+    }
+
+    /**
+     * Returns the push recipients of the channel with the given id. The returned users only contain the id, the
+     * platform and the push access token. If the channel isn't cached, its subscribers are loaded from the database.
+     *
+     * @param channelId The id of the channel.
+     * @return A new list of users who subscribed to the channel. The list can also be empty.
+     * @throws DatabaseException If the subscribers couldn't be loaded due to a database failure.
+     */
+    public List<User> getSubscribers(int channelId) throws DatabaseException {
+        Subscribers subscribers = channels.get(channelId);
+        if (subscribers == null) {
+            long stamp = modificationCounter.get();
+            subscribers = new Subscribers(channelDBM.getSubscribers(channelId));
+            synchronized (modificationCounter) {
+                if (stamp == modificationCounter.get()) {
+                    channels.put(channelId, subscribers);
+                }
+            }
+        }
+        return subscribers.toUsers();
+    }
+
+    /**
+     * Adds the given user to the cached subscribers of the channel with the given id. Has to be called after the
+     * subscription has been stored in the database.
+     *
+     * @param channelId The id of the channel.
+     * @param user The user who subscribed to the channel. The user has to contain the platform and push access token.
+     */
+    public void addSubscriber(int channelId, User user) {
+        synchronized (modificationCounter) {
+            modificationCounter.incrementAndGet();
+            Subscribers subscribers = channels.get(channelId);
+            if (subscribers != null) {
+                channels.put(channelId, subscribers.with(user));
+            }
+        }
+    }
+
+    /**
+     * Removes the user with the given id from the cached subscribers of the channel with the given id. Has to be
+     * called after the subscription has been removed from the database.
+     *
+     * @param channelId The id of the channel.
+     * @param userId The id of the user who unsubscribed from the channel.
+     */
+    public void removeSubscriber(int channelId, int userId) {
+        synchronized (modificationCounter) {
+            modificationCounter.incrementAndGet();
+            Subscribers subscribers = channels.get(channelId);
+            if (subscribers != null) {
+                channels.put(channelId, subscribers.without(userId));
+            }
+        }
+    }
+
+    /**
+     * Removes all cached channels to which the user with the given id subscribed. Has to be called if the platform or
+     * the push access token of the user has changed.
+     *
+     * @param userId The id of the user.
+     */
+    public void invalidateUser(int userId) {
+        synchronized (modificationCounter) {
+            modificationCounter.incrementAndGet();
+            int removed = channels.invalidateIf(subscribers -> subscribers.contains(userId));
+            logger.debug("Invalidated {} cached channel(s) of the user with id {}.", removed, userId);
+        }
+    }
+
+    /**
+     * Removes the cached subscribers of the channel with the given id. Has to be called if the channel is deleted.
+     *
+     * @param channelId The id of the channel.
+     */
+    public void invalidateChannel(int channelId) {
+        synchronized (modificationCounter) {
+            modificationCounter.incrementAndGet();
+            channels.invalidate(channelId);
+        }
+    }
+
+    /**
+     * The Subscribers class holds the push recipients of one channel in compact arrays. Instances are immutable,
+     * modifications create a new instance.
+     */
+    private static class Subscribers {
+
+        /** The ids of the subscribers. */
+        private final int[] userIds;
+
+        /** The platforms of the subscribers as ordinals of the Platform enum. */
+        private final byte[] platforms;
+
+        /** The push access tokens of the subscribers. */
+        private final String[] pushAccessTokens;
+
+        /**
+         * Creates Subscribers from the given users.
+         *
+         * @param users The subscribers of the channel.
+         */
+        Subscribers(List<User> users) {
+            this(users.size());
+            for (int i = 0; i < users.size(); i++) {
+                set(i, users.get(i));
+            }
+        }
+
+        /**
+         * Creates Subscribers with the given number of empty slots.
+         *
+         * @param size The number of subscribers.
+         */
+        private Subscribers(int size) {
+            userIds = new int[size];
+            platforms = new byte[size];
+            pushAccessTokens = new String[size];
+        }
+
+        /**
+         * Sets the given user at the given position.
+         *
+         * @param index The position of the user.
+         * @param user The user.
+         */
+        private void set(int index, User user) {
+            userIds[index] = user.getId();
+            platforms[index] = (byte) user.getPlatform().ordinal();
+            pushAccessTokens[index] = user.getPushAccessToken();
+        }
+
+        /**
+         * Checks whether the user with the given id is a subscriber.
+         *
+         * @param userId The id of the user.
+         * @return true if the user is a subscriber.
+         */
+        boolean contains(int userId) {
+            for (int id : userIds) {
+                if (id == userId) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Returns a copy of these subscribers which additionally contains the given user.
+         *
+         * @param user The new subscriber.
+         * @return The new Subscribers or this instance if the user is already a subscriber.
+         */
+        Subscribers with(User user) {
+            if (contains(user.getId())) {
+                return this;
+            }
+            Subscribers subscribers = new Subscribers(userIds.length + 1);
+            System.arraycopy(userIds, 0, subscribers.userIds, 0, userIds.length);
+            System.arraycopy(platforms, 0, subscribers.platforms, 0, platforms.length);
+            System.arraycopy(pushAccessTokens, 0, subscribers.pushAccessTokens, 0, pushAccessTokens.length);
+            subscribers.set(userIds.length, user);
+            return subscribers;
+        }
+
+        /**
+         * Returns a copy of these subscribers without the user with the given id.
+         *
+         * @param userId The id of the removed subscriber.
+         * @return The new Subscribers or this instance if the user isn't a subscriber.
+         */
+        Subscribers without(int userId) {
+            if (!contains(userId)) {
+                return this;
+            }
+            Subscribers subscribers = new Subscribers(userIds.length - 1);
+            int j = 0;
+            for (int i = 0; i < userIds.length; i++) {
+                if (userIds[i] != userId) {
+                    subscribers.userIds[j] = userIds[i];
+                    subscribers.platforms[j] = platforms[i];
+                    subscribers.pushAccessTokens[j] = pushAccessTokens[i];
+                    j++;
+                }
+            }
+            return subscribers;
+        }
+
+        /**
+         * Creates user objects which contain the id, the platform and the push access token of the subscribers.
+         *
+         * @return A new list of users.
+         */
+        List<User> toUsers() {
+            List<User> users = new ArrayList<User>(userIds.length);
+            for (int i = 0; i < userIds.length; i++) {
+                User user = new User();
+                user.setId(userIds[i]);
+                user.setPlatform(Platform.values[platforms[i]]);
+                user.setPushAccessToken(pushAccessTokens[i]);
+                users.add(user);
+            }
+            return users;
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package ulm.university.news.manager.cache;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * The TtlCache class is a bounded in-memory cache whose entries expire after a fixed time to live. If the cache is
+ * full, the least recently used entry is evicted. All methods are thread safe. The cache is meant for small values
+ * which are read much more often than they are changed, e.g. the principals of access tokens.
+ *
+ * @param <K> The type of the keys.
+ * @param <V> The type of the cached values.
+ * @author Matthias Mak
+ * @author Philipp Speidel
+ */
+public class TtlCache<K, V> {
+
+    /** The cached entries in access order, i.e. the least recently used entry comes first. */
+    private final LinkedHashMap<K, Entry<V>> entries;
+
+    /** The time to live of an entry in milliseconds. */
+    private final long timeToLive;
+
+    /**
+     * Creates a TtlCache with the given limits.
+     *
+     * @param maxSize The maximum number of entries.
+     * @param timeToLive The time to live of an entry in milliseconds.
+     */
+    public TtlCache(final int maxSize, long timeToLive) {
+        this.timeToLive = timeToLive;
+        entries = new LinkedHashMap<K, Entry<V>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    /**
+     * Returns the value which is cached for the given key.
+     *
+     * @param key The key of the value.
+     * @return The cached value or null if there is no value or the value has expired.
+     */
+    public synchronized V get(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.isExpired()) {
+            entries.remove(key);
+            return null;
+        }
+        return entry.value;
+    }
+
+    /**
+     * Caches the given value for the given key. A value which is already cached for the key is replaced.
+     *
+     * @param key The key of the value.
+     * @param value The value which should be cached.
+     */
+    public synchronized void put(K key, V value) {
+        entries.put(key, new Entry<V>(value, System.currentTimeMillis() + timeToLive));
+    }
+
+    /**
+     * Removes the value which is cached for the given key.
+     *
+     * @param key The key of the value.
+     */
+    public synchronized void invalidate(K key) {
+        entries.remove(key);
+    }
+
+    /**
+     * Removes all cached values which match the given predicate.
+     *
+     * @param predicate The predicate which identifies the values which should be removed.
+     * @return The number of removed values.
+     */
+    public synchronized int invalidateIf(Predicate<V> predicate) {
+        int removed = 0;
+        Iterator<Entry<V>> iterator = entries.values().iterator();
+        while (iterator.hasNext()) {
+            if (predicate.test(iterator.next().value)) {
+                iterator.remove();
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * Removes all cached values.
+     */
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    /**
+     * Returns the number of cached values including the expired ones which haven't been removed yet.
+     *
+     * @return The number of cached values.
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * The Entry class holds a cached value and its expiration time.
+     *
+     * @param <V> The type of the cached value.
+     */
+    private static class Entry<V> {
+
+        /** The cached value. */
+        private final V value;
+
+        /** The time in milliseconds at which the value expires. */
+        private final long expirationTime;
+
+        /**
+         * Creates an Entry with the given values.
+         *
+         * @param value The cached value.
+         * @param expirationTime The time in milliseconds at which the value expires.
+         */
+        Entry(V value, long expirationTime) {
+            this.value = value;
+            this.expirationTime = expirationTime;
+        }
+
+        /**
+         * Checks whether the value has expired.
+         *
+         * @return true if the value has expired.
+         */
+        boolean isExpired() {
+            return System.currentTimeMillis() >= expirationTime;
+        }
+    }
+}
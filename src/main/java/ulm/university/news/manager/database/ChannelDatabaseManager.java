@@ -7,9 +7,9 @@ import ulm.university.news.data.enums.ChannelType;
 import ulm.university.news.data.enums.Faculty;
 import ulm.university.news.data.enums.Platform;
 import ulm.university.news.data.enums.Priority;
+import ulm.university.news.data.enums.SortDirection;
 import ulm.university.news.util.Constants;
 import ulm.university.news.util.exceptions.DatabaseException;
-import ulm.university.news.util.exceptions.MessageNumberAlreadyExistsException;
 import ulm.university.news.util.exceptions.ServerException;
 
 import java.sql.*;
@@ -17,6 +17,7 @@ import java.time.ZonedDateTime;
 import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 
 import static ulm.university.news.util.Constants.*;
 
@@ -32,6 +33,21 @@ public class ChannelDatabaseManager extends DatabaseManager {
     /** The logger instance for ChannelDatabaseManager. */
     private static final Logger logger = LoggerFactory.getLogger(ChannelDatabaseManager.class);
 
+    /**
+     * Selects the channel data joined with the data of all channel subclasses. The subclass columns are null if the
+     * channel has no row in the corresponding subclass table. The channel table has the alias c.
+     */
+    private static final String GET_CHANNELS_WITH_SUBCLASS_QUERY =
+            "SELECT c.*, " +
+                    "l.Channel_Id AS Lecture_Channel_Id, l.Faculty, l.StartDate, l.EndDate, l.Lecturer, " +
+                    "l.Assistant, " +
+                    "e.Channel_Id AS Event_Channel_Id, e.Cost AS EventCost, e.Organizer, " +
+                    "s.Channel_Id AS Sports_Channel_Id, s.Cost AS SportsCost, s.NumberOfParticipants " +
+                    "FROM Channel AS c " +
+                    "LEFT JOIN Lecture AS l ON c.Id=l.Channel_Id " +
+                    "LEFT JOIN Event AS e ON c.Id=e.Channel_Id " +
+                    "LEFT JOIN Sports AS s ON c.Id=s.Channel_Id";
+
     /**
      * Creates an instance of the ChannelDatabaseManager class.
      */
@@ -357,24 +373,24 @@ public class ChannelDatabaseManager extends DatabaseManager {
         try {
             con = getDatabaseConnection();
 
-            // Create proper SQL statement.
-            String query = "SELECT * FROM Channel";
+            // Create proper SQL statement. The subclass data is joined, so all channels are loaded in one query.
+            String query = GET_CHANNELS_WITH_SUBCLASS_QUERY;
             PreparedStatement getChannelsStmt;
             if (moderatorId != null && lastUpdated != null) {
-                query += " AS c INNER JOIN ModeratorChannel AS mc ON c.Id=mc.Channel_Id " +
-                        "WHERE mc.Moderator_Id=? AND ModificationDate>? AND mc.Active=?;";
+                query += " INNER JOIN ModeratorChannel AS mc ON c.Id=mc.Channel_Id " +
+                        "WHERE mc.Moderator_Id=? AND c.ModificationDate>? AND mc.Active=?;";
                 getChannelsStmt = con.prepareStatement(query);
                 getChannelsStmt.setInt(1, moderatorId);
                 getChannelsStmt.setTimestamp(2, Timestamp.from(lastUpdated.toInstant()));
                 getChannelsStmt.setBoolean(3, true);
             } else if (moderatorId != null) {
-                query += " AS c INNER JOIN ModeratorChannel AS mc ON c.Id=mc.Channel_Id WHERE mc.Moderator_Id=? AND " +
+                query += " INNER JOIN ModeratorChannel AS mc ON c.Id=mc.Channel_Id WHERE mc.Moderator_Id=? AND " +
                         "mc.Active=?;";
                 getChannelsStmt = con.prepareStatement(query);
                 getChannelsStmt.setInt(1, moderatorId);
                 getChannelsStmt.setBoolean(2, true);
             } else if (lastUpdated != null) {
-                query += " WHERE ModificationDate>?;";
+                query += " WHERE c.ModificationDate>?;";
                 getChannelsStmt = con.prepareStatement(query);
                 getChannelsStmt.setTimestamp(1, Timestamp.from(lastUpdated.toInstant()));
             } else {
@@ -384,79 +400,11 @@ public class ChannelDatabaseManager extends DatabaseManager {
             logger.debug("SQL query:{}", query);
             ResultSet getChannelsRs = getChannelsStmt.executeQuery();
 
-            // Create fields before while loop, not within every pass.
-            String name, description, term, locations, dates, contacts, website, startDate, endDate, lecturer,
-                    assistant, cost, organizer, participants;
-            ChannelType type;
-            Faculty faculty;
-            ZonedDateTime creationDate, modificationDate;
             // Get channel data from database.
             while (getChannelsRs.next()) {
-                int id = getChannelsRs.getInt("Id");
-                name = getChannelsRs.getString("Name");
-                description = getChannelsRs.getString("Description");
-                type = ChannelType.values[getChannelsRs.getInt("Type")];
-                creationDate = getChannelsRs.getTimestamp("CreationDate").toLocalDateTime().atZone(Constants.TIME_ZONE);
-                modificationDate = getChannelsRs.getTimestamp("ModificationDate").toLocalDateTime().atZone(Constants
-                        .TIME_ZONE);
-                term = getChannelsRs.getString("Term");
-                locations = getChannelsRs.getString("Locations");
-                dates = getChannelsRs.getString("Dates");
-                contacts = getChannelsRs.getString("Contacts");
-                website = getChannelsRs.getString("Website");
-
-                // If necessary get additional channel data and create corresponding channel subclass.
-                PreparedStatement getSubclassStmt;
-                ResultSet getSubclassRs;
-                switch (type) {
-                    case LECTURE:
-                        query = "SELECT * FROM Lecture WHERE Channel_Id=?;";
-                        getSubclassStmt = con.prepareStatement(query);
-                        getSubclassStmt.setInt(1, id);
-                        getSubclassRs = getSubclassStmt.executeQuery();
-                        if (getSubclassRs.next()) {
-                            faculty = Faculty.values[getSubclassRs.getInt("Faculty")];
-                            startDate = getSubclassRs.getString("StartDate");
-                            endDate = getSubclassRs.getString("EndDate");
-                            lecturer = getSubclassRs.getString("Lecturer");
-                            assistant = getSubclassRs.getString("Assistant");
-                            Lecture lecture = new Lecture(id, name, description, type, creationDate,
-                                    modificationDate, term, locations, dates, contacts, website, faculty, startDate,
-                                    endDate, lecturer, assistant);
-                            channels.add(lecture);
-                        }
-                        break;
-                    case EVENT:
-                        query = "SELECT * FROM Event WHERE Channel_Id=?;";
-                        getSubclassStmt = con.prepareStatement(query);
-                        getSubclassStmt.setInt(1, id);
-                        getSubclassRs = getSubclassStmt.executeQuery();
-                        if (getSubclassRs.next()) {
-                            cost = getSubclassRs.getString("Cost");
-                            organizer = getSubclassRs.getString("Organizer");
-                            Event event = new Event(id, name, description, type, creationDate,
-                                    modificationDate, term, locations, dates, contacts, website, cost, organizer);
-                            channels.add(event);
-                        }
-                        break;
-                    case SPORTS:
-                        query = "SELECT * FROM Sports WHERE Channel_Id=?;";
-                        getSubclassStmt = con.prepareStatement(query);
-                        getSubclassStmt.setInt(1, id);
-                        getSubclassRs = getSubclassStmt.executeQuery();
-                        if (getSubclassRs.next()) {
-                            cost = getSubclassRs.getString("Cost");
-                            participants = getSubclassRs.getString("NumberOfParticipants");
-                            Sports sports = new Sports(id, name, description, type, creationDate,
-                                    modificationDate, term, locations, dates, contacts, website, cost, participants);
-                            channels.add(sports);
-                        }
-                        break;
-                    default:
-                        // There is no subclass for channel type OTHER and STUDENT_GROUP, so create channel object.
-                        Channel channel = new Channel(id, name, description, type, creationDate, modificationDate, term,
-                                locations, dates, contacts, website);
-                        channels.add(channel);
+                Channel channel = createChannel(getChannelsRs);
+                if (channel != null) {
+                    channels.add(channel);
                 }
             }
             getChannelsStmt.close();
@@ -471,6 +419,100 @@ public class ChannelDatabaseManager extends DatabaseManager {
         return channels;
     }
 
+    /**
+     * Gets the version of the channels which would be returned by getChannels for the same parameters. The version
+     * consists of the number of channels and their latest modification date. The channels themselves aren't loaded.
+     *
+     * @param moderatorId Consider only channels for which the moderator with the given id is responsible.
+     * @param lastUpdated Consider only channels with a newer modification data as the last updated date.
+     * @return The version of the requested channels.
+     * @throws DatabaseException If the retrieval fails due to a database failure.
+     */
+    public ResourceVersion getChannelsVersion(Integer moderatorId, ZonedDateTime lastUpdated) throws
+            DatabaseException {
+        logger.debug("Start with moderatorId:{} and lastUpdated:{}.", moderatorId, lastUpdated);
+        Connection con = null;
+        ResourceVersion version = null;
+        try {
+            con = getDatabaseConnection();
+
+            // Use the same conditions as getChannels, but only aggregate the matching rows.
+            String query = "SELECT COUNT(*) AS Count, MAX(c.ModificationDate) AS LastModified FROM Channel AS c";
+            PreparedStatement getVersionStmt;
+            if (moderatorId != null && lastUpdated != null) {
+                query += " INNER JOIN ModeratorChannel AS mc ON c.Id=mc.Channel_Id " +
+                        "WHERE mc.Moderator_Id=? AND c.ModificationDate>? AND mc.Active=?;";
+                getVersionStmt = con.prepareStatement(query);
+                getVersionStmt.setInt(1, moderatorId);
+                getVersionStmt.setTimestamp(2, Timestamp.from(lastUpdated.toInstant()));
+                getVersionStmt.setBoolean(3, true);
+            } else if (moderatorId != null) {
+                query += " INNER JOIN ModeratorChannel AS mc ON c.Id=mc.Channel_Id WHERE mc.Moderator_Id=? AND " +
+                        "mc.Active=?;";
+                getVersionStmt = con.prepareStatement(query);
+                getVersionStmt.setInt(1, moderatorId);
+                getVersionStmt.setBoolean(2, true);
+            } else if (lastUpdated != null) {
+                query += " WHERE c.ModificationDate>?;";
+                getVersionStmt = con.prepareStatement(query);
+                getVersionStmt.setTimestamp(1, Timestamp.from(lastUpdated.toInstant()));
+            } else {
+                query += ";";
+                getVersionStmt = con.prepareStatement(query);
+            }
+
+            ResultSet getVersionRs = getVersionStmt.executeQuery();
+            if (getVersionRs.next()) {
+                version = new ResourceVersion(getVersionRs.getInt("Count"), getNullableDate(getVersionRs,
+                        "LastModified"), null);
+            }
+            getVersionStmt.close();
+        } catch (SQLException e) {
+            // Throw back DatabaseException to the Controller.
+            logger.error(LOG_SQL_EXCEPTION, e.getSQLState(), e.getErrorCode(), e.getMessage());
+            throw new DatabaseException("Database failure.");
+        } finally {
+            returnConnection(con);
+        }
+        logger.debug("End with version:{}.", version);
+        return version;
+    }
+
+    /**
+     * Gets the version of the channel with the given id. The version consists of the modification date of the
+     * channel. The channel itself isn't loaded.
+     *
+     * @param channelId The id of the channel.
+     * @return The version of the channel or null if the channel doesn't exist.
+     * @throws DatabaseException If the retrieval fails due to a database failure.
+     */
+    public ResourceVersion getChannelVersion(int channelId) throws DatabaseException {
+        logger.debug("Start with channelId:{}.", channelId);
+        Connection con = null;
+        ResourceVersion version = null;
+        try {
+            con = getDatabaseConnection();
+            String query = "SELECT ModificationDate FROM Channel WHERE Id=?;";
+
+            PreparedStatement getVersionStmt = con.prepareStatement(query);
+            getVersionStmt.setInt(1, channelId);
+
+            ResultSet getVersionRs = getVersionStmt.executeQuery();
+            if (getVersionRs.next()) {
+                version = new ResourceVersion(1, getNullableDate(getVersionRs, "ModificationDate"), null);
+            }
+            getVersionStmt.close();
+        } catch (SQLException e) {
+            // Throw back DatabaseException to the Controller.
+            logger.error(LOG_SQL_EXCEPTION, e.getSQLState(), e.getErrorCode(), e.getMessage());
+            throw new DatabaseException("Database failure.");
+        } finally {
+            returnConnection(con);
+        }
+        logger.debug("End with version:{}.", version);
+        return version;
+    }
+
     /**
      * Gets the requested channel from the database.
      *
@@ -484,81 +526,14 @@ public class ChannelDatabaseManager extends DatabaseManager {
         try {
             con = getDatabaseConnection();
 
-            String query = "SELECT * FROM Channel WHERE Id=?";
+            String query = GET_CHANNELS_WITH_SUBCLASS_QUERY + " WHERE c.Id=?;";
             PreparedStatement getChannelsStmt = con.prepareStatement(query);
             getChannelsStmt.setInt(1, channelId);
             ResultSet getChannelsRs = getChannelsStmt.executeQuery();
 
-            // Create channel fields.
-            String name, description, term, locations, dates, contacts, website, startDate, endDate, lecturer,
-                    assistant, cost, organizer, participants;
-            ChannelType type;
-            Faculty faculty;
-            ZonedDateTime creationDate, modificationDate;
             // Get channel data from database.
             if (getChannelsRs.next()) {
-                int id = getChannelsRs.getInt("Id");
-                name = getChannelsRs.getString("Name");
-                description = getChannelsRs.getString("Description");
-                type = ChannelType.values[getChannelsRs.getInt("Type")];
-                creationDate = getChannelsRs.getTimestamp("CreationDate").toLocalDateTime().atZone(Constants.TIME_ZONE);
-                modificationDate = getChannelsRs.getTimestamp("ModificationDate").toLocalDateTime().atZone(Constants
-                        .TIME_ZONE);
-                term = getChannelsRs.getString("Term");
-                locations = getChannelsRs.getString("Locations");
-                dates = getChannelsRs.getString("Dates");
-                contacts = getChannelsRs.getString("Contacts");
-                website = getChannelsRs.getString("Website");
-
-                // If necessary get additional channel data and create corresponding channel subclass.
-                PreparedStatement getSubclassStmt;
-                ResultSet getSubclassRs;
-                switch (type) {
-                    case LECTURE:
-                        query = "SELECT * FROM Lecture WHERE Channel_Id=?;";
-                        getSubclassStmt = con.prepareStatement(query);
-                        getSubclassStmt.setInt(1, id);
-                        getSubclassRs = getSubclassStmt.executeQuery();
-                        if (getSubclassRs.next()) {
-                            faculty = Faculty.values[getSubclassRs.getInt("Faculty")];
-                            startDate = getSubclassRs.getString("StartDate");
-                            endDate = getSubclassRs.getString("EndDate");
-                            lecturer = getSubclassRs.getString("Lecturer");
-                            assistant = getSubclassRs.getString("Assistant");
-                            channel = new Lecture(id, name, description, type, creationDate,
-                                    modificationDate, term, locations, dates, contacts, website, faculty, startDate,
-                                    endDate, lecturer, assistant);
-                        }
-                        break;
-                    case EVENT:
-                        query = "SELECT * FROM Event WHERE Channel_Id=?;";
-                        getSubclassStmt = con.prepareStatement(query);
-                        getSubclassStmt.setInt(1, id);
-                        getSubclassRs = getSubclassStmt.executeQuery();
-                        if (getSubclassRs.next()) {
-                            cost = getSubclassRs.getString("Cost");
-                            organizer = getSubclassRs.getString("Organizer");
-                            channel = new Event(id, name, description, type, creationDate,
-                                    modificationDate, term, locations, dates, contacts, website, cost, organizer);
-                        }
-                        break;
-                    case SPORTS:
-                        query = "SELECT * FROM Sports WHERE Channel_Id=?;";
-                        getSubclassStmt = con.prepareStatement(query);
-                        getSubclassStmt.setInt(1, id);
-                        getSubclassRs = getSubclassStmt.executeQuery();
-                        if (getSubclassRs.next()) {
-                            cost = getSubclassRs.getString("Cost");
-                            participants = getSubclassRs.getString("NumberOfParticipants");
-                            channel = new Sports(id, name, description, type, creationDate,
-                                    modificationDate, term, locations, dates, contacts, website, cost, participants);
-                        }
-                        break;
-                    default:
-                        // There is no subclass for channel type OTHER and STUDENT_GROUP, so create channel object.
-                        channel = new Channel(id, name, description, type, creationDate, modificationDate, term,
-                                locations, dates, contacts, website);
-                }
+                channel = createChannel(getChannelsRs);
             }
             getChannelsStmt.close();
         } catch (SQLException e) {
@@ -572,6 +547,65 @@ public class ChannelDatabaseManager extends DatabaseManager {
         return channel;
     }
 
+    /**
+     * Creates a channel object from the current row of the given result set. The result set has to be created by a
+     * query which starts with GET_CHANNELS_WITH_SUBCLASS_QUERY. Depending on the channel type, an object of the
+     * corresponding channel subclass is created.
+     *
+     * @param rs The result set which points to the row of the channel.
+     * @return The created channel or null if the subclass data of the channel is missing.
+     * @throws SQLException If the data couldn't be read from the result set.
+     */
+    private Channel createChannel(ResultSet rs) throws SQLException {
+        int id = rs.getInt("Id");
+        String name = rs.getString("Name");
+        String description = rs.getString("Description");
+        ChannelType type = ChannelType.values[rs.getInt("Type")];
+        ZonedDateTime creationDate = rs.getTimestamp("CreationDate").toLocalDateTime().atZone(Constants.TIME_ZONE);
+        ZonedDateTime modificationDate = rs.getTimestamp("ModificationDate").toLocalDateTime().atZone(Constants
+                .TIME_ZONE);
+        String term = rs.getString("Term");
+        String locations = rs.getString("Locations");
+        String dates = rs.getString("Dates");
+        String contacts = rs.getString("Contacts");
+        String website = rs.getString("Website");
+
+        // If necessary create corresponding channel subclass. The subclass columns are null if there is no row.
+        Channel channel = null;
+        switch (type) {
+            case LECTURE:
+                if (getNullableInt(rs, "Lecture_Channel_Id") != null) {
+                    Faculty faculty = Faculty.values[rs.getInt("Faculty")];
+                    channel = new Lecture(id, name, description, type, creationDate, modificationDate, term,
+                            locations, dates, contacts, website, faculty, rs.getString("StartDate"), rs.getString
+                            ("EndDate"), rs.getString("Lecturer"), rs.getString("Assistant"));
+                }
+                break;
+            case EVENT:
+                if (getNullableInt(rs, "Event_Channel_Id") != null) {
+                    channel = new Event(id, name, description, type, creationDate, modificationDate, term,
+                            locations, dates, contacts, website, rs.getString("EventCost"), rs.getString
+                            ("Organizer"));
+                }
+                break;
+            case SPORTS:
+                if (getNullableInt(rs, "Sports_Channel_Id") != null) {
+                    channel = new Sports(id, name, description, type, creationDate, modificationDate, term,
+                            locations, dates, contacts, website, rs.getString("SportsCost"), rs.getString
+                            ("NumberOfParticipants"));
+                }
+                break;
+            default:
+                // There is no subclass for channel type OTHER and STUDENT_GROUP, so create channel object.
+                channel = new Channel(id, name, description, type, creationDate, modificationDate, term,
+                        locations, dates, contacts, website);
+        }
+        if (channel == null) {
+            logger.warn("Subclass data of the channel with id {} and type {} is missing.", id, type);
+        }
+        return channel;
+    }
+
     /**
      * Get all channels which are managed by the moderator with the given id. The channel objects contain a list of all
      * their responsible moderators and subscribers.
@@ -1144,107 +1178,110 @@ public class ChannelDatabaseManager extends DatabaseManager {
 
     /**
      * Stores a new announcement in the database. The announcement belongs to the channel with the given id. The
-     * announcement object contains all the data of the announcement, including the channel id.
+     * announcement object contains all the data of the announcement, including the channel id. If a push outbox
+     * entry is given, it is stored within the same transaction, so the push message is sent if and only if the
+     * announcement has been stored.
      *
      * @param announcement The announcement object which contains the data for the new announcement.
-     * @throws MessageNumberAlreadyExistsException If database storage has failed due to a duplicate primary key.
+     * @param pushOutboxEntry The push outbox entry which announces the new announcement. Nullable.
      * @throws DatabaseException If the announcement couldn't be stored due to a database failure.
      */
-    public void storeAnnouncement(Announcement announcement) throws MessageNumberAlreadyExistsException,
+    public void storeAnnouncement(Announcement announcement, PushOutboxEntry pushOutboxEntry) throws
             DatabaseException {
-        logger.debug("Start with announcement:{}.", announcement);
+        logger.debug("Start with announcement:{} and pushOutboxEntry:{}.", announcement, pushOutboxEntry);
         Connection con = null;
-        try {
-            con = getDatabaseConnection();
-
-            // Start transaction.
-            con.setAutoCommit(false);
-
-            String insertMsgQuery =
-                    "INSERT INTO Message (Text, CreationDate, Priority) " +
-                            "VALUES (?,?,?);";
-            String insertAnnouncementQuery =
-                    "INSERT INTO Announcement (MessageNumber, Channel_Id, Title, Author_Moderator_Id, Message_Id) " +
-                            "VALUES (?,?,?,?,?);";
-            String getMessageNumberQuery =
-                    "SELECT MAX(MessageNumber) " +
-                            "FROM Announcement " +
-                            "WHERE Channel_Id=?;";
-
-            PreparedStatement insertMsgStmt = con.prepareStatement(insertMsgQuery);
-            PreparedStatement insertAnnouncementStmt = con.prepareStatement(insertAnnouncementQuery);
-            PreparedStatement getMessageNumberStmt = con.prepareStatement(getMessageNumberQuery);
-
-            // First, insert the message relevant data fields into the Message table.
-            insertMsgStmt.setString(1, announcement.getText());
-            insertMsgStmt.setTimestamp(2, Timestamp.from(announcement.getCreationDate().toInstant()));
-            insertMsgStmt.setInt(3, announcement.getPriority().ordinal());
-            insertMsgStmt.execute();
-
-            // Second, retrieve auto incremented id of the database record for the message.
-            String getIdQuery = "SELECT LAST_INSERT_ID();";
-
-            Statement getIdStmt = con.createStatement();
-            ResultSet getIdRs = getIdStmt.executeQuery(getIdQuery);
-            if (getIdRs.next()) {
-                // Set the id taken from the database to the announcement object.
-                announcement.setId(getIdRs.getInt(1));
-            }
-
-            // Third, retrieve the next message number for the given channel.
-            int messageNumber = 0;
-            getMessageNumberStmt.setInt(1, announcement.getChannelId());
-            ResultSet getMessageNumberRs = getMessageNumberStmt.executeQuery();
-            if (getMessageNumberRs.next()) {
-                messageNumber = getMessageNumberRs.getInt(1);
-            }
-            // Increment to get the next free message number.
-            messageNumber++;
-            // Set the message number in the object.
-            announcement.setMessageNumber(messageNumber);
-
-            // Fourth, insert the conversation message data fields into the ConversationMessage table.
-            insertAnnouncementStmt.setInt(1, messageNumber);
-            insertAnnouncementStmt.setInt(2, announcement.getChannelId());
-            insertAnnouncementStmt.setString(3, announcement.getTitle());
-            insertAnnouncementStmt.setInt(4, announcement.getAuthorModerator());
-            insertAnnouncementStmt.setInt(5, announcement.getId());
-            insertAnnouncementStmt.execute();
-
-            //End transaction.
-            con.commit();
-            logger.info("Stored the announcement with the id {} and the message number {}.",
-                    announcement.getId(), messageNumber);
-
-            insertMsgStmt.close();
-            insertAnnouncementStmt.close();
-            getMessageNumberStmt.close();
-        } catch (SQLException e) {
+        int attempt = 0;
+        boolean retry;
+        do {
+            retry = false;
+            attempt++;
             try {
-                logger.warn("SQLException occurred during announcement storage, need to rollback the transaction.");
-                con.rollback();
-            } catch (SQLException e1) {
-                logger.warn("Rollback failed.");
-                logger.error(Constants.LOG_SQL_EXCEPTION, e1.getSQLState(), e1.getErrorCode(), e1.getMessage());
-            }
+                con = getDatabaseConnection();
+
+                // Start transaction.
+                con.setAutoCommit(false);
+
+                String insertMsgQuery =
+                        "INSERT INTO Message (Text, CreationDate, Priority) " +
+                                "VALUES (?,?,?);";
+                String insertAnnouncementQuery =
+                        "INSERT INTO Announcement (MessageNumber, Channel_Id, Title, Author_Moderator_Id, " +
+                                "Message_Id) " +
+                                "VALUES (?,?,?,?,?);";
+
+                PreparedStatement insertMsgStmt = con.prepareStatement(insertMsgQuery);
+                PreparedStatement insertAnnouncementStmt = con.prepareStatement(insertAnnouncementQuery);
+
+                // First, insert the message relevant data fields into the Message table.
+                insertMsgStmt.setString(1, announcement.getText());
+                insertMsgStmt.setTimestamp(2, Timestamp.from(announcement.getCreationDate().toInstant()));
+                insertMsgStmt.setInt(3, announcement.getPriority().ordinal());
+                insertMsgStmt.execute();
+
+                // Second, retrieve auto incremented id of the database record for the message.
+                String getIdQuery = "SELECT LAST_INSERT_ID();";
+
+                Statement getIdStmt = con.createStatement();
+                ResultSet getIdRs = getIdStmt.executeQuery(getIdQuery);
+                if (getIdRs.next()) {
+                    // Set the id taken from the database to the announcement object.
+                    announcement.setId(getIdRs.getInt(1));
+                }
 
-            // Abort if the execution has failed due to a duplicate primary key.
-            if (e.getErrorCode() == 1062 && e.getMessage().contains("PRIMARY")) {
-                throw new MessageNumberAlreadyExistsException("Message Number already exists.");
-            }
+                // Third, allocate the next message number for the given channel.
+                int messageNumber = allocateMessageNumber(con, "AnnouncementSequence", "Announcement", "Channel_Id",
+                        announcement.getChannelId());
+                // Set the message number in the object.
+                announcement.setMessageNumber(messageNumber);
+
+                // Fourth, insert the conversation message data fields into the ConversationMessage table.
+                insertAnnouncementStmt.setInt(1, messageNumber);
+                insertAnnouncementStmt.setInt(2, announcement.getChannelId());
+                insertAnnouncementStmt.setString(3, announcement.getTitle());
+                insertAnnouncementStmt.setInt(4, announcement.getAuthorModerator());
+                insertAnnouncementStmt.setInt(5, announcement.getId());
+                insertAnnouncementStmt.execute();
+
+                // Fifth, append the push message to the outbox.
+                if (pushOutboxEntry != null) {
+                    storePushOutboxEntry(con, pushOutboxEntry);
+                }
 
-            logger.error(Constants.LOG_SQL_EXCEPTION, e.getSQLState(), e.getErrorCode(), e.getMessage());
-            // Throw back DatabaseException to the Controller.
-            throw new DatabaseException("Database failure.");
-        } finally {
-            try {
-                con.setAutoCommit(true);
+                //End transaction.
+                con.commit();
+                logger.info("Stored the announcement with the id {} and the message number {}.",
+                        announcement.getId(), messageNumber);
+
+                insertMsgStmt.close();
+                insertAnnouncementStmt.close();
             } catch (SQLException e) {
-                logger.warn("Failed to set auto commit back to true.");
+                try {
+                    logger.warn("SQLException occurred during announcement storage, need to rollback the transaction.");
+                    con.rollback();
+                } catch (SQLException e1) {
+                    logger.warn("Rollback failed.");
+                    logger.error(Constants.LOG_SQL_EXCEPTION, e1.getSQLState(), e1.getErrorCode(), e1.getMessage());
+                }
+                if (isDeadlock(e) && attempt < MAX_TRANSACTION_ATTEMPTS) {
+                    // The database has rolled back the transaction. Run it again.
+                    logger.warn("Deadlock during announcement storage. Starting attempt {}.", attempt + 1);
+                    retry = true;
+                    continue;
+                }
+
                 logger.error(Constants.LOG_SQL_EXCEPTION, e.getSQLState(), e.getErrorCode(), e.getMessage());
+                // Throw back DatabaseException to the Controller.
+                throw new DatabaseException("Database failure.");
+            } finally {
+                try {
+                    con.setAutoCommit(true);
+                } catch (SQLException e) {
+                    logger.warn("Failed to set auto commit back to true.");
+                    logger.error(Constants.LOG_SQL_EXCEPTION, e.getSQLState(), e.getErrorCode(), e.getMessage());
+                }
+                returnConnection(con);
             }
-            returnConnection(con);
-        }
+        } while (retry);
         logger.debug("End.");
     }
 
@@ -1298,17 +1335,72 @@ public class ChannelDatabaseManager extends DatabaseManager {
     }
 
     /**
-     * Returns the announcements which are identified by the channel id and a starting message number.
+     * Returns the version of the announcements which would be returned by getAnnouncements for the same parameters. The
+     * version consists of the number of announcements and the highest message number in the paged direction, so it
+     * changes whenever an announcement of the page is deleted or a new one is added. The announcements themselves
+     * aren't loaded.
      *
      * @param channelId The channel id to which the announcements belong.
-     * @param messageNumber The starting message number. All announcements of the channel which have a higher message
-     * number than the one defined in this parameter are returned.
-     * @return The announcements with a higher message number than the given one.
+     * @param messageNumber The message number at which the page starts.
+     * @param direction The direction in which the announcements are paged.
+     * @return The version of the announcements or null if the channel doesn't exist.
      * @throws DatabaseException If the retrieval fails due to a database failure.
      */
-    public List<Announcement> getAnnouncements(int channelId, int messageNumber) throws
+    public ResourceVersion getAnnouncementsVersion(int channelId, int messageNumber, SortDirection direction) throws
             DatabaseException {
-        logger.debug("Start with channelId:{} and messageNumber:{}.", channelId, messageNumber);
+        logger.debug("Start with channelId:{}, messageNumber:{} and direction:{}.", channelId, messageNumber,
+                direction);
+        ResourceVersion version = null;
+        Connection con = null;
+        try {
+            con = getDatabaseConnection();
+            // The channel is joined, so a channel without announcements can be distinguished from a missing channel.
+            String query =
+                    "SELECT COUNT(a.Message_Id) AS Count, MAX(a.MessageNumber) AS LastMessageNumber " +
+                            "FROM Channel AS c LEFT JOIN Announcement AS a " +
+                            "ON c.Id=a.Channel_Id AND " + getPageCondition("a.MessageNumber", direction) + " " +
+                            "WHERE c.Id=? GROUP BY c.Id;";
+
+            PreparedStatement getVersionStmt = con.prepareStatement(query);
+            getVersionStmt.setInt(1, getPageBound(messageNumber, direction));
+            getVersionStmt.setInt(2, channelId);
+
+            ResultSet getVersionRs = getVersionStmt.executeQuery();
+            if (getVersionRs.next()) {
+                version = new ResourceVersion(getVersionRs.getInt("Count"), null, getNullableInt(getVersionRs,
+                        "LastMessageNumber"));
+            }
+            getVersionStmt.close();
+        } catch (SQLException e) {
+            logger.error(Constants.LOG_SQL_EXCEPTION, e.getSQLState(), e.getErrorCode(), e.getMessage());
+            // Throw back DatabaseException to the Controller.
+            throw new DatabaseException("Database failure.");
+        } finally {
+            returnConnection(con);
+        }
+        logger.debug("End with version:{}.", version);
+        return version;
+    }
+
+    /**
+     * Returns a page of the announcements which are identified by the channel id and a starting message number. The
+     * page is selected by the message number, so the query uses the key of the announcements regardless of the
+     * number of announcements in the channel.
+     *
+     * @param channelId The channel id to which the announcements belong.
+     * @param messageNumber The starting message number. In ascending direction, the announcements of the channel
+     * which have a higher message number than the one defined in this parameter are returned. In descending direction,
+     * the announcements which have a lower message number are returned, starting at the latest one if the message
+     * number is zero.
+     * @param limit The maximum number of announcements.
+     * @param direction The direction in which the announcements are paged.
+     * @return The announcements of the page ordered in the given direction.
+     * @throws DatabaseException If the retrieval fails due to a database failure.
+     */
+    public List<Announcement> getAnnouncements(int channelId, int messageNumber, int limit, SortDirection direction)
+            throws DatabaseException {
+        logger.debug("Start with channelId:{}, messageNumber:{}, limit:{} and direction:{}.", channelId,
+                messageNumber, limit, direction);
         List<Announcement> announcements = new ArrayList<Announcement>();
         Connection con = null;
         try {
@@ -1316,26 +1408,17 @@ public class ChannelDatabaseManager extends DatabaseManager {
             String query =
                     "SELECT * " +
                             "FROM Message AS m JOIN Announcement AS a ON m.Id=a.Message_Id " +
-                            "WHERE a.Channel_Id=? AND a.MessageNumber>?;";
+                            "WHERE a.Channel_Id=? AND " + getPageCondition("a.MessageNumber", direction) +
+                            getPageOrder("a.MessageNumber", direction) + ";";
 
             PreparedStatement getAnnouncementsStmt = con.prepareStatement(query);
             getAnnouncementsStmt.setInt(1, channelId);
-            getAnnouncementsStmt.setInt(2, messageNumber);
+            getAnnouncementsStmt.setInt(2, getPageBound(messageNumber, direction));
+            getAnnouncementsStmt.setInt(3, limit);
 
             ResultSet getAnnouncementsRs = getAnnouncementsStmt.executeQuery();
             while (getAnnouncementsRs.next()) {
-                int messageId = getAnnouncementsRs.getInt("Id");
-                String text = getAnnouncementsRs.getString("Text");
-                ZonedDateTime creationDate = getAnnouncementsRs.getTimestamp("CreationDate").toLocalDateTime().atZone
-                        (Constants.TIME_ZONE);
-                Priority priority = Priority.values[getAnnouncementsRs.getInt("Priority")];
-                int authorId = getAnnouncementsRs.getInt("Author_Moderator_Id");
-                String title = getAnnouncementsRs.getString("Title");
-                int messageNumberDB = getAnnouncementsRs.getInt("MessageNumber");
-
-                Announcement announcement = new Announcement(messageId, text, messageNumberDB, creationDate, priority,
-                        channelId, authorId, title);
-                announcements.add(announcement);
+                announcements.add(createAnnouncement(getAnnouncementsRs, channelId));
             }
             getAnnouncementsStmt.close();
         } catch (SQLException e) {
@@ -1349,6 +1432,84 @@ public class ChannelDatabaseManager extends DatabaseManager {
         return announcements;
     }
 
+    /**
+     * Returns the announcements of several channels in one go. For each channel, at most the given number of
+     * announcements which have a higher message number than the given one are returned. The subqueries of the
+     * channels are combined into as few queries as possible. Channels which don't exist are ignored.
+     *
+     * @param messageNumbers The starting message numbers mapped by the channel id. A missing number counts as zero.
+     * @param limit The maximum number of announcements per channel.
+     * @return The announcements of all given channels ordered by channel and message number. The list can be empty.
+     * @throws DatabaseException If the retrieval fails due to a database failure.
+     */
+    public List<Announcement> getAnnouncements(Map<Integer, Integer> messageNumbers, int limit) throws
+            DatabaseException {
+        logger.debug("Start with messageNumbers:{} and limit:{}.", messageNumbers, limit);
+        List<Announcement> announcements = new ArrayList<Announcement>();
+        List<Map.Entry<Integer, Integer>> entries = new ArrayList<Map.Entry<Integer, Integer>>(messageNumbers
+                .entrySet());
+        Connection con = null;
+        try {
+            con = getDatabaseConnection();
+            for (int from = 0; from < entries.size(); from += MAX_BATCH_CONDITIONS) {
+                List<Map.Entry<Integer, Integer>> batch = entries.subList(from, Math.min(from +
+                        MAX_BATCH_CONDITIONS, entries.size()));
+                // One limited subquery per channel, so a channel with many announcements doesn't crowd out others.
+                StringBuilder query = new StringBuilder();
+                for (int i = 0; i < batch.size(); i++) {
+                    query.append(i == 0 ? "" : " UNION ALL ").append(
+                            "(SELECT * " +
+                                    "FROM Message AS m JOIN Announcement AS a ON m.Id=a.Message_Id " +
+                                    "WHERE a.Channel_Id=? AND a.MessageNumber>? " +
+                                    "ORDER BY a.MessageNumber " +
+                                    "LIMIT ?)");
+                }
+                query.append(" ORDER BY Channel_Id, MessageNumber;");
+
+                PreparedStatement getAnnouncementsStmt = con.prepareStatement(query.toString());
+                int parameterIndex = 1;
+                for (Map.Entry<Integer, Integer> entry : batch) {
+                    getAnnouncementsStmt.setInt(parameterIndex++, entry.getKey());
+                    getAnnouncementsStmt.setInt(parameterIndex++, entry.getValue() != null ? entry.getValue() : 0);
+                    getAnnouncementsStmt.setInt(parameterIndex++, limit);
+                }
+
+                ResultSet getAnnouncementsRs = getAnnouncementsStmt.executeQuery();
+                while (getAnnouncementsRs.next()) {
+                    announcements.add(createAnnouncement(getAnnouncementsRs, getAnnouncementsRs.getInt("Channel_Id")));
+                }
+                getAnnouncementsStmt.close();
+            }
+        } catch (SQLException e) {
+            logger.error(Constants.LOG_SQL_EXCEPTION, e.getSQLState(), e.getErrorCode(), e.getMessage());
+            // Throw back DatabaseException to the Controller.
+            throw new DatabaseException("Database failure.");
+        } finally {
+            returnConnection(con);
+        }
+        logger.debug("End with announcements:{}.", announcements);
+        return announcements;
+    }
+
+    /**
+     * Creates an announcement from the current row of the given result set.
+     *
+     * @param rs The result set which contains the message and announcement columns.
+     * @param channelId The id of the channel to which the announcement belongs.
+     * @return The announcement.
+     * @throws SQLException If the data couldn't be read from the result set.
+     */
+    private Announcement createAnnouncement(ResultSet rs, int channelId) throws SQLException {
+        int messageId = rs.getInt("Id");
+        String text = rs.getString("Text");
+        ZonedDateTime creationDate = rs.getTimestamp("CreationDate").toLocalDateTime().atZone(Constants.TIME_ZONE);
+        Priority priority = Priority.values[rs.getInt("Priority")];
+        int authorId = rs.getInt("Author_Moderator_Id");
+        String title = rs.getString("Title");
+        int messageNumber = rs.getInt("MessageNumber");
+        return new Announcement(messageId, text, messageNumber, creationDate, priority, channelId, authorId, title);
+    }
+
     /**
      * Deletes the message (and announcement) with the given message id from the database.
      *
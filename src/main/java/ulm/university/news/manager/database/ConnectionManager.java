@@ -0,0 +1,110 @@
+package ulm.university.news.manager.database;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.naming.Context;
+import javax.naming.InitialContext;
+import javax.naming.NamingException;
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * The ConnectionManager class is a Singleton class which holds the DataSource of the JDBC Connection Pool. The
+ * DataSource is resolved via JNDI only once, usually on web app startup, and is then shared by all database managers.
+ * A different DataSource, e.g. an embedded database, can be set instead of the JNDI resource.
+ *
+ * @author Matthias Mak
+ * @author Philipp Speidel
+ */
+public class ConnectionManager {
+
+    /** The logger instance for ConnectionManager. */
+    private static final Logger logger = LoggerFactory.getLogger(ConnectionManager.class);
+
+    /** The JNDI name of the environment context. */
+    private static final String ENVIRONMENT_CONTEXT = "java:comp/env";
+
+    /** The name of the JDBC Connection Pool resource which should be accessed. */
+    private static final String RESOURCE_NAME = "jdbc/UniversityNewsDB";
+
+    /** Reference for the ConnectionManager Singleton class. */
+    private static ConnectionManager _instance;
+
+    /** The DataSource which provides the database connections. */
+    private volatile DataSource dataSource;
+
+    /**
+     * Creates an instance of the ConnectionManager class.
+     */
+    public ConnectionManager() {
+    }
+
+    /**
+     * Get an instance of the ConnectionManager class.
+     *
+     * @return Instance of ConnectionManager.
+     */
+    public static synchronized ConnectionManager getInstance() {
+        if (_instance == null) {
+            _instance = new ConnectionManager();
+        }
+        return _instance;
+    }
+
+    /**
+     * Resolves the DataSource of the JDBC Connection Pool via JNDI if no DataSource has been set so far.
+     *
+     * @throws SQLException If the JNDI lookup of the DataSource has failed.
+     */
+    public synchronized void initialize() throws SQLException {
+        if (dataSource != null) {
+            return;
+        }
+        try {
+            Context initialContext = new InitialContext();
+            Context environmentContext = (Context) initialContext.lookup(ENVIRONMENT_CONTEXT);
+            dataSource = (DataSource) environmentContext.lookup(RESOURCE_NAME);
+            logger.info("Resolved DataSource {} via JNDI.", RESOURCE_NAME);
+        } catch (NamingException e) {
+            // If exception occurs in this critical area, StackTrace will be logged.
+            logger.error("NamingException occurred during JNDI lookup. No DB connection could be enabled.", e);
+            throw new SQLException("Naming Exception occurred during the JNDI lookup.", e);
+        }
+    }
+
+    /**
+     * Sets the DataSource which should be used to retrieve database connections. This replaces the DataSource of the
+     * JNDI resource, e.g. to use an embedded database for testing.
+     *
+     * @param dataSource The DataSource which provides the database connections.
+     */
+    public synchronized void setDataSource(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    /**
+     * Releases the reference to the current DataSource. The DataSource will be resolved again on the next request.
+     */
+    public synchronized void reset() {
+        dataSource = null;
+    }
+
+    /**
+     * Retrieves a Connection from the DataSource and returns it. Resolves the DataSource first if this hasn't been
+     * done yet.
+     *
+     * @return A connection to the database.
+     * @throws SQLException If no connection could be retrieved.
+     */
+    public Connection getConnection() throws SQLException {
+        DataSource ds = dataSource;
+        if (ds == null) {
+            initialize();
+            ds = dataSource;
+        }
+        //Request a connection from the pool.
+        return ds.getConnection();
+    }
+}
@@ -2,14 +2,12 @@ package ulm.university.news.manager.database;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import ulm.university.news.data.PushOutboxEntry;
+import ulm.university.news.data.enums.SortDirection;
 import ulm.university.news.util.Constants;
 
-import javax.naming.Context;
-import javax.naming.InitialContext;
-import javax.naming.NamingException;
-import javax.sql.DataSource;
-import java.sql.Connection;
-import java.sql.SQLException;
+import java.sql.*;
+import java.time.ZonedDateTime;
 
 /**
  * The DatabaseManager class provides basic functionality to retrieve an open connection to the database from
@@ -25,6 +23,12 @@ public class DatabaseManager {
      */
     private static final Logger logger = LoggerFactory.getLogger(DatabaseManager.class);
 
+    /** The maximum number of conditions which are combined in the WHERE clause of one batched query. */
+    protected static final int MAX_BATCH_CONDITIONS = 100;
+
+    /** The maximum number of attempts of a transaction which has been rolled back due to a deadlock. */
+    protected static final int MAX_TRANSACTION_ATTEMPTS = 3;
+
     /**
      * Retrieves a Connection from the JDBC Connection Pool and returns it.
      *
@@ -33,18 +37,8 @@ public class DatabaseManager {
     protected Connection getDatabaseConnection() throws SQLException {
         Connection con = null;
         try {
-            String resourceName = "jdbc/UniversityNewsDB";  //Name of the resource which should be accessed.
-
-            Context initialContext = new InitialContext();
-            Context environmentContext = (Context) initialContext.lookup("java:comp/env");
-            DataSource dataSource = (DataSource) environmentContext.lookup(resourceName);
-
-            //Request a connection from the pool.
-            con = dataSource.getConnection();
-        } catch (NamingException e) {
-            // If exception occurs in this critical area, StackTrace will be logged.
-            logger.error("NamingException occurred during JNDI lookup. No DB connection could be enabled.", e);
-            throw new SQLException("Naming Exception occurred during the JNDI lookup.", e);
+            // The DataSource is resolved only once and then shared by all database managers.
+            con = ConnectionManager.getInstance().getConnection();
         } catch (SQLException e) {
             // If exception occurs in this critical area, StackTrace will be logged.
             logger.error("SQLException occurred", e);
@@ -75,4 +69,192 @@ public class DatabaseManager {
         con = null; //Prevent any future access.
     }
 
+    /**
+     * Appends the given entry to the push outbox. The entry is stored using the given connection, so it becomes part
+     * of the transaction which is currently running on this connection. The creation date of the entry is set.
+     *
+     * @param con The connection on which the transaction is running.
+     * @param entry The push outbox entry which should be stored.
+     * @throws SQLException If the entry couldn't be stored.
+     */
+    protected void storePushOutboxEntry(Connection con, PushOutboxEntry entry) throws SQLException {
+        String storeEntryQuery =
+                "INSERT INTO PushOutbox (PushType, Channel_Id, Group_Id, Excluded_User_Id, Id1, Id2, Id3, " +
+                        "CreationDate, Attempts) " +
+                        "VALUES (?,?,?,?,?,?,?,?,?);";
+
+        entry.setCreationDate(ZonedDateTime.now(Constants.TIME_ZONE));
+        PreparedStatement storeEntryStmt = con.prepareStatement(storeEntryQuery);
+        storeEntryStmt.setInt(1, entry.getPushType().ordinal());
+        setNullableInt(storeEntryStmt, 2, entry.getChannelId());
+        setNullableInt(storeEntryStmt, 3, entry.getGroupId());
+        setNullableInt(storeEntryStmt, 4, entry.getExcludedUserId());
+        setNullableInt(storeEntryStmt, 5, entry.getId1());
+        setNullableInt(storeEntryStmt, 6, entry.getId2());
+        setNullableInt(storeEntryStmt, 7, entry.getId3());
+        storeEntryStmt.setTimestamp(8, Timestamp.from(entry.getCreationDate().toInstant()));
+        storeEntryStmt.setInt(9, 0);
+        storeEntryStmt.execute();
+        storeEntryStmt.close();
+        logger.debug("Appended entry to push outbox:{}.", entry);
+    }
+
+    /**
+     * Allocates the next message number for a channel or a conversation. The last allocated message number is kept
+     * in a counter row per channel or conversation which is incremented atomically. The row stays locked until the
+     * running transaction ends, so concurrent transactions get consecutive numbers without retries. A missing counter
+     * row is initialized with the highest message number which has already been stored. Concurrent initializations
+     * of the same counter row can deadlock, so callers have to run their transaction again if isDeadlock() applies to
+     * the thrown exception. The counters are stored in the following tables:
+     * <pre>
+     * CREATE TABLE AnnouncementSequence (
+     *   Channel_Id INT NOT NULL,
+     *   LastMessageNumber INT NOT NULL,
+     *   PRIMARY KEY (Channel_Id),
+     *   FOREIGN KEY (Channel_Id) REFERENCES Channel (Id) ON DELETE CASCADE);
+     * CREATE TABLE ConversationMessageSequence (
+     *   Conversation_Id INT NOT NULL,
+     *   LastMessageNumber INT NOT NULL,
+     *   PRIMARY KEY (Conversation_Id),
+     *   FOREIGN KEY (Conversation_Id) REFERENCES Conversation (Id) ON DELETE CASCADE);
+     * </pre>
+     *
+     * @param con The connection on which the transaction is running.
+     * @param sequenceTable The table which holds the counter rows, e.g. AnnouncementSequence.
+     * @param messageTable The table which holds the messages, e.g. Announcement.
+     * @param keyColumn The column which identifies the channel or conversation in both tables, e.g. Channel_Id.
+     * @param key The id of the channel or conversation.
+     * @return The allocated message number.
+     * @throws SQLException If the message number couldn't be allocated.
+     */
+    protected int allocateMessageNumber(Connection con, String sequenceTable, String messageTable, String keyColumn,
+                                        int key) throws SQLException {
+        String incrementQuery =
+                "UPDATE " + sequenceTable + " " +
+                        "SET LastMessageNumber=LAST_INSERT_ID(LastMessageNumber+1) " +
+                        "WHERE " + keyColumn + "=?;";
+        String initializeQuery =
+                "INSERT INTO " + sequenceTable + " (" + keyColumn + ", LastMessageNumber) " +
+                        "SELECT ?, COALESCE(MAX(MessageNumber), 0) " +
+                        "FROM " + messageTable + " " +
+                        "WHERE " + keyColumn + "=? " +
+                        "ON DUPLICATE KEY UPDATE LastMessageNumber=LastMessageNumber;";
+
+        PreparedStatement incrementStmt = con.prepareStatement(incrementQuery);
+        incrementStmt.setInt(1, key);
+        int rowsAffected = incrementStmt.executeUpdate();
+        if (rowsAffected == 0) {
+            // First message since the counters have been introduced. Initialize the counter row and try again.
+            PreparedStatement initializeStmt = con.prepareStatement(initializeQuery);
+            initializeStmt.setInt(1, key);
+            initializeStmt.setInt(2, key);
+            initializeStmt.executeUpdate();
+            initializeStmt.close();
+            rowsAffected = incrementStmt.executeUpdate();
+        }
+        incrementStmt.close();
+        if (rowsAffected == 0) {
+            throw new SQLException("Failed to allocate a message number in " + sequenceTable + " for id " + key + ".");
+        }
+
+        // LAST_INSERT_ID() returns the incremented value for this connection only.
+        int messageNumber;
+        Statement getMessageNumberStmt = con.createStatement();
+        ResultSet getMessageNumberRs = getMessageNumberStmt.executeQuery("SELECT LAST_INSERT_ID();");
+        getMessageNumberRs.next();
+        messageNumber = getMessageNumberRs.getInt(1);
+        getMessageNumberStmt.close();
+        return messageNumber;
+    }
+
+    /**
+     * Checks whether the given exception has been caused by a deadlock which made the database
+     * roll back the transaction. Such a transaction can be run again.
+     *
+     * @param e The exception.
+     * @return true if the transaction has been rolled back due to a deadlock.
+     */
+    protected boolean isDeadlock(SQLException e) {
+        return "40001".equals(e.getSQLState()) || e.getErrorCode() == 1213;
+    }
+
+    /**
+     * Sets the given integer value or SQL NULL as parameter of the given statement.
+     *
+     * @param stmt The statement.
+     * @param parameterIndex The index of the parameter.
+     * @param value The value of the parameter. Nullable.
+     * @throws SQLException If the parameter couldn't be set.
+     */
+    protected void setNullableInt(PreparedStatement stmt, int parameterIndex, Integer value) throws SQLException {
+        if (value == null) {
+            stmt.setNull(parameterIndex, Types.INTEGER);
+        } else {
+            stmt.setInt(parameterIndex, value);
+        }
+    }
+
+    /**
+     * Reads the integer value of the given column from the current row of the given result set.
+     *
+     * @param rs The result set.
+     * @param columnLabel The name of the column.
+     * @return The value or null if the column contains SQL NULL.
+     * @throws SQLException If the value couldn't be read.
+     */
+    protected Integer getNullableInt(ResultSet rs, String columnLabel) throws SQLException {
+        int value = rs.getInt(columnLabel);
+        return rs.wasNull() ? null : value;
+    }
+
+    /**
+     * Reads the date of the given column from the current row of the given result set.
+     *
+     * @param rs The result set.
+     * @param columnLabel The name of the column.
+     * @return The date in the time zone of the server or null if the column contains SQL NULL.
+     * @throws SQLException If the value couldn't be read.
+     */
+    protected ZonedDateTime getNullableDate(ResultSet rs, String columnLabel) throws SQLException {
+        Timestamp value = rs.getTimestamp(columnLabel);
+        return value == null ? null : value.toLocalDateTime().atZone(Constants.TIME_ZONE);
+    }
+
+    /**
+     * Creates the condition on the message number column which selects the messages of a page. The condition has
+     * one parameter which has to be set to the value returned by getPageBound.
+     *
+     * @param column The message number column.
+     * @param direction The direction in which the messages are paged.
+     * @return The condition for the WHERE clause.
+     */
+    protected String getPageCondition(String column, SortDirection direction) {
+        return column + (direction == SortDirection.DESC ? "<?" : ">?");
+    }
+
+    /**
+     * Returns the parameter of the condition created by getPageCondition. In ascending direction a page starts after
+     * the given message number. In descending direction a page starts before the given message number or at the
+     * latest message if the message number is zero.
+     *
+     * @param messageNumber The message number at which the page starts.
+     * @param direction The direction in which the messages are paged.
+     * @return The parameter of the page condition.
+     */
+    protected int getPageBound(int messageNumber, SortDirection direction) {
+        return direction == SortDirection.DESC && messageNumber <= 0 ? Integer.MAX_VALUE : messageNumber;
+    }
+
+    /**
+     * Creates the ORDER BY and LIMIT clauses which sort the messages of a page by their message number. The clauses
+     * have one parameter for the maximum number of messages.
+     *
+     * @param column The message number column.
+     * @param direction The direction in which the messages are paged.
+     * @return The ORDER BY and LIMIT clauses.
+     */
+    protected String getPageOrder(String column, SortDirection direction) {
+        return " ORDER BY " + column + (direction == SortDirection.DESC ? " DESC" : " ASC") + " LIMIT ?";
+    }
+
 }
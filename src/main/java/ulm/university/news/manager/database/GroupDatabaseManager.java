@@ -6,14 +6,16 @@ import ulm.university.news.data.*;
 import ulm.university.news.data.enums.GroupType;
 import ulm.university.news.data.enums.Platform;
 import ulm.university.news.data.enums.Priority;
+import ulm.university.news.data.enums.SortDirection;
 import ulm.university.news.util.Constants;
 import ulm.university.news.util.exceptions.DatabaseException;
-import ulm.university.news.util.exceptions.MessageNumberAlreadyExistsException;
 
 import java.sql.*;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * The GroupDatabaseManager provides methods to access, insert or update data in the database related to Group
@@ -293,47 +295,8 @@ public class GroupDatabaseManager extends DatabaseManager {
 
             // Check if list of participants should be set for this group.
             if (group != null && withParticipants) {
-                List<User> participants = new ArrayList<User>();
-                String getUserIdsQuery =
-                        "SELECT * " +
-                                "FROM UserGroup " +
-                                "WHERE Group_Id=?;";
-                String getUserQuery =
-                        "SELECT * " +
-                                "FROM User " +
-                                "WHERE Id=?;";
-
-                PreparedStatement getUserIdsStmt = con.prepareStatement(getUserIdsQuery);
-                getUserIdsStmt.setInt(1, group.getId());
-
-                PreparedStatement getUserStmt = con.prepareStatement(getUserQuery);
-
-                // First, request the ids of the users which are participants of the group.
-                ResultSet getUserIdsRs = getUserIdsStmt.executeQuery();
-                while (getUserIdsRs.next()) {
-                    int userId = getUserIdsRs.getInt("User_Id");
-                    boolean active = getUserIdsRs.getBoolean("Active");
-
-                    // Now request the user identified by this id.
-                    getUserStmt.setInt(1, userId);
-                    ResultSet getUserRs = getUserStmt.executeQuery();
-                    if (getUserRs.next()) {
-                        String username = getUserRs.getString("Name");
-                        String pushAccessToken = getUserRs.getString("PushAccessToken");
-                        Platform platform = Platform.values[getUserRs.getInt("Platform")];
-
-                        // The ServerAccessToken is never returned, it is set to null.
-                        User tmp = new User(userId, username, null, pushAccessToken, platform, active);
-                        if (active){
-                            participants.add(tmp);
-                        }
-                    }
-                }
-                getUserStmt.close();
-                getUserIdsStmt.close();
-
-                // Finally, set the participants list in the group object.
-                group.setParticipants(participants);
+                // Only the active participants are set.
+                group.setParticipants(getParticipants(con, group.getId(), true));
                 logger.info("Added list of participants to the group object of the group with id: {}.", group.getId());
             }
             getGroupStmt.close();
@@ -590,44 +553,94 @@ public class GroupDatabaseManager extends DatabaseManager {
      */
     public List<User> getParticipants(int groupId) throws DatabaseException {
         logger.debug("Start with groupId:{}.", groupId);
-        List<User> users = new ArrayList<User>();
+        List<User> users;
         Connection con = null;
         try {
             con = getDatabaseConnection();
-            String getUserIdsQuery =
-                    "SELECT User_Id, Active " +
-                            "FROM UserGroup " +
-                            "WHERE Group_Id=?;";
-            String getUserQuery =
-                    "SELECT * " +
-                            "FROM User " +
-                            "WHERE Id=?;";
+            users = getParticipants(con, groupId, false);
+        } catch (SQLException e) {
+            logger.error(Constants.LOG_SQL_EXCEPTION, e.getSQLState(), e.getErrorCode(), e.getMessage());
+            // Throw back DatabaseException to the Controller.
+            throw new DatabaseException("Database failure.");
+        } finally {
+            returnConnection(con);
+        }
+        logger.debug("End with users:{}.", users);
+        return users;
+    }
 
-            PreparedStatement getUserIdsStmt = con.prepareStatement(getUserIdsQuery);
-            PreparedStatement getUserStmt = con.prepareStatement(getUserQuery);
-
-            // First request the ids of the users which are a participant of the group.
-            getUserIdsStmt.setInt(1, groupId);
-            ResultSet getUserIdsRs = getUserIdsStmt.executeQuery();
-            while (getUserIdsRs.next()) {
-                int userId = getUserIdsRs.getInt("User_Id");
-                boolean active = getUserIdsRs.getBoolean("Active");
-
-                // Request the user data for the user with this id.
-                getUserStmt.setInt(1, userId);
-                ResultSet getUserRs = getUserStmt.executeQuery();
-                if (getUserRs.next()) {
-                    String name = getUserRs.getString("Name");
-                    String pushAccessToken = getUserRs.getString("PushAccessToken");
-                    Platform platform = Platform.values[getUserRs.getInt("Platform")];
-
-                    // The server access token is not returned, it is set to null.
-                    User tmp = new User(userId, name, null, pushAccessToken, platform, active);
-                    users.add(tmp);
-                }
+    /**
+     * Returns a list of users who are participants of the group with the specified id. The users are loaded
+     * together with their participation status in a single query.
+     *
+     * @param con The connection which is used for the query.
+     * @param groupId The id of the group.
+     * @param activeOnly Indicates whether only active participants should be returned.
+     * @return Returns a list of users. The list can also be empty.
+     * @throws SQLException If the query has failed.
+     */
+    private List<User> getParticipants(Connection con, int groupId, boolean activeOnly) throws SQLException {
+        List<User> users = new ArrayList<User>();
+        String getParticipantsQuery =
+                "SELECT u.Id, u.Name, u.PushAccessToken, u.Platform, ug.Active " +
+                        "FROM UserGroup AS ug INNER JOIN User AS u ON ug.User_Id=u.Id " +
+                        "WHERE ug.Group_Id=?" + (activeOnly ? " AND ug.Active=?;" : ";");
+
+        PreparedStatement getParticipantsStmt = con.prepareStatement(getParticipantsQuery);
+        getParticipantsStmt.setInt(1, groupId);
+        if (activeOnly) {
+            getParticipantsStmt.setBoolean(2, true);
+        }
+        ResultSet getParticipantsRs = getParticipantsStmt.executeQuery();
+        while (getParticipantsRs.next()) {
+            int userId = getParticipantsRs.getInt("Id");
+            String name = getParticipantsRs.getString("Name");
+            String pushAccessToken = getParticipantsRs.getString("PushAccessToken");
+            Platform platform = Platform.values[getParticipantsRs.getInt("Platform")];
+            boolean active = getParticipantsRs.getBoolean("Active");
+
+            // The server access token is not returned, it is set to null.
+            users.add(new User(userId, name, null, pushAccessToken, platform, active));
+        }
+        getParticipantsStmt.close();
+        return users;
+    }
+
+    /**
+     * Returns the active participants of the group with the specified id who should receive a push message. Only the
+     * data which is required for the delivery of push messages is loaded, i.e. the user objects contain only the id,
+     * the push access token and the platform.
+     *
+     * @param groupId The id of the group.
+     * @param excludedUserId The id of a user who shouldn't be returned, e.g. the author of a message. Nullable.
+     * @return Returns a list of users. The list can also be empty.
+     * @throws DatabaseException If the execution fails due to database failure.
+     */
+    public List<User> getPushRecipients(int groupId, Integer excludedUserId) throws DatabaseException {
+        logger.debug("Start with groupId:{} and excludedUserId:{}.", groupId, excludedUserId);
+        List<User> users = new ArrayList<User>();
+        Connection con = null;
+        try {
+            con = getDatabaseConnection();
+            String getRecipientsQuery =
+                    "SELECT u.Id, u.PushAccessToken, u.Platform " +
+                            "FROM UserGroup AS ug INNER JOIN User AS u ON ug.User_Id=u.Id " +
+                            "WHERE ug.Group_Id=? AND ug.Active=? AND u.Id<>?;";
+
+            PreparedStatement getRecipientsStmt = con.prepareStatement(getRecipientsQuery);
+            getRecipientsStmt.setInt(1, groupId);
+            getRecipientsStmt.setBoolean(2, true);
+            // User ids are positive, so no user is excluded if there is no excluded user.
+            getRecipientsStmt.setInt(3, excludedUserId != null ? excludedUserId : 0);
+            ResultSet getRecipientsRs = getRecipientsStmt.executeQuery();
+            while (getRecipientsRs.next()) {
+                User user = new User();
+                user.setId(getRecipientsRs.getInt("Id"));
+                user.setPushAccessToken(getRecipientsRs.getString("PushAccessToken"));
+                user.setPlatform(Platform.values[getRecipientsRs.getInt("Platform")]);
+                users.add(user);
             }
-            getUserIdsStmt.close();
-            getUserStmt.close();
+            getRecipientsStmt.close();
         } catch (SQLException e) {
             logger.error(Constants.LOG_SQL_EXCEPTION, e.getSQLState(), e.getErrorCode(), e.getMessage());
             // Throw back DatabaseException to the Controller.
@@ -757,81 +770,26 @@ public class GroupDatabaseManager extends DatabaseManager {
                     "SELECT *" +
                             "FROM Ballot " +
                             "WHERE Group_Id=? AND Id=?;";
-            String getBallotOptionsQuery =
-                    "SELECT * " +
-                            "FROM `Option` " +
-                            "WHERE Ballot_Id=?;";
-            String getUserIdsQuery =
-                    "SELECT User_Id " +
-                            "FROM UserOption " +
-                            "WHERE Option_Id=?;";
 
             PreparedStatement getBallotStmt = con.prepareStatement(getBallotQuery);
             getBallotStmt.setInt(1, groupId);
             getBallotStmt.setInt(2, ballotId);
 
-            // If the sub-resources should be contained, prepare the statements here.
-            PreparedStatement getBallotOptionsStmt = null;
-            PreparedStatement getBallotOptionVotersStmt = null;
-            if (withSubresources) {
-                logger.info("Including the sub-resources into the ballots of group with id {}.", groupId);
-                getBallotOptionsStmt = con.prepareStatement(getBallotOptionsQuery);
-                getBallotOptionVotersStmt = con.prepareStatement(getUserIdsQuery);
-            }
-
             // Request the ballots for the given group.
             ResultSet getBallotsRs = getBallotStmt.executeQuery();
             if (getBallotsRs.first()) {
-                int id = getBallotsRs.getInt("Id");
-                String title = getBallotsRs.getString("Title");
-                String description = getBallotsRs.getString("Description");
-                Boolean multipleChoice = getBallotsRs.getBoolean("MultipleChoice");
-                Boolean publicVotes = getBallotsRs.getBoolean("Public");
-                Boolean closed = getBallotsRs.getBoolean("Closed");
-                int ballotAdmin = getBallotsRs.getInt("BallotAdmin_User_Id");
-
-                ballot = new Ballot(id, title, description, ballotAdmin, closed, multipleChoice, publicVotes);
+                ballot = createBallot(getBallotsRs);
 
                 // Request the sub-resources options and voters if required.
                 if (withSubresources) {
-                    List<Option> ballotOptions = new ArrayList<>();
-                    // Request all options for the ballot.
-                    getBallotOptionsStmt.setInt(1, ballot.getId());
-                    ResultSet getBallotOptionsRs = getBallotOptionsStmt.executeQuery();
-                    while (getBallotOptionsRs.next()) {
-                        int optionId = getBallotOptionsRs.getInt("Id");
-                        String text = getBallotOptionsRs.getString("Text");
-
-                        Option optionTmp = new Option(optionId, text);
-
-                        // Request the ids of the users who have voted for this particular option.
-                        List<Integer> voters = new ArrayList<>();
-                        getBallotOptionVotersStmt.setInt(1, optionId);
-                        ResultSet getBallotOptionVotersRs = getBallotOptionVotersStmt.executeQuery();
-                        while (getBallotOptionVotersRs.next()) {
-                            int userId = getBallotOptionVotersRs.getInt("User_Id");
-
-                            // Add the id of the user to the voters list.
-                            voters.add(userId);
-                        }
-
-                        // Add the list of voters to the Option object.
-                        optionTmp.setVoters(voters);
-
-                        // Add the option object to the list of ballot options.
-                        ballotOptions.add(optionTmp);
-                    }
-
-                    // Add the list of options to the ballot object.
-                    ballot.setOptions(ballotOptions);
+                    logger.info("Including the sub-resources into the ballot with id {}.", ballotId);
+                    Map<Integer, Ballot> ballotsById = new HashMap<Integer, Ballot>();
+                    ballotsById.put(ballot.getId(), ballot);
+                    setOptionsWithVoters(con, groupId, ballotId, ballotsById);
                 }
             }
 
             getBallotStmt.close();
-            if (getBallotOptionsStmt != null && getBallotOptionVotersStmt != null) {
-                getBallotOptionsStmt.close();
-                getBallotOptionVotersStmt.close();
-            }
         } catch (SQLException e) {
             logger.error(Constants.LOG_SQL_EXCEPTION, e.getSQLState(), e.getErrorCode(), e.getMessage());
             // Throw back DatabaseException to the Controller.
@@ -864,82 +822,26 @@ public class GroupDatabaseManager extends DatabaseManager {
                     "SELECT *" +
                             "FROM Ballot " +
                             "WHERE Group_Id=?;";
-            String getBallotOptionsQuery =
-                    "SELECT * " +
-                            "FROM `Option` " +
-                            "WHERE Ballot_Id=?;";
-            String getUserIdsQuery =
-                    "SELECT User_Id " +
-                            "FROM UserOption " +
-                            "WHERE Option_Id=?;";
 
             PreparedStatement getBallotsStmt = con.prepareStatement(getBallotsQuery);
             getBallotsStmt.setInt(1, groupId);
 
-            // If the sub-resources should be contained, prepare the statements here.
-            PreparedStatement getBallotOptionsStmt = null;
-            PreparedStatement getBallotOptionVotersStmt = null;
-            if (withSubresources) {
-                logger.info("Including the sub-resources into the ballots of group with id {}.", groupId);
-                getBallotOptionsStmt = con.prepareStatement(getBallotOptionsQuery);
-                getBallotOptionVotersStmt = con.prepareStatement(getUserIdsQuery);
-            }
-
             // Request the ballots for the given group.
+            Map<Integer, Ballot> ballotsById = new HashMap<Integer, Ballot>();
             ResultSet getBallotsRs = getBallotsStmt.executeQuery();
             while (getBallotsRs.next()) {
-                int id = getBallotsRs.getInt("Id");
-                String title = getBallotsRs.getString("Title");
-                String description = getBallotsRs.getString("Description");
-                Boolean multipleChoice = getBallotsRs.getBoolean("MultipleChoice");
-                Boolean publicVotes = getBallotsRs.getBoolean("Public");
-                Boolean closed = getBallotsRs.getBoolean("Closed");
-                int ballotAdmin = getBallotsRs.getInt("BallotAdmin_User_Id");
-
-                Ballot ballotTmp = new Ballot(id, title, description, ballotAdmin, closed, multipleChoice, publicVotes);
-
-                // Request the sub-resources options and voters if required.
-                if (withSubresources) {
-                    List<Option> ballotOptions = new ArrayList<Option>();
-                    // Request all options for the ballot.
-                    getBallotOptionsStmt.setInt(1, ballotTmp.getId());
-                    ResultSet getBallotOptionsRs = getBallotOptionsStmt.executeQuery();
-                    while (getBallotOptionsRs.next()) {
-                        int optionId = getBallotOptionsRs.getInt("Id");
-                        String text = getBallotOptionsRs.getString("Text");
-
-                        Option optionTmp = new Option(optionId, text);
-
-                        // Request the ids of the users who have voted for this particular option.
-                        List<Integer> voters = new ArrayList<Integer>();
-                        getBallotOptionVotersStmt.setInt(1, optionId);
-                        ResultSet getBallotOptionVotersRs = getBallotOptionVotersStmt.executeQuery();
-                        while (getBallotOptionVotersRs.next()) {
-                            int userId = getBallotOptionVotersRs.getInt("User_Id");
-
-                            // Add the id of the user to the voters list.
-                            voters.add(userId);
-                        }
-
-                        // Add the list of voters to the Option object.
-                        optionTmp.setVoters(voters);
-
-                        // Add the option object to the list of ballot options.
-                        ballotOptions.add(optionTmp);
-                    }
-
-                    // Add the list of options to the ballot object.
-                    ballotTmp.setOptions(ballotOptions);
-                }
+                Ballot ballotTmp = createBallot(getBallotsRs);
 
                 // Add the ballot object to the list of ballots.
                 ballots.add(ballotTmp);
+                ballotsById.put(ballotTmp.getId(), ballotTmp);
             }
-
             getBallotsStmt.close();
-            if (getBallotOptionsStmt != null && getBallotOptionVotersStmt != null) {
-                getBallotOptionsStmt.close();
-                getBallotOptionVotersStmt.close();
+
+            // Request the sub-resources options and voters of all ballots at once if required.
+            if (withSubresources && !ballots.isEmpty()) {
+                logger.info("Including the sub-resources into the ballots of group with id {}.", groupId);
+                setOptionsWithVoters(con, groupId, null, ballotsById);
             }
         } catch (SQLException e) {
             logger.error(Constants.LOG_SQL_EXCEPTION, e.getSQLState(), e.getErrorCode(), e.getMessage());
@@ -952,6 +854,74 @@ public class GroupDatabaseManager extends DatabaseManager {
         return ballots;
     }
 
+    /**
+     * Creates a ballot object from the current row of the given result set.
+     *
+     * @param rs The result set which points to a row of the Ballot table.
+     * @return The created ballot without options.
+     * @throws SQLException If the data couldn't be read from the result set.
+     */
+    private Ballot createBallot(ResultSet rs) throws SQLException {
+        int id = rs.getInt("Id");
+        String title = rs.getString("Title");
+        String description = rs.getString("Description");
+        Boolean multipleChoice = rs.getBoolean("MultipleChoice");
+        Boolean publicVotes = rs.getBoolean("Public");
+        Boolean closed = rs.getBoolean("Closed");
+        int ballotAdmin = rs.getInt("BallotAdmin_User_Id");
+        return new Ballot(id, title, description, ballotAdmin, closed, multipleChoice, publicVotes);
+    }
+
+    /**
+     * Loads the options and their voters of the given ballots in a single query and sets them in the ballot objects.
+     * Each ballot gets a list of options, which is empty if the ballot has no options.
+     *
+     * @param con The connection which is used for the query.
+     * @param groupId The id of the group to which the ballots belong.
+     * @param ballotId The id of the ballot if only the options of this ballot should be loaded. Nullable.
+     * @param ballotsById The ballots whose options should be set, mapped by their ids.
+     * @throws SQLException If the query has failed.
+     */
+    private void setOptionsWithVoters(Connection con, int groupId, Integer ballotId, Map<Integer, Ballot>
+            ballotsById) throws SQLException {
+        String getOptionsQuery =
+                "SELECT o.Id, o.Ballot_Id, o.Text, uo.User_Id " +
+                        "FROM Ballot AS b INNER JOIN `Option` AS o ON b.Id=o.Ballot_Id " +
+                        "LEFT JOIN UserOption AS uo ON o.Id=uo.Option_Id " +
+                        "WHERE b.Group_Id=?" + (ballotId != null ? " AND b.Id=?" : "") + " " +
+                        "ORDER BY o.Id;";
+
+        for (Ballot ballot : ballotsById.values()) {
+            ballot.setOptions(new ArrayList<Option>());
+        }
+
+        PreparedStatement getOptionsStmt = con.prepareStatement(getOptionsQuery);
+        getOptionsStmt.setInt(1, groupId);
+        if (ballotId != null) {
+            getOptionsStmt.setInt(2, ballotId);
+        }
+        ResultSet getOptionsRs = getOptionsStmt.executeQuery();
+
+        // There is one row per vote, or one row without voter if the option has no votes.
+        Option option = null;
+        while (getOptionsRs.next()) {
+            int optionId = getOptionsRs.getInt("Id");
+            if (option == null || option.getId() != optionId) {
+                Ballot ballot = ballotsById.get(getOptionsRs.getInt("Ballot_Id"));
+                option = new Option(optionId, getOptionsRs.getString("Text"));
+                option.setVoters(new ArrayList<Integer>());
+                if (ballot != null) {
+                    ballot.getOptions().add(option);
+                }
+            }
+            Integer userId = getNullableInt(getOptionsRs, "User_Id");
+            if (userId != null) {
+                option.getVoters().add(userId);
+            }
+        }
+        getOptionsStmt.close();
+    }
+
     /**
      * Returns the ballots which belong to the group with the specified id and have the user with the defined id as
      * the ballot administrator.
@@ -1218,46 +1188,43 @@ public class GroupDatabaseManager extends DatabaseManager {
         try {
             con = getDatabaseConnection();
             String getOptionsQuery =
-                    "SELECT * " +
-                            "FROM `Option` " +
-                            "WHERE Ballot_Id=?;";
+                    "SELECT o.Id, o.Text " +
+                            "FROM `Option` AS o " +
+                            "WHERE o.Ballot_Id=? " +
+                            "ORDER BY o.Id;";
+            // The voters are joined if the sub-resources should be contained. There is one row per vote then.
+            String getOptionsWithVotersQuery =
+                    "SELECT o.Id, o.Text, uo.User_Id " +
+                            "FROM `Option` AS o LEFT JOIN UserOption AS uo ON o.Id=uo.Option_Id " +
+                            "WHERE o.Ballot_Id=? " +
+                            "ORDER BY o.Id;";
 
-            PreparedStatement getOptionsStmt = con.prepareStatement(getOptionsQuery);
-            getOptionsStmt.setInt(1, ballotId);
-
-            String getUserIdsQuery =
-                    "SELECT User_Id " +
-                            "FROM UserOption " +
-                            "WHERE Option_Id=?;";
-
-            // If the sub-resources should be contained, prepare the statements here.
-            PreparedStatement getBallotOptionVotersStmt = null;
             if (withSubresources) {
                 logger.info("Including the sub-resources into the options of ballot with id {}.", ballotId);
-                getBallotOptionVotersStmt = con.prepareStatement(getUserIdsQuery);
             }
+            PreparedStatement getOptionsStmt = con.prepareStatement(withSubresources ? getOptionsWithVotersQuery :
+                    getOptionsQuery);
+            getOptionsStmt.setInt(1, ballotId);
 
             ResultSet getOptionsRs = getOptionsStmt.executeQuery();
+            Option tmp = null;
             while (getOptionsRs.next()) {
                 int id = getOptionsRs.getInt("Id");
-                String text = getOptionsRs.getString("Text");
-                Option tmp = new Option(id, text);
+                if (tmp == null || tmp.getId() != id) {
+                    tmp = new Option(id, getOptionsRs.getString("Text"));
+                    if (withSubresources) {
+                        tmp.setVoters(new ArrayList<>());
+                    }
+                    options.add(tmp);
+                }
 
                 if (withSubresources) {
-                    // Request the ids of the users who have voted for this particular option.
-                    List<Integer> voters = new ArrayList<>();
-                    getBallotOptionVotersStmt.setInt(1, id);
-                    ResultSet getBallotOptionVotersRs = getBallotOptionVotersStmt.executeQuery();
-                    while (getBallotOptionVotersRs.next()) {
-                        int userId = getBallotOptionVotersRs.getInt("User_Id");
-
-                        // Add the id of the user to the voters list.
-                        voters.add(userId);
+                    // Add the id of the user to the voters list.
+                    Integer userId = getNullableInt(getOptionsRs, "User_Id");
+                    if (userId != null) {
+                        tmp.getVoters().add(userId);
                     }
-                    tmp.setVoters(voters);
                 }
-
-                options.add(tmp);
             }
 
             getOptionsStmt.close();
@@ -1393,17 +1360,23 @@ public class GroupDatabaseManager extends DatabaseManager {
     }
 
     /**
-     * Stores the vote from the user with the specified id for the defined option into the database.
+     * Stores the vote from the user with the specified id for the defined option into the database. If a push outbox
+     * entry is given, it is stored within the same transaction.
      *
      * @param optionId The id for the option which is affected by the vote.
      * @param userId The id of the user who performs the vote.
+     * @param pushOutboxEntry The push outbox entry which announces the vote. Nullable.
      * @throws DatabaseException If the vote could not be stored due to a database failure.
      */
-    public void storeVote(int optionId, int userId) throws DatabaseException {
-        logger.debug("Start with optionId:{} and userId:{}.", optionId, userId);
+    public void storeVote(int optionId, int userId, PushOutboxEntry pushOutboxEntry) throws DatabaseException {
+        logger.debug("Start with optionId:{}, userId:{} and pushOutboxEntry:{}.", optionId, userId, pushOutboxEntry);
         Connection con = null;
         try {
             con = getDatabaseConnection();
+
+            // Start transaction.
+            con.setAutoCommit(false);
+
             String storeVoteQuery =
                     "INSERT INTO UserOption (User_Id, Option_Id) " +
                             "VALUES (?,?);";
@@ -1414,13 +1387,33 @@ public class GroupDatabaseManager extends DatabaseManager {
 
             storeVoteStmt.execute();
 
+            if (pushOutboxEntry != null) {
+                storePushOutboxEntry(con, pushOutboxEntry);
+            }
+
+            //End transaction.
+            con.commit();
+
             logger.info("Vote from user with id {} for the option with id {} is stored.", userId, optionId);
             storeVoteStmt.close();
         } catch (SQLException e) {
+            try {
+                logger.warn("SQLException occurred during vote storage, need to rollback the transaction.");
+                con.rollback();
+            } catch (SQLException e1) {
+                logger.warn("Rollback failed.");
+                logger.error(Constants.LOG_SQL_EXCEPTION, e1.getSQLState(), e1.getErrorCode(), e1.getMessage());
+            }
             logger.error(Constants.LOG_SQL_EXCEPTION, e.getSQLState(), e.getErrorCode(), e.getMessage());
             // Throw back DatabaseException to the Controller.
             throw new DatabaseException("Database failure.");
         } finally {
+            try {
+                con.setAutoCommit(true);
+            } catch (SQLException e) {
+                logger.warn("Setting auto commit to true has failed.");
+                logger.error(Constants.LOG_SQL_EXCEPTION, e.getSQLState(), e.getErrorCode(), e.getMessage());
+            }
             returnConnection(con);
         }
         logger.debug("End.");
@@ -1555,17 +1548,23 @@ public class GroupDatabaseManager extends DatabaseManager {
     }
 
     /**
-     * Deletes the vote from the user with the specified id for the defined option.
+     * Deletes the vote from the user with the specified id for the defined option. If a push outbox entry is given,
+     * it is stored within the same transaction, but only if a vote has actually been deleted.
      *
      * @param optionId The id of the option.
      * @param userId The id of the user.
+     * @param pushOutboxEntry The push outbox entry which announces the deletion of the vote. Nullable.
      * @throws DatabaseException If the deletion fails due to a database failure.
      */
-    public void deleteVote(int optionId, int userId) throws DatabaseException {
-        logger.debug("Start with optionId:{} and userId:{}.", optionId, userId);
+    public void deleteVote(int optionId, int userId, PushOutboxEntry pushOutboxEntry) throws DatabaseException {
+        logger.debug("Start with optionId:{}, userId:{} and pushOutboxEntry:{}.", optionId, userId, pushOutboxEntry);
         Connection con = null;
         try {
             con = getDatabaseConnection();
+
+            // Start transaction.
+            con.setAutoCommit(false);
+
             String deleteVoteQuery =
                     "DELETE FROM UserOption " +
                             "WHERE Option_Id=? AND User_Id=?;";
@@ -1576,14 +1575,33 @@ public class GroupDatabaseManager extends DatabaseManager {
 
             int rowsAffected = deleteVoteStmt.executeUpdate();
             if (rowsAffected == 1) {
+                if (pushOutboxEntry != null) {
+                    storePushOutboxEntry(con, pushOutboxEntry);
+                }
                 logger.info("Deleted the vote from user with id {} for option with id {}.", userId, optionId);
             }
+
+            //End transaction.
+            con.commit();
             deleteVoteStmt.close();
         } catch (SQLException e) {
+            try {
+                logger.warn("SQLException occurred during vote deletion, need to rollback the transaction.");
+                con.rollback();
+            } catch (SQLException e1) {
+                logger.warn("Rollback failed.");
+                logger.error(Constants.LOG_SQL_EXCEPTION, e1.getSQLState(), e1.getErrorCode(), e1.getMessage());
+            }
             logger.error(Constants.LOG_SQL_EXCEPTION, e.getSQLState(), e.getErrorCode(), e.getMessage());
             // Throw back DatabaseException to the Controller.
             throw new DatabaseException("Database failure.");
         } finally {
+            try {
+                con.setAutoCommit(true);
+            } catch (SQLException e) {
+                logger.warn("Setting auto commit to true has failed.");
+                logger.error(Constants.LOG_SQL_EXCEPTION, e.getSQLState(), e.getErrorCode(), e.getMessage());
+            }
             returnConnection(con);
         }
         logger.debug("End.");
@@ -1650,7 +1668,26 @@ public class GroupDatabaseManager extends DatabaseManager {
      * @throws DatabaseException If the retrieval of the conversation fails due to a database failure.
      */
     public List<Conversation> getConversations(int groupId, boolean withSubresources) throws DatabaseException {
-        logger.debug("Start with groupId:{} and withSubresources:{}.", groupId, withSubresources);
+        return getConversations(groupId, withSubresources, null);
+    }
+
+    /**
+     * Returns a list of conversation objects which belong to the group with the specified id. It can be defined
+     * whether the single conversation objects should contain a list of their sub-resources, i.e. the conversation
+     * messages which have been sent into the conversation. The messages of all conversations are loaded with a single
+     * query. If a message limit is given, each conversation contains only its latest messages up to this limit.
+     *
+     * @param groupId The if of the group for which the conversations are requested.
+     * @param withSubresources Indicates whether the conversations should contain a list of their sub-resources.
+     * @param messageLimit The maximum number of latest messages per conversation. Nullable, all messages are
+     * returned if no limit is given.
+     * @return Returns a list of conversation objects. The list can also be empty.
+     * @throws DatabaseException If the retrieval of the conversation fails due to a database failure.
+     */
+    public List<Conversation> getConversations(int groupId, boolean withSubresources, Integer messageLimit) throws
+            DatabaseException {
+        logger.debug("Start with groupId:{}, withSubresources:{} and messageLimit:{}.", groupId, withSubresources,
+                messageLimit);
         List<Conversation> conversations = new ArrayList<Conversation>();
         Connection con = null;
         try {
@@ -1659,22 +1696,25 @@ public class GroupDatabaseManager extends DatabaseManager {
                     "SELECT * " +
                             "FROM Conversation " +
                             "WHERE Group_Id=?;";
+            /* Message numbers of a conversation are consecutive, so the latest messages are those whose number is
+               higher than the highest number minus the limit. */
             String getMessagesQuery =
-                    "SELECT * " +
-                            "FROM ConversationMessage AS cm JOIN Message AS m ON cm.Message_Id=m.Id " +
-                            "WHERE cm.Conversation_Id=?;";
+                    "SELECT cm.Conversation_Id, cm.MessageNumber, cm.Author_User_Id, m.Id, m.Text, m.CreationDate, " +
+                            "m.Priority " +
+                            "FROM Conversation AS c " +
+                            "INNER JOIN ConversationMessage AS cm ON c.Id=cm.Conversation_Id " +
+                            "INNER JOIN Message AS m ON cm.Message_Id=m.Id " +
+                            "WHERE c.Group_Id=?" +
+                            (messageLimit != null ? " AND cm.MessageNumber>(" +
+                                    "SELECT MAX(cm2.MessageNumber) FROM ConversationMessage AS cm2 " +
+                                    "WHERE cm2.Conversation_Id=cm.Conversation_Id)-?" : "") + " " +
+                            "ORDER BY cm.Conversation_Id, cm.MessageNumber;";
 
             PreparedStatement getConversationsStmt = con.prepareStatement(getConversationsQuery);
             getConversationsStmt.setInt(1, groupId);
 
-            // Prepare statement only when sub-resources are requested.
-            PreparedStatement getMessagesStmt = null;
-            if (withSubresources) {
-                logger.info("Conversations for group with id {} are requested including sub-resources.", groupId);
-                getMessagesStmt = con.prepareStatement(getMessagesQuery);
-            }
-
             // Get all the conversations from the database.
+            Map<Integer, Conversation> conversationsById = new HashMap<Integer, Conversation>();
             ResultSet getConversationsRs = getConversationsStmt.executeQuery();
             while (getConversationsRs.next()) {
                 int conversationId = getConversationsRs.getInt("Id");
@@ -1683,39 +1723,42 @@ public class GroupDatabaseManager extends DatabaseManager {
                 int admin = getConversationsRs.getInt("ConversationAdmin_User_Id");
 
                 Conversation conversationTmp = new Conversation(conversationId, title, closed, admin);
-
-                // Get messages for this conversation if sub-resources are requested.
                 if (withSubresources) {
-                    List<ConversationMessage> conversationMessages = new ArrayList<ConversationMessage>();
-
-                    // Execute the query to get the messages for the conversation with the given id.
-                    getMessagesStmt.setInt(1, conversationTmp.getId());
-                    ResultSet getMessagesRs = getMessagesStmt.executeQuery();
-                    while (getMessagesRs.next()) {
-                        int messageId = getMessagesRs.getInt("Id");
-                        String text = getMessagesRs.getString("Text");
-                        ZonedDateTime creationDate = getMessagesRs.getTimestamp("CreationDate").toLocalDateTime()
-                                .atZone(Constants.TIME_ZONE);
-                        Priority priority = Priority.values[getMessagesRs.getInt("Priority")];
-                        int messageNumber = getMessagesRs.getInt("MessageNumber");
-                        int authorUser = getMessagesRs.getInt("Author_User_Id");
-
-                        // Add the message to the list.
-                        ConversationMessage conversationMsgTmp = new ConversationMessage(messageId, text, messageNumber,
-                                priority, creationDate, authorUser, conversationTmp.getId());
-                        conversationMessages.add(conversationMsgTmp);
-                    }
-
-                    // Add the list of conversation messages to the conversation object.
-                    conversationTmp.setConversationMessages(conversationMessages);
+                    conversationTmp.setConversationMessages(new ArrayList<ConversationMessage>());
                 }
 
                 // Add the conversation object to the list of conversation objects.
                 conversations.add(conversationTmp);
+                conversationsById.put(conversationId, conversationTmp);
             }
-
             getConversationsStmt.close();
-            if (withSubresources) {
+
+            // Get the messages of all conversations at once if sub-resources are requested.
+            if (withSubresources && !conversations.isEmpty()) {
+                logger.info("Conversations for group with id {} are requested including sub-resources.", groupId);
+                PreparedStatement getMessagesStmt = con.prepareStatement(getMessagesQuery);
+                getMessagesStmt.setInt(1, groupId);
+                if (messageLimit != null) {
+                    getMessagesStmt.setInt(2, messageLimit);
+                }
+                ResultSet getMessagesRs = getMessagesStmt.executeQuery();
+                while (getMessagesRs.next()) {
+                    int conversationId = getMessagesRs.getInt("Conversation_Id");
+                    int messageId = getMessagesRs.getInt("Id");
+                    String text = getMessagesRs.getString("Text");
+                    ZonedDateTime creationDate = getMessagesRs.getTimestamp("CreationDate").toLocalDateTime()
+                            .atZone(Constants.TIME_ZONE);
+                    Priority priority = Priority.values[getMessagesRs.getInt("Priority")];
+                    int messageNumber = getMessagesRs.getInt("MessageNumber");
+                    int authorUser = getMessagesRs.getInt("Author_User_Id");
+
+                    // Add the message to the list of its conversation.
+                    Conversation conversationTmp = conversationsById.get(conversationId);
+                    if (conversationTmp != null) {
+                        conversationTmp.getConversationMessages().add(new ConversationMessage(messageId, text,
+                                messageNumber, priority, creationDate, authorUser, conversationId));
+                    }
+                }
                 getMessagesStmt.close();
             }
         } catch (SQLException e) {
@@ -1901,121 +1944,130 @@ public class GroupDatabaseManager extends DatabaseManager {
      *
      * @param conversationId The id of the conversation to which the message belongs.
      * @param conversationMessage Contains the data of the message.
-     * @return Returns true if the message has been stored successfully, false otherwise.
+     * @param pushOutboxEntry The push outbox entry which is stored within the same transaction. Nullable.
      * @throws DatabaseException If the message could not be stored due to a database failure.
      */
-    public void storeConversationMessage(int conversationId, ConversationMessage conversationMessage) throws
-            DatabaseException, MessageNumberAlreadyExistsException {
-        logger.debug("Start with conversationId:{} and conversationMessage:{}.", conversationId, conversationMessage);
+    public void storeConversationMessage(int conversationId, ConversationMessage conversationMessage,
+                                         PushOutboxEntry pushOutboxEntry) throws DatabaseException {
+        logger.debug("Start with conversationId:{}, conversationMessage:{} and pushOutboxEntry:{}.", conversationId,
+                conversationMessage, pushOutboxEntry);
         Connection con = null;
-        try {
-            con = getDatabaseConnection();
-
-            // Set auto commit to false for the following queries, i.e. start a transaction.
-            con.setAutoCommit(false);
-
-            String insertMsgQuery =
-                    "INSERT INTO Message (Text, CreationDate, Priority) " +
-                            "VALUES (?,?,?);";
-            String insertConversationMsgQuery =
-                    "INSERT INTO ConversationMessage (MessageNumber, Conversation_Id, Author_User_Id, Message_Id) " +
-                            "VALUES (?,?,?,?);";
-            String getMessageNumberQuery =
-                    "SELECT MAX(MessageNumber) " +
-                            "FROM ConversationMessage " +
-                            "WHERE Conversation_Id=?;";
-
-            // Already prepare the statements.
-            PreparedStatement insertMsgStmt = con.prepareStatement(insertMsgQuery);
-            PreparedStatement insertConversationMsgStmt = con.prepareStatement(insertConversationMsgQuery);
-            PreparedStatement getMessageNumberStmt = con.prepareStatement(getMessageNumberQuery);
-
-            // The message number for the new message.
-            int messageNumber = 0;
-
-            // First, retrieve the next message number for the given conversation.
-            getMessageNumberStmt.setInt(1, conversationId);
-            ResultSet getMessageNumberRs = getMessageNumberStmt.executeQuery();
-            if (getMessageNumberRs.next()) {
-                messageNumber = getMessageNumberRs.getInt(1);
-            }
-            messageNumber++; // Increment to get the next free message number.
-            // Set the message number in the object.
-            conversationMessage.setMessageNumber(messageNumber);
+        int attempt = 0;
+        boolean retry;
+        do {
+            retry = false;
+            attempt++;
+            try {
+                con = getDatabaseConnection();
 
-            // Second, insert the message relevant data fields into the Message table.
-            insertMsgStmt.setString(1, conversationMessage.getText());
-            insertMsgStmt.setTimestamp(2, Timestamp.from(conversationMessage.getCreationDate().toInstant()));
-            insertMsgStmt.setInt(3, conversationMessage.getPriority().ordinal());
-            insertMsgStmt.execute();
+                // Set auto commit to false for the following queries, i.e. start a transaction.
+                con.setAutoCommit(false);
 
-            // Third, retrieve auto incremented id of the database record for the message.
-            String getIdQuery = "SELECT LAST_INSERT_ID();";
-            Statement getIdStmt = con.createStatement();
-            ResultSet getIdRs = getIdStmt.executeQuery(getIdQuery);
-            if (getIdRs.next()) {
-                // Set the id taken from the database to the conversationMessage object.
-                conversationMessage.setId(getIdRs.getInt(1));
-            }
+                String insertMsgQuery =
+                        "INSERT INTO Message (Text, CreationDate, Priority) " +
+                                "VALUES (?,?,?);";
+                String insertConversationMsgQuery =
+                        "INSERT INTO ConversationMessage (MessageNumber, Conversation_Id, Author_User_Id, " +
+                                "Message_Id) " +
+                                "VALUES (?,?,?,?);";
+
+                // Already prepare the statements.
+                PreparedStatement insertMsgStmt = con.prepareStatement(insertMsgQuery);
+                PreparedStatement insertConversationMsgStmt = con.prepareStatement(insertConversationMsgQuery);
+
+                // First, insert the message relevant data fields into the Message table.
+                insertMsgStmt.setString(1, conversationMessage.getText());
+                insertMsgStmt.setTimestamp(2, Timestamp.from(conversationMessage.getCreationDate().toInstant()));
+                insertMsgStmt.setInt(3, conversationMessage.getPriority().ordinal());
+                insertMsgStmt.execute();
+
+                // Second, retrieve auto incremented id of the database record for the message.
+                String getIdQuery = "SELECT LAST_INSERT_ID();";
+                Statement getIdStmt = con.createStatement();
+                ResultSet getIdRs = getIdStmt.executeQuery(getIdQuery);
+                if (getIdRs.next()) {
+                    // Set the id taken from the database to the conversationMessage object.
+                    conversationMessage.setId(getIdRs.getInt(1));
+                }
 
-            // Fourth, insert the conversation message data fields into the ConversationMessage table.
-            insertConversationMsgStmt.setInt(1, messageNumber);
-            insertConversationMsgStmt.setInt(2, conversationId);
-            insertConversationMsgStmt.setInt(3, conversationMessage.getAuthorUser());
-            insertConversationMsgStmt.setInt(4, conversationMessage.getId());
-            insertConversationMsgStmt.execute();
+                // Third, allocate the next message number for the given conversation. The counter row stays locked
+                // until the end of the transaction, so allocate as late as possible.
+                int messageNumber = allocateMessageNumber(con, "ConversationMessageSequence", "ConversationMessage",
+                        "Conversation_Id", conversationId);
+                // Set the message number in the object.
+                conversationMessage.setMessageNumber(messageNumber);
+
+                // Fourth, insert the conversation message data fields into the ConversationMessage table.
+                insertConversationMsgStmt.setInt(1, messageNumber);
+                insertConversationMsgStmt.setInt(2, conversationId);
+                insertConversationMsgStmt.setInt(3, conversationMessage.getAuthorUser());
+                insertConversationMsgStmt.setInt(4, conversationMessage.getId());
+                insertConversationMsgStmt.execute();
+
+                // Fifth, append the push message to the outbox.
+                if (pushOutboxEntry != null) {
+                    storePushOutboxEntry(con, pushOutboxEntry);
+                }
 
-            //End transaction.
-            con.commit();
+                //End transaction.
+                con.commit();
 
-            insertMsgStmt.close();
-            insertConversationMsgStmt.close();
-            getMessageNumberStmt.close();
+                insertMsgStmt.close();
+                insertConversationMsgStmt.close();
 
-            logger.info("Stored the conversation message with the id {} and the message number {}.",
-                    conversationMessage.getId(), messageNumber);
-        } catch (SQLException e) {
-            try {
-                logger.warn("SQLException occurred during conversationMsg storage, need to rollback the transaction.");
-                con.rollback();
-            } catch (SQLException e1) {
-                logger.warn("Rollback failed.");
-                logger.error(Constants.LOG_SQL_EXCEPTION, e1.getSQLState(), e1.getErrorCode(), e1.getMessage());
-            }
-
-            // Abort if the execution has failed due to a duplicate primary key.
-            if (e.getErrorCode() == 1062 && e.getMessage().contains("PRIMARY")) {
-                throw new MessageNumberAlreadyExistsException("Message Number already exists.");
-            }
-
-            logger.error(Constants.LOG_SQL_EXCEPTION, e.getSQLState(), e.getErrorCode(), e.getMessage());
-            // Throw back DatabaseException to the Controller.
-            throw new DatabaseException("Database failure.");
-        } finally {
-            try {
-                con.setAutoCommit(true);
+                logger.info("Stored the conversation message with the id {} and the message number {}.",
+                        conversationMessage.getId(), messageNumber);
             } catch (SQLException e) {
-                logger.warn("Setting auto commit to true has failed.");
+                try {
+                    logger.warn("SQLException occurred during conversationMsg storage, need to rollback the " +
+                            "transaction.");
+                    con.rollback();
+                } catch (SQLException e1) {
+                    logger.warn("Rollback failed.");
+                    logger.error(Constants.LOG_SQL_EXCEPTION, e1.getSQLState(), e1.getErrorCode(), e1.getMessage());
+                }
+                if (isDeadlock(e) && attempt < MAX_TRANSACTION_ATTEMPTS) {
+                    // The database has rolled back the transaction. Run it again.
+                    logger.warn("Deadlock during conversation message storage. Starting attempt {}.", attempt + 1);
+                    retry = true;
+                    continue;
+                }
+
                 logger.error(Constants.LOG_SQL_EXCEPTION, e.getSQLState(), e.getErrorCode(), e.getMessage());
+                // Throw back DatabaseException to the Controller.
+                throw new DatabaseException("Database failure.");
+            } finally {
+                try {
+                    con.setAutoCommit(true);
+                } catch (SQLException e) {
+                    logger.warn("Setting auto commit to true has failed.");
+                    logger.error(Constants.LOG_SQL_EXCEPTION, e.getSQLState(), e.getErrorCode(), e.getMessage());
+                }
+                returnConnection(con);
             }
-            returnConnection(con);
-        }
+        } while (retry);
         logger.debug("End.");
     }
 
     /**
-     * Returns the conversation messages of the conversation which is identified by the specified id. The method
-     * returns all messages which have a message number higher than the defined one.
+     * Returns a page of the conversation messages of the conversation which is identified by the specified id. The
+     * page is selected by the message number, so the query uses the key of the messages regardless of the number of
+     * messages in the conversation.
      *
      * @param conversationId The id of the conversation for which the messages are retrieved.
-     * @param messageNumber Defines the starting message number. The method will return all messsages from the
-     * conversation which have a higher message number than the one defined with this parameter.
-     * @return A list of conversation messages. The list can also be empty.
+     * @param messageNumber Defines the starting message number. In ascending direction, the method will return the
+     * messages from the conversation which have a higher message number than the one defined with this parameter. In
+     * descending direction, the messages which have a lower message number are returned, starting at the latest one
+     * if the message number is zero.
+     * @param limit The maximum number of messages.
+     * @param direction The direction in which the messages are paged.
+     * @return A list of conversation messages ordered in the given direction. The list can also be empty.
      * @throws DatabaseException If the retrieval fails due to a database failure.
      */
-    public List<ConversationMessage> getConversationMessages(int conversationId, int messageNumber) throws
-            DatabaseException {
-        logger.debug("Start with conversationId:{} and messageNumber:{}.", conversationId, messageNumber);
+    public List<ConversationMessage> getConversationMessages(int conversationId, int messageNumber, int limit,
+                                                             SortDirection direction) throws DatabaseException {
+        logger.debug("Start with conversationId:{}, messageNumber:{}, limit:{} and direction:{}.", conversationId,
+                messageNumber, limit, direction);
         List<ConversationMessage> messages = new ArrayList<ConversationMessage>();
         Connection con = null;
         try {
@@ -2023,11 +2075,13 @@ public class GroupDatabaseManager extends DatabaseManager {
             String query =
                     "SELECT * " +
                             "FROM Message AS m JOIN ConversationMessage AS cm ON m.Id=cm.Message_Id " +
-                            "WHERE cm.Conversation_Id=? AND cm.MessageNumber > ?;";
+                            "WHERE cm.Conversation_Id=? AND " + getPageCondition("cm.MessageNumber", direction) +
+                            getPageOrder("cm.MessageNumber", direction) + ";";
 
             PreparedStatement getMessagesStmt = con.prepareStatement(query);
             getMessagesStmt.setInt(1, conversationId);
-            getMessagesStmt.setInt(2, messageNumber);
+            getMessagesStmt.setInt(2, getPageBound(messageNumber, direction));
+            getMessagesStmt.setInt(3, limit);
 
             ResultSet getMessagesRs = getMessagesStmt.executeQuery();
             while (getMessagesRs.next()) {
@@ -2057,6 +2111,86 @@ public class GroupDatabaseManager extends DatabaseManager {
         return messages;
     }
 
+    /**
+     * Returns the conversation messages of several conversations in one go. For each conversation, at most the given
+     * number of messages which have a higher message number than the given one are returned. Only conversations of
+     * groups in which the user with the specified id is an active participant are considered, all other
+     * conversations are ignored.
+     *
+     * @param userId The id of the user who requests the messages.
+     * @param messageNumbers The starting message numbers mapped by the conversation id. A missing number counts as
+     * zero.
+     * @param limit The maximum number of messages per conversation.
+     * @return The messages of all permitted conversations ordered by conversation and message number. The list can
+     * also be empty.
+     * @throws DatabaseException If the retrieval fails due to a database failure.
+     */
+    public List<ConversationMessage> getConversationMessages(int userId, Map<Integer, Integer> messageNumbers, int
+            limit) throws DatabaseException {
+        logger.debug("Start with userId:{}, messageNumbers:{} and limit:{}.", userId, messageNumbers, limit);
+        List<ConversationMessage> messages = new ArrayList<ConversationMessage>();
+        List<Map.Entry<Integer, Integer>> entries = new ArrayList<Map.Entry<Integer, Integer>>(messageNumbers
+                .entrySet());
+        Connection con = null;
+        try {
+            con = getDatabaseConnection();
+            for (int from = 0; from < entries.size(); from += MAX_BATCH_CONDITIONS) {
+                List<Map.Entry<Integer, Integer>> batch = entries.subList(from, Math.min(from +
+                        MAX_BATCH_CONDITIONS, entries.size()));
+                // One limited subquery per conversation, so a long conversation doesn't crowd out others.
+                StringBuilder query = new StringBuilder();
+                for (int i = 0; i < batch.size(); i++) {
+                    query.append(i == 0 ? "" : " UNION ALL ").append(
+                            "(SELECT m.Id, m.Text, m.CreationDate, m.Priority, cm.MessageNumber, cm.Author_User_Id, " +
+                                    "cm.Conversation_Id " +
+                                    "FROM Message AS m JOIN ConversationMessage AS cm ON m.Id=cm.Message_Id " +
+                                    "JOIN Conversation AS c ON cm.Conversation_Id=c.Id " +
+                                    "JOIN UserGroup AS ug ON c.Group_Id=ug.Group_Id " +
+                                    "WHERE ug.User_Id=? AND ug.Active=? AND cm.Conversation_Id=? AND " +
+                                    "cm.MessageNumber>? " +
+                                    "ORDER BY cm.MessageNumber " +
+                                    "LIMIT ?)");
+                }
+                query.append(" ORDER BY Conversation_Id, MessageNumber;");
+
+                PreparedStatement getMessagesStmt = con.prepareStatement(query.toString());
+                int parameterIndex = 1;
+                for (Map.Entry<Integer, Integer> entry : batch) {
+                    getMessagesStmt.setInt(parameterIndex++, userId);
+                    getMessagesStmt.setBoolean(parameterIndex++, true);
+                    getMessagesStmt.setInt(parameterIndex++, entry.getKey());
+                    getMessagesStmt.setInt(parameterIndex++, entry.getValue() != null ? entry.getValue() : 0);
+                    getMessagesStmt.setInt(parameterIndex++, limit);
+                }
+
+                ResultSet getMessagesRs = getMessagesStmt.executeQuery();
+                while (getMessagesRs.next()) {
+                    int messageId = getMessagesRs.getInt("Id");
+                    String text = getMessagesRs.getString("Text");
+                    ZonedDateTime creationDate = getMessagesRs.getTimestamp("CreationDate").toLocalDateTime().atZone
+                            (Constants.TIME_ZONE);
+                    Priority priority = Priority.values[getMessagesRs.getInt("Priority")];
+                    int messageNr = getMessagesRs.getInt("MessageNumber");
+                    int authorId = getMessagesRs.getInt("Author_User_Id");
+                    int conversationId = getMessagesRs.getInt("Conversation_Id");
+
+                    messages.add(new ConversationMessage(messageId, text, messageNr, priority, creationDate,
+                            authorId, conversationId));
+                }
+                getMessagesStmt.close();
+            }
+        } catch (SQLException e) {
+            logger.error(Constants.LOG_SQL_EXCEPTION, e.getSQLState(), e.getErrorCode(), e.getMessage());
+            // Throw back DatabaseException to the Controller.
+            throw new DatabaseException("Database failure.");
+        } finally {
+            returnConnection(con);
+        }
+
+        logger.debug("End with messages:{}.", messages);
+        return messages;
+    }
+
     /**
      * Checks if the conversation with the specified id is a valid conversation of the given group.
      *
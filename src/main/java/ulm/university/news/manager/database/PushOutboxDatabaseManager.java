@@ -0,0 +1,195 @@
+package ulm.university.news.manager.database;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ulm.university.news.data.PushOutboxEntry;
+import ulm.university.news.data.enums.PushType;
+import ulm.university.news.util.Constants;
+import ulm.university.news.util.exceptions.DatabaseException;
+
+import java.sql.*;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static ulm.university.news.util.Constants.LOG_SQL_EXCEPTION;
+
+/**
+ * The PushOutboxDatabaseManager provides methods to claim and remove the entries of the push outbox. Entries are
+ * appended to the outbox by the other database managers within the transaction which stores the resource that
+ * triggers the push message. The outbox is stored in the following table:
+ * <pre>
+ * CREATE TABLE PushOutbox (
+ *   Id INT NOT NULL AUTO_INCREMENT,
+ *   PushType INT NOT NULL,
+ *   Channel_Id INT NULL,
+ *   Group_Id INT NULL,
+ *   Excluded_User_Id INT NULL,
+ *   Id1 INT NULL,
+ *   Id2 INT NULL,
+ *   Id3 INT NULL,
+ *   CreationDate DATETIME NOT NULL,
+ *   ClaimToken VARCHAR(36) NULL,
+ *   ClaimDate DATETIME NULL,
+ *   Attempts INT NOT NULL DEFAULT 0,
+ *   PRIMARY KEY (Id),
+ *   INDEX ClaimToken_INDEX (ClaimToken));
+ * </pre>
+ *
+ * @author Matthias Mak
+ * @author Philipp Speidel
+ */
+public class PushOutboxDatabaseManager extends DatabaseManager {
+
+    /** The logger instance for PushOutboxDatabaseManager. */
+    private static final Logger logger = LoggerFactory.getLogger(PushOutboxDatabaseManager.class);
+
+    /**
+     * Creates an instance of the PushOutboxDatabaseManager class.
+     */
+    public PushOutboxDatabaseManager() {
+    }
+
+    /**
+     * Claims a batch of unclaimed entries from the push outbox and returns them. Entries whose claim is older than the
+     * given lease time are claimed again, e.g. if the server crashed during their delivery. Entries which have already
+     * been claimed the given maximum number of times are skipped. Because each claim is marked with a unique token,
+     * multiple dispatchers can claim entries concurrently without delivering an entry twice.
+     *
+     * @param batchSize The maximum number of entries which should be claimed.
+     * @param leaseSeconds The time in seconds after which a claim expires.
+     * @param maxAttempts The maximum number of claims per entry.
+     * @return The claimed entries ordered by their id. The list can also be empty.
+     * @throws DatabaseException If the entries couldn't be claimed due to a database failure.
+     */
+    public List<PushOutboxEntry> claimEntries(int batchSize, int leaseSeconds, int maxAttempts) throws
+            DatabaseException {
+        logger.debug("Start with batchSize:{}, leaseSeconds:{} and maxAttempts:{}.", batchSize, leaseSeconds,
+                maxAttempts);
+        List<PushOutboxEntry> entries = new ArrayList<PushOutboxEntry>();
+        Connection con = null;
+        try {
+            con = getDatabaseConnection();
+            String claimToken = UUID.randomUUID().toString();
+            ZonedDateTime now = ZonedDateTime.now(Constants.TIME_ZONE);
+
+            String claimEntriesQuery =
+                    "UPDATE PushOutbox " +
+                            "SET ClaimToken=?, ClaimDate=?, Attempts=Attempts+1 " +
+                            "WHERE (ClaimToken IS NULL OR ClaimDate<?) AND Attempts<? " +
+                            "ORDER BY Id LIMIT ?;";
+            String getEntriesQuery =
+                    "SELECT * " +
+                            "FROM PushOutbox " +
+                            "WHERE ClaimToken=? " +
+                            "ORDER BY Id;";
+
+            PreparedStatement claimEntriesStmt = con.prepareStatement(claimEntriesQuery);
+            claimEntriesStmt.setString(1, claimToken);
+            claimEntriesStmt.setTimestamp(2, Timestamp.from(now.toInstant()));
+            claimEntriesStmt.setTimestamp(3, Timestamp.from(now.minusSeconds(leaseSeconds).toInstant()));
+            claimEntriesStmt.setInt(4, maxAttempts);
+            claimEntriesStmt.setInt(5, batchSize);
+            int rowsAffected = claimEntriesStmt.executeUpdate();
+            claimEntriesStmt.close();
+
+            if (rowsAffected > 0) {
+                PreparedStatement getEntriesStmt = con.prepareStatement(getEntriesQuery);
+                getEntriesStmt.setString(1, claimToken);
+                ResultSet getEntriesRs = getEntriesStmt.executeQuery();
+                while (getEntriesRs.next()) {
+                    PushOutboxEntry entry = new PushOutboxEntry();
+                    entry.setId(getEntriesRs.getInt("Id"));
+                    entry.setPushType(PushType.values[getEntriesRs.getInt("PushType")]);
+                    entry.setChannelId(getNullableInt(getEntriesRs, "Channel_Id"));
+                    entry.setGroupId(getNullableInt(getEntriesRs, "Group_Id"));
+                    entry.setExcludedUserId(getNullableInt(getEntriesRs, "Excluded_User_Id"));
+                    entry.setId1(getNullableInt(getEntriesRs, "Id1"));
+                    entry.setId2(getNullableInt(getEntriesRs, "Id2"));
+                    entry.setId3(getNullableInt(getEntriesRs, "Id3"));
+                    entry.setCreationDate(getEntriesRs.getTimestamp("CreationDate").toLocalDateTime().atZone
+                            (Constants.TIME_ZONE));
+                    entries.add(entry);
+                }
+                getEntriesStmt.close();
+                logger.info("Claimed {} push outbox entries.", entries.size());
+            }
+        } catch (SQLException e) {
+            logger.error(LOG_SQL_EXCEPTION, e.getSQLState(), e.getErrorCode(), e.getMessage());
+            // Throw back DatabaseException to the dispatcher.
+            throw new DatabaseException("Database failure.");
+        } finally {
+            returnConnection(con);
+        }
+        logger.debug("End with entries:{}.", entries);
+        return entries;
+    }
+
+    /**
+     * Removes the entry with the given id from the push outbox. This method is called after the push message of the
+     * entry has been delivered.
+     *
+     * @param entryId The id of the entry.
+     * @throws DatabaseException If the entry couldn't be removed due to a database failure.
+     */
+    public void deleteEntry(int entryId) throws DatabaseException {
+        logger.debug("Start with entryId:{}.", entryId);
+        Connection con = null;
+        try {
+            con = getDatabaseConnection();
+            String deleteEntryQuery = "DELETE FROM PushOutbox WHERE Id=?;";
+
+            PreparedStatement deleteEntryStmt = con.prepareStatement(deleteEntryQuery);
+            deleteEntryStmt.setInt(1, entryId);
+            deleteEntryStmt.executeUpdate();
+            deleteEntryStmt.close();
+        } catch (SQLException e) {
+            logger.error(LOG_SQL_EXCEPTION, e.getSQLState(), e.getErrorCode(), e.getMessage());
+            // Throw back DatabaseException to the dispatcher.
+            throw new DatabaseException("Database failure.");
+        } finally {
+            returnConnection(con);
+        }
+        logger.debug("End.");
+    }
+
+    /**
+     * Removes all entries from the push outbox which have been claimed the given maximum number of times without
+     * being delivered. Entries whose last claim is younger than the given lease time are kept, since their delivery
+     * might still be running.
+     *
+     * @param maxAttempts The maximum number of claims per entry.
+     * @param leaseSeconds The time in seconds after which a claim expires.
+     * @return The number of removed entries.
+     * @throws DatabaseException If the entries couldn't be removed due to a database failure.
+     */
+    public int deleteFailedEntries(int maxAttempts, int leaseSeconds) throws DatabaseException {
+        logger.debug("Start with maxAttempts:{} and leaseSeconds:{}.", maxAttempts, leaseSeconds);
+        Connection con = null;
+        int rowsAffected;
+        try {
+            con = getDatabaseConnection();
+            String deleteEntriesQuery = "DELETE FROM PushOutbox WHERE Attempts>=? AND ClaimDate<?;";
+
+            // Only remove entries whose last claim has expired, i.e. which aren't being delivered right now.
+            PreparedStatement deleteEntriesStmt = con.prepareStatement(deleteEntriesQuery);
+            deleteEntriesStmt.setInt(1, maxAttempts);
+            deleteEntriesStmt.setTimestamp(2, Timestamp.from(ZonedDateTime.now(Constants.TIME_ZONE).minusSeconds
+                    (leaseSeconds).toInstant()));
+            rowsAffected = deleteEntriesStmt.executeUpdate();
+            if (rowsAffected > 0) {
+                logger.warn("Removed {} undeliverable push outbox entries.", rowsAffected);
+            }
+            deleteEntriesStmt.close();
+        } catch (SQLException e) {
+            logger.error(LOG_SQL_EXCEPTION, e.getSQLState(), e.getErrorCode(), e.getMessage());
+            // Throw back DatabaseException to the dispatcher.
+            throw new DatabaseException("Database failure.");
+        } finally {
+            returnConnection(con);
+        }
+        logger.debug("End with rowsAffected:{}.", rowsAffected);
+        return rowsAffected;
+    }
+}
@@ -9,10 +9,23 @@ import javax.mail.internet.InternetAddress;
 import javax.mail.internet.MimeMessage;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
- * The EmailManager class is a Singleton class which offers the possibility to send emails.
+ * The EmailManager class is a Singleton class which offers the possibility to send emails. The emails are queued and
+ * sent in batches by a background thread, so the requests which send emails don't wait for the mail server. All
+ * emails are sent within one session over one SMTP connection, which is kept open while emails are sent and closed
+ * after it has been idle for a while. An email which couldn't be sent is retried with an exponential backoff.
  *
  * @author Matthias Mak
  * @author Philipp Speidel
@@ -25,16 +38,107 @@ public class EmailManager {
     /** An instance of the Logger class which performs logging for the EmailManager class. */
     private static final Logger logger = LoggerFactory.getLogger(EmailManager.class);
 
+    /** The default host of the SMTP server. */
+    private static final String DEFAULT_HOST = "smtp.gmail.com";
+
+    /** The default port of the SMTP server. */
+    private static final int DEFAULT_PORT = 587;
+
+    /** The default maximum number of emails which wait for delivery. */
+    private static final int DEFAULT_QUEUE_CAPACITY = 500;
+
+    /** The default maximum number of emails which are sent in one batch. */
+    private static final int DEFAULT_BATCH_SIZE = 20;
+
+    /** The default number of attempts to send an email. */
+    private static final int DEFAULT_MAX_ATTEMPTS = 5;
+
+    /** The default delay in milliseconds before the first retry. The delay is doubled for each further retry. */
+    private static final int DEFAULT_RETRY_DELAY = 2000;
+
+    /** The maximum delay in milliseconds between two attempts to send an email. */
+    private static final int MAX_RETRY_DELAY = 60000;
+
+    /** The time in seconds after which an idle SMTP connection is closed. */
+    private static final int IDLE_TIMEOUT = 60;
+
+    /** The number of immediate attempts to send an email which is awaited by the caller. */
+    private static final int IMMEDIATE_ATTEMPTS = 3;
+
+    /** The default timeout in milliseconds of the connection and the commands to the SMTP server. */
+    private static final int DEFAULT_SMTP_TIMEOUT = 10000;
+
+    /** The time in seconds which defines how long the EmailManager waits for queued emails on shutdown. */
+    private static final int SHUTDOWN_TIMEOUT = 10;
+
     /** Username for the gmail smtp server. */
     private String username = null;
     /** Password for the gmail smtp server. */
     private String password = null;
 
+    /** The session which is used for all emails. Null if the account credentials couldn't be read. */
+    private Session session;
+
+    /** The open connection to the SMTP server. Null if there is no open connection. */
+    private Transport transport;
+
+    /** The maximum number of emails which are sent in one batch. */
+    private int batchSize = DEFAULT_BATCH_SIZE;
+
+    /** The number of attempts to send an email. */
+    private int maxAttempts = DEFAULT_MAX_ATTEMPTS;
+
+    /** The delay in milliseconds before the first retry. */
+    private int retryDelay = DEFAULT_RETRY_DELAY;
+
+    /** The emails which wait for delivery. */
+    private final LinkedBlockingQueue<QueuedEmail> queue;
+
+    /** The single thread which sends the emails. It is the only thread which uses the SMTP connection. */
+    private final ScheduledThreadPoolExecutor sender;
+
+    /** Indicates whether the sending of the queued emails is already scheduled. */
+    private final AtomicBoolean sendingScheduled = new AtomicBoolean();
+
+    /** Closes the SMTP connection after the idle timeout. Null if no closing is scheduled. */
+    private ScheduledFuture<?> idleClose;
+
     /**
      * Creates an instance of the EmailManager class.
      */
     public EmailManager() {
+        // Read the account credentials for the gmail account.
+        this(retrieveGmailCredentials());
+    }
 
+    /**
+     * Creates an instance of the EmailManager class with the given properties.
+     *
+     * @param accountCredentialsGmail The account credentials and the settings of the SMTP server. Nullable.
+     */
+    EmailManager(Properties accountCredentialsGmail) {
+        int queueCapacity = DEFAULT_QUEUE_CAPACITY;
+        if (accountCredentialsGmail != null && accountCredentialsGmail.getProperty("username") != null &&
+                accountCredentialsGmail.getProperty("password") != null) {
+            username = accountCredentialsGmail.getProperty("username");
+            password = accountCredentialsGmail.getProperty("password");
+            session = createSession(accountCredentialsGmail);
+            queueCapacity = parseIntProperty(accountCredentialsGmail, "queueCapacity", queueCapacity);
+            batchSize = parseIntProperty(accountCredentialsGmail, "batchSize", batchSize);
+            maxAttempts = parseIntProperty(accountCredentialsGmail, "maxAttempts", maxAttempts);
+            retryDelay = parseIntProperty(accountCredentialsGmail, "retryDelay", retryDelay);
+        } else {
+            logger.error("EmailManager was unable to read the account credentials of the University News Gmail " +
+                    "account from the properties object.");
+        }
+        queue = new LinkedBlockingQueue<QueuedEmail>(queueCapacity);
+        sender = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "email-sender");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // Pending retries are dropped on shutdown instead of delaying it.
+        sender.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
     }
 
     /**
@@ -50,103 +154,381 @@ public class EmailManager {
     }
 
     /**
-     * Send an email to a given recipient.
+     * Queues an email to a given recipient. The email is sent in the background.
      *
      * @param recipientMailAddress The email address of the recipient.
      * @param subject              The subject of the email.
      * @param message              The content of the email.
-     * @return Returns true if email has been sent successfully, false otherwise.
+     * @return Returns true if email has been queued successfully, false otherwise.
      */
     public boolean sendMail(String recipientMailAddress, String subject, String message) {
-        // Create a Properties object to contain settings for the SMTP protocol provider.
-        Properties props = new Properties();
-        props.put("mail.smtp.auth", "true");
-        props.put("mail.smtp.starttls.enable", "true");
-        props.put("mail.smtp.host", "smtp.gmail.com");
-        props.put("mail.smtp.port", "587");
+        if (session == null) {
+            logger.error("EmailManager can't send mails without the account credentials of the University News " +
+                    "Gmail account.");
+            return false;
+        }
+        if (!queue.offer(new QueuedEmail(recipientMailAddress, subject, message))) {
+            logger.error("EmailManager wasn't able to queue the mail. The queue is full. The receiver address is {}.",
+                    recipientMailAddress);
+            return false;
+        }
+        return scheduleSending();
+    }
 
-        // Read the account credentials for the gmail account.
-        Properties accountCredentialsGmail = retrieveGmailCredentials();
-        if(accountCredentialsGmail != null && accountCredentialsGmail.getProperty("username") != null &&
-                accountCredentialsGmail.getProperty("password") != null){
-            username = accountCredentialsGmail.getProperty("username");
-            password = accountCredentialsGmail.getProperty("password");
+    /**
+     * Sends an email to a given recipient and waits until it has been sent. This method is meant for emails which
+     * have to be delivered before the request can succeed, e.g. an email with a new password. The email is sent on
+     * the thread which sends the queued emails, so the SMTP connection is shared. It is retried immediately a few
+     * times if the connection fails. The queued emails are sent in batches with one batch per run, so the email waits
+     * at most for the batch which is currently being sent. The caller is therefore blocked at most for the SMTP
+     * timeouts of the emails of one batch and of the attempts of this email.
+     *
+     * @param recipientMailAddress The email address of the recipient.
+     * @param subject              The subject of the email.
+     * @param message              The content of the email.
+     * @return Returns true if email has been sent successfully, false otherwise.
+     */
+    public boolean sendMailAndWait(String recipientMailAddress, String subject, String message) {
+        if (session == null) {
+            logger.error("EmailManager can't send mails without the account credentials of the University News " +
+                    "Gmail account.");
+            return false;
         }
-        else{
-            logger.error("EmailManager was unable to read the account credentials of the University News Gmail " +
-                    "account from the properties object.");
+        QueuedEmail email = new QueuedEmail(recipientMailAddress, subject, message);
+        Future<Boolean> result;
+        try {
+            result = sender.submit(() -> sendEmailNow(email));
+        } catch (RejectedExecutionException e) {
+            logger.error("EmailManager has been shut down. The mail isn't sent.");
             return false;
         }
+        try {
+            // The waiting time is bounded by one batch and the SMTP timeouts. The caller must know the result.
+            return result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            logger.error("EmailManager wasn't able to send the mail.", e.getCause());
+        }
+        return false;
+    }
+
+    /**
+     * Stops accepting emails, sends the queued emails and closes the SMTP connection. Emails which wait for a retry
+     * are dropped.
+     */
+    public void shutdown() {
+        sender.shutdown();
+        try {
+            if (!sender.awaitTermination(SHUTDOWN_TIMEOUT, TimeUnit.SECONDS)) {
+                sender.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            sender.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        closeTransport();
+        if (!queue.isEmpty()) {
+            logger.warn("EmailManager dropped {} queued mail(s) on shutdown.", queue.size());
+        }
+        logger.info("EmailManager stopped.");
+    }
+
+    /**
+     * Creates the session which is used for all emails. The SMTP server can be configured in the properties file, so
+     * a local SMTP server can be used instead of the Gmail server.
+     *
+     * @param properties The properties of the EmailManager.
+     * @return The created session.
+     */
+    private Session createSession(Properties properties) {
+        // Create a Properties object to contain settings for the SMTP protocol provider.
+        Properties props = new Properties();
+        props.put("mail.smtp.auth", "true");
+        props.put("mail.smtp.starttls.enable", properties.getProperty("starttls", "true"));
+        props.put("mail.smtp.host", properties.getProperty("host", DEFAULT_HOST));
+        props.put("mail.smtp.port", String.valueOf(parseIntProperty(properties, "port", DEFAULT_PORT)));
+        // Without timeouts a hanging SMTP server would block the sending of all emails.
+        String smtpTimeout = String.valueOf(parseIntProperty(properties, "smtpTimeout", DEFAULT_SMTP_TIMEOUT));
+        props.put("mail.smtp.connectiontimeout", smtpTimeout);
+        props.put("mail.smtp.timeout", smtpTimeout);
 
         /* If SMTP authentication is required the mail.smtp.auth property must be set to true and an Authenticator
         instance needs to be created which returns a PasswordAuthentication instance with your username and password.*/
-        Authenticator authenticator = null;
-        authenticator = new Authenticator() {
+        Authenticator authenticator = new Authenticator() {
             protected PasswordAuthentication getPasswordAuthentication() {
                 return new PasswordAuthentication(username, password);
             }
         };
 
-        // Create a session instance using the properties object and the Authenticator object. Debug is set to true.
+        // Create a session instance using the properties object and the Authenticator object.
         Session session = Session.getInstance(props, authenticator);
-        session.setDebug(true);
+        session.setDebug(Boolean.parseBoolean(properties.getProperty("debug", "false")));
+        return session;
+    }
 
-        boolean isSentSuccessfully = false;
-        int transmissionAttempts = 0;
-        while(isSentSuccessfully == false && transmissionAttempts < 3){
-            // Create a message with the given subject and content. Send it to the recipient.
-            isSentSuccessfully = createAndSendMimeMessage(session, username, recipientMailAddress, subject, message);
-            transmissionAttempts++;
+    /**
+     * Schedules the sending of the queued emails if it isn't scheduled already.
+     *
+     * @return Returns true if the emails will be sent, false if the EmailManager has been shut down.
+     */
+    private boolean scheduleSending() {
+        if (sendingScheduled.compareAndSet(false, true)) {
+            try {
+                sender.execute(this::sendQueuedEmails);
+            } catch (RejectedExecutionException e) {
+                sendingScheduled.set(false);
+                logger.error("EmailManager has been shut down. The mail isn't sent.");
+                return false;
+            }
         }
+        return true;
+    }
 
-        return isSentSuccessfully;
+    /**
+     * Sends one batch of the queued emails. If further emails are queued, another run is scheduled, so emails which
+     * are awaited by their caller are sent between two batches. On shutdown all queued emails are sent in this run.
+     * The closing of the idle SMTP connection is scheduled when the queue is empty.
+     */
+    private void sendQueuedEmails() {
+        // Emails which are queued from now on require another run.
+        sendingScheduled.set(false);
+        if (idleClose != null) {
+            idleClose.cancel(false);
+            idleClose = null;
+        }
+        List<QueuedEmail> batch = new ArrayList<QueuedEmail>(batchSize);
+        do {
+            queue.drainTo(batch, batchSize);
+            sendBatch(batch);
+            batch.clear();
+        } while (sender.isShutdown() && !queue.isEmpty());
+        if (!queue.isEmpty()) {
+            scheduleSending();
+        } else if (transport != null && !sender.isShutdown()) {
+            idleClose = sender.schedule(this::closeTransport, IDLE_TIMEOUT, TimeUnit.SECONDS);
+        }
     }
 
     /**
-     * Creates a new MIME-style message with the given parameters for the specified session and sends it to the
-     * declared receiver.
+     * Sends the given emails over the SMTP connection. If the connection can't be established, all emails of the
+     * batch are retried later.
      *
-     * @param session The session which should be used to send the message.
-     * @param from The email address of the sender.
-     * @param to The email address of the recipient of the message.
-     * @param subject The subject of the message.
-     * @param message The actual content of the message.
-     * @return Returns true if message has been sent successfully, false otherwise.
-     */
-    private boolean createAndSendMimeMessage(Session session, String from, String to, String subject, String message){
-        // Create the message object.
-        Message mailMessage = new MimeMessage(session);
-        try {
-            mailMessage.setFrom(new InternetAddress(from));
-            mailMessage.setRecipient(Message.RecipientType.TO, new InternetAddress(to));
-            mailMessage.setSubject(subject);
-            mailMessage.setText(message);
-
-            Transport.send(mailMessage);
-
-            logger.info("Mail has been sent successfully to the address {} with the subject {}.", to, subject);
-            return true;
+     * @param batch The emails which should be sent.
+     */
+    private void sendBatch(List<QueuedEmail> batch) {
+        // The server may have closed the connection while it was idle.
+        if (transport != null && !transport.isConnected()) {
+            closeTransport();
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            try {
+                connectTransport();
+            } catch (MessagingException e) {
+                logger.error("EmailManager wasn't able to connect to the SMTP server. Exception message is: {}.",
+                        e.getMessage());
+                for (QueuedEmail remainingEmail : batch.subList(i, batch.size())) {
+                    retry(remainingEmail);
+                }
+                return;
+            }
+            sendEmail(batch.get(i));
+        }
+    }
 
+    /**
+     * Sends the given queued email. It is retried later if the sending has failed for a reason other than an invalid
+     * address.
+     *
+     * @param email The email which should be sent.
+     */
+    private void sendEmail(QueuedEmail email) {
+        try {
+            transmit(email);
         } catch (AddressException e) {
             logger.error("EmailManager wasn't able to send the mail. The specified address is not a valid address. " +
-                    "The receiver address is {}.", to);
+                    "The receiver address is {}.", email.to);
+        } catch (SendFailedException e) {
+            if (isAddressRejected(e)) {
+                logger.error("EmailManager wasn't able to send the mail. The receiver address {} has been rejected.",
+                        email.to);
+            } else {
+                logger.error("EmailManager wasn't able to send the mail. A SendFailedException has occurred. " +
+                        "Exception message is: {}.", e.getMessage());
+                retry(email);
+            }
         } catch (MessagingException e) {
             logger.error("EmailManager wasn't able to send the mail. A MessagingException has occurred. Exception " +
                     "message is: {}.", e.getMessage());
+            retry(email);
         }
+    }
 
+    /**
+     * Sends the given email and retries it immediately a few times if the sending fails for a reason other than an
+     * invalid address.
+     *
+     * @param email The email which should be sent.
+     * @return Returns true if email has been sent successfully, false otherwise.
+     */
+    private boolean sendEmailNow(QueuedEmail email) {
+        if (transport != null && !transport.isConnected()) {
+            closeTransport();
+        }
+        for (int attempt = 1; attempt <= IMMEDIATE_ATTEMPTS; attempt++) {
+            try {
+                connectTransport();
+                transmit(email);
+                return true;
+            } catch (AddressException e) {
+                logger.error("EmailManager wasn't able to send the mail. The specified address is not a valid " +
+                        "address. The receiver address is {}.", email.to);
+                return false;
+            } catch (SendFailedException e) {
+                if (isAddressRejected(e)) {
+                    logger.error("EmailManager wasn't able to send the mail. The receiver address {} has been " +
+                            "rejected.", email.to);
+                    return false;
+                }
+                logger.error("EmailManager wasn't able to send the mail. A SendFailedException has occurred. " +
+                        "Exception message is: {}.", e.getMessage());
+            } catch (MessagingException e) {
+                logger.error("EmailManager wasn't able to send the mail. A MessagingException has occurred. " +
+                        "Exception message is: {}.", e.getMessage());
+            }
+        }
         return false;
     }
 
+    /**
+     * Creates a new MIME-style message from the given email and sends it over the open SMTP connection. If the
+     * sending fails for a reason other than an invalid address, the connection is closed because it may be broken.
+     *
+     * @param email The email which should be sent.
+     * @throws MessagingException If the email couldn't be sent.
+     */
+    private void transmit(QueuedEmail email) throws MessagingException {
+        // Create the message object.
+        Message mailMessage = new MimeMessage(session);
+        mailMessage.setFrom(new InternetAddress(username));
+        mailMessage.setRecipient(Message.RecipientType.TO, new InternetAddress(email.to));
+        mailMessage.setSubject(email.subject);
+        mailMessage.setText(email.message);
+        try {
+            transport.sendMessage(mailMessage, mailMessage.getAllRecipients());
+        } catch (MessagingException e) {
+            if (!(e instanceof SendFailedException) || !isAddressRejected((SendFailedException) e)) {
+                // The connection may be broken, so a new one is used for the next email.
+                closeTransport();
+            }
+            throw e;
+        }
+        logger.info("Mail has been sent successfully to the address {} with the subject {}.", email.to,
+                email.subject);
+    }
+
+    /**
+     * Opens the connection to the SMTP server if there is no open connection.
+     *
+     * @throws MessagingException If the connection couldn't be established.
+     */
+    private void connectTransport() throws MessagingException {
+        if (transport != null) {
+            return;
+        }
+        Transport newTransport = session.getTransport("smtp");
+        newTransport.connect();
+        transport = newTransport;
+    }
+
+    /**
+     * Checks whether the SMTP server has rejected the address of the recipient.
+     *
+     * @param e The exception of the failed sending.
+     * @return true if the address has been rejected.
+     */
+    private boolean isAddressRejected(SendFailedException e) {
+        return e.getInvalidAddresses() != null && e.getInvalidAddresses().length > 0;
+    }
+
+    /**
+     * Queues the given email again after a delay which grows exponentially with the number of attempts. The email is
+     * dropped if the maximum number of attempts has been reached.
+     *
+     * @param email The email which couldn't be sent.
+     */
+    private void retry(QueuedEmail email) {
+        email.attempts++;
+        if (email.attempts >= maxAttempts) {
+            logger.error("EmailManager gave up sending the mail to the address {} with the subject {} after {} " +
+                    "attempts.", email.to, email.subject, email.attempts);
+            return;
+        }
+        long delay = Math.min((long) retryDelay << (email.attempts - 1), MAX_RETRY_DELAY);
+        logger.debug("Retry sending the mail to the address {} in {} ms.", email.to, delay);
+        try {
+            sender.schedule(() -> {
+                if (queue.offer(email)) {
+                    scheduleSending();
+                } else {
+                    logger.error("EmailManager wasn't able to queue the mail for a retry. The queue is full. The " +
+                            "receiver address is {}.", email.to);
+                }
+            }, delay, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            logger.error("EmailManager has been shut down. The mail to the address {} isn't retried.", email.to);
+        }
+    }
+
+    /**
+     * Closes the connection to the SMTP server if there is an open connection.
+     */
+    private void closeTransport() {
+        if (transport == null) {
+            return;
+        }
+        try {
+            transport.close();
+        } catch (MessagingException e) {
+            logger.debug("EmailManager wasn't able to close the SMTP connection properly: {}", e.getMessage());
+        }
+        transport = null;
+    }
+
+    /**
+     * Reads a positive integer property. Returns the default value if the property is missing or invalid.
+     *
+     * @param properties The properties.
+     * @param key The key of the property.
+     * @param defaultValue The default value.
+     * @return The value of the property or the default value.
+     */
+    private int parseIntProperty(Properties properties, String key, int defaultValue) {
+        String value = properties.getProperty(key);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            int parsedValue = Integer.parseInt(value.trim());
+            if (parsedValue > 0) {
+                return parsedValue;
+            }
+        } catch (NumberFormatException e) {
+            // Log below.
+        }
+        logger.warn("Invalid value {} for property {}. Use default value {}.", value, key, defaultValue);
+        return defaultValue;
+    }
+
     /**
      * Reads the properties file which contains the account credentials for the University News Gmail account.
      * Returns the properties in a Properties object.
      *
      * @return Returns Properties object, or null if reading of the properties file has failed.
      */
-    private Properties retrieveGmailCredentials(){
+    private static Properties retrieveGmailCredentials(){
         Properties userCredentialsGmail = new Properties();
-        InputStream input = getClass().getClassLoader().getResourceAsStream("EmailManager.properties");
+        InputStream input = EmailManager.class.getClassLoader().getResourceAsStream("EmailManager.properties");
         if (input == null) {
             logger.error("EmailManager could not localize the file EmailManager.properties.");
             return null;
@@ -160,4 +542,34 @@ public class EmailManager {
         return userCredentialsGmail;
     }
 
+    /**
+     * The QueuedEmail class holds an email which waits for delivery.
+     */
+    private static class QueuedEmail {
+        /** The email address of the recipient. */
+        private final String to;
+
+        /** The subject of the email. */
+        private final String subject;
+
+        /** The content of the email. */
+        private final String message;
+
+        /** The number of failed attempts to send the email. */
+        private int attempts;
+
+        /**
+         * Creates a QueuedEmail.
+         *
+         * @param to The email address of the recipient.
+         * @param subject The subject of the email.
+         * @param message The content of the email.
+         */
+        QueuedEmail(String to, String subject, String message) {
+            this.to = to;
+            this.subject = subject;
+            this.message = message;
+        }
+    }
+
 }
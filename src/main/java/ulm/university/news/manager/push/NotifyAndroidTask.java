@@ -1,16 +1,16 @@
 package ulm.university.news.manager.push;
 
-import org.apache.commons.io.IOUtils;
 import org.json.JSONObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.OutputStream;
 import java.net.HttpURLConnection;
 import java.net.URL;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * The NotifyAndroidTask class is used to send push messages to Android clients.
@@ -29,6 +29,8 @@ public class NotifyAndroidTask implements Runnable {
     String jsonPushMessage = null;
     /** The access key for the GCM server. */
     String gcmApiKey = null;
+    /** Completed when the task has finished. Completed exceptionally if a GCM message couldn't be sent. Nullable. */
+    CompletableFuture<Void> completion = null;
 
     /**
      * Creates a new NotifyAndroidTask which sends push messages to Android clients.
@@ -43,20 +45,48 @@ public class NotifyAndroidTask implements Runnable {
         this.gcmApiKey = gcmApiKey;
     }
 
+    /**
+     * Creates a new NotifyAndroidTask which sends push messages to Android clients and reports when it has finished.
+     *
+     * @param pushTokens A list of Android push tokens.
+     * @param jsonPushMessage The push message as a JSON String.
+     * @param gcmApiKey The access key for the GCM server.
+     * @param completion Completed when the task has finished. Completed exceptionally if a GCM message couldn't be
+     * sent.
+     */
+    public NotifyAndroidTask(List<String> pushTokens, String jsonPushMessage, String gcmApiKey,
+                             CompletableFuture<Void> completion) {
+        this(pushTokens, jsonPushMessage, gcmApiKey);
+        this.completion = completion;
+    }
+
     /**
      * This method runs when the NotifyAndroidTask has started.
      */
     @Override
     public void run() {
         logger.debug("Started. Notifying Android clients.");
-        notifyAndroid();
+        boolean sent = false;
+        try {
+            sent = notifyAndroid();
+        } finally {
+            if (completion != null) {
+                if (sent) {
+                    completion.complete(null);
+                } else {
+                    completion.completeExceptionally(new IOException("Unable to send GCM message."));
+                }
+            }
+        }
     }
 
     /**
      * Creates a GCM JSON message and ensures that each push access token will be included. Sends the given JSON push
      * message to the Android clients.
+     *
+     * @return true if all GCM messages have been sent, false otherwise.
      */
-    private void notifyAndroid() {
+    private boolean notifyAndroid() {
         // Prepare JSON containing the GCM message content.
         JSONObject jGcmData = new JSONObject();
         JSONObject jData = new JSONObject();
@@ -65,6 +95,7 @@ public class NotifyAndroidTask implements Runnable {
         // Set GCM message content.
         jGcmData.put("data", jData);
 
+        boolean sent = true;
         // Send message to a maximum of 1000 recipients per GCM message.
         while (pushTokens.size() > 1000) {
             // Send push messages while there are still unnotified recipients.
@@ -73,12 +104,13 @@ public class NotifyAndroidTask implements Runnable {
             // Remove notified recipients to get remaining push tokens.
             pushTokens = pushTokens.subList(1000, pushTokens.size());
             // Send message to GCM server.
-            sendAndroid(jGcmData);
+            sent &= sendAndroid(jGcmData);
         }
         logger.debug("Recipient number < 1000");
         jGcmData.put("registration_ids", pushTokens);
         // Send message to GCM server.
-        sendAndroid(jGcmData);
+        sent &= sendAndroid(jGcmData);
+        return sent;
     }
 
     /**
@@ -86,32 +118,34 @@ public class NotifyAndroidTask implements Runnable {
      * to a Google Cloud Messaging (GCM) server. The GCM server will forward the messages to the Android app.
      *
      * @param jGcmData The GCM JSON message which contains the message data and the recipients.
+     * @return true if the GCM server has accepted the message, false otherwise.
      */
-    private void sendAndroid(JSONObject jGcmData) {
+    private boolean sendAndroid(JSONObject jGcmData) {
         try {
-            // Create connection to send GCM Message request.
-            URL url = new URL("https://android.googleapis.com/gcm/send");
-            HttpURLConnection conn = (HttpURLConnection) url.openConnection();
-            conn.setRequestProperty("Authorization", "key=" +gcmApiKey);
-            conn.setRequestProperty("Content-Type", "application/json");
-            conn.setRequestMethod("POST");
-            conn.setDoOutput(true);
+            // Send GCM message request over the shared keep-alive connection.
+            URL url = PushManager.getInstance().getGcmUrl();
+            Map<String, String> headers = new HashMap<>();
+            headers.put("Authorization", "key=" + gcmApiKey);
+            headers.put("Content-Type", "application/json");
+            PushHttpClient.Response response = PushManager.getInstance().getHttpClient().post(url, headers,
+                    jGcmData.toString());
 
-            // Send GCM message content.
-            OutputStream outputStream = conn.getOutputStream();
-            outputStream.write(jGcmData.toString().getBytes());
             // Read GCM response.
-
-            InputStream inputStream = conn.getInputStream();
-            String resp = IOUtils.toString(inputStream);
+            String resp = response.getBody();
             logger.debug("GCM response: {}", resp);
+            if (response.getStatusCode() != HttpURLConnection.HTTP_OK) {
+                logger.error("Unable to send GCM message. Response code is: {}.", response.getStatusCode());
+                return false;
+            }
 
             // Extract number of successfully sent messages.
             resp = resp.split("\"success\":")[1].split(",\"failure\"")[0];
             logger.info("Push message send to {} Android client(s).", resp);
+            return true;
         } catch (IOException e) {
             logger.error("Unable to send GCM message.");
             e.printStackTrace();
+            return false;
         }
     }
 }
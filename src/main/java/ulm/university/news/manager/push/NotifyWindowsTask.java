@@ -5,11 +5,13 @@ import org.slf4j.LoggerFactory;
 import ulm.university.news.util.Constants;
 
 import java.io.IOException;
-import java.io.OutputStream;
 import java.net.HttpURLConnection;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * The NotifyWindowsTask class is used to send push messages to Windows clients.
@@ -26,6 +28,8 @@ public class NotifyWindowsTask implements Runnable {
     List<String> pushTokens = null;
     /** The push message as a JSON String. */
     String jsonPushMessage = null;
+    /** Completed when the notification of all clients has finished. Nullable. */
+    CompletableFuture<Void> completion = null;
 
     /**
      * Creates a new NotifyWindowsTask which sends push messages to Windows clients.
@@ -39,70 +43,90 @@ public class NotifyWindowsTask implements Runnable {
     }
 
     /**
-     * This method runs when the NotifyWindowsTask has started.
+     * Creates a new NotifyWindowsTask which sends push messages to Windows clients and reports when it has finished.
+     *
+     * @param pushTokens A list of Windows push tokens.
+     * @param jsonPushMessage The push message as a JSON String.
+     * @param completion Completed when the notification of all clients has finished. Completed exceptionally if the
+     * notification has been aborted.
+     */
+    public NotifyWindowsTask(List<String> pushTokens, String jsonPushMessage, CompletableFuture<Void> completion) {
+        this(pushTokens, jsonPushMessage);
+        this.completion = completion;
+    }
+
+    /**
+     * This method runs when the NotifyWindowsTask has started. The notifications are sent by the fan-out, so the
+     * method returns without waiting for them.
      */
     @Override
     public void run() {
         logger.debug("Started. Notifying Windows clients.");
-        notifyWindows();
+        try {
+            notifyWindows();
+        } catch (RuntimeException e) {
+            complete(e);
+            throw e;
+        }
     }
 
     /**
-     * Sends the given JSON push message to the Windows clients which are identified by the given push tokens.
-     *
+     * Sends the given JSON push message to the Windows clients which are identified by the given push tokens. The
+     * result is logged when the fan-out has finished.
      */
     private void notifyWindows() {
         // Check if there is at least one recipients. Do nothing if there is non.
         if (pushTokens.isEmpty()) {
             logger.info("No Windows push tokens given. No Windows Phone user will be notified.");
+            complete(null);
             return;
         }
         logger.info("Got a list of {} windows push tokens.", pushTokens.size());
 
         // Read the access token.
-        String accessToken;
-        accessToken = PushManager.getInstance().getWnsAccessToken();
+        String accessToken = PushManager.getInstance().getWnsAccessToken();
 
         if (accessToken == null) {
             // Request a new access token and store it in the variable.
             PushManager.getInstance().setWnsAccessToken();
         }
 
-        // If sending fails, retry just once according to the best practices.
-        int maxRetries = 2;
-        int amountOfSuccessfulPushs = 0;
-        for (String pushToken : pushTokens) {
-            boolean successful = false;
-            int attempts = 0;
-            while (!successful && attempts < maxRetries) {
-                accessToken = PushManager.getInstance().getWnsAccessToken();
-                // Try to send the push notification to the device identified by the given push token.
-                int statusCode = sendWindowsRawNotification(pushToken, jsonPushMessage, accessToken);
-                switch(statusCode)
-                {
-                    case Constants.WIN_PUSH_MSG_SENT_SUCCESSFULLY:
-                        successful = true;
-                        break;
-                    case Constants.WIN_PUSH_MSG_SENDING_FAILED_RETRY_POSSIBLE:
-                        successful = false;
-                        break;
-                    case Constants.WIN_PUSH_MSG_SENDING_FAILED_RETRY_NOT_RECOMMENDED:
-                        successful = false;
-                        attempts = maxRetries;  // Prevent further tries.
-                        break;
-                }
-                attempts++;
-            }
+        // Send to all clients in parallel. Failed sends are retried by the fan-out.
+        PushManager.getInstance().getWindowsFanOut().fanOut(pushTokens, pushToken -> sendWindowsRawNotification
+                (pushToken, jsonPushMessage, PushManager.getInstance().getWnsAccessToken())).whenComplete
+                (this::onFanOutFinished);
+    }
 
-            if (successful) {
-                amountOfSuccessfulPushs++;
-                logger.debug("Successfully sent the push notification to the client identified by the push token: {}" +
-                        ".", pushToken);
-            } else {
-                logger.debug("Sending to token:{} has failed.", pushToken);
-            }
+    /**
+     * Logs the result of the fan-out and completes the task.
+     *
+     * @param result The result of the fan-out or null if it has failed.
+     * @param failure The cause if the fan-out has failed, null otherwise.
+     */
+    private void onFanOutFinished(PushDeliveryResult result, Throwable failure) {
+        if (failure != null) {
+            logger.error("Notification of the windows clients has failed.", failure);
+        } else {
+            logger.info("Push messages send to {} windows client(s). Sending to {} client(s) has failed.", result
+                    .getSuccessful(), result.getFailed());
+        }
+        complete(failure);
+    }
+
+    /**
+     * Completes the completion future of the task if there is one.
+     *
+     * @param failure The cause if the notification has been aborted, null otherwise.
+     */
+    private void complete(Throwable failure) {
+        if (completion == null) {
+            return;
+        }
+        if (failure == null) {
+            completion.complete(null);
+        } else {
+            completion.completeExceptionally(failure);
         }
-        logger.info("Push messages send to {} windows client(s).", amountOfSuccessfulPushs);
     }
 
     /**
@@ -118,22 +142,16 @@ public class NotifyWindowsTask implements Runnable {
         int statusCode = Constants.WIN_PUSH_MSG_SENT_SUCCESSFULLY;
         try {
             URL urlFromToken = new URL(pushToken);
-            HttpURLConnection conn = (HttpURLConnection) urlFromToken.openConnection();
-            conn.setRequestMethod("POST");
-            conn.setRequestProperty("X-WNS-Type", "wns/raw");
-            conn.setRequestProperty("X-WNS-Cache-Policy", "cache");
-            conn.setRequestProperty("Content-Type", "application/octet-stream");
-            conn.setRequestProperty("Authorization", String.format("Bearer %s", accessToken));
-            conn.setDoOutput(true);
-
-            // Write the HTTP request content.
-            OutputStream out = conn.getOutputStream();
-            out.write(content.getBytes());
-            out.flush();
-            out.close();
-
-            // Read the response.
-            int responseCode = conn.getResponseCode();
+            Map<String, String> headers = new HashMap<>();
+            headers.put("X-WNS-Type", "wns/raw");
+            headers.put("X-WNS-Cache-Policy", "cache");
+            headers.put("Content-Type", "application/octet-stream");
+            headers.put("Authorization", String.format("Bearer %s", accessToken));
+
+            // Send the request over the shared keep-alive connection and read the response.
+            PushHttpClient.Response response = PushManager.getInstance().getHttpClient().post(urlFromToken, headers,
+                    content);
+            int responseCode = response.getStatusCode();
             switch (responseCode) {
                 case HttpURLConnection.HTTP_UNAUTHORIZED:
                     logger.warn("The raw notification request to the WNS has failed. The access token is invalid.");
@@ -159,9 +177,9 @@ public class NotifyWindowsTask implements Runnable {
                     break;
                 default:
                     logger.error("Could not send push notification: Response code is: {}, debug trace is: {}, error " +
-                            "description is {}, msg id: {}, wns status: {}.", responseCode, conn.getHeaderField
-                            ("X-WNS-Debug-Trace"), conn.getHeaderField("X-WNS-Error-Description"), conn
-                            .getHeaderField("X-WNS-Msg-ID"), conn.getHeaderField("X-WNS-Status"));
+                            "description is {}, msg id: {}, wns status: {}.", responseCode, response.getHeader
+                            ("X-WNS-Debug-Trace"), response.getHeader("X-WNS-Error-Description"), response
+                            .getHeader("X-WNS-Msg-ID"), response.getHeader("X-WNS-Status"));
                     statusCode = Constants.WIN_PUSH_MSG_SENDING_FAILED_RETRY_POSSIBLE;
                     break;
             }
@@ -0,0 +1,149 @@
+package ulm.university.news.manager.push;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ulm.university.news.data.enums.Platform;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The PushDeliveryExecutor class executes notification tasks on bounded worker pools. Each platform has its own lane
+ * with a fixed number of worker threads and a bounded queue, so a burst of push messages for one platform can't
+ * exhaust the threads or the memory of the server and doesn't delay the delivery to other platforms. If the queue of
+ * a lane is full, the configured rejection policy decides whether the submitting thread runs the task itself
+ * (backpressure) or whether the task is discarded. The caller is told whether a task has been discarded, so it can
+ * retry the delivery later.
+ *
+ * @author Matthias Mak
+ * @author Philipp Speidel
+ */
+public class PushDeliveryExecutor {
+
+    /** The logger instance for PushDeliveryExecutor. */
+    private static final Logger logger = LoggerFactory.getLogger(PushDeliveryExecutor.class);
+
+    /** The rejection policy which lets the submitting thread run the task if the queue is full. */
+    public static final String POLICY_CALLER_RUNS = "callerRuns";
+
+    /** The rejection policy which discards the task if the queue is full. */
+    public static final String POLICY_DISCARD = "discard";
+
+    /** The default number of worker threads per platform lane. */
+    public static final int DEFAULT_POOL_SIZE = 4;
+
+    /** The default capacity of the task queue per platform lane. */
+    public static final int DEFAULT_QUEUE_CAPACITY = 100;
+
+    /** The worker pools (lanes) for each platform. */
+    private final Map<Platform, ThreadPoolExecutor> lanes = new EnumMap<>(Platform.class);
+
+    /**
+     * Creates a PushDeliveryExecutor with one lane for each platform.
+     *
+     * @param poolSize The number of worker threads per lane.
+     * @param queueCapacity The maximum number of waiting tasks per lane.
+     * @param rejectionPolicy The policy which is applied if a lane is saturated. Either callerRuns or discard.
+     */
+    public PushDeliveryExecutor(int poolSize, int queueCapacity, String rejectionPolicy) {
+        RejectedExecutionHandler rejectionHandler;
+        if (POLICY_DISCARD.equalsIgnoreCase(rejectionPolicy)) {
+            rejectionHandler = (task, executor) -> {
+                throw new RejectedExecutionException("Push delivery queue is full.");
+            };
+        } else {
+            // Default: Slow down the producer instead of losing notifications.
+            rejectionHandler = (task, executor) -> {
+                if (executor.isShutdown()) {
+                    throw new RejectedExecutionException("Push delivery lane is shut down.");
+                }
+                task.run();
+            };
+        }
+        for (Platform platform : Platform.values) {
+            ThreadPoolExecutor lane = new ThreadPoolExecutor(poolSize, poolSize, 60L, TimeUnit.SECONDS,
+                    new ArrayBlockingQueue<>(queueCapacity), new LaneThreadFactory(platform), rejectionHandler);
+            // Idle lanes don't keep any threads alive.
+            lane.allowCoreThreadTimeOut(true);
+            lanes.put(platform, lane);
+        }
+        logger.info("Push delivery lanes created with pool size {}, queue capacity {} and rejection policy {}.",
+                poolSize, queueCapacity, rejectionPolicy);
+    }
+
+    /**
+     * Submits the given notification task to the lane of the given platform.
+     *
+     * @param platform The platform of the notified clients.
+     * @param task The notification task.
+     * @return true if the task has been queued or run, false if it has been discarded.
+     */
+    public boolean execute(Platform platform, Runnable task) {
+        ThreadPoolExecutor lane = lanes.get(platform);
+        try {
+            lane.execute(task);
+            return true;
+        } catch (RejectedExecutionException e) {
+            logger.warn("Push delivery lane for {} has discarded a notification task. {}", platform, e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Stops accepting new notification tasks and waits until the already submitted tasks have been delivered or the
+     * given timeout has elapsed. Remaining tasks are cancelled afterwards.
+     *
+     * @param timeout The maximum time to wait for the delivery of submitted tasks.
+     * @param unit The time unit of the timeout.
+     */
+    public void shutdown(long timeout, TimeUnit unit) {
+        for (ThreadPoolExecutor lane : lanes.values()) {
+            lane.shutdown();
+        }
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        for (Map.Entry<Platform, ThreadPoolExecutor> lane : lanes.entrySet()) {
+            try {
+                long remaining = deadline - System.nanoTime();
+                if (!lane.getValue().awaitTermination(Math.max(remaining, 0L), TimeUnit.NANOSECONDS)) {
+                    int dropped = lane.getValue().shutdownNow().size();
+                    logger.warn("Push delivery lane for {} didn't drain in time. {} task(s) dropped.", lane.getKey(),
+                            dropped);
+                }
+            } catch (InterruptedException e) {
+                lane.getValue().shutdownNow();
+                Thread.currentThread().interrupt();
+            }
+        }
+        logger.info("Push delivery lanes have been shut down.");
+    }
+
+    /**
+     * The LaneThreadFactory creates named daemon threads for a platform lane.
+     */
+    private static class LaneThreadFactory implements ThreadFactory {
+
+        /** The name prefix of the created threads. */
+        private final String namePrefix;
+
+        /** Counts the created threads. */
+        private final AtomicInteger threadNumber = new AtomicInteger(1);
+
+        /**
+         * Creates a LaneThreadFactory for the given platform.
+         *
+         * @param platform The platform of the lane.
+         */
+        LaneThreadFactory(Platform platform) {
+            namePrefix = "push-" + platform.name().toLowerCase() + "-";
+        }
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, namePrefix + threadNumber.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
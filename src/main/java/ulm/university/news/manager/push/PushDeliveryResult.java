@@ -0,0 +1,47 @@
+package ulm.university.news.manager.push;
+
+/**
+ * The PushDeliveryResult class holds the aggregated outcome of sending one push message to multiple clients.
+ *
+ * @author Matthias Mak
+ * @author Philipp Speidel
+ */
+public class PushDeliveryResult {
+
+    /** The number of clients which have been notified successfully. */
+    private final int successful;
+
+    /** The number of clients which couldn't be notified. */
+    private final int failed;
+
+    /**
+     * Creates a PushDeliveryResult with the given numbers.
+     *
+     * @param successful The number of clients which have been notified successfully.
+     * @param failed The number of clients which couldn't be notified.
+     */
+    public PushDeliveryResult(int successful, int failed) {
+        this.successful = successful;
+        this.failed = failed;
+    }
+
+    public int getSuccessful() {
+        return successful;
+    }
+
+    public int getFailed() {
+        return failed;
+    }
+
+    public int getTotal() {
+        return successful + failed;
+    }
+
+    @Override
+    public String toString() {
+        return "PushDeliveryResult{" +
+                "successful=" + successful +
+                ", failed=" + failed +
+                '}';
+    }
+}
@@ -0,0 +1,193 @@
+package ulm.university.news.manager.push;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ulm.university.news.util.Constants;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.ToIntFunction;
+
+/**
+ * The PushFanOut class sends one push message to many clients in parallel. The sends are executed on a shared worker
+ * pool whose size limits the number of concurrent requests. Failed sends which may be retried are not retried inline
+ * but are rescheduled on a shared retry scheduler, so a worker thread never waits for a retry. The outcome of all
+ * sends is reported as one aggregated PushDeliveryResult. The number of fan-outs which are in progress at the same
+ * time is limited. A fan-out which exceeds this limit is rejected, so callers which don't wait for the fan-out can't
+ * pile up an unlimited number of sends.
+ *
+ * @author Matthias Mak
+ * @author Philipp Speidel
+ */
+public class PushFanOut {
+
+    /** The logger instance for PushFanOut. */
+    private static final Logger logger = LoggerFactory.getLogger(PushFanOut.class);
+
+    /** The default number of concurrent sends. */
+    public static final int DEFAULT_CONCURRENCY = 8;
+
+    /** The default number of fan-outs which can be in progress at the same time. */
+    public static final int DEFAULT_MAX_PENDING_FAN_OUTS = 100;
+
+    /** The default number of send attempts per client. According to the best practices retry just once. */
+    public static final int DEFAULT_MAX_ATTEMPTS = 2;
+
+    /** The default delay in milliseconds before a failed send is retried. */
+    public static final int DEFAULT_RETRY_DELAY = 1000;
+
+    /** Executes the sends. The pool size is the concurrency limit. */
+    private final ThreadPoolExecutor sendExecutor;
+
+    /** Limits the number of fan-outs which are in progress at the same time. */
+    private final Semaphore fanOutPermits;
+
+    /** Schedules the retries of failed sends. */
+    private final ScheduledExecutorService retryScheduler;
+
+    /** The maximum number of send attempts per client. */
+    private final int maxAttempts;
+
+    /** The delay in milliseconds before a failed send is retried. */
+    private final long retryDelay;
+
+    /**
+     * Creates a PushFanOut with the given limits.
+     *
+     * @param concurrency The maximum number of concurrent sends.
+     * @param maxPendingFanOuts The maximum number of fan-outs which can be in progress at the same time.
+     * @param maxAttempts The maximum number of send attempts per client.
+     * @param retryDelay The delay in milliseconds before a failed send is retried.
+     */
+    public PushFanOut(int concurrency, int maxPendingFanOuts, int maxAttempts, long retryDelay) {
+        this.maxAttempts = maxAttempts;
+        fanOutPermits = new Semaphore(maxPendingFanOuts);
+        this.retryDelay = retryDelay;
+        AtomicInteger threadNumber = new AtomicInteger(1);
+        sendExecutor = new ThreadPoolExecutor(concurrency, concurrency, 60L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "push-fan-out-" + threadNumber.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+        sendExecutor.allowCoreThreadTimeOut(true);
+        retryScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "push-retry");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Sends a push message to each of the given push tokens in parallel. The given sender performs a single send and
+     * returns one of the WIN_PUSH_MSG status codes defined in the Constants class. If the maximum number of fan-outs
+     * is already in progress, no push message is sent and the returned future is completed exceptionally with a
+     * RejectedExecutionException.
+     *
+     * @param pushTokens The push tokens which identify the clients.
+     * @param sender Sends the push message to the client identified by the given push token.
+     * @return A future which completes with the aggregated result when all sends are finished.
+     */
+    public CompletableFuture<PushDeliveryResult> fanOut(List<String> pushTokens, ToIntFunction<String> sender) {
+        if (!fanOutPermits.tryAcquire()) {
+            logger.warn("Fan-out to {} token(s) has been rejected. Too many fan-outs in progress.", pushTokens.size());
+            CompletableFuture<PushDeliveryResult> rejected = new CompletableFuture<>();
+            rejected.completeExceptionally(new RejectedExecutionException("Too many push fan-outs in progress."));
+            return rejected;
+        }
+        AtomicInteger successful = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+        List<CompletableFuture<Void>> sends = new ArrayList<>(pushTokens.size());
+        for (String pushToken : pushTokens) {
+            CompletableFuture<Boolean> send = new CompletableFuture<>();
+            submit(pushToken, sender, 1, send);
+            sends.add(send.thenAccept(sent -> {
+                if (sent) {
+                    successful.incrementAndGet();
+                } else {
+                    failed.incrementAndGet();
+                }
+            }));
+        }
+        return CompletableFuture.allOf(sends.toArray(new CompletableFuture<?>[0])).whenComplete((v, failure) ->
+                fanOutPermits.release()).thenApply(v -> new PushDeliveryResult(successful.get(), failed.get()));
+    }
+
+    /**
+     * Submits a send attempt to the worker pool.
+     *
+     * @param pushToken The push token which identifies the client.
+     * @param sender Sends the push message to the client.
+     * @param attempt The number of this attempt, starting with 1.
+     * @param send The future which is completed with the outcome of the send.
+     */
+    private void submit(String pushToken, ToIntFunction<String> sender, int attempt, CompletableFuture<Boolean> send) {
+        try {
+            sendExecutor.execute(() -> attempt(pushToken, sender, attempt, send));
+        } catch (RejectedExecutionException e) {
+            logger.warn("Send to token:{} has been rejected. Fan-out is shut down.", pushToken);
+            send.complete(false);
+        }
+    }
+
+    /**
+     * Performs a send attempt and schedules a retry if the send has failed and a retry is possible.
+     *
+     * @param pushToken The push token which identifies the client.
+     * @param sender Sends the push message to the client.
+     * @param attempt The number of this attempt, starting with 1.
+     * @param send The future which is completed with the outcome of the send.
+     */
+    private void attempt(String pushToken, ToIntFunction<String> sender, int attempt, CompletableFuture<Boolean> send) {
+        int statusCode;
+        try {
+            statusCode = sender.applyAsInt(pushToken);
+        } catch (RuntimeException e) {
+            logger.error("Unexpected error while sending to token:{}.", pushToken, e);
+            statusCode = Constants.WIN_PUSH_MSG_SENDING_FAILED_RETRY_NOT_RECOMMENDED;
+        }
+        if (statusCode == Constants.WIN_PUSH_MSG_SENT_SUCCESSFULLY) {
+            logger.debug("Successfully sent the push notification to the client identified by the push token: {}.",
+                    pushToken);
+            send.complete(true);
+        } else if (statusCode == Constants.WIN_PUSH_MSG_SENDING_FAILED_RETRY_POSSIBLE && attempt < maxAttempts) {
+            try {
+                retryScheduler.schedule(() -> submit(pushToken, sender, attempt + 1, send), retryDelay,
+                        TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                logger.warn("Retry to token:{} has been rejected. Fan-out is shut down.", pushToken);
+                send.complete(false);
+            }
+        } else {
+            logger.debug("Sending to token:{} has failed.", pushToken);
+            send.complete(false);
+        }
+    }
+
+    /**
+     * Stops accepting new sends and waits until the already submitted sends have been finished or the given timeout
+     * has elapsed. Pending retries are not sent anymore but reported as failed.
+     *
+     * @param timeout The maximum time to wait for submitted sends.
+     * @param unit The time unit of the timeout.
+     */
+    public void shutdown(long timeout, TimeUnit unit) {
+        // Pending retries still run after shutdown, but their sends are rejected and reported as failed.
+        sendExecutor.shutdown();
+        retryScheduler.shutdown();
+        try {
+            long deadline = System.nanoTime() + unit.toNanos(timeout);
+            if (!sendExecutor.awaitTermination(timeout, unit)) {
+                int dropped = sendExecutor.shutdownNow().size();
+                logger.warn("Push fan-out didn't finish in time. {} send(s) dropped.", dropped);
+            }
+            retryScheduler.awaitTermination(Math.max(deadline - System.nanoTime(), 0L), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            sendExecutor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        retryScheduler.shutdownNow();
+    }
+}
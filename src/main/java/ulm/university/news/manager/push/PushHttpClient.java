@@ -0,0 +1,181 @@
+package ulm.university.news.manager.push;
+
+import org.apache.commons.io.IOUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The PushHttpClient class is a shared HTTP client which is used to send requests to the push servers (GCM and WNS).
+ * The client always reads and closes the response and error streams completely. Only then the underlying connection
+ * is returned to the keep-alive cache of the JVM and can be reused by subsequent requests to the same host, which
+ * avoids a new TLS handshake for every push message. The keep-alive cache of the JVM keeps at most
+ * {@code http.maxConnections} idle connections per host, five by default. Concurrent requests beyond this limit are
+ * sent on connections which are closed afterwards, so the system property should be at least as high as the number
+ * of concurrent sends to one push server. Connect and read timeouts are configurable. The target URL is used as is,
+ * so the client can be tested against a local stub HTTP server.
+ *
+ * @author Matthias Mak
+ * @author Philipp Speidel
+ */
+public class PushHttpClient {
+
+    /** The logger instance for PushHttpClient. */
+    private static final Logger logger = LoggerFactory.getLogger(PushHttpClient.class);
+
+    /** The default timeout in milliseconds for establishing a connection. */
+    public static final int DEFAULT_CONNECT_TIMEOUT = 10000;
+
+    /** The default timeout in milliseconds for reading the response. */
+    public static final int DEFAULT_READ_TIMEOUT = 30000;
+
+    /** The default number of idle connections per host which are kept alive by the JVM. */
+    private static final int DEFAULT_MAX_IDLE_CONNECTIONS = 5;
+
+    /** The timeout in milliseconds for establishing a connection. */
+    private final int connectTimeout;
+
+    /** The timeout in milliseconds for reading the response. */
+    private final int readTimeout;
+
+    /**
+     * Creates a PushHttpClient with the given timeouts.
+     *
+     * @param connectTimeout The timeout in milliseconds for establishing a connection.
+     * @param readTimeout The timeout in milliseconds for reading the response.
+     */
+    public PushHttpClient(int connectTimeout, int readTimeout) {
+        this.connectTimeout = connectTimeout;
+        this.readTimeout = readTimeout;
+    }
+
+    /**
+     * Gets the number of idle connections per host which are kept alive by the JVM. The value is defined by the
+     * system property {@code http.maxConnections}.
+     *
+     * @return The maximum number of idle connections per host.
+     */
+    public static int getMaxIdleConnections() {
+        int maxConnections = Integer.getInteger("http.maxConnections", DEFAULT_MAX_IDLE_CONNECTIONS);
+        return maxConnections > 0 ? maxConnections : DEFAULT_MAX_IDLE_CONNECTIONS;
+    }
+
+    /**
+     * Sends a POST request with the given headers and content to the given URL and returns the response. The
+     * connection is kept alive for reuse.
+     *
+     * @param url The target URL of the request.
+     * @param headers The request headers.
+     * @param content The content of the request.
+     * @return The response of the server.
+     * @throws IOException If the request couldn't be sent or the response couldn't be read.
+     */
+    public Response post(URL url, Map<String, String> headers, String content) throws IOException {
+        HttpURLConnection conn = (HttpURLConnection) url.openConnection();
+        conn.setConnectTimeout(connectTimeout);
+        conn.setReadTimeout(readTimeout);
+        conn.setRequestMethod("POST");
+        conn.setRequestProperty("Connection", "keep-alive");
+        for (Map.Entry<String, String> header : headers.entrySet()) {
+            conn.setRequestProperty(header.getKey(), header.getValue());
+        }
+        conn.setDoOutput(true);
+
+        // Write the HTTP request content.
+        byte[] body = content.getBytes(StandardCharsets.UTF_8);
+        conn.setFixedLengthStreamingMode(body.length);
+        try (OutputStream out = conn.getOutputStream()) {
+            out.write(body);
+        }
+
+        // Read the whole response, otherwise the connection can't be reused.
+        int responseCode;
+        String responseBody;
+        try {
+            responseCode = conn.getResponseCode();
+            responseBody = readFully(responseCode < HttpURLConnection.HTTP_BAD_REQUEST ? conn.getInputStream() :
+                    conn.getErrorStream());
+        } catch (IOException e) {
+            // Drain the error stream so that the connection can still be reused if possible.
+            readFully(conn.getErrorStream());
+            throw e;
+        }
+        logger.debug("POST {} returned response code {}.", url.getHost(), responseCode);
+        return new Response(responseCode, responseBody, conn.getHeaderFields());
+    }
+
+    /**
+     * Reads the given stream completely and closes it.
+     *
+     * @param inputStream The stream which should be read. Nullable.
+     * @return The content of the stream or an empty string if there is no stream.
+     * @throws IOException If the stream couldn't be read.
+     */
+    private String readFully(InputStream inputStream) throws IOException {
+        if (inputStream == null) {
+            return "";
+        }
+        try (InputStream in = inputStream) {
+            return IOUtils.toString(in, StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * The Response class holds the status code, the content and the headers of a response.
+     */
+    public static class Response {
+
+        /** The HTTP status code of the response. */
+        private final int statusCode;
+
+        /** The content of the response. */
+        private final String body;
+
+        /** The headers of the response. */
+        private final Map<String, List<String>> headers;
+
+        /**
+         * Creates a Response with the given values.
+         *
+         * @param statusCode The HTTP status code of the response.
+         * @param body The content of the response.
+         * @param headers The headers of the response.
+         */
+        public Response(int statusCode, String body, Map<String, List<String>> headers) {
+            this.statusCode = statusCode;
+            this.body = body;
+            this.headers = headers;
+        }
+
+        public int getStatusCode() {
+            return statusCode;
+        }
+
+        public String getBody() {
+            return body;
+        }
+
+        /**
+         * Returns the first value of the header with the given name.
+         *
+         * @param name The name of the header.
+         * @return The value of the header or null if the header isn't set.
+         */
+        public String getHeader(String name) {
+            for (Map.Entry<String, List<String>> header : headers.entrySet()) {
+                if (name.equalsIgnoreCase(header.getKey()) && !header.getValue().isEmpty()) {
+                    return header.getValue().get(0);
+                }
+            }
+            return null;
+        }
+    }
+}
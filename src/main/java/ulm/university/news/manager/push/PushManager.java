@@ -7,19 +7,21 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import ulm.university.news.data.PushMessage;
 import ulm.university.news.data.User;
+import ulm.university.news.data.enums.Platform;
 import ulm.university.news.data.enums.PushType;
 
-import java.io.*;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UnsupportedEncodingException;
 import java.net.HttpURLConnection;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.net.URLEncoder;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Properties;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
@@ -61,12 +63,36 @@ public class PushManager {
     /** A reference for the PushManager Singleton class. */
     private static PushManager _instance = new PushManager();
 
-    /** Schedules active PushMessageTasks. */
-    private static final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+    /** Schedules active PushMessageTasks. Scheduled tasks still run after a shutdown, so no push message is lost. */
+    private static final ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1);
 
     /** The time in seconds which defines how long the PushManager waits for other push messages. */
     private static final int CACHING_DELAY = 5;
 
+    /** The default URL of the GCM server which receives the push messages for Android clients. */
+    public static final String DEFAULT_GCM_URL = "https://android.googleapis.com/gcm/send";
+
+    /** The default URL of the WNS endpoint which issues access tokens. */
+    public static final String DEFAULT_WNS_TOKEN_URL = "https://login.live.com/accesstoken.srf";
+
+    /** The time in seconds which defines how long the PushManager waits for pending notifications on shutdown. */
+    private static final int SHUTDOWN_TIMEOUT = 10;
+
+    /** Executes the notification tasks on bounded worker pools. */
+    private PushDeliveryExecutor deliveryExecutor;
+
+    /** The shared HTTP client which sends requests to the push servers. */
+    private PushHttpClient httpClient;
+
+    /** Sends push messages to many Windows clients in parallel. */
+    private PushFanOut windowsFanOut;
+
+    /** The URL of the GCM server which receives the push messages for Android clients. */
+    private URL gcmUrl;
+
+    /** The URL of the WNS endpoint which issues access tokens. */
+    private URL wnsTokenUrl;
+
     /**
      * Creates an Instance of the PushManager class.
      */
@@ -83,6 +109,178 @@ public class PushManager {
         if (GCM_API_KEY == null) {
             logger.error("PushManager was unable to read the GCM API key of the properties object.");
         }
+        deliveryExecutor = createDeliveryExecutor(pushCredentials);
+        httpClient = createHttpClient(pushCredentials);
+        windowsFanOut = createWindowsFanOut(pushCredentials);
+        gcmUrl = parseUrlProperty(pushCredentials, "gcmUrl", DEFAULT_GCM_URL);
+        wnsTokenUrl = parseUrlProperty(pushCredentials, "wnsTokenUrl", DEFAULT_WNS_TOKEN_URL);
+    }
+
+    /**
+     * Reads a URL from the given properties.
+     *
+     * @param properties The properties which contain the URL. Nullable.
+     * @param key The key of the URL.
+     * @param defaultValue The URL which is used if the property isn't set or invalid.
+     * @return The read URL or the default URL.
+     */
+    private URL parseUrlProperty(Properties properties, String key, String defaultValue) {
+        String value = properties != null ? properties.getProperty(key) : null;
+        if (value != null) {
+            try {
+                return new URL(value.trim());
+            } catch (MalformedURLException e) {
+                logger.warn("Invalid value {} for property {}. Use default value {}.", value, key, defaultValue);
+            }
+        }
+        try {
+            return new URL(defaultValue);
+        } catch (MalformedURLException e) {
+            throw new IllegalStateException("Invalid default URL " + defaultValue + ".", e);
+        }
+    }
+
+    /**
+     * Gets the URL of the GCM server which receives the push messages for Android clients.
+     *
+     * @return The URL of the GCM server.
+     */
+    public URL getGcmUrl() {
+        return gcmUrl;
+    }
+
+    /**
+     * Creates the PushFanOut which sends push messages to Windows clients. The number of concurrent sends, the
+     * number of fan-outs in progress, the number of send attempts and the retry delay can be configured in the
+     * properties file. Default values are used otherwise. The connections to the WNS are only reused if the system
+     * property {@code http.maxConnections} is at least as high as the number of concurrent sends. If the property
+     * isn't set, it is set to the number of concurrent sends.
+     *
+     * @param properties The properties of the PushManager. Nullable.
+     * @return The created PushFanOut.
+     */
+    private PushFanOut createWindowsFanOut(Properties properties) {
+        int concurrency = PushFanOut.DEFAULT_CONCURRENCY;
+        int maxPendingFanOuts = PushFanOut.DEFAULT_MAX_PENDING_FAN_OUTS;
+        int maxAttempts = PushFanOut.DEFAULT_MAX_ATTEMPTS;
+        int retryDelay = PushFanOut.DEFAULT_RETRY_DELAY;
+        if (properties != null) {
+            concurrency = parseIntProperty(properties, "wnsConcurrency", concurrency);
+            maxPendingFanOuts = parseIntProperty(properties, "wnsMaxPendingFanOuts", maxPendingFanOuts);
+            maxAttempts = parseIntProperty(properties, "wnsMaxAttempts", maxAttempts);
+            retryDelay = parseIntProperty(properties, "wnsRetryDelay", retryDelay);
+        }
+        if (System.getProperty("http.maxConnections") == null) {
+            // Keep a connection alive for each concurrent send. Only effective before the first HTTP connection.
+            System.setProperty("http.maxConnections", String.valueOf(Math.max(concurrency, PushHttpClient
+                    .getMaxIdleConnections())));
+        }
+        if (concurrency > PushHttpClient.getMaxIdleConnections()) {
+            logger.warn("Concurrency {} of the Windows fan-out exceeds http.maxConnections {}. Not all connections " +
+                    "to the WNS are reused.", concurrency, PushHttpClient.getMaxIdleConnections());
+        }
+        return new PushFanOut(concurrency, maxPendingFanOuts, maxAttempts, retryDelay);
+    }
+
+    /**
+     * Gets the PushFanOut which sends push messages to Windows clients in parallel.
+     *
+     * @return The PushFanOut for Windows clients.
+     */
+    public PushFanOut getWindowsFanOut() {
+        return windowsFanOut;
+    }
+
+    /**
+     * Creates the PushHttpClient which sends requests to the push servers. The connect and read timeouts can be
+     * configured in the properties file. Default values are used otherwise.
+     *
+     * @param properties The properties of the PushManager. Nullable.
+     * @return The created PushHttpClient.
+     */
+    private PushHttpClient createHttpClient(Properties properties) {
+        int connectTimeout = PushHttpClient.DEFAULT_CONNECT_TIMEOUT;
+        int readTimeout = PushHttpClient.DEFAULT_READ_TIMEOUT;
+        if (properties != null) {
+            connectTimeout = parseIntProperty(properties, "httpConnectTimeout", connectTimeout);
+            readTimeout = parseIntProperty(properties, "httpReadTimeout", readTimeout);
+        }
+        return new PushHttpClient(connectTimeout, readTimeout);
+    }
+
+    /**
+     * Gets the shared HTTP client which sends requests to the push servers.
+     *
+     * @return The PushHttpClient.
+     */
+    public PushHttpClient getHttpClient() {
+        return httpClient;
+    }
+
+    /**
+     * Creates the PushDeliveryExecutor which executes the notification tasks. The size of the worker pools, the
+     * capacity of the queues and the rejection policy can be configured in the properties file. Default values are
+     * used otherwise.
+     *
+     * @param properties The properties of the PushManager. Nullable.
+     * @return The created PushDeliveryExecutor.
+     */
+    private PushDeliveryExecutor createDeliveryExecutor(Properties properties) {
+        int poolSize = PushDeliveryExecutor.DEFAULT_POOL_SIZE;
+        int queueCapacity = PushDeliveryExecutor.DEFAULT_QUEUE_CAPACITY;
+        String rejectionPolicy = PushDeliveryExecutor.POLICY_CALLER_RUNS;
+        if (properties != null) {
+            poolSize = parseIntProperty(properties, "deliveryPoolSize", poolSize);
+            queueCapacity = parseIntProperty(properties, "deliveryQueueCapacity", queueCapacity);
+            rejectionPolicy = properties.getProperty("deliveryRejectionPolicy", rejectionPolicy);
+        }
+        return new PushDeliveryExecutor(poolSize, queueCapacity, rejectionPolicy);
+    }
+
+    /**
+     * Reads a positive integer value from the given properties.
+     *
+     * @param properties The properties which contain the value.
+     * @param key The key of the value.
+     * @param defaultValue The value which is returned if the property isn't set or invalid.
+     * @return The read value or the default value.
+     */
+    private int parseIntProperty(Properties properties, String key, int defaultValue) {
+        String value = properties.getProperty(key);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            int parsedValue = Integer.parseInt(value.trim());
+            if (parsedValue > 0) {
+                return parsedValue;
+            }
+        } catch (NumberFormatException e) {
+            // Log below.
+        }
+        logger.warn("Invalid value {} for property {}. Use default value {}.", value, key, defaultValue);
+        return defaultValue;
+    }
+
+    /**
+     * Stops the scheduling of cached push messages and waits until pending notifications have been delivered. The
+     * cached push messages are sent when their caching delay has elapsed, before the delivery lanes are drained. This
+     * method should be called on web app shutdown.
+     */
+    public void shutdown() {
+        scheduler.setExecuteExistingDelayedTasksAfterShutdownPolicy(true);
+        scheduler.shutdown();
+        try {
+            if (!scheduler.awaitTermination(CACHING_DELAY + SHUTDOWN_TIMEOUT, TimeUnit.SECONDS)) {
+                int dropped = scheduler.shutdownNow().size();
+                logger.warn("Cached push messages weren't sent in time. {} push message(s) dropped.", dropped);
+            }
+        } catch (InterruptedException e) {
+            scheduler.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        deliveryExecutor.shutdown(SHUTDOWN_TIMEOUT, TimeUnit.SECONDS);
+        windowsFanOut.shutdown(SHUTDOWN_TIMEOUT, TimeUnit.SECONDS);
     }
 
     /**
@@ -158,20 +356,78 @@ public class PushManager {
         if (userPushTokensAndroid.isEmpty()) {
             logger.info("No Android push tokens given. No Android user will be notified.");
         } else {
-            // Use an extra Thread for notification to ensure a quick server response to the client request.
-            new Thread(new NotifyAndroidTask(userPushTokensAndroid, jsonPushMessage, GCM_API_KEY)).start();
+            // Use a worker thread for notification to ensure a quick server response to the client request.
+            deliveryExecutor.execute(Platform.ANDROID, new NotifyAndroidTask(userPushTokensAndroid, jsonPushMessage,
+                    GCM_API_KEY));
         }
         // Check if there is at least one recipients. Do nothing if there is non.
         if (userPushTokensWindows.isEmpty()) {
             logger.info("No Windows push tokens given. No Windows user will be notified.");
         } else {
-            // Use an extra Thread for notification to ensure a quick server response to the client request.
-            new Thread(new NotifyWindowsTask(userPushTokensWindows, jsonPushMessage)).start();
+            // Use a worker thread for notification to ensure a quick server response to the client request.
+            deliveryExecutor.execute(Platform.WINDOWS, new NotifyWindowsTask(userPushTokensWindows, jsonPushMessage));
         }
 
         // notifyIOS(userPushTokensIOS, jsonPushMessage);
     }
 
+    /**
+     * Sends push messages to given users without caching and reports when the delivery has finished. The returned
+     * future is completed when the notification tasks of all platforms have finished. It is completed exceptionally if
+     * a notification task has been discarded or the push message couldn't be handed over to a push server, so the
+     * caller can retry the delivery.
+     *
+     * @param pushType The type of the push message.
+     * @param users The users who should be notified.
+     * @param id1 The first id of the push message. Not null.
+     * @param id2 The second id of the push message. Nullable.
+     * @param id3 The third id of the push message. Nullable.
+     * @return The future which is completed when the delivery has finished.
+     */
+    public CompletableFuture<Void> deliverUsers(PushType pushType, List<User> users, Integer id1, Integer id2,
+                                                Integer id3) {
+        if (users == null || users.isEmpty()) {
+            logger.info("List of users is empty. No user was notified.");
+            return CompletableFuture.completedFuture(null);
+        }
+
+        // Split users by platform.
+        List<String> userPushTokensAndroid = new ArrayList<>();
+        List<String> userPushTokensWindows = new ArrayList<>();
+        List<String> userPushTokensIOS = new ArrayList<>();
+        assignPushTokens(users, userPushTokensAndroid, userPushTokensWindows, userPushTokensIOS);
+
+        String jsonPushMessage = createPushMessage(pushType, id1, id2, id3);
+        List<CompletableFuture<Void>> deliveries = new ArrayList<>();
+        if (!userPushTokensAndroid.isEmpty()) {
+            CompletableFuture<Void> delivery = new CompletableFuture<>();
+            deliveries.add(delivery);
+            submit(Platform.ANDROID, new NotifyAndroidTask(userPushTokensAndroid, jsonPushMessage, GCM_API_KEY,
+                    delivery), delivery);
+        }
+        if (!userPushTokensWindows.isEmpty()) {
+            CompletableFuture<Void> delivery = new CompletableFuture<>();
+            deliveries.add(delivery);
+            submit(Platform.WINDOWS, new NotifyWindowsTask(userPushTokensWindows, jsonPushMessage, delivery),
+                    delivery);
+        }
+        return CompletableFuture.allOf(deliveries.toArray(new CompletableFuture<?>[0]));
+    }
+
+    /**
+     * Submits the given notification task to the lane of the given platform. Completes the given future
+     * exceptionally if the task has been discarded.
+     *
+     * @param platform The platform of the notified clients.
+     * @param task The notification task.
+     * @param delivery The future which is completed by the notification task.
+     */
+    private void submit(Platform platform, Runnable task, CompletableFuture<Void> delivery) {
+        if (!deliveryExecutor.execute(platform, task)) {
+            delivery.completeExceptionally(new RejectedExecutionException("Notification task has been discarded."));
+        }
+    }
+
     /**
      * Sends cached push messages to given users. The push message contains one, two or three different ids. The
      * semantics of the given ids is identified by the PushType.
@@ -201,15 +457,16 @@ public class PushManager {
         if (userPushTokensAndroid.isEmpty()) {
             logger.info("No Android push tokens given. No Android user will be notified.");
         } else {
-            // Use an extra Thread for notification to ensure a quick server response to the client request.
-            new Thread(new NotifyAndroidTask(userPushTokensAndroid, jsonPushMessage, GCM_API_KEY)).start();
+            // Use a worker thread for notification to ensure a quick server response to the client request.
+            deliveryExecutor.execute(Platform.ANDROID, new NotifyAndroidTask(userPushTokensAndroid, jsonPushMessage,
+                    GCM_API_KEY));
         }
         // Check if there is at least one recipients. Do nothing if there is non.
         if (userPushTokensWindows.isEmpty()) {
             logger.info("No Windows push tokens given. No Windows user will be notified.");
         } else {
-            // Use an extra Thread for notification to ensure a quick server response to the client request.
-            new Thread(new NotifyWindowsTask(userPushTokensWindows, jsonPushMessage)).start();
+            // Use a worker thread for notification to ensure a quick server response to the client request.
+            deliveryExecutor.execute(Platform.WINDOWS, new NotifyWindowsTask(userPushTokensWindows, jsonPushMessage));
         }
 
         // notifyIOS(userPushTokensIOS, jsonPushMessage);
@@ -232,8 +489,7 @@ public class PushManager {
             return false;
         }
 
-        if (pushType == PushType.BALLOT_CHANGED || pushType == PushType.BALLOT_OPTION_NEW || pushType == PushType
-                .BALLOT_OPTION_VOTE || pushType == PushType.CONVERSATION_CHANGED) {
+        if (isCached(pushType)) {
             // Create push message for caching.
             PushMessage pushMessageMap = createPushMessageMap(pushType, users, id1, id2);
             if (cachedPushMessages.containsKey(pushMessageMap)) {
@@ -244,7 +500,14 @@ public class PushManager {
                 cachedPushMessages.put(pushMessageMap, 1);
                 // Wait for same push messages.
                 PushMessage pushMessage = new PushMessage(pushType, users, id1, id2, id3);
-                scheduler.schedule(new PushMessageTask(pushMessage, pushMessageMap), CACHING_DELAY, TimeUnit.SECONDS);
+                try {
+                    scheduler.schedule(new PushMessageTask(pushMessage, pushMessageMap), CACHING_DELAY, TimeUnit
+                            .SECONDS);
+                } catch (RejectedExecutionException e) {
+                    // The PushManager is shutting down. Send the push message without caching.
+                    cachedPushMessages.remove(pushMessageMap);
+                    return true;
+                }
             }
             logger.debug("Push message has been cached. Waiting for same push messages.");
             return false;
@@ -252,6 +515,29 @@ public class PushManager {
         return true;
     }
 
+    /**
+     * Checks if push messages of the given type are cached, so equal push messages which occur within the caching
+     * delay are sent only once.
+     *
+     * @param pushType The type of the push message.
+     * @return true if push messages of the given type are cached.
+     */
+    public static boolean isCached(PushType pushType) {
+        return pushType == PushType.BALLOT_CHANGED || pushType == PushType.BALLOT_OPTION_NEW || pushType == PushType
+                .BALLOT_OPTION_VOTE || pushType == PushType.CONVERSATION_CHANGED;
+    }
+
+    /**
+     * Checks if the second id belongs to the cached part of push messages of the given type. Otherwise only the
+     * first id is used to find equal push messages.
+     *
+     * @param pushType The type of the push message.
+     * @return true if the second id is used to find equal push messages.
+     */
+    public static boolean isSecondIdCached(PushType pushType) {
+        return pushType == PushType.BALLOT_OPTION_NEW || pushType == PushType.BALLOT_OPTION_VOTE;
+    }
+
     /**
      * Creates a push message object which doesn't contain the highest set id. This object is used to find equal push
      * messages in the hash map.
@@ -264,7 +550,7 @@ public class PushManager {
      */
     private PushMessage createPushMessageMap(PushType pushType, List<User> users, Integer id1, Integer id2) {
         PushMessage pushMessageMap = new PushMessage(pushType, users, id1, null, null);
-        if (pushType == PushType.BALLOT_OPTION_NEW || pushType == PushType.BALLOT_OPTION_VOTE) {
+        if (isSecondIdCached(pushType)) {
             pushMessageMap.setId2(id2);
         }
         return pushMessageMap;
@@ -372,40 +658,21 @@ public class PushManager {
                 ".windows.com", sid, secret);
 
         try {
-            URL url = new URL("https://login.live.com/accesstoken.srf");
-            HttpURLConnection conn = (HttpURLConnection) url.openConnection();
-            conn.setRequestMethod("POST");
-            conn.setRequestProperty("Content-Type", "application/x-www-form-urlencoded");
-            conn.setDoOutput(true);
-
-            // Set the content of the request.
-            OutputStream outputStream = conn.getOutputStream();
-            outputStream.write(content.getBytes());
-            outputStream.flush();
-            outputStream.close();
+            Map<String, String> headers = new HashMap<>();
+            headers.put("Content-Type", "application/x-www-form-urlencoded");
+            PushHttpClient.Response response = httpClient.post(wnsTokenUrl, headers, content);
 
             // Read the response of the HTTP Request.
-            int responseStatus = conn.getResponseCode();
-            if (responseStatus == HttpURLConnection.HTTP_OK) {
-                // Read the response content.
-                BufferedReader in = new BufferedReader(new InputStreamReader(conn.getInputStream()));
-                String inputLine;
-                StringBuilder response = new StringBuilder();
-                while ((inputLine = in.readLine()) != null) {
-                    response.append(inputLine);
-                }
-                in.close();
-                logger.debug("Response from WNS:{}.", response.toString());
+            if (response.getStatusCode() == HttpURLConnection.HTTP_OK) {
+                logger.debug("Response from WNS:{}.", response.getBody());
 
                 // Extract the accessToken form the json string.
-                accessToken = retrieveWNSAccessTokenFromJSON(response.toString());
+                accessToken = retrieveWNSAccessTokenFromJSON(response.getBody());
             } else {
                 logger.warn("The Authorization request to the WNS didn't provide the expected 200 OK status. No " +
                         "access token will be returned.");
             }
 
-        } catch (MalformedURLException e) {
-            logger.error("The WNS URL for the Server authentication is not valid.");
         } catch (IOException e) {
             logger.error("An IOException occurred during the authorization request. The authorization to WNS has " +
                     "failed.");
@@ -0,0 +1,307 @@
+package ulm.university.news.manager.push;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ulm.university.news.data.Group;
+import ulm.university.news.data.PushOutboxEntry;
+import ulm.university.news.data.User;
+import ulm.university.news.manager.cache.GroupCache;
+import ulm.university.news.manager.cache.SubscriberCache;
+import ulm.university.news.manager.database.GroupDatabaseManager;
+import ulm.university.news.manager.database.PushOutboxDatabaseManager;
+import ulm.university.news.util.exceptions.DatabaseException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * The PushOutboxDispatcher class delivers the push messages which have been stored in the push outbox. It polls the
+ * outbox periodically, so push messages which have been stored but not delivered, e.g. due to a server restart, are
+ * delivered later. Controllers wake the dispatcher up after they have stored a new entry, so push messages are
+ * usually delivered without waiting for the next poll. The recipients of an entry are resolved on delivery. An entry
+ * is removed from the outbox only after the PushManager has finished its delivery. Entries whose delivery has failed
+ * are claimed again after their lease has expired, so each push message is delivered at least once. Entries of a
+ * claimed batch which describe equal push messages of a cached push type, e.g. multiple votes within the same
+ * ballot, are merged and delivered only once, like the PushManager caches such push messages.
+ *
+ * @author Matthias Mak
+ * @author Philipp Speidel
+ */
+public class PushOutboxDispatcher {
+
+    /** The logger instance for PushOutboxDispatcher. */
+    private static final Logger logger = LoggerFactory.getLogger(PushOutboxDispatcher.class);
+
+    /** A reference for the PushOutboxDispatcher Singleton class. */
+    private static PushOutboxDispatcher _instance;
+
+    /** The time in seconds between two polls of the outbox. */
+    private static final int POLL_INTERVAL = 2;
+
+    /** The maximum number of entries which are claimed at once. */
+    private static final int BATCH_SIZE = 50;
+
+    /** The time in seconds after which a claimed but not delivered entry is claimed again. */
+    private static final int LEASE_TIME = 60;
+
+    /** The maximum number of delivery attempts per entry. */
+    private static final int MAX_ATTEMPTS = 5;
+
+    /** The time in seconds which defines how long the dispatcher waits for a running dispatch on shutdown. */
+    private static final int SHUTDOWN_TIMEOUT = 10;
+
+    /** Runs the dispatches of the outbox. */
+    private ScheduledExecutorService scheduler;
+
+    /** Indicates whether a wake up dispatch is already pending. Coalesces concurrent wake ups. */
+    private final AtomicBoolean wakeUpPending = new AtomicBoolean(false);
+
+    /** The database manager for the push outbox. */
+    private PushOutboxDatabaseManager outboxDBM = new PushOutboxDatabaseManager();
+
+    /** The database manager for groups. */
+    private GroupDatabaseManager groupDBM = new GroupDatabaseManager();
+
+    /** The listeners which are informed about each entry before it is delivered. */
+    private final List<Consumer<PushOutboxEntry>> deliveryListeners = new CopyOnWriteArrayList<Consumer
+            <PushOutboxEntry>>();
+
+    /**
+     * Creates an Instance of the PushOutboxDispatcher class.
+     */
+    private PushOutboxDispatcher() {
+    }
+
+    /**
+     * Get an instance of the PushOutboxDispatcher class.
+     *
+     * @return Instance of PushOutboxDispatcher.
+     */
+    public static synchronized PushOutboxDispatcher getInstance() {
+        if (_instance == null) {
+            _instance = new PushOutboxDispatcher();
+        }
+        return _instance;
+    }
+
+    /**
+     * Starts the periodic dispatch of the outbox. Does nothing if the dispatcher is already running.
+     */
+    public synchronized void start() {
+        if (scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "push-outbox");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::dispatch, 0, POLL_INTERVAL, TimeUnit.SECONDS);
+        logger.info("Push outbox dispatcher started.");
+    }
+
+    /**
+     * Stops the dispatcher. A running dispatch is finished first. Entries which haven't been dispatched remain in the
+     * outbox and are delivered after the next start.
+     */
+    public synchronized void stop() {
+        if (scheduler == null) {
+            return;
+        }
+        scheduler.shutdown();
+        try {
+            if (!scheduler.awaitTermination(SHUTDOWN_TIMEOUT, TimeUnit.SECONDS)) {
+                scheduler.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            scheduler.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        scheduler = null;
+        logger.info("Push outbox dispatcher stopped.");
+    }
+
+    /**
+     * Triggers an immediate dispatch of the outbox. Multiple wake ups which occur while a dispatch is pending are
+     * merged into one dispatch. If the dispatcher isn't running, the entries are delivered after the next start.
+     */
+    public void wakeUp() {
+        ScheduledExecutorService currentScheduler = scheduler;
+        if (currentScheduler == null || !wakeUpPending.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            currentScheduler.execute(() -> {
+                wakeUpPending.set(false);
+                dispatch();
+            });
+        } catch (RejectedExecutionException e) {
+            wakeUpPending.set(false);
+            logger.debug("Push outbox dispatcher is shut down. Wake up is ignored.");
+        }
+    }
+
+    /**
+     * Adds a listener which is informed about each entry of the outbox before it is delivered. This allows clients
+     * without push notifications to be informed about the same events. The listener is called on the dispatcher
+     * thread, so it must return quickly. An entry whose delivery is retried is passed to the listener again.
+     *
+     * @param listener The listener which receives the entries.
+     */
+    public void addDeliveryListener(Consumer<PushOutboxEntry> listener) {
+        deliveryListeners.add(listener);
+    }
+
+    /**
+     * Claims entries from the outbox and delivers them until the outbox is empty.
+     */
+    private void dispatch() {
+        try {
+            List<PushOutboxEntry> entries;
+            do {
+                entries = outboxDBM.claimEntries(BATCH_SIZE, LEASE_TIME, MAX_ATTEMPTS);
+                for (List<PushOutboxEntry> mergedEntries : mergeEntries(entries)) {
+                    deliver(mergedEntries);
+                }
+            } while (entries.size() == BATCH_SIZE);
+            outboxDBM.deleteFailedEntries(MAX_ATTEMPTS, LEASE_TIME);
+        } catch (DatabaseException e) {
+            logger.error("Dispatch of the push outbox has failed. Retry with next poll.");
+        } catch (RuntimeException e) {
+            // Don't let an unexpected error cancel the periodic dispatch.
+            logger.error("Unexpected error during dispatch of the push outbox.", e);
+        }
+    }
+
+    /**
+     * Groups the given entries by their push message. Entries of a cached push type which notify the same channel or
+     * group about the same resource are put into the same group. All other entries form a group of their own. The
+     * groups are ordered by their first entry.
+     *
+     * @param entries The claimed outbox entries ordered by their id.
+     * @return The groups of entries which are delivered with one push message.
+     */
+    private Collection<List<PushOutboxEntry>> mergeEntries(List<PushOutboxEntry> entries) {
+        Map<List<Object>, List<PushOutboxEntry>> mergedEntries = new LinkedHashMap<List<Object>,
+                List<PushOutboxEntry>>();
+        for (PushOutboxEntry entry : entries) {
+            List<Object> key;
+            if (PushManager.isCached(entry.getPushType())) {
+                // Use the same ids to find equal push messages as the PushManager does.
+                Integer id2 = PushManager.isSecondIdCached(entry.getPushType()) ? entry.getId2() : null;
+                key = Arrays.<Object>asList(entry.getPushType(), entry.getChannelId(), entry.getGroupId(),
+                        entry.getId1(), id2);
+            } else {
+                key = Collections.<Object>singletonList(entry.getId());
+            }
+            mergedEntries.computeIfAbsent(key, k -> new ArrayList<PushOutboxEntry>()).add(entry);
+        }
+        return mergedEntries.values();
+    }
+
+    /**
+     * Resolves the recipients of the given entries and hands one push message over to the PushManager. The push
+     * message contains the ids of the latest entry. If the entries exclude different users, nobody is excluded. The
+     * entries are removed from the outbox when the delivery has finished. The push message isn't cached by the
+     * PushManager, since the entries can't be removed before they have been delivered. If the delivery fails, the
+     * entries remain in the outbox and are claimed again after their lease has expired.
+     *
+     * @param entries The claimed outbox entries which describe the same push message.
+     */
+    private void deliver(List<PushOutboxEntry> entries) {
+        for (PushOutboxEntry entry : entries) {
+            for (Consumer<PushOutboxEntry> listener : deliveryListeners) {
+                try {
+                    listener.accept(entry);
+                } catch (RuntimeException e) {
+                    logger.error("Delivery listener failed for push outbox entry with id {}.", entry.getId(), e);
+                }
+            }
+        }
+        PushOutboxEntry latestEntry = entries.get(entries.size() - 1);
+        Integer excludedUserId = latestEntry.getExcludedUserId();
+        for (PushOutboxEntry entry : entries) {
+            if (!Objects.equals(entry.getExcludedUserId(), excludedUserId)) {
+                excludedUserId = null;
+                break;
+            }
+        }
+        if (entries.size() > 1) {
+            logger.debug("Merged {} push outbox entries into entry with id {}.", entries.size(), latestEntry.getId());
+        }
+        try {
+            List<User> recipients = getRecipients(latestEntry, excludedUserId);
+            PushManager.getInstance().deliverUsers(latestEntry.getPushType(), recipients, latestEntry.getId1(),
+                    latestEntry.getId2(), latestEntry.getId3()).whenComplete((result, failure) -> {
+                if (failure != null) {
+                    logger.error("Delivery of push outbox entry with id {} has failed. Retry later.",
+                            latestEntry.getId());
+                } else {
+                    entries.forEach(this::deleteEntry);
+                }
+            });
+        } catch (DatabaseException e) {
+            logger.error("Delivery of push outbox entry with id {} has failed. Retry later.", latestEntry.getId());
+        }
+    }
+
+    /**
+     * Removes the given delivered entry from the outbox. If the removal fails, the entry is delivered again after its
+     * lease has expired.
+     *
+     * @param entry The delivered outbox entry.
+     */
+    private void deleteEntry(PushOutboxEntry entry) {
+        try {
+            outboxDBM.deleteEntry(entry.getId());
+        } catch (DatabaseException e) {
+            logger.error("Removal of delivered push outbox entry with id {} has failed. It will be delivered again.",
+                    entry.getId());
+        }
+    }
+
+    /**
+     * Resolves the users who should be notified about the given entry. These are either the subscribers of the
+     * channel or the active participants of the group without the excluded user.
+     *
+     * @param entry The outbox entry.
+     * @param excludedUserId The id of the user who shouldn't be notified. Nullable.
+     * @return The list of recipients. The list can also be empty.
+     * @throws DatabaseException If the recipients couldn't be retrieved due to a database failure.
+     */
+    private List<User> getRecipients(PushOutboxEntry entry, Integer excludedUserId) throws DatabaseException {
+        List<User> recipients = new ArrayList<User>();
+        if (entry.getChannelId() != null) {
+            recipients.addAll(SubscriberCache.getInstance().getSubscribers(entry.getChannelId()));
+            if (excludedUserId != null) {
+                recipients.removeIf(user -> user.getId() == excludedUserId);
+            }
+        } else if (entry.getGroupId() != null) {
+            Group group = GroupCache.getInstance().getGroup(entry.getGroupId());
+            if (group != null) {
+                // The cached group contains the active participants.
+                recipients.addAll(group.getParticipants());
+                if (excludedUserId != null) {
+                    recipients.removeIf(user -> user.getId() == excludedUserId);
+                }
+            } else {
+                // Load only the data which is required for the delivery.
+                recipients.addAll(groupDBM.getPushRecipients(entry.getGroupId(), excludedUserId));
+            }
+        }
+        return recipients;
+    }
+}
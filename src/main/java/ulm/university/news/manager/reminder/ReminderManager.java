@@ -4,15 +4,19 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import ulm.university.news.data.Reminder;
 
+import java.time.Duration;
 import java.time.ZonedDateTime;
-import java.time.temporal.ChronoUnit;
+import java.util.List;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static ulm.university.news.util.Constants.TIME_ZONE;
 
 /**
  * The ReminderManager provides methods to activate and deactivate the production of Announcements of a Reminder.
- * This class schedules the ReminderTasks.
+ * This class schedules the ReminderTasks on a timing wheel. Each ReminderTask is scheduled for the next date of its
+ * Reminder only. After the task has run, it is scheduled again for the next date, which is computed on the wall
+ * clock. The ReminderTasks which are due in the same second are executed as one batch.
  *
  * @author Matthias Mak
  * @author Philipp Speidel
@@ -25,11 +29,34 @@ public class ReminderManager {
     /** Reference for the EmailManager Singleton class. */
     private static ReminderManager _instance;
 
+    /** The duration of one tick of the timing wheel in seconds. Starting reminder tasks is exact to the second. */
+    private static final int TICK_DURATION = 1;
+
+    /** The number of buckets of the timing wheel. One rotation takes a bit more than an hour. */
+    private static final int WHEEL_SIZE = 4096;
+
+    /** The number of threads which execute the due ReminderTasks. */
+    private static final int EXECUTOR_THREADS = 2;
+
+    /** Executes the batches of due ReminderTasks, so the timing wheel isn't blocked. */
+    private static final ExecutorService executor = Executors.newFixedThreadPool(EXECUTOR_THREADS,
+            new ThreadFactory() {
+                private final AtomicInteger threadNumber = new AtomicInteger(1);
+
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "reminder-" + threadNumber.getAndIncrement());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+
     /** Schedules active ReminderTasks. */
-    private static final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(2);
+    private static final ReminderTimingWheel scheduler = new ReminderTimingWheel(TICK_DURATION, TimeUnit.SECONDS,
+            WHEEL_SIZE, ReminderManager::executeBatch);
 
     /** Holds references to active ReminderTasks to allow their deactivation. */
-    private static ConcurrentHashMap<Integer, Future<?>> activeReminders = new ConcurrentHashMap<>();
+    private static ConcurrentHashMap<Integer, ReminderTimingWheel.Timeout> activeReminders = new ConcurrentHashMap<>();
 
     /**
      * Creates an instance of the ReminderManager class.
@@ -66,23 +93,25 @@ public class ReminderManager {
             return;
         }
 
-        ZonedDateTime currentDate = ZonedDateTime.now(TIME_ZONE);
         reminder.computeFirstNextDate();
+        activeReminders.put(reminder.getId(), schedule(new ReminderTask(reminder)));
+        logger.info("Reminder with id {} has been activated.", reminder.getId());
+    }
 
-        Future<?> timingTask;
-        //Starting reminder tasks is exact to the second.
-        if(reminder.getInterval() == 0){
-            // If interval is 0, it's a one time reminder.
-            timingTask = scheduler.schedule(new ReminderTask(reminder), ChronoUnit.SECONDS.between(currentDate,
-                    reminder.getNextDate()), TimeUnit.SECONDS);
-        } else {
-            // If interval isn't 0, it's a periodic reminder.
-            timingTask = scheduler.scheduleAtFixedRate(new ReminderTask(reminder), ChronoUnit.SECONDS.between
-                    (currentDate, reminder.getNextDate()), reminder.getInterval(), TimeUnit.SECONDS);
+    /**
+     * Schedules the given ReminderTask again for the next date of its reminder. Nothing happens if the reminder has
+     * been deactivated or changed in the meantime.
+     *
+     * @param reminderTask The ReminderTask which has run.
+     */
+    synchronized void rescheduleReminder(ReminderTask reminderTask) {
+        int reminderId = reminderTask.reminder.getId();
+        ReminderTimingWheel.Timeout timeout = activeReminders.get(reminderId);
+        if (timeout == null || timeout.getTask() != reminderTask) {
+            return;
         }
-
-        activeReminders.put(reminder.getId(), timingTask);
-        logger.info("Reminder with id {} has been activated.", reminder.getId());
+        activeReminders.put(reminderId, schedule(reminderTask));
+        logger.debug("Reminder with id {} has been scheduled for {}.", reminderId, reminderTask.reminder.getNextDate());
     }
 
     /**
@@ -93,9 +122,9 @@ public class ReminderManager {
      */
     public synchronized void removeReminder(int reminderId) {
         // Cancel already scheduled reminder tasks.
-        if (activeReminders.containsKey(reminderId)) {
-            activeReminders.get(reminderId).cancel(false);
-            activeReminders.remove(reminderId);
+        ReminderTimingWheel.Timeout timeout = activeReminders.remove(reminderId);
+        if (timeout != null) {
+            timeout.cancel();
             logger.info("Reminder with id {} has been deactivated.", reminderId);
         }
     }
@@ -110,4 +139,48 @@ public class ReminderManager {
         addReminder(reminder);
     }
 
+    /**
+     * Stops the timing wheel and the execution of ReminderTasks. Stored reminders are activated again on the next
+     * startup.
+     */
+    public void shutdown() {
+        scheduler.stop();
+        executor.shutdownNow();
+        activeReminders.clear();
+        logger.info("ReminderManager stopped.");
+    }
+
+    /**
+     * Schedules the given ReminderTask on the timing wheel for the next date of its reminder.
+     *
+     * @param reminderTask The ReminderTask.
+     * @return The timeout of the scheduled ReminderTask.
+     */
+    private ReminderTimingWheel.Timeout schedule(ReminderTask reminderTask) {
+        // The delay is computed from the wall clock, so the reminder fires at the same local time after a DST change.
+        long delay = Duration.between(ZonedDateTime.now(TIME_ZONE), reminderTask.reminder.getNextDate()).toMillis();
+        return scheduler.schedule(reminderTask, delay, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Executes the ReminderTasks which are due in the same tick one after another on the executor.
+     *
+     * @param reminderTasks The due ReminderTasks.
+     */
+    private static void executeBatch(List<ReminderTask> reminderTasks) {
+        try {
+            executor.execute(() -> {
+                for (ReminderTask reminderTask : reminderTasks) {
+                    try {
+                        reminderTask.run();
+                    } catch (RuntimeException e) {
+                        logger.error("Reminder with id {} has failed.", reminderTask.reminder.getId(), e);
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            logger.warn("ReminderManager has been shut down. {} due reminder(s) are ignored.", reminderTasks.size());
+        }
+    }
+
 }
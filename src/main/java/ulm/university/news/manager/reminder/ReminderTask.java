@@ -71,6 +71,9 @@ public class ReminderTask implements Runnable {
                 // The reminder is expired so stop its production of announcements.
                 logger.debug("Expired. Reminder will be deactivated.");
                 ReminderManager.getInstance().removeReminder(reminder.getId());
+            } else {
+                // Schedule the next execution.
+                ReminderManager.getInstance().rescheduleReminder(this);
             }
         }
     }
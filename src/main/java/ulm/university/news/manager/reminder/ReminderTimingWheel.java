@@ -0,0 +1,351 @@
+package ulm.university.news.manager.reminder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * The ReminderTimingWheel class is a hashed timing wheel which schedules the ReminderTasks. The wheel consists of a
+ * fixed number of buckets. Each bucket holds the tasks which are due in one tick of the wheel, including the tasks
+ * which are due in later rotations of the wheel. A single worker thread advances the wheel tick by tick and hands the
+ * tasks which are due in the same tick over as one batch. Scheduling and cancelling a task takes constant time
+ * regardless of the number of scheduled tasks. Tasks are executed at most one tick after their deadline, never
+ * before.
+ *
+ * @author Matthias Mak
+ * @author Philipp Speidel
+ */
+class ReminderTimingWheel {
+
+    /** The logger instance for ReminderTimingWheel. */
+    private static final Logger logger = LoggerFactory.getLogger(ReminderTimingWheel.class);
+
+    /** The duration of one tick in nanoseconds. */
+    private final long tickDuration;
+
+    /** The buckets of the wheel. */
+    private final Bucket[] wheel;
+
+    /** The mask which maps a tick to its bucket. The number of buckets is a power of two. */
+    private final int mask;
+
+    /** Receives the tasks which are due in the same tick. */
+    private final Consumer<List<ReminderTask>> batchHandler;
+
+    /** The timeouts which have been scheduled but not yet been added to the wheel. */
+    private final Queue<Timeout> pendingTimeouts = new ConcurrentLinkedQueue<Timeout>();
+
+    /** The timeouts which have been cancelled but not yet been removed from the wheel. */
+    private final Queue<Timeout> cancelledTimeouts = new ConcurrentLinkedQueue<Timeout>();
+
+    /** The value of System.nanoTime() when the wheel has been started. All deadlines are relative to it. */
+    private final long startTime;
+
+    /** The thread which advances the wheel. */
+    private final Thread worker;
+
+    /** Indicates whether the wheel has been stopped. */
+    private volatile boolean stopped;
+
+    /** The number of ticks which have been processed. Only accessed by the worker thread. */
+    private long tick;
+
+    /**
+     * Creates and starts a ReminderTimingWheel.
+     *
+     * @param tickDuration The duration of one tick.
+     * @param unit The time unit of the tick duration.
+     * @param wheelSize The number of buckets. It is rounded up to the next power of two.
+     * @param batchHandler Receives the tasks which are due in the same tick. It is called on the worker thread, so it
+     * should hand the tasks over to another thread.
+     */
+    ReminderTimingWheel(long tickDuration, TimeUnit unit, int wheelSize, Consumer<List<ReminderTask>> batchHandler) {
+        this.tickDuration = unit.toNanos(tickDuration);
+        int size = Integer.highestOneBit(Math.max(wheelSize, 1) * 2 - 1);
+        wheel = new Bucket[size];
+        for (int i = 0; i < size; i++) {
+            wheel[i] = new Bucket();
+        }
+        mask = size - 1;
+        this.batchHandler = batchHandler;
+        startTime = System.nanoTime();
+        worker = new Thread(this::run, "reminder-wheel");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * Schedules the given task for execution after the given delay. A delay which is zero or negative causes the
+     * execution in the next tick.
+     *
+     * @param task The task which should be executed.
+     * @param delay The delay.
+     * @param unit The time unit of the delay.
+     * @return The timeout which can be used to cancel the execution.
+     */
+    Timeout schedule(ReminderTask task, long delay, TimeUnit unit) {
+        if (stopped) {
+            throw new IllegalStateException("The timing wheel has been stopped.");
+        }
+        long deadline = System.nanoTime() + Math.max(unit.toNanos(delay), 0) - startTime;
+        Timeout timeout = new Timeout(this, task, deadline);
+        pendingTimeouts.add(timeout);
+        return timeout;
+    }
+
+    /**
+     * Stops the wheel. Scheduled tasks aren't executed anymore.
+     */
+    void stop() {
+        stopped = true;
+        worker.interrupt();
+        try {
+            worker.join(TimeUnit.SECONDS.toMillis(1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Advances the wheel tick by tick until it is stopped.
+     */
+    private void run() {
+        while (!stopped) {
+            if (!waitForNextTick()) {
+                break;
+            }
+            try {
+                processCancelledTimeouts();
+                transferPendingTimeouts();
+                List<ReminderTask> dueTasks = wheel[(int) (tick & mask)].expireTimeouts();
+                if (!dueTasks.isEmpty()) {
+                    logger.debug("{} reminder(s) due in tick {}.", dueTasks.size(), tick);
+                    batchHandler.accept(dueTasks);
+                }
+            } catch (RuntimeException e) {
+                logger.error("Unexpected error while processing tick {} of the reminder timing wheel.", tick, e);
+            }
+            tick++;
+        }
+        logger.info("Reminder timing wheel stopped.");
+    }
+
+    /**
+     * Sleeps until the end of the current tick. Returns immediately if the worker is late.
+     *
+     * @return true if the tick has ended, false if the worker has been interrupted.
+     */
+    private boolean waitForNextTick() {
+        long deadline = tickDuration * (tick + 1);
+        long sleepTime = deadline - (System.nanoTime() - startTime);
+        if (sleepTime <= 0) {
+            return true;
+        }
+        try {
+            TimeUnit.NANOSECONDS.sleep(sleepTime);
+            return true;
+        } catch (InterruptedException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Adds the scheduled timeouts to the bucket of the tick in which they are due.
+     */
+    private void transferPendingTimeouts() {
+        Timeout timeout;
+        while ((timeout = pendingTimeouts.poll()) != null) {
+            if (timeout.isCancelled()) {
+                continue;
+            }
+            long dueTick = timeout.deadline / tickDuration;
+            timeout.remainingRounds = (dueTick - tick) / wheel.length;
+            // A timeout which is already overdue is executed in the current tick.
+            wheel[(int) (Math.max(dueTick, tick) & mask)].add(timeout);
+        }
+    }
+
+    /**
+     * Removes the cancelled timeouts from their buckets.
+     */
+    private void processCancelledTimeouts() {
+        Timeout timeout;
+        while ((timeout = cancelledTimeouts.poll()) != null) {
+            if (timeout.bucket != null) {
+                timeout.bucket.remove(timeout);
+            }
+        }
+    }
+
+    /**
+     * The Timeout class is the handle of a scheduled ReminderTask. It is linked into the bucket of the wheel in which
+     * it is due.
+     */
+    static class Timeout {
+        /** The state of a scheduled timeout. */
+        private static final int STATE_SCHEDULED = 0;
+        /** The state of a cancelled timeout. */
+        private static final int STATE_CANCELLED = 1;
+        /** The state of an expired timeout. */
+        private static final int STATE_EXPIRED = 2;
+
+        /** The wheel which has scheduled the timeout. */
+        private final ReminderTimingWheel timingWheel;
+
+        /** The task which is executed when the timeout expires. */
+        private final ReminderTask task;
+
+        /** The deadline in nanoseconds relative to the start of the wheel. */
+        private final long deadline;
+
+        /** The state of the timeout. */
+        private final AtomicInteger state = new AtomicInteger(STATE_SCHEDULED);
+
+        /** The number of rotations of the wheel until the timeout is due. Only accessed by the worker thread. */
+        private long remainingRounds;
+
+        /** The bucket which holds the timeout. Only accessed by the worker thread. */
+        private Bucket bucket;
+
+        /** The previous timeout in the bucket. Only accessed by the worker thread. */
+        private Timeout prev;
+
+        /** The next timeout in the bucket. Only accessed by the worker thread. */
+        private Timeout next;
+
+        /**
+         * Creates a Timeout.
+         *
+         * @param timingWheel The wheel which has scheduled the timeout.
+         * @param task The task which is executed when the timeout expires.
+         * @param deadline The deadline in nanoseconds relative to the start of the wheel.
+         */
+        private Timeout(ReminderTimingWheel timingWheel, ReminderTask task, long deadline) {
+            this.timingWheel = timingWheel;
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        /**
+         * Gets the task which is executed when the timeout expires.
+         *
+         * @return The task.
+         */
+        ReminderTask getTask() {
+            return task;
+        }
+
+        /**
+         * Cancels the timeout. The task isn't executed if it hasn't been handed over for execution yet.
+         *
+         * @return true if the timeout has been cancelled, false if it has already expired or been cancelled.
+         */
+        boolean cancel() {
+            if (!state.compareAndSet(STATE_SCHEDULED, STATE_CANCELLED)) {
+                return false;
+            }
+            timingWheel.cancelledTimeouts.add(this);
+            return true;
+        }
+
+        /**
+         * Checks whether the timeout has been cancelled.
+         *
+         * @return true if the timeout has been cancelled.
+         */
+        boolean isCancelled() {
+            return state.get() == STATE_CANCELLED;
+        }
+
+        /**
+         * Marks the timeout as expired.
+         *
+         * @return true if the timeout has expired, false if it has been cancelled in the meantime.
+         */
+        private boolean expire() {
+            return state.compareAndSet(STATE_SCHEDULED, STATE_EXPIRED);
+        }
+    }
+
+    /**
+     * The Bucket class is a doubly linked list of the timeouts which are due in the same tick of a rotation. Only the
+     * worker thread accesses the buckets.
+     */
+    private static class Bucket {
+        /** The first timeout of the bucket. */
+        private Timeout head;
+
+        /** The last timeout of the bucket. */
+        private Timeout tail;
+
+        /**
+         * Appends the given timeout to the bucket.
+         *
+         * @param timeout The timeout.
+         */
+        void add(Timeout timeout) {
+            timeout.bucket = this;
+            if (head == null) {
+                head = tail = timeout;
+            } else {
+                tail.next = timeout;
+                timeout.prev = tail;
+                tail = timeout;
+            }
+        }
+
+        /**
+         * Removes the given timeout from the bucket.
+         *
+         * @param timeout The timeout.
+         */
+        void remove(Timeout timeout) {
+            if (timeout.prev != null) {
+                timeout.prev.next = timeout.next;
+            } else {
+                head = timeout.next;
+            }
+            if (timeout.next != null) {
+                timeout.next.prev = timeout.prev;
+            } else {
+                tail = timeout.prev;
+            }
+            timeout.prev = null;
+            timeout.next = null;
+            timeout.bucket = null;
+        }
+
+        /**
+         * Removes the timeouts which are due in the current rotation from the bucket. The other timeouts are due one
+         * rotation closer afterwards.
+         *
+         * @return The tasks of the expired timeouts.
+         */
+        List<ReminderTask> expireTimeouts() {
+            List<ReminderTask> dueTasks = new ArrayList<ReminderTask>();
+            Timeout timeout = head;
+            while (timeout != null) {
+                Timeout next = timeout.next;
+                if (timeout.remainingRounds <= 0) {
+                    remove(timeout);
+                    if (timeout.expire()) {
+                        dueTasks.add(timeout.task);
+                    }
+                } else if (timeout.isCancelled()) {
+                    remove(timeout);
+                } else {
+                    timeout.remainingRounds--;
+                }
+                timeout = next;
+            }
+            return dueTasks;
+        }
+    }
+}
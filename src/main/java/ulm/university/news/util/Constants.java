@@ -81,6 +81,12 @@ public class Constants {
     /** The maximum length of an announcement title. */
     public static final int ANNOUNCEMENT_TITLE_MAX_LENGTH = 45;
 
+    /** The number of messages per page if the request doesn't define a limit. */
+    public static final int MESSAGES_DEFAULT_LIMIT = 100;
+
+    /** The maximum number of messages per page. */
+    public static final int MESSAGES_MAX_LIMIT = 500;
+
 
     // Logging:
     public static final String LOG_SERVER_EXCEPTION = "httpStatusCode:{}, errorCode:{}, message:{}";
@@ -134,6 +140,7 @@ public class Constants {
     public static final int ANNOUNCEMENT_DATA_INCOMPLETE = 3102;
     public static final int ANNOUNCEMENT_INVALID_TEXT = 3103;
     public static final int ANNOUNCEMENT_INVALID_TITLE = 3104;
+    public static final int ANNOUNCEMENT_INVALID_LIMIT = 3105;
 
     public static final int REMINDER_NOT_FOUND = 3200;
     public static final int REMINDER_DATA_INCOMPLETE = 3202;
@@ -162,6 +169,7 @@ public class Constants {
 
     public static final int CONVERSATIONMESSAGE_DATA_INCOMPLETE = 4202;
     public static final int CONVERSATIONMESSAGE_INVALID_TEXT = 4203;
+    public static final int CONVERSATIONMESSAGE_INVALID_LIMIT = 4204;
 
     public static final int BALLOT_NOT_FOUND = 4300;
     public static final int BALLOT_DATA_INCOMPLETE = 4302;
@@ -183,6 +191,9 @@ public class Constants {
     public static final int EMAIL_FAILURE = 5003;
     public static final int RESOURCE_BUNDLE_NOT_FOUND = 5004;
     public static final int PARSING_FAILURE = 5005;
+    public static final int TOO_MANY_INVALID_REQUESTS = 5006;
+    public static final int SERVER_OVERLOADED = 5007;
+    public static final int REQUEST_TIMED_OUT = 5008;
 
     // Windows Push Notification related Status codes.
     public static final int WIN_PUSH_MSG_SENT_SUCCESSFULLY = 0;
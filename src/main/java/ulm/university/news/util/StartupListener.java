@@ -2,10 +2,19 @@ package ulm.university.news.util;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import ulm.university.news.api.AsyncRequestExecutor;
+import ulm.university.news.api.CompressionInterceptor;
+import ulm.university.news.api.LongPollRegistry;
 import ulm.university.news.controller.ChannelController;
+import ulm.university.news.manager.database.ConnectionManager;
+import ulm.university.news.manager.email.EmailManager;
+import ulm.university.news.manager.push.PushManager;
+import ulm.university.news.manager.push.PushOutboxDispatcher;
+import ulm.university.news.manager.reminder.ReminderManager;
 
 import javax.servlet.ServletContextEvent;
 import javax.servlet.ServletContextListener;
+import java.sql.SQLException;
 
 /**
  * The StartupListener class is used to perform some actions on web app startup (and shutdown).
@@ -24,6 +33,19 @@ public class StartupListener implements ServletContextListener {
     @Override
     public void contextInitialized(ServletContextEvent servletContextEvent) {
         // This method is called only on web app startup.
+        logger.info("Web app startup: Resolving the database connection pool.");
+        try {
+            // Resolve the DataSource once so that database managers don't need a JNDI lookup per query.
+            ConnectionManager.getInstance().initialize();
+        } catch (SQLException e) {
+            logger.error("Web app startup: Failed to resolve the database connection pool. Will retry on first use.");
+        }
+        logger.info("Web app startup: Creating the push manager.");
+        // Configure the HTTP keep-alive cache before the first push server is contacted.
+        PushManager.getInstance();
+        logger.info("Web app startup: Starting the push outbox dispatcher.");
+        // Deliver push notifications which have been stored but not delivered before the last shutdown.
+        PushOutboxDispatcher.getInstance().start();
         logger.info("Web app startup: Loading and activating reminders.");
         // Load stored reminders from database and activate the valid ones.
         int numberOfActivatedReminders = channelCtrl.activateStoredReminders();
@@ -32,6 +54,21 @@ public class StartupListener implements ServletContextListener {
 
     @Override
     public void contextDestroyed(ServletContextEvent servletContextEvent) {
-        // Do nothing on shutdown.
+        // Finish the running write requests while the database and the push delivery are still available.
+        AsyncRequestExecutor.getInstance().shutdown();
+        // Stop producing announcements of reminders. Stored reminders are activated again on the next startup.
+        ReminderManager.getInstance().shutdown();
+        // Send the queued emails and close the connection to the mail server.
+        EmailManager.getInstance().shutdown();
+        // Stop claiming entries from the push outbox. Undelivered entries are delivered after the next startup.
+        PushOutboxDispatcher.getInstance().stop();
+        // Answer the waiting long poll requests, so the clients poll again after the restart.
+        LongPollRegistry.getInstance().shutdown();
+        // Deliver pending push notifications before shutdown.
+        logger.info("Web app shutdown: Draining pending push notifications.");
+        PushManager.getInstance().shutdown();
+        // Release the reference to the DataSource on shutdown.
+        ConnectionManager.getInstance().reset();
+        logger.info("Web app shutdown: Response compression saved {} bytes.", CompressionInterceptor.getBytesSaved());
     }
 }
\ No newline at end of file
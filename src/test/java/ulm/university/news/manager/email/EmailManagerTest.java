@@ -0,0 +1,163 @@
+package ulm.university.news.manager.email;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.Arrays;
+import java.util.Properties;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the delivery of emails by the EmailManager against a local SMTP stub.
+ *
+ * @author Matthias Mak
+ * @author Philipp Speidel
+ */
+public class EmailManagerTest {
+
+    /** The maximum time in milliseconds to wait for emails which are sent in the background. */
+    private static final long AWAIT_TIMEOUT = 5000;
+
+    /** The local SMTP server. */
+    private SmtpStub smtpStub;
+
+    /** The EmailManager under test. */
+    private EmailManager emailManager;
+
+    @Before
+    public void setUp() throws IOException {
+        smtpStub = new SmtpStub();
+        emailManager = new EmailManager(createProperties(smtpStub.getPort()));
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        emailManager.shutdown();
+        smtpStub.close();
+    }
+
+    @Test
+    public void queuedEmailsShareOneConnection() throws InterruptedException {
+        for (int i = 0; i < 5; i++) {
+            assertTrue(emailManager.sendMail("moderator@example.com", "Subject " + i, "Message"));
+        }
+        assertTrue(smtpStub.awaitEmails(5, AWAIT_TIMEOUT));
+        assertEquals(Arrays.asList("Subject 0", "Subject 1", "Subject 2", "Subject 3", "Subject 4"),
+                smtpStub.getSubjects());
+        assertEquals(1, smtpStub.getConnections());
+    }
+
+    @Test
+    public void queuedEmailIsRetriedAfterTransientFailures() throws InterruptedException {
+        smtpStub.failData(2);
+        assertTrue(emailManager.sendMail("moderator@example.com", "Retried", "Message"));
+        assertTrue(smtpStub.awaitEmails(1, AWAIT_TIMEOUT));
+        assertEquals(Arrays.asList("Retried"), smtpStub.getSubjects());
+    }
+
+    @Test
+    public void queuedEmailIsDroppedAfterMaxAttempts() throws InterruptedException {
+        smtpStub.failData(3);
+        assertTrue(emailManager.sendMail("moderator@example.com", "Dropped", "Message"));
+        // The three attempts take about 150 ms with the retry delay of the test.
+        assertFalse(smtpStub.awaitEmails(1, 1000));
+        assertTrue(emailManager.sendMail("moderator@example.com", "Delivered", "Message"));
+        assertTrue(smtpStub.awaitEmails(1, AWAIT_TIMEOUT));
+        assertEquals(Arrays.asList("Delivered"), smtpStub.getSubjects());
+    }
+
+    @Test
+    public void sendMailAndWaitReturnsTrueWhenDelivered() {
+        assertTrue(emailManager.sendMailAndWait("moderator@example.com", "Password reset", "Message"));
+        assertEquals(Arrays.asList("Password reset"), smtpStub.getSubjects());
+    }
+
+    @Test
+    public void sendMailAndWaitIsSentBetweenBatches() throws InterruptedException {
+        Properties properties = createProperties(smtpStub.getPort());
+        properties.setProperty("batchSize", "2");
+        EmailManager batchingManager = new EmailManager(properties);
+        try {
+            for (int i = 0; i < 50; i++) {
+                assertTrue(batchingManager.sendMail("moderator@example.com", "Subject " + i, "Message"));
+            }
+            assertTrue(batchingManager.sendMailAndWait("moderator@example.com", "Password reset", "Message"));
+            // The awaited email doesn't wait until all queued emails have been sent.
+            assertTrue(smtpStub.getSubjects().size() < 50);
+            assertTrue(smtpStub.awaitEmails(51, AWAIT_TIMEOUT));
+        } finally {
+            batchingManager.shutdown();
+        }
+    }
+
+    @Test
+    public void sendMailAndWaitRetriesTransientFailure() {
+        smtpStub.failData(1);
+        assertTrue(emailManager.sendMailAndWait("moderator@example.com", "Password reset", "Message"));
+        assertEquals(Arrays.asList("Password reset"), smtpStub.getSubjects());
+    }
+
+    @Test
+    public void sendMailAndWaitReturnsFalseWhenRecipientRejected() {
+        smtpStub.setRejectRecipients(true);
+        assertFalse(emailManager.sendMailAndWait("unknown@example.com", "Password reset", "Message"));
+        assertTrue(smtpStub.getSubjects().isEmpty());
+    }
+
+    @Test
+    public void sendMailAndWaitReturnsFalseWhenDeliveryKeepsFailing() {
+        smtpStub.failData(Integer.MAX_VALUE);
+        assertFalse(emailManager.sendMailAndWait("moderator@example.com", "Password reset", "Message"));
+        assertTrue(smtpStub.getSubjects().isEmpty());
+    }
+
+    @Test
+    public void sendMailAndWaitReturnsFalseWithoutServer() throws IOException {
+        int closedPort;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            closedPort = socket.getLocalPort();
+        }
+        EmailManager unreachableManager = new EmailManager(createProperties(closedPort));
+        try {
+            assertFalse(unreachableManager.sendMailAndWait("moderator@example.com", "Password reset", "Message"));
+        } finally {
+            unreachableManager.shutdown();
+        }
+    }
+
+    @Test
+    public void sendMailFailsWithoutCredentials() {
+        EmailManager unconfiguredManager = new EmailManager(new Properties());
+        try {
+            assertFalse(unconfiguredManager.sendMail("moderator@example.com", "Subject", "Message"));
+            assertFalse(unconfiguredManager.sendMailAndWait("moderator@example.com", "Subject", "Message"));
+        } finally {
+            unconfiguredManager.shutdown();
+        }
+    }
+
+    /**
+     * Creates the properties of an EmailManager which sends to the local SMTP server with short retry delays.
+     *
+     * @param port The port of the SMTP server.
+     * @return The properties.
+     */
+    private Properties createProperties(int port) {
+        Properties properties = new Properties();
+        properties.setProperty("username", "news@example.com");
+        properties.setProperty("password", "secret");
+        properties.setProperty("host", "127.0.0.1");
+        properties.setProperty("port", String.valueOf(port));
+        properties.setProperty("starttls", "false");
+        properties.setProperty("maxAttempts", "3");
+        properties.setProperty("retryDelay", "50");
+        properties.setProperty("smtpTimeout", "2000");
+        return properties;
+    }
+}
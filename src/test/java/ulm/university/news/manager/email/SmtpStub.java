@@ -0,0 +1,215 @@
+package ulm.university.news.manager.email;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The SmtpStub class is a minimal local SMTP server for tests. It accepts any login, records the subjects of the
+ * received emails and counts the connections. It can reject recipients and fail a number of DATA commands with a
+ * transient error.
+ *
+ * @author Matthias Mak
+ * @author Philipp Speidel
+ */
+class SmtpStub implements AutoCloseable {
+
+    /** The socket on which the stub accepts connections. */
+    private final ServerSocket serverSocket;
+
+    /** The subjects of the received emails. */
+    private final List<String> subjects = new CopyOnWriteArrayList<String>();
+
+    /** The number of accepted connections. */
+    private final AtomicInteger connections = new AtomicInteger();
+
+    /** The number of DATA commands which are still answered with a transient error. */
+    private final AtomicInteger dataFailures = new AtomicInteger();
+
+    /** Indicates whether all recipients are rejected. */
+    private volatile boolean rejectRecipients;
+
+    /**
+     * Creates and starts a SmtpStub on a free local port.
+     *
+     * @throws IOException If the socket couldn't be opened.
+     */
+    SmtpStub() throws IOException {
+        serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        Thread acceptor = new Thread(this::acceptConnections, "smtp-stub");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    /**
+     * Gets the port of the stub.
+     *
+     * @return The port.
+     */
+    int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * Gets the subjects of the received emails.
+     *
+     * @return The subjects in the order of receipt.
+     */
+    List<String> getSubjects() {
+        return subjects;
+    }
+
+    /**
+     * Gets the number of accepted connections.
+     *
+     * @return The number of connections.
+     */
+    int getConnections() {
+        return connections.get();
+    }
+
+    /**
+     * Answers the given number of following DATA commands with a transient error.
+     *
+     * @param count The number of failing DATA commands.
+     */
+    void failData(int count) {
+        dataFailures.set(count);
+    }
+
+    /**
+     * Defines whether all recipients are rejected.
+     *
+     * @param rejectRecipients true if the recipients should be rejected.
+     */
+    void setRejectRecipients(boolean rejectRecipients) {
+        this.rejectRecipients = rejectRecipients;
+    }
+
+    /**
+     * Waits until the given number of emails has been received.
+     *
+     * @param count The expected number of emails.
+     * @param timeout The maximum waiting time in milliseconds.
+     * @return true if the emails have been received in time.
+     * @throws InterruptedException If the waiting thread has been interrupted.
+     */
+    boolean awaitEmails(int count, long timeout) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+        while (subjects.size() < count) {
+            if (System.nanoTime() > deadline) {
+                return false;
+            }
+            Thread.sleep(10);
+        }
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+    }
+
+    /**
+     * Accepts connections until the stub is closed.
+     */
+    private void acceptConnections() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                connections.incrementAndGet();
+                Thread handler = new Thread(() -> handleConnection(socket), "smtp-stub-connection");
+                handler.setDaemon(true);
+                handler.start();
+            } catch (IOException e) {
+                // The stub has been closed.
+            }
+        }
+    }
+
+    /**
+     * Answers the SMTP commands of one connection.
+     *
+     * @param socket The socket of the connection.
+     */
+    private void handleConnection(Socket socket) {
+        try (Socket s = socket; BufferedReader in = new BufferedReader(new InputStreamReader(s.getInputStream(),
+                StandardCharsets.US_ASCII))) {
+            OutputStream out = s.getOutputStream();
+            reply(out, "220 localhost SMTP stub");
+            String line;
+            String subject = null;
+            boolean data = false;
+            int authLines = 0;
+            while ((line = in.readLine()) != null) {
+                if (data) {
+                    if (line.equals(".")) {
+                        data = false;
+                        subjects.add(subject);
+                        reply(out, "250 OK");
+                    } else if (subject == null && line.startsWith("Subject: ")) {
+                        subject = line.substring("Subject: ".length());
+                    }
+                    continue;
+                }
+                if (authLines > 0) {
+                    authLines--;
+                    reply(out, authLines > 0 ? "334 UGFzc3dvcmQ6" : "235 Authenticated");
+                    continue;
+                }
+                String command = line.toUpperCase();
+                if (command.startsWith("EHLO")) {
+                    reply(out, "250-localhost\r\n250 AUTH LOGIN PLAIN");
+                } else if (command.startsWith("AUTH LOGIN")) {
+                    authLines = 2;
+                    reply(out, "334 VXNlcm5hbWU6");
+                } else if (command.startsWith("AUTH PLAIN")) {
+                    if (command.trim().equals("AUTH PLAIN")) {
+                        authLines = 1;
+                        reply(out, "334 ");
+                    } else {
+                        reply(out, "235 Authenticated");
+                    }
+                } else if (command.startsWith("RCPT") && rejectRecipients) {
+                    reply(out, "550 No such user");
+                } else if (command.equals("DATA")) {
+                    if (dataFailures.getAndDecrement() > 0) {
+                        reply(out, "451 Try again later");
+                    } else {
+                        data = true;
+                        subject = null;
+                        reply(out, "354 Go ahead");
+                    }
+                } else if (command.equals("QUIT")) {
+                    reply(out, "221 Bye");
+                    return;
+                } else {
+                    reply(out, "250 OK");
+                }
+            }
+        } catch (IOException e) {
+            // The client has closed the connection.
+        }
+    }
+
+    /**
+     * Writes a reply to the client.
+     *
+     * @param out The stream of the connection.
+     * @param reply The reply without the final line break.
+     * @throws IOException If the reply couldn't be written.
+     */
+    private void reply(OutputStream out, String reply) throws IOException {
+        out.write((reply + "\r\n").getBytes(StandardCharsets.US_ASCII));
+        out.flush();
+    }
+}
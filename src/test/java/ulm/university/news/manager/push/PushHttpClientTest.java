@@ -0,0 +1,152 @@
+package ulm.university.news.manager.push;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Tests the PushHttpClient against a local stub HTTP server.
+ *
+ * @author Matthias Mak
+ * @author Philipp Speidel
+ */
+public class PushHttpClientTest {
+
+    /** The timeout in milliseconds for reading a response in the tests. */
+    private static final int READ_TIMEOUT = 500;
+
+    /** The local HTTP server. */
+    private HttpServer server;
+
+    /** Executes the exchanges of the local HTTP server. */
+    private ExecutorService serverExecutor;
+
+    /** The remote addresses of the connections which have been used by the client. */
+    private final Set<InetSocketAddress> connections = ConcurrentHashMap.newKeySet();
+
+    /** The bodies of the received requests. */
+    private final List<String> requestBodies = new CopyOnWriteArrayList<String>();
+
+    /** The PushHttpClient under test. */
+    private PushHttpClient httpClient;
+
+    @Before
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/ok", exchange -> respond(exchange, 200, "{\"success\":1}"));
+        server.createContext("/error", exchange -> respond(exchange, 503, "Unavailable"));
+        server.createContext("/slow", exchange -> {
+            try {
+                Thread.sleep(READ_TIMEOUT * 4);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            respond(exchange, 200, "Late");
+        });
+        serverExecutor = Executors.newCachedThreadPool();
+        server.setExecutor(serverExecutor);
+        server.start();
+        httpClient = new PushHttpClient(PushHttpClient.DEFAULT_CONNECT_TIMEOUT, READ_TIMEOUT);
+    }
+
+    @After
+    public void tearDown() {
+        server.stop(0);
+        serverExecutor.shutdownNow();
+    }
+
+    @Test
+    public void postReturnsStatusBodyAndHeaders() throws IOException {
+        Map<String, String> headers = new HashMap<String, String>();
+        headers.put("Content-Type", "application/json");
+        headers.put("X-Test", "value");
+        PushHttpClient.Response response = httpClient.post(url("/ok"), headers, "{\"data\":\"\u00e4\"}");
+        assertEquals(200, response.getStatusCode());
+        assertEquals("{\"success\":1}", response.getBody());
+        assertEquals("value", response.getHeader("x-test-echo"));
+        assertNull(response.getHeader("X-Missing"));
+        assertEquals(Collections.singletonList("{\"data\":\"\u00e4\"}"), requestBodies);
+    }
+
+    @Test
+    public void postReturnsErrorStatusAndBody() throws IOException {
+        PushHttpClient.Response response = httpClient.post(url("/error"), Collections.<String, String>emptyMap(),
+                "content");
+        assertEquals(503, response.getStatusCode());
+        assertEquals("Unavailable", response.getBody());
+    }
+
+    @Test(expected = SocketTimeoutException.class)
+    public void postFailsWhenResponseTakesTooLong() throws IOException {
+        httpClient.post(url("/slow"), Collections.<String, String>emptyMap(), "content");
+    }
+
+    @Test
+    public void sequentialRequestsReuseTheConnection() throws IOException {
+        for (int i = 0; i < 3; i++) {
+            assertEquals(200, httpClient.post(url("/ok"), Collections.<String, String>emptyMap(), "ok " + i)
+                    .getStatusCode());
+            assertEquals(503, httpClient.post(url("/error"), Collections.<String, String>emptyMap(), "error " + i)
+                    .getStatusCode());
+        }
+        assertEquals(6, requestBodies.size());
+        assertEquals(1, connections.size());
+    }
+
+    /**
+     * Records the request and sends a response with the given status and body. The response echoes the X-Test
+     * header of the request.
+     *
+     * @param exchange The exchange of the request.
+     * @param statusCode The status code of the response.
+     * @param body The body of the response.
+     * @throws IOException If the response couldn't be sent.
+     */
+    private void respond(HttpExchange exchange, int statusCode, String body) throws IOException {
+        connections.add(exchange.getRemoteAddress());
+        requestBodies.add(IOUtils.toString(exchange.getRequestBody(), StandardCharsets.UTF_8));
+        String echo = exchange.getRequestHeaders().getFirst("X-Test");
+        if (echo != null) {
+            exchange.getResponseHeaders().add("X-Test-Echo", echo);
+        }
+        byte[] content = body.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(statusCode, content.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(content);
+        }
+    }
+
+    /**
+     * Creates the URL of the given path on the local HTTP server.
+     *
+     * @param path The path of the URL.
+     * @return The URL.
+     * @throws IOException If the URL is malformed.
+     */
+    private URL url(String path) throws IOException {
+        return new URL("http", "127.0.0.1", server.getAddress().getPort(), path);
+    }
+}